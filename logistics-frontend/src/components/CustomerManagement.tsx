@@ -1,4 +1,4 @@
-import React, { useState, useEffect } from 'react';
+import React, { useState, useEffect, useRef } from 'react';
 import {
   Box,
   Button,
@@ -19,7 +19,10 @@ import {
 } from '@mui/icons-material';
 import { DataGrid, GridColDef, GridActionsCellItem } from '@mui/x-data-grid';
 import { Edit as EditIcon, Delete as DeleteIcon } from '@mui/icons-material';
-import { customerApi, Customer } from '../services/api';
+import { customerApi, Customer, changesApi, applyChange, ChangeSubscription } from '../services/api';
+
+// 每次获取的条数（后续数据通过「さらに読み込む」按钮按游标获取）
+const PAGE_SIZE = 100;
 
 const CustomerManagement: React.FC = () => {
   const [customers, setCustomers] = useState<Customer[]>([]);
@@ -27,6 +30,10 @@ const CustomerManagement: React.FC = () => {
   const [open, setOpen] = useState(false);
   const [editingCustomer, setEditingCustomer] = useState<Customer | null>(null);
   const [searchTerm, setSearchTerm] = useState('');
+  const [appliedTerm, setAppliedTerm] = useState('');
+  const appliedTermRef = useRef('');
+  const changesRef = useRef<ChangeSubscription | null>(null);
+  const [nextCursor, setNextCursor] = useState<string | null>(null);
   const [snackbar, setSnackbar] = useState({ open: false, message: '', severity: 'success' as 'success' | 'error' });
 
   const [formData, setFormData] = useState({
@@ -38,37 +45,35 @@ const CustomerManagement: React.FC = () => {
 
   useEffect(() => {
     fetchCustomers();
+    // 通过变更推送增量更新列表（也反映其他用户的修改；未在搜索时新增的记录插入到开头）
+    const subscription = changesApi.subscribe<Customer>('CUSTOMER',
+      change => setCustomers(prev => applyChange(prev, change, item => item.customerId, !appliedTermRef.current)),
+      () => fetchCustomers(appliedTermRef.current));
+    changesRef.current = subscription;
+    return subscription.close;
   }, []);
 
-  const fetchCustomers = async () => {
+  const fetchCustomers = async (term: string = '', after?: string) => {
     try {
       setLoading(true);
-      const response = await customerApi.getAll();
-      setCustomers(response.data);
+      const response = term
+        ? await customerApi.search(term, PAGE_SIZE, after)
+        : await customerApi.getAll(PAGE_SIZE, after);
+      const page = response.data;
+      setCustomers(prev => (after ? [...prev, ...page.content] : page.content));
+      setNextCursor(page.nextCursor ?? null);
+      setAppliedTerm(term);
+      appliedTermRef.current = term;
     } catch (error) {
       console.error('Failed to fetch customers:', error);
-      showSnackbar('顧客データの取得に失敗しました', 'error');
+      showSnackbar(term ? '顧客検索に失敗しました' : '顧客データの取得に失敗しました', 'error');
     } finally {
       setLoading(false);
     }
   };
 
-  const handleSearch = async () => {
-    if (!searchTerm.trim()) {
-      fetchCustomers();
-      return;
-    }
-
-    try {
-      setLoading(true);
-      const response = await customerApi.search(searchTerm);
-      setCustomers(response.data);
-    } catch (error) {
-      console.error('Failed to search customers:', error);
-      showSnackbar('顧客検索に失敗しました', 'error');
-    } finally {
-      setLoading(false);
-    }
+  const handleSearch = () => {
+    fetchCustomers(searchTerm.trim());
   };
 
   const handleOpenDialog = (customer?: Customer) => {
@@ -113,7 +118,10 @@ const CustomerManagement: React.FC = () => {
         showSnackbar('顧客を作成しました', 'success');
       }
       handleCloseDialog();
-      fetchCustomers();
+      // 推送不可用时重新获取列表来反映自己的修改
+      if (!changesRef.current?.isLive()) {
+        fetchCustomers(appliedTerm);
+      }
     } catch (error) {
       console.error('Failed to save customer:', error);
       showSnackbar('顧客の保存に失敗しました', 'error');
@@ -125,7 +133,10 @@ const CustomerManagement: React.FC = () => {
       try {
         await customerApi.delete(id);
         showSnackbar('顧客を削除しました', 'success');
-        fetchCustomers();
+        // 推送不可用时重新获取列表来反映自己的修改
+        if (!changesRef.current?.isLive()) {
+          fetchCustomers(appliedTerm);
+        }
       } catch (error) {
         console.error('Failed to delete customer:', error);
         showSnackbar('顧客の削除に失敗しました', 'error');
@@ -240,6 +251,18 @@ const CustomerManagement: React.FC = () => {
         />
       </Paper>
 
+      {nextCursor && (
+        <Box sx={{ display: 'flex', justifyContent: 'center', mt: 2 }}>
+          <Button
+            variant="outlined"
+            disabled={loading}
+            onClick={() => fetchCustomers(appliedTerm, nextCursor)}
+          >
+            さらに読み込む
+          </Button>
+        </Box>
+      )}
+
       <Dialog open={open} onClose={handleCloseDialog} maxWidth="sm" fullWidth>
         <DialogTitle>
           {editingCustomer ? '顧客編集' : '新規顧客'}
@@ -20,7 +20,7 @@ import {
   LocationOn as LocationIcon,
   TrendingUp as TrendingUpIcon,
 } from '@mui/icons-material';
-import { productApi, customerApi, locationApi, Product, Customer, Location } from '../services/api';
+import { dashboardApi, Product, Customer } from '../services/api';
 
 const Dashboard: React.FC = () => {
   const [stats, setStats] = useState({
@@ -35,20 +35,17 @@ const Dashboard: React.FC = () => {
   useEffect(() => {
     const fetchData = async () => {
       try {
-        const [productsRes, customersRes, locationsRes] = await Promise.all([
-          productApi.getWithPagination(0, 1000), // 获取大量数据用于统计
-          customerApi.getAll(),
-          locationApi.getAll(),
-        ]);
+        // 条数和最近的数据已在服务器端汇总
+        const summary = (await dashboardApi.getSummary(5)).data;
 
         setStats({
-          totalProducts: productsRes.data.totalElements,
-          totalCustomers: customersRes.data.length,
-          totalLocations: locationsRes.data.length,
+          totalProducts: summary.productCount,
+          totalCustomers: summary.customerCount,
+          totalLocations: summary.locationCount,
         });
 
-        setRecentProducts(productsRes.data.content.slice(0, 5));
-        setRecentCustomers(customersRes.data.slice(0, 5));
+        setRecentProducts(summary.recentProducts);
+        setRecentCustomers(summary.recentCustomers);
       } catch (error) {
         console.error('Failed to fetch dashboard data:', error);
       } finally {
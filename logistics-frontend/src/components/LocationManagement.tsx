@@ -1,4 +1,4 @@
-import React, { useState, useEffect } from 'react';
+import React, { useState, useEffect, useRef } from 'react';
 import {
   Box,
   Button,
@@ -20,7 +20,10 @@ import {
 } from '@mui/icons-material';
 import { DataGrid, GridColDef, GridActionsCellItem } from '@mui/x-data-grid';
 import { Edit as EditIcon, Delete as DeleteIcon } from '@mui/icons-material';
-import { locationApi, Location } from '../services/api';
+import { locationApi, Location, changesApi, applyChange, ChangeSubscription } from '../services/api';
+
+// 每次获取的条数（后续数据通过「さらに読み込む」按钮按游标获取）
+const PAGE_SIZE = 100;
 
 const LocationManagement: React.FC = () => {
   const [locations, setLocations] = useState<Location[]>([]);
@@ -28,6 +31,10 @@ const LocationManagement: React.FC = () => {
   const [open, setOpen] = useState(false);
   const [editingLocation, setEditingLocation] = useState<Location | null>(null);
   const [searchTerm, setSearchTerm] = useState('');
+  const [appliedTerm, setAppliedTerm] = useState('');
+  const appliedTermRef = useRef('');
+  const changesRef = useRef<ChangeSubscription | null>(null);
+  const [nextCursor, setNextCursor] = useState<string | null>(null);
   const [snackbar, setSnackbar] = useState({ open: false, message: '', severity: 'success' as 'success' | 'error' });
 
   const [formData, setFormData] = useState({
@@ -42,37 +49,35 @@ const LocationManagement: React.FC = () => {
 
   useEffect(() => {
     fetchLocations();
+    // 通过变更推送增量更新列表（也反映其他用户的修改；未在搜索时新增的记录插入到开头）
+    const subscription = changesApi.subscribe<Location>('LOCATION',
+      change => setLocations(prev => applyChange(prev, change, item => item.locationId, !appliedTermRef.current)),
+      () => fetchLocations(appliedTermRef.current));
+    changesRef.current = subscription;
+    return subscription.close;
   }, []);
 
-  const fetchLocations = async () => {
+  const fetchLocations = async (term: string = '', after?: string) => {
     try {
       setLoading(true);
-      const response = await locationApi.getAll();
-      setLocations(response.data);
+      const response = term
+        ? await locationApi.search(term, PAGE_SIZE, after)
+        : await locationApi.getAll(PAGE_SIZE, after);
+      const page = response.data;
+      setLocations(prev => (after ? [...prev, ...page.content] : page.content));
+      setNextCursor(page.nextCursor ?? null);
+      setAppliedTerm(term);
+      appliedTermRef.current = term;
     } catch (error) {
       console.error('Failed to fetch locations:', error);
-      showSnackbar('位置データの取得に失敗しました', 'error');
+      showSnackbar(term ? '位置検索に失敗しました' : '位置データの取得に失敗しました', 'error');
     } finally {
       setLoading(false);
     }
   };
 
-  const handleSearch = async () => {
-    if (!searchTerm.trim()) {
-      fetchLocations();
-      return;
-    }
-
-    try {
-      setLoading(true);
-      const response = await locationApi.search(searchTerm);
-      setLocations(response.data);
-    } catch (error) {
-      console.error('Failed to search locations:', error);
-      showSnackbar('位置検索に失敗しました', 'error');
-    } finally {
-      setLoading(false);
-    }
+  const handleSearch = () => {
+    fetchLocations(searchTerm.trim());
   };
 
   const handleOpenDialog = (location?: Location) => {
@@ -126,7 +131,10 @@ const LocationManagement: React.FC = () => {
         showSnackbar('位置を作成しました', 'success');
       }
       handleCloseDialog();
-      fetchLocations();
+      // 推送不可用时重新获取列表来反映自己的修改
+      if (!changesRef.current?.isLive()) {
+        fetchLocations(appliedTerm);
+      }
     } catch (error) {
       console.error('Failed to save location:', error);
       showSnackbar('位置の保存に失敗しました', 'error');
@@ -138,7 +146,10 @@ const LocationManagement: React.FC = () => {
       try {
         await locationApi.delete(id);
         showSnackbar('位置を削除しました', 'success');
-        fetchLocations();
+        // 推送不可用时重新获取列表来反映自己的修改
+        if (!changesRef.current?.isLive()) {
+          fetchLocations(appliedTerm);
+        }
       } catch (error) {
         console.error('Failed to delete location:', error);
         showSnackbar('位置の削除に失敗しました', 'error');
@@ -267,6 +278,18 @@ const LocationManagement: React.FC = () => {
         />
       </Paper>
 
+      {nextCursor && (
+        <Box sx={{ display: 'flex', justifyContent: 'center', mt: 2 }}>
+          <Button
+            variant="outlined"
+            disabled={loading}
+            onClick={() => fetchLocations(appliedTerm, nextCursor)}
+          >
+            さらに読み込む
+          </Button>
+        </Box>
+      )}
+
       <Dialog open={open} onClose={handleCloseDialog} maxWidth="sm" fullWidth>
         <DialogTitle>
           {editingLocation ? '位置編集' : '新規位置'}
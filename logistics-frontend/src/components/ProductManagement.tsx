@@ -1,4 +1,4 @@
-import React, { useState, useEffect } from 'react';
+import React, { useState, useEffect, useRef } from 'react';
 import {
   Box,
   Button,
@@ -21,7 +21,7 @@ import {
   Search as SearchIcon,
 } from '@mui/icons-material';
 import { DataGrid, GridColDef, GridActionsCellItem } from '@mui/x-data-grid';
-import { productApi, Product, PageResponse } from '../services/api';
+import { productApi, Product, PageResponse, changesApi, applyChange, ChangeSubscription } from '../services/api';
 
 const ProductManagement: React.FC = () => {
   const [products, setProducts] = useState<Product[]>([]);
@@ -47,13 +47,30 @@ const ProductManagement: React.FC = () => {
     safetyStock: 0,
   });
 
+  // 当前显示的分页条件（供变更推送的处理函数读取）
+  const queryRef = useRef<{ page: number; pageSize: number; keyword?: string }>({ page: 0, pageSize: 10 });
+  const changesRef = useRef<ChangeSubscription | null>(null);
+
   useEffect(() => {
     fetchProducts();
+    // 通过变更推送增量更新当前页（新增记录仅在未筛选的第一页插入到开头，并增减总数）
+    const subscription = changesApi.subscribe<Product>('PRODUCT',
+      change => {
+        const { page, pageSize, keyword } = queryRef.current;
+        setProducts(prev => applyChange(prev, change, item => item.productId, page === 0 && !keyword).slice(0, pageSize));
+        if (!keyword && change.changeType !== 'UPDATED') {
+          setPagination(prev => ({ ...prev, total: Math.max(0, prev.total + (change.changeType === 'CREATED' ? 1 : -1)) }));
+        }
+      },
+      () => fetchProducts(queryRef.current.page, queryRef.current.pageSize, queryRef.current.keyword));
+    changesRef.current = subscription;
+    return subscription.close;
   }, []);
 
   const fetchProducts = async (page: number = pagination.page, pageSize: number = pagination.pageSize, keyword?: string) => {
     try {
       setLoading(true);
+      queryRef.current = { page, pageSize, keyword };
       const response = await productApi.getWithPagination(page, pageSize, 'createdAt', 'DESC', keyword);
       const pageData = response.data;
       setProducts(pageData.content);
@@ -120,7 +137,10 @@ const ProductManagement: React.FC = () => {
         showSnackbar('商品を作成しました', 'success');
       }
       handleCloseDialog();
-      fetchProducts(pagination.page, pagination.pageSize, searchTerm.trim() || undefined);
+      // 推送不可用时重新获取列表来反映自己的修改
+      if (!changesRef.current?.isLive()) {
+        fetchProducts(pagination.page, pagination.pageSize, searchTerm.trim() || undefined);
+      }
     } catch (error) {
       console.error('Failed to save product:', error);
       showSnackbar('商品の保存に失敗しました', 'error');
@@ -132,7 +152,10 @@ const ProductManagement: React.FC = () => {
       try {
         await productApi.delete(id);
         showSnackbar('商品を削除しました', 'success');
-        fetchProducts(pagination.page, pagination.pageSize, searchTerm.trim() || undefined);
+        // 推送不可用时重新获取列表来反映自己的修改
+        if (!changesRef.current?.isLive()) {
+          fetchProducts(pagination.page, pagination.pageSize, searchTerm.trim() || undefined);
+        }
       } catch (error) {
         console.error('Failed to delete product:', error);
         showSnackbar('商品の削除に失敗しました', 'error');
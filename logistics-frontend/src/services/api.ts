@@ -34,6 +34,7 @@ export interface PageResponse<T> {
   hasPrevious: boolean;
   isFirst: boolean;
   isLast: boolean;
+  nextCursor?: string;
 }
 
 export interface Product {
@@ -66,9 +67,18 @@ export interface Location {
   createdAt: string;
 }
 
+export interface DashboardSummary {
+  productCount: number;
+  customerCount: number;
+  locationCount: number;
+  recentProducts: Product[];
+  recentCustomers: Customer[];
+  recentLocations: Location[];
+  seededAt: string;
+}
+
 // 商品API
 export const productApi = {
-  getAll: (): Promise<ApiResponse<Product[]>> => api.get('/products').then(res => res.data),
   getWithPagination: (page: number = 0, size: number = 10, sortBy: string = 'createdAt', sortDir: string = 'DESC', keyword?: string): Promise<ApiResponse<PageResponse<Product>>> => {
     const params = new URLSearchParams({
       page: page.toString(),
@@ -82,7 +92,8 @@ export const productApi = {
     return api.get(`/products?${params.toString()}`).then(res => res.data);
   },
   getById: (id: string): Promise<ApiResponse<Product>> => api.get(`/products/${id}`).then(res => res.data),
-  search: (name: string): Promise<ApiResponse<Product[]>> => api.get(`/products/search?name=${encodeURIComponent(name)}`).then(res => res.data),
+  search: (name: string, size: number = 20, after?: string): Promise<ApiResponse<PageResponse<Product>>> =>
+    api.get('/products/search', { params: { name, size, after } }).then(res => res.data),
   create: (product: Omit<Product, 'createdAt' | 'updatedAt'>): Promise<ApiResponse<Product>> => api.post('/products', product).then(res => res.data),
   update: (id: string, product: Omit<Product, 'productId' | 'createdAt' | 'updatedAt'>): Promise<ApiResponse<Product>> => api.put(`/products/${id}`, product).then(res => res.data),
   delete: (id: string): Promise<ApiResponse<null>> => api.delete(`/products/${id}`).then(res => res.data),
@@ -90,9 +101,11 @@ export const productApi = {
 
 // 客户API
 export const customerApi = {
-  getAll: (): Promise<ApiResponse<Customer[]>> => api.get('/customers').then(res => res.data),
+  getAll: (size: number = 20, after?: string): Promise<ApiResponse<PageResponse<Customer>>> =>
+    api.get('/customers', { params: { size, after } }).then(res => res.data),
   getById: (id: string): Promise<ApiResponse<Customer>> => api.get(`/customers/${id}`).then(res => res.data),
-  search: (name: string): Promise<ApiResponse<Customer[]>> => api.get(`/customers/search?name=${encodeURIComponent(name)}`).then(res => res.data),
+  search: (name: string, size: number = 20, after?: string): Promise<ApiResponse<PageResponse<Customer>>> =>
+    api.get('/customers/search', { params: { name, size, after } }).then(res => res.data),
   create: (customer: Omit<Customer, 'createdAt' | 'updatedAt'>): Promise<ApiResponse<Customer>> => api.post('/customers', customer).then(res => res.data),
   update: (id: string, customer: Omit<Customer, 'customerId' | 'createdAt' | 'updatedAt'>): Promise<ApiResponse<Customer>> => api.put(`/customers/${id}`, customer).then(res => res.data),
   delete: (id: string): Promise<ApiResponse<null>> => api.delete(`/customers/${id}`).then(res => res.data),
@@ -100,12 +113,100 @@ export const customerApi = {
 
 // 位置API
 export const locationApi = {
-  getAll: (): Promise<ApiResponse<Location[]>> => api.get('/locations').then(res => res.data),
+  getAll: (size: number = 20, after?: string): Promise<ApiResponse<PageResponse<Location>>> =>
+    api.get('/locations', { params: { size, after } }).then(res => res.data),
   getById: (id: string): Promise<ApiResponse<Location>> => api.get(`/locations/${id}`).then(res => res.data),
-  search: (warehouseCode: string): Promise<ApiResponse<Location[]>> => api.get(`/locations/search?warehouseCode=${encodeURIComponent(warehouseCode)}`).then(res => res.data),
+  search: (warehouseCode: string, size: number = 20, after?: string): Promise<ApiResponse<PageResponse<Location>>> =>
+    api.get(`/locations/warehouse/${encodeURIComponent(warehouseCode)}`, { params: { size, after } }).then(res => res.data),
   create: (location: Omit<Location, 'createdAt'>): Promise<ApiResponse<Location>> => api.post('/locations', location).then(res => res.data),
   update: (id: string, location: Omit<Location, 'locationId' | 'createdAt'>): Promise<ApiResponse<Location>> => api.put(`/locations/${id}`, location).then(res => res.data),
   delete: (id: string): Promise<ApiResponse<null>> => api.delete(`/locations/${id}`).then(res => res.data),
 };
 
+// 主数据变更推送
+export interface MasterDataChange<T> {
+  masterType: 'PRODUCT' | 'CUSTOMER' | 'LOCATION';
+  changeType: 'CREATED' | 'UPDATED' | 'DELETED';
+  id: string;
+  entity?: T;
+}
+
+// 变更订阅（close取消订阅；isLive为false时推送不可用，自己的修改需要由调用方重新获取列表来反映）
+export interface ChangeSubscription {
+  close: () => void;
+  isLive: () => boolean;
+}
+
+export const changesApi = {
+  // 订阅变更（EventSource断线后自动重连，并通过Last-Event-ID从断点续传；服务端无法续传时触发onReset，需要重新获取列表）
+  // 服务端返回503等非200响应时EventSource会永久关闭，此时按退避间隔重新订阅，并从最后收到的事件ID续传
+  subscribe: <T>(masterType: MasterDataChange<T>['masterType'], onChange: (change: MasterDataChange<T>) => void, onReset: () => void): ChangeSubscription => {
+    let source: EventSource | null = null;
+    let lastEventId = '';
+    let missed = false;
+    let retryDelay = 1000;
+    let retryTimer: ReturnType<typeof setTimeout> | undefined;
+    let closed = false;
+    const received = (event: Event) => {
+      lastEventId = (event as MessageEvent).lastEventId || lastEventId;
+      retryDelay = 1000;
+    };
+    const connect = () => {
+      const resume = lastEventId ? `&lastEventId=${encodeURIComponent(lastEventId)}` : '';
+      const current = new EventSource(`${API_BASE_URL}/changes?types=${masterType}${resume}`);
+      source = current;
+      current.addEventListener('ready', (event) => {
+        received(event);
+        // 首次连接前就已断开过：期间的变更无法续传，重新获取列表
+        if (missed) {
+          missed = false;
+          onReset();
+        }
+      });
+      current.addEventListener('change', (event) => {
+        received(event);
+        onChange(JSON.parse((event as MessageEvent).data));
+      });
+      current.addEventListener('reset', (event) => {
+        received(event);
+        onReset();
+      });
+      current.onerror = () => {
+        if (current.readyState !== EventSource.CLOSED || closed) {
+          return;
+        }
+        missed = missed || !lastEventId;
+        retryTimer = setTimeout(connect, retryDelay);
+        retryDelay = Math.min(retryDelay * 2, 30000);
+      };
+    };
+    connect();
+    return {
+      close: () => {
+        closed = true;
+        clearTimeout(retryTimer);
+        source?.close();
+      },
+      isLive: () => source?.readyState === EventSource.OPEN,
+    };
+  },
+};
+
+// 将变更应用到本地列表（UPDATED替换，DELETED移除，CREATED仅在prepend为true时插入到开头）
+export const applyChange = <T>(list: T[], change: MasterDataChange<T>, idOf: (item: T) => string, prepend: boolean): T[] => {
+  const rest = list.filter(item => idOf(item) !== change.id);
+  if (change.changeType === 'DELETED' || !change.entity) {
+    return rest;
+  }
+  if (rest.length < list.length) {
+    return list.map(item => (idOf(item) === change.id ? change.entity! : item));
+  }
+  return change.changeType === 'CREATED' && prepend ? [change.entity, ...list] : list;
+};
+
+// 仪表盘API
+export const dashboardApi = {
+  getSummary: (recent: number = 5): Promise<ApiResponse<DashboardSummary>> => api.get(`/dashboard/summary?recent=${recent}`).then(res => res.data),
+};
+
 export default api;
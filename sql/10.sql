@@ -0,0 +1,18 @@
+-- ===========================================
+-- 在庫台帳の書き戻し（反映済みバッチの記録）用の変更
+-- Changes for the inventory ledger write-behind (record of applied batches)
+-- ===========================================
+
+-- 反映済みバッチ：差分のMERGEと同じトランザクションで登録し、コミット結果が不明な場合や
+-- 異常終了後のジャーナル再生で同じバッチを二重に反映しないための目印
+-- Applied batches: inserted in the same transaction as the delta MERGEs, so a batch whose commit outcome
+-- is unknown, or one replayed from the journal after a crash, is never applied twice
+CREATE TABLE INVENTORY_FLUSH (
+    FLUSH_ID NUMBER(19) PRIMARY KEY,
+    DELTA_COUNT NUMBER(10) NOT NULL,
+    APPLIED_AT TIMESTAMP NOT NULL
+);
+
+-- 保持期間を過ぎた記録を登録日時で削除する
+-- Records past the retention period are purged by their applied time
+CREATE INDEX IDX_INVENTORY_FLUSH_APPLIED ON INVENTORY_FLUSH (APPLIED_AT);
@@ -0,0 +1,17 @@
+-- ===========================================
+-- 顧客・ロケーションのキーセットページング用ソート列のNOT NULL化
+-- NOT NULL sort column for customer and location keyset pagination
+-- ===========================================
+
+-- 11.sqlの商品と同じ理由：CREATED_ATにNULLがあると「NULLS LAST」と「OR CREATED_AT IS NULL」が必要になり、
+-- 5.sqlのインデックスを順に読むだけではページを返せない。既存のNULLを埋めてからNOT NULLにする。
+-- Same reason as 11.sql for products: NULL CREATED_AT values force NULLS LAST ordering and an OR CREATED_AT IS NULL
+-- seek predicate, which the 5.sql indexes cannot serve as an ordered range scan. Backfill the NULLs, then forbid them.
+UPDATE CUSTOMER_MASTER SET CREATED_AT = NVL(UPDATED_AT, SYSDATE) WHERE CREATED_AT IS NULL;
+UPDATE LOCATION_MASTER SET CREATED_AT = SYSDATE WHERE CREATED_AT IS NULL;
+COMMIT;
+
+-- 11.sqlと同様、H2でも実行できるようにデータ型から書き直す
+-- As in 11.sql, the data type is restated so the script also runs on H2
+ALTER TABLE CUSTOMER_MASTER MODIFY (CREATED_AT DATE DEFAULT SYSDATE NOT NULL);
+ALTER TABLE LOCATION_MASTER MODIFY (CREATED_AT DATE DEFAULT SYSDATE NOT NULL);
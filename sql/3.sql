@@ -0,0 +1,10 @@
+-- ===========================================
+-- キーセットページング用インデックス
+-- Indexes for keyset pagination
+-- ===========================================
+
+-- ソートキー＋主キーの複合インデックス：カーソル位置からの範囲スキャンに使用
+-- Composite sort key + primary key indexes: used for range scans from the cursor position
+CREATE INDEX IDX_PRODUCT_CREATED_ID ON PRODUCT_MASTER (CREATED_AT, PRODUCT_ID);
+CREATE INDEX IDX_PRODUCT_NAME_ID ON PRODUCT_MASTER (PRODUCT_NAME, PRODUCT_ID);
+CREATE INDEX IDX_PRODUCT_SAFETY_ID ON PRODUCT_MASTER (SAFETY_STOCK, PRODUCT_ID);
@@ -0,0 +1,8 @@
+-- ===========================================
+-- 在庫テーブル用インデックス
+-- Indexes for the inventory table
+-- ===========================================
+
+-- 商品×ロケーションの一意制約：在庫差分のMERGEで1行に特定するために使用
+-- Unique product + location constraint: lets the inventory delta MERGE target exactly one row
+CREATE UNIQUE INDEX UX_INVENTORY_PRODUCT_LOCATION ON INVENTORY (PRODUCT_ID, LOCATION_ID);
@@ -0,0 +1,14 @@
+-- ===========================================
+-- 顧客・ロケーションのキーセットページング用インデックス
+-- Indexes for customer and location keyset pagination
+-- ===========================================
+
+-- 登録日時＋主キーの複合インデックス：一覧・名前検索のカーソル位置からの範囲スキャンに使用
+-- Created-at + primary key indexes: range scans from the cursor position for lists and name searches
+CREATE INDEX IDX_CUSTOMER_CREATED_ID ON CUSTOMER_MASTER (CREATED_AT, CUSTOMER_ID);
+CREATE INDEX IDX_LOCATION_CREATED_ID ON LOCATION_MASTER (CREATED_AT, LOCATION_ID);
+
+-- 倉庫・ゾーンで絞り込んだ一覧用（等価条件＋ソートキー＋主キー）
+-- For lists filtered by warehouse or zone (equality column + sort key + primary key)
+CREATE INDEX IDX_LOCATION_WAREHOUSE_CREATED_ID ON LOCATION_MASTER (WAREHOUSE_CODE, CREATED_AT, LOCATION_ID);
+CREATE INDEX IDX_LOCATION_ZONE_CREATED_ID ON LOCATION_MASTER (ZONE, CREATED_AT, LOCATION_ID);
@@ -0,0 +1,16 @@
+-- ===========================================
+-- 採番シーケンスの刻み幅変更（IDのブロック割り当て用）
+-- Sequence increments for block ID allocation
+-- ===========================================
+
+-- アプリケーションはNEXTVALの1回の取得で「NEXTVAL-49〜NEXTVAL」の50件を予約し、メモリ上で払い出す
+-- 刻み幅はapp.id.block-sizeと一致させること（小さいと重複、大きいと欠番が増えるのみ）
+-- SQL内で直接NEXTVALを使う処理は取得した値のみを使用するため、予約範囲とは重ならない
+-- The application reserves NEXTVAL-49 to NEXTVAL (50 IDs) with one NEXTVAL call and hands them out from memory.
+-- Keep the increment equal to app.id.block-size (smaller causes duplicates; larger only leaves gaps).
+-- Statements that call NEXTVAL directly use only the value they get, so they never overlap a reserved block.
+ALTER SEQUENCE INCOMING_SEQ INCREMENT BY 50;
+ALTER SEQUENCE INVENTORY_SEQ INCREMENT BY 50;
+ALTER SEQUENCE SHIPMENT_SEQ INCREMENT BY 50;
+ALTER SEQUENCE STOCKTAKE_SEQ INCREMENT BY 50;
+ALTER SEQUENCE LOG_SEQ INCREMENT BY 50;
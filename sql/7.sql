@@ -0,0 +1,26 @@
+-- ===========================================
+-- 出荷引当（ウェーブ引当）用の変更
+-- Changes for shipment (wave) allocation
+-- ===========================================
+
+-- 引当済み数量と引当完了ステータス：一部のみ引当できた行はPENDINGのまま残り、次のウェーブで残数を引き当てる
+-- Allocated quantity and an allocated status: partly allocated lines stay PENDING and the next wave allocates the rest
+ALTER TABLE SHIPMENT_RECORD ADD ALLOCATED_QTY NUMBER DEFAULT 0 NOT NULL;
+ALTER TABLE SHIPMENT_RECORD DROP CONSTRAINT CHK_SHIPMENT_STATUS;
+ALTER TABLE SHIPMENT_RECORD ADD CONSTRAINT CHK_SHIPMENT_STATUS CHECK (STATUS IN ('PENDING', 'ALLOCATED', 'SHIPPED'));
+
+-- 引当対象の読み込み用（ステータスで絞り込み、商品→登録順に並べる）
+-- For loading allocation candidates (filtered by status, ordered by product then creation)
+CREATE INDEX IDX_SHIPMENT_STATUS_PRODUCT ON SHIPMENT_RECORD (STATUS, PRODUCT_ID, CREATED_AT, RECORD_ID);
+
+-- 出荷引当表：出荷行ごと・ロケーションごとの引当数量
+-- Shipment allocation table: allocated quantity per shipment line and location
+CREATE TABLE SHIPMENT_ALLOCATION (
+    RECORD_ID NUMBER NOT NULL,
+    LOCATION_ID VARCHAR2(20) NOT NULL,
+    ALLOCATED_QTY NUMBER NOT NULL,
+    ALLOCATED_AT TIMESTAMP DEFAULT SYSTIMESTAMP,
+    CONSTRAINT PK_SHIPMENT_ALLOCATION PRIMARY KEY (RECORD_ID, LOCATION_ID),
+    CONSTRAINT FK_ALLOCATION_SHIPMENT FOREIGN KEY (RECORD_ID) REFERENCES SHIPMENT_RECORD(RECORD_ID),
+    CONSTRAINT FK_ALLOCATION_LOCATION FOREIGN KEY (LOCATION_ID) REFERENCES LOCATION_MASTER(LOCATION_ID)
+);
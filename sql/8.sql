@@ -0,0 +1,8 @@
+-- ===========================================
+-- ASN入荷実績登録用のインデックス
+-- Index for ASN receipts
+-- ===========================================
+
+-- ASN番号で全明細を記録ID順に読み込む（入荷実績登録・ASN照会）
+-- Reads every line of an ASN in record ID order (receipts and ASN lookups)
+CREATE INDEX IDX_INCOMING_ASN ON INCOMING_RECORD (ASN_NO, RECORD_ID);
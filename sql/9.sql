@@ -0,0 +1,16 @@
+-- ===========================================
+-- 棚卸（差異計算・在庫調整）用の変更
+-- Changes for stocktakes (difference calculation and stock adjustment)
+-- ===========================================
+
+-- 棚卸番号：1回の棚卸の明細をまとめる（カウントの取込と完了処理の単位）
+-- Stocktake number: groups the lines of one stocktake (the unit for count uploads and completion)
+ALTER TABLE STOCKTAKE_RECORD ADD STOCKTAKE_NO VARCHAR2(20);
+
+-- 同じ棚卸で同じ棚番を数え直した場合は明細を上書きする（在庫調整が二重にならないように）
+-- A recount of the same bin in the same stocktake overwrites its line (so the adjustment is never applied twice)
+CREATE UNIQUE INDEX UX_STOCKTAKE_BIN ON STOCKTAKE_RECORD (STOCKTAKE_NO, PRODUCT_ID, LOCATION_ID);
+
+-- 完了処理で未完了の明細をID順に読み込む
+-- Completion reads the pending lines in ID order
+CREATE INDEX IDX_STOCKTAKE_STATUS ON STOCKTAKE_RECORD (STOCKTAKE_NO, STATUS, STOCKTAKE_ID);
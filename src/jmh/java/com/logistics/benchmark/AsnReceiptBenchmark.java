@@ -0,0 +1,132 @@
+package com.logistics.benchmark;
+
+import com.logistics.controller.dto.AsnReceiptRequest;
+import com.logistics.controller.dto.AsnReceiptResult;
+import com.logistics.entity.IncomingRecord;
+import com.logistics.entity.LocationMaster;
+import com.logistics.entity.ProductMaster;
+import com.logistics.mapper.IncomingRecordMapper;
+import com.logistics.service.IncomingService;
+import com.logistics.service.LocationMasterService;
+import com.logistics.service.ProductMasterService;
+import com.logistics.service.inventory.InventoryLedger;
+import com.logistics.service.support.BatchSqlSession;
+import com.logistics.service.support.IdAllocator;
+import com.logistics.service.support.IdAllocator.Sequence;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ASN一括入荷の処理時間
+ * ASN Bulk Receipt Latency
+ * 
+ * 毎回5,000明細（1,000商品×5明細、うち1割は差異あり）のASNを登録し、1回の入荷実績登録を計測する。
+ * 目標は1ASNあたり1秒未満。
+ * Each invocation registers an ASN of 5,000 lines (1,000 products x 5 lines, 10% with a discrepancy)
+ * and measures a single receipt. The target is under one second per ASN.
+ * 
+ * mvn -Pbenchmark verify -Djmh.args="AsnReceipt -rf json -rff target/jmh-result.json"
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AsnReceiptBenchmark {
+    
+    @Param({"5000"})
+    public int lines;
+    
+    @Param({"1000"})
+    public int products;
+    
+    private IncomingService incomingService;
+    
+    private BatchSqlSession batchSqlSession;
+    
+    private TransactionTemplate transactionTemplate;
+    
+    private IdAllocator idAllocator;
+    
+    private int asnCount;
+    
+    private String asnNo;
+    
+    private AsnReceiptRequest request;
+    
+    @Setup(Level.Trial)
+    public void seed(SpringState spring) throws InterruptedException {
+        incomingService = spring.bean(IncomingService.class);
+        batchSqlSession = spring.bean(BatchSqlSession.class);
+        transactionTemplate = spring.bean(TransactionTemplate.class);
+        idAllocator = spring.bean(IdAllocator.class);
+        
+        List<ProductMaster> batch = new ArrayList<>(products);
+        for (int i = 0; i < products; i++) {
+            batch.add(MasterServiceBenchmark.product(MasterServiceBenchmark.productId(i), "Receipt product " + i));
+        }
+        spring.bean(ProductMasterService.class).upsertProducts(batch);
+        spring.bean(LocationMasterService.class).createLocation(LocationMaster.builder()
+                .locationId("DOCK01")
+                .warehouseCode("W1")
+                .maxCapacity(1_000_000)
+                .build());
+        
+        InventoryLedger ledger = spring.bean(InventoryLedger.class);
+        for (int i = 0; i < 600 && !ledger.isLoaded(); i++) {
+            Thread.sleep(100);
+        }
+    }
+    
+    /**
+     * 入荷予定のASNを登録し、差異のある明細を入荷実績リクエストに積む
+     * Register a planned ASN and list its discrepant lines in the receipt request
+     */
+    @Setup(Level.Invocation)
+    public void prepareAsn() {
+        asnNo = String.format("ASN%08d", ++asnCount);
+        request = new AsnReceiptRequest("DOCK01", new ArrayList<>());
+        LocalDateTime now = LocalDateTime.now();
+        transactionTemplate.executeWithoutResult(status -> {
+            IncomingRecordMapper batchMapper = batchSqlSession.getMapper(IncomingRecordMapper.class);
+            for (int i = 0; i < lines; i++) {
+                long recordId = idAllocator.next(Sequence.INCOMING_SEQ);
+                batchMapper.insert(IncomingRecord.builder()
+                        .recordId(recordId)
+                        .asnNo(asnNo)
+                        .productId(MasterServiceBenchmark.productId(i % products))
+                        .planQty(10L)
+                        .arrivalDate(LocalDate.now())
+                        .createdAt(now)
+                        .build());
+                if (i % 10 == 0) {
+                    request.getLines().add(new AsnReceiptRequest.Line(recordId, 9L, "Short shipped", null));
+                }
+            }
+            batchSqlSession.flushStatements();
+        });
+    }
+    
+    @Benchmark
+    public AsnReceiptResult receiveAsn() {
+        return incomingService.receiveAsn(asnNo, request);
+    }
+}
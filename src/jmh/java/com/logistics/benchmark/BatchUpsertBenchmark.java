@@ -0,0 +1,69 @@
+package com.logistics.benchmark;
+
+import com.logistics.controller.dto.BatchUpsertResponse;
+import com.logistics.entity.ProductMaster;
+import com.logistics.service.ProductMasterService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 商品の1件ずつ登録と一括登録（JDBCバッチ）の比較
+ * Product Create One by One vs Bulk Upsert (JDBC batch)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BatchUpsertBenchmark {
+    
+    @Param({"1000"})
+    public int rows;
+    
+    private final AtomicLong sequence = new AtomicLong();
+    
+    private ProductMasterService productService;
+    
+    @Setup(Level.Trial)
+    public void setUp(SpringState spring) {
+        productService = spring.bean(ProductMasterService.class);
+    }
+    
+    @Benchmark
+    public int createOneByOne() {
+        List<ProductMaster> products = newProducts();
+        for (ProductMaster product : products) {
+            productService.createProduct(product);
+        }
+        return products.size();
+    }
+    
+    @Benchmark
+    public BatchUpsertResponse upsertBatch() {
+        return productService.upsertProducts(newProducts());
+    }
+    
+    private List<ProductMaster> newProducts() {
+        List<ProductMaster> products = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            products.add(MasterServiceBenchmark.product("U" + sequence.incrementAndGet(), "Batch product"));
+        }
+        return products;
+    }
+}
@@ -0,0 +1,98 @@
+package com.logistics.benchmark;
+
+import com.logistics.entity.OperationLog;
+import com.logistics.mapper.OperationLogMapper;
+import com.logistics.mapper.SequenceMapper;
+import com.logistics.service.support.BatchSqlSession;
+import com.logistics.service.support.IdAllocator;
+import com.logistics.service.support.IdAllocator.Sequence;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * ID採番方式別の一括登録（OPERATION_LOGへのJDBCバッチ）
+ * Bulk Insert by ID Allocation Strategy (JDBC batch into OPERATION_LOG)
+ * 
+ * nextvalPerRow：行ごとにNEXTVALを取得してから登録（1行1往復）
+ * allocator：IdAllocatorのブロックからメモリ上で採番して登録
+ * nextvalPerRow: one NEXTVAL round trip per row before the insert
+ * allocator: IDs handed out from IdAllocator's in-memory blocks
+ * 
+ * mvn -Pbenchmark verify -Djmh.args="IdAllocation -rf json -rff target/jmh-result.json"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class IdAllocationBenchmark {
+    
+    @Param({"1000"})
+    public int rows;
+    
+    private IdAllocator idAllocator;
+    
+    private SequenceMapper sequenceMapper;
+    
+    private BatchSqlSession batchSqlSession;
+    
+    private TransactionTemplate transactionTemplate;
+    
+    @Setup(Level.Trial)
+    public void setUp(SpringState spring) {
+        idAllocator = spring.bean(IdAllocator.class);
+        sequenceMapper = spring.bean(SequenceMapper.class);
+        batchSqlSession = spring.bean(BatchSqlSession.class);
+        transactionTemplate = spring.bean(TransactionTemplate.class);
+    }
+    
+    @Benchmark
+    public int nextvalPerRow() {
+        return insert(() -> sequenceMapper.nextVal(Sequence.LOG_SEQ.name()));
+    }
+    
+    @Benchmark
+    public int allocator() {
+        return insert(() -> idAllocator.next(Sequence.LOG_SEQ));
+    }
+    
+    private int insert(LongSupplier ids) {
+        LocalDateTime now = LocalDateTime.now();
+        List<OperationLog> logs = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            logs.add(OperationLog.builder()
+                    .logId(ids.getAsLong())
+                    .operationType("ADJUSTED")
+                    .tableName("INVENTORY")
+                    .recordId("P" + i + "/L" + i)
+                    .oldValue("{\"quantity\":" + i + "}")
+                    .newValue("{\"quantity\":" + (i + 1) + "}")
+                    .operationTime(now)
+                    .build());
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            OperationLogMapper batchMapper = batchSqlSession.getMapper(OperationLogMapper.class);
+            logs.forEach(batchMapper::insert);
+            batchSqlSession.flushStatements();
+        });
+        return logs.size();
+    }
+}
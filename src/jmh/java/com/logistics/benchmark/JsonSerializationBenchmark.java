@@ -0,0 +1,72 @@
+package com.logistics.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.logistics.controller.dto.ApiResponse;
+import com.logistics.controller.dto.PageResponse;
+import com.logistics.entity.ProductMaster;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 商品一覧レスポンスのJSONシリアライズ
+ * JSON Serialization of the Product Page Response
+ * 
+ * Spring MVCと同じ設定のObjectMapperでApiResponse&lt;PageResponse&lt;ProductMaster&gt;&gt;を書き出す
+ * Writes ApiResponse&lt;PageResponse&lt;ProductMaster&gt;&gt; with an ObjectMapper configured like Spring MVC's
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JsonSerializationBenchmark {
+    
+    @Param({"20", "100"})
+    public int pageSize;
+    
+    private ObjectMapper objectMapper;
+    
+    private ApiResponse<PageResponse<ProductMaster>> response;
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        List<ProductMaster> content = new ArrayList<>(pageSize);
+        for (int i = 0; i < pageSize; i++) {
+            ProductMaster product = MasterServiceBenchmark.product(MasterServiceBenchmark.productId(i), "センサー Motor " + i);
+            product.setSpecification("規格 " + i);
+            content.add(product);
+        }
+        response = ApiResponse.success(PageResponse.<ProductMaster>builder()
+                .content(content)
+                .page(0)
+                .size(pageSize)
+                .totalPages(500)
+                .totalElements(500L * pageSize)
+                .hasNext(true)
+                .isFirst(true)
+                .build());
+    }
+    
+    @Benchmark
+    public byte[] serializePage() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(response);
+    }
+}
@@ -0,0 +1,230 @@
+package com.logistics.benchmark;
+
+import com.logistics.controller.dto.PageCursor;
+import com.logistics.controller.dto.PageRequest;
+import com.logistics.controller.dto.PageResponse;
+import com.logistics.entity.CustomerMaster;
+import com.logistics.entity.LocationMaster;
+import com.logistics.entity.ProductMaster;
+import com.logistics.mapper.ProductMasterMapper;
+import com.logistics.service.CustomerMasterService;
+import com.logistics.service.LocationMasterService;
+import com.logistics.service.ProductMasterService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * マスタサービスのホットパスのベンチマーク
+ * Benchmarks for Master Service Hot Paths
+ * 
+ * 商品・顧客・ロケーションのID検索、深いオフセット／キーセットのページング、キーワード検索、登録、更新を計測する
+ * Measures lookups by ID, deep-offset and keyset paging, keyword search, create and update for products,
+ * customers and locations
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MasterServiceBenchmark {
+    
+    static final String[] WORDS = {
+            "ボルト", "ナット", "ワッシャー", "ケーブル", "コネクタ", "スイッチ", "センサー", "モーター",
+            "Bolt", "Nut", "Cable", "Switch", "Sensor", "Motor", "Steel", "Copper"
+    };
+    
+    private static final int PAGE_SIZE = 20;
+    
+    @Param({"100000"})
+    public int products;
+    
+    @Param({"10000"})
+    public int customersAndLocations;
+    
+    private final AtomicLong sequence = new AtomicLong();
+    
+    private String deepCursor;
+    
+    private ProductMasterService productService;
+    
+    private ProductMasterMapper productMapper;
+    
+    private CustomerMasterService customerService;
+    
+    private LocationMasterService locationService;
+    
+    @Setup(Level.Trial)
+    public void seed(SpringState spring) throws InterruptedException {
+        productService = spring.bean(ProductMasterService.class);
+        productMapper = spring.bean(ProductMasterMapper.class);
+        customerService = spring.bean(CustomerMasterService.class);
+        locationService = spring.bean(LocationMasterService.class);
+        
+        Random random = new Random(42);
+        List<ProductMaster> batch = new ArrayList<>();
+        for (int i = 0; i < products; i++) {
+            batch.add(product(productId(i), WORDS[random.nextInt(WORDS.length)] + " "
+                    + WORDS[random.nextInt(WORDS.length)] + " " + random.nextInt(1000)));
+            if (batch.size() == 10_000) {
+                productService.upsertProducts(batch);
+                batch = new ArrayList<>();
+            }
+        }
+        if (!batch.isEmpty()) {
+            productService.upsertProducts(batch);
+        }
+        for (int i = 0; i < customersAndLocations; i++) {
+            customerService.createCustomer(customer(String.format("C%07d", i)));
+            locationService.createLocation(location(String.format("L%07d", i)));
+        }
+        spring.awaitSearchIndex();
+        
+        // productListDeepOffsetと同じ深さまでページングしたクライアントが持つカーソル
+        List<ProductMaster> previous = productService.getProductsWithPagination(pageRequest(products / PAGE_SIZE - 2)).getContent();
+        ProductMaster last = previous.get(previous.size() - 1);
+        deepCursor = new PageCursor("createdAt", "DESC", last.getCreatedAt(), last.getProductId()).encode();
+    }
+    
+    @Benchmark
+    public ProductMaster productFindById() {
+        return productService.getProductById(productId(ThreadLocalRandom.current().nextInt(products)));
+    }
+    
+    @Benchmark
+    public CustomerMaster customerFindById() {
+        return customerService.getCustomerById(String.format("C%07d", ThreadLocalRandom.current().nextInt(customersAndLocations)));
+    }
+    
+    @Benchmark
+    public LocationMaster locationFindById() {
+        return locationService.getLocationById(String.format("L%07d", ThreadLocalRandom.current().nextInt(customersAndLocations)));
+    }
+    
+    @Benchmark
+    public PageResponse<ProductMaster> productListFirstPage() {
+        return productService.getProductsWithPagination(pageRequest(0));
+    }
+    
+    @Benchmark
+    public PageResponse<ProductMaster> productListDeepOffset() {
+        return productService.getProductsWithPagination(pageRequest(products / PAGE_SIZE - 1));
+    }
+    
+    @Benchmark
+    public PageResponse<ProductMaster> productListDeepCursor() {
+        PageRequest request = pageRequest(0);
+        request.setAfter(deepCursor);
+        return productService.getProductsWithPagination(request);
+    }
+    
+    @Benchmark
+    public PageResponse<ProductMaster> productKeywordPage() {
+        PageRequest request = pageRequest(0);
+        request.setKeyword("センサー");
+        return productService.getProductsWithPagination(request);
+    }
+    
+    @Benchmark
+    public PageResponse<ProductMaster> productKeywordSearch() {
+        return productService.searchProductsByName("Motor 12", PAGE_SIZE, null);
+    }
+    
+    @Benchmark
+    public List<ProductMaster> productKeywordSearchLike() {
+        PageRequest request = pageRequest(0);
+        request.setKeyword("Motor 12");
+        request.setAfter("");
+        return productMapper.findWithCursor(request);
+    }
+    
+    @Benchmark
+    public ProductMaster productCreate() {
+        return productService.createProduct(product("B" + sequence.incrementAndGet(), "Bench product"));
+    }
+    
+    @Benchmark
+    public ProductMaster productUpdate() {
+        return productService.updateProduct(product(productId(ThreadLocalRandom.current().nextInt(products)), "Updated product"));
+    }
+    
+    @Benchmark
+    public CustomerMaster customerCreate() {
+        return customerService.createCustomer(customer("B" + sequence.incrementAndGet()));
+    }
+    
+    @Benchmark
+    public CustomerMaster customerUpdate() {
+        return customerService.updateCustomer(customer(String.format("C%07d", ThreadLocalRandom.current().nextInt(customersAndLocations))));
+    }
+    
+    @Benchmark
+    public LocationMaster locationCreate() {
+        return locationService.createLocation(location("B" + sequence.incrementAndGet()));
+    }
+    
+    @Benchmark
+    public LocationMaster locationUpdate() {
+        return locationService.updateLocation(location(String.format("L%07d", ThreadLocalRandom.current().nextInt(customersAndLocations))));
+    }
+    
+    static String productId(int i) {
+        return String.format("P%07d", i);
+    }
+    
+    static ProductMaster product(String id, String name) {
+        return ProductMaster.builder()
+                .productId(id)
+                .productName(name)
+                .unit("個")
+                .safetyStock(10)
+                .build();
+    }
+    
+    private static CustomerMaster customer(String id) {
+        return CustomerMaster.builder()
+                .customerId(id)
+                .customerName("Customer " + id)
+                .address("Tokyo")
+                .phone("03-0000-0000")
+                .build();
+    }
+    
+    private static LocationMaster location(String id) {
+        return LocationMaster.builder()
+                .locationId(id)
+                .warehouseCode("W1")
+                .zone("A")
+                .rack("R1")
+                .levelNo("1")
+                .position("1")
+                .maxCapacity(100)
+                .build();
+    }
+    
+    private static PageRequest pageRequest(int page) {
+        PageRequest request = new PageRequest();
+        request.setPage(page);
+        request.setSize(PAGE_SIZE);
+        request.setSortBy("createdAt");
+        request.setSortDir("DESC");
+        return request;
+    }
+}
@@ -0,0 +1,173 @@
+package com.logistics.benchmark;
+
+import com.logistics.entity.ProductMaster;
+import com.logistics.service.search.ProductSearchIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 商品キーワード検索ベンチマーク（LIKE全件走査 vs トライグラム索引）
+ * Product Keyword Search Benchmark (LIKE scan vs trigram index)
+ * 
+ * H2（Oracle互換モード）に商品を投入し、キーワードページング1回分（1ページ＋件数）の処理時間を比較する
+ * Loads products into H2 in Oracle mode and compares one keyword page request (one page plus the total)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProductSearchBenchmark {
+    
+    private static final int PAGE_SIZE = 20;
+    
+    @Param({"100000", "1000000"})
+    public int products;
+    
+    @Param({"センサー", "Motor", "P0012345", "ケーブル 7"})
+    public String keyword;
+    
+    private Connection connection;
+    
+    private ProductSearchIndex index;
+    
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:h2:mem:search;MODE=Oracle");
+        load();
+        index = new ProductSearchIndex();
+        index.rebuild(consumer -> {
+            try (Statement statement = connection.createStatement();
+                 ResultSet rs = statement.executeQuery("SELECT PRODUCT_ID, PRODUCT_NAME, SAFETY_STOCK, CREATED_AT FROM PRODUCT_MASTER")) {
+                while (rs.next()) {
+                    consumer.accept(ProductMaster.builder()
+                            .productId(rs.getString(1))
+                            .productName(rs.getString(2))
+                            .safetyStock(rs.getInt(3))
+                            .createdAt(rs.getTimestamp(4).toLocalDateTime())
+                            .build());
+                }
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        // 両方式の一致件数が同じであることを確認
+        int expected = like();
+        int actual = index();
+        if (expected != actual) {
+            throw new IllegalStateException("Result mismatch for '" + keyword + "': " + expected + " vs " + actual);
+        }
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+    
+    /**
+     * 現行SQLと同じLIKE検索で1ページ＋件数を取得
+     * One page plus the total using the same LIKE predicate as the mapper
+     */
+    @Benchmark
+    public int like() throws SQLException {
+        String where = " WHERE PRODUCT_NAME LIKE '%' || ? || '%' OR PRODUCT_ID LIKE '%' || ? || '%'";
+        int rows = 0;
+        try (PreparedStatement page = connection.prepareStatement("SELECT * FROM PRODUCT_MASTER" + where
+                + " ORDER BY CREATED_AT DESC OFFSET 0 ROWS FETCH NEXT " + PAGE_SIZE + " ROWS ONLY");
+             PreparedStatement count = connection.prepareStatement("SELECT COUNT(*) FROM PRODUCT_MASTER" + where)) {
+            page.setString(1, keyword);
+            page.setString(2, keyword);
+            try (ResultSet rs = page.executeQuery()) {
+                while (rs.next()) {
+                    rows++;
+                }
+            }
+            count.setString(1, keyword);
+            count.setString(2, keyword);
+            try (ResultSet rs = count.executeQuery()) {
+                rs.next();
+                rows += rs.getInt(1);
+            }
+        }
+        return rows;
+    }
+    
+    /**
+     * 索引で絞り込み・並べ替え、1ページ分のIDだけDBから取得
+     * Match and sort in the index, then fetch one page of IDs from the DB
+     */
+    @Benchmark
+    public int index() throws SQLException {
+        ProductSearchIndex.Matches matches = index.search(keyword, ProductSearchIndex.comparator("createdAt", false),
+                null, 0, PAGE_SIZE);
+        List<ProductSearchIndex.Entry> page = matches.getPage();
+        if (page.isEmpty()) {
+            return 0;
+        }
+        StringBuilder sql = new StringBuilder("SELECT * FROM PRODUCT_MASTER WHERE PRODUCT_ID IN (");
+        for (int i = 0; i < page.size(); i++) {
+            sql.append(i == 0 ? "?" : ", ?");
+        }
+        int rows = matches.getTotal();
+        try (PreparedStatement statement = connection.prepareStatement(sql.append(')').toString())) {
+            for (int i = 0; i < page.size(); i++) {
+                statement.setString(i + 1, page.get(i).getProductId());
+            }
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    rows++;
+                }
+            }
+        }
+        return rows;
+    }
+    
+    private void load() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE PRODUCT_MASTER (PRODUCT_ID VARCHAR2(20) PRIMARY KEY, "
+                    + "PRODUCT_NAME VARCHAR2(100) NOT NULL, SAFETY_STOCK NUMBER(10) NOT NULL, CREATED_AT TIMESTAMP NOT NULL)");
+        }
+        Random random = new Random(42);
+        String[] words = MasterServiceBenchmark.WORDS;
+        LocalDateTime base = LocalDateTime.of(2024, 1, 1, 0, 0);
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO PRODUCT_MASTER (PRODUCT_ID, PRODUCT_NAME, SAFETY_STOCK, CREATED_AT) VALUES (?, ?, ?, ?)")) {
+            for (int i = 0; i < products; i++) {
+                insert.setString(1, MasterServiceBenchmark.productId(i));
+                insert.setString(2, words[random.nextInt(words.length)] + " " + words[random.nextInt(words.length)]
+                        + " " + random.nextInt(1000));
+                insert.setInt(3, random.nextInt(500));
+                insert.setTimestamp(4, Timestamp.valueOf(base.plusSeconds(i)));
+                insert.addBatch();
+                if (i % 1000 == 999) {
+                    insert.executeBatch();
+                }
+            }
+            insert.executeBatch();
+        }
+    }
+}
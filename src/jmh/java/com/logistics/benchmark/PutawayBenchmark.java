@@ -0,0 +1,131 @@
+package com.logistics.benchmark;
+
+import com.logistics.controller.dto.PutawayCandidate;
+import com.logistics.entity.ProductMaster;
+import com.logistics.service.InventoryService;
+import com.logistics.service.LocationMasterService;
+import com.logistics.service.ProductMasterService;
+import com.logistics.service.location.PutawayRecommender;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 入庫先推薦の応答時間
+ * Putaway Recommendation Latency
+ * 
+ * 10万ロケーション（2倉庫×50ゾーン）に1,000商品の在庫を散らしてから、
+ * 全倉庫・倉庫指定・ゾーン指定の推薦と、推薦順位を動かす在庫の増減を計測する。
+ * Spreads 1,000 products' stock over 100,000 locations (2 warehouses x 50 zones), then measures
+ * recommendations across every warehouse, within one warehouse and within one zone, plus the
+ * stock changes that re-rank locations.
+ * 
+ * mvn -Pbenchmark verify -Djmh.args="Putaway -rf json -rff target/jmh-result.json"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PutawayBenchmark {
+    
+    private static final int ZONES_PER_WAREHOUSE = 50;
+    
+    private static final int LIMIT = 5;
+    
+    @Param({"100000"})
+    public int locations;
+    
+    @Param({"1000"})
+    public int products;
+    
+    private PutawayRecommender recommender;
+    
+    private InventoryService inventoryService;
+    
+    @Setup(Level.Trial)
+    public void seed(SpringState spring) throws InterruptedException {
+        recommender = spring.bean(PutawayRecommender.class);
+        inventoryService = spring.bean(InventoryService.class);
+        
+        List<ProductMaster> batch = new ArrayList<>(products);
+        for (int i = 0; i < products; i++) {
+            batch.add(MasterServiceBenchmark.product(MasterServiceBenchmark.productId(i), "Putaway product " + i));
+        }
+        spring.bean(ProductMasterService.class).upsertProducts(batch);
+        
+        StringBuilder csv = new StringBuilder("locationId,warehouseCode,zone,rack,levelNo,position,maxCapacity\n");
+        for (int l = 0; l < locations; l++) {
+            csv.append(locationId(l)).append(",W").append(l % 2).append(",Z").append(l / 2 % ZONES_PER_WAREHOUSE)
+                    .append(",R1,1,").append(l).append(",1000\n");
+        }
+        spring.bean(LocationMasterService.class)
+                .importLocations(new ByteArrayInputStream(csv.toString().getBytes(StandardCharsets.UTF_8)));
+        
+        for (int i = 0; i < 600 && !recommender.isReady(); i++) {
+            Thread.sleep(100);
+        }
+        if (!recommender.isReady()) {
+            throw new IllegalStateException("Putaway recommender did not become ready");
+        }
+        Random random = new Random(42);
+        for (int l = 0; l < locations; l++) {
+            inventoryService.adjustStock(MasterServiceBenchmark.productId(random.nextInt(products)), locationId(l),
+                    1 + random.nextInt(999));
+        }
+    }
+    
+    @Benchmark
+    public List<PutawayCandidate> recommendAllWarehouses() {
+        return recommender.recommend(randomProduct(), 100, null, null, LIMIT);
+    }
+    
+    @Benchmark
+    public List<PutawayCandidate> recommendWarehouse() {
+        return recommender.recommend(randomProduct(), 100, "W1", null, LIMIT);
+    }
+    
+    @Benchmark
+    public List<PutawayCandidate> recommendZone() {
+        return recommender.recommend(randomProduct(), 100, "W1", "Z7", LIMIT);
+    }
+    
+    /**
+     * 在庫の入庫と出庫（台帳の更新と推薦順位の並べ替えを含む）
+     * Stock in and back out (ledger update plus re-ranking included)
+     */
+    @Benchmark
+    public long stockMoveAndRerank() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String productId = MasterServiceBenchmark.productId(random.nextInt(products));
+        String locationId = locationId(random.nextInt(locations));
+        inventoryService.adjustStock(productId, locationId, 1);
+        return inventoryService.adjustStock(productId, locationId, -1).getQuantity();
+    }
+    
+    private String randomProduct() {
+        return MasterServiceBenchmark.productId(ThreadLocalRandom.current().nextInt(products));
+    }
+    
+    private static String locationId(int l) {
+        return String.format("L%07d", l);
+    }
+}
@@ -0,0 +1,247 @@
+package com.logistics.benchmark;
+
+import com.logistics.DemoApplication;
+import com.logistics.entity.LocationMaster;
+import com.logistics.entity.ProductMaster;
+import com.logistics.service.LocationMasterService;
+import com.logistics.service.ProductMasterService;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * リクエスト実行スレッド方式の負荷試験（プラットフォームスレッド vs 仮想スレッド）
+ * Request Thread Load Test (platform threads vs virtual threads)
+ * 
+ * アプリケーションをHTTPで起動し、多数の同時クライアントから/api/productsと/api/locationsを呼び出す。
+ * H2ではDB待ちが発生しないため、SQL実行ごとにdbLatencyMsだけスリープしてOracleへの往復を模擬する。
+ * Throughput（スループット）とSampleTime（p99等のパーセンタイル）の両方で計測する。
+ * Boots the application over HTTP and calls /api/products and /api/locations from many concurrent clients.
+ * H2 never blocks on the network, so each SQL statement sleeps for dbLatencyMs to simulate an Oracle round trip.
+ * Measured in both Throughput and SampleTime (p99 and other percentiles) modes.
+ * 
+ * 仮想スレッドの場合はJFRのjdk.VirtualThreadPinnedイベントを収集し、
+ * synchronized区間でキャリアスレッドが固定された箇所を終了時に出力する（JDK 21以降が必要）
+ * For virtual threads, JFR jdk.VirtualThreadPinned events are collected and the frames where a carrier thread
+ * was pinned inside a synchronized section are printed at the end (requires JDK 21 or later)
+ * 
+ * mvn -Pbenchmark verify -Djmh.args="RequestThread -rf json -rff target/jmh-result.json"
+ *
+ * threading=virtualはJDK 21以降で実行すること（JDK 17ではセットアップで失敗する）。JDK 17ではplatformのみ計測できる
+ * Run threading=virtual on JDK 21 or later (it fails in setup on JDK 17); on JDK 17 only platform can be measured:
+ * mvn -Pbenchmark verify -Djmh.args="RequestThread -p threading=platform"
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+@Threads(400)
+@State(Scope.Benchmark)
+public class RequestThreadBenchmark {
+    
+    private static final int PAGE_SIZE = 20;
+    
+    @Param({"platform", "virtual"})
+    public String threading;
+    
+    @Param({"5"})
+    public int dbLatencyMs;
+    
+    @Param({"10000"})
+    public int products;
+    
+    @Param({"500"})
+    public int locations;
+    
+    private final SimulatedLatency latency = new SimulatedLatency();
+    
+    private final Map<String, LongAdder> pinnedFrames = new ConcurrentHashMap<>();
+    
+    private ConfigurableApplicationContext context;
+    
+    private RecordingStream pinnedEvents;
+    
+    private HttpClient client;
+    
+    private String baseUrl;
+    
+    @Setup(Level.Trial)
+    public void start() throws Exception {
+        boolean virtual = "virtual".equals(threading);
+        if (virtual && Runtime.version().feature() < 21) {
+            throw new IllegalStateException("Virtual threads require JDK 21 or later (running " + Runtime.version() + ")");
+        }
+        List<String> args = new ArrayList<>(List.of(
+                "--spring.datasource.url=jdbc:h2:mem:load;MODE=Oracle;DB_CLOSE_DELAY=-1",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.sql.init.mode=always",
+                "--spring.sql.init.encoding=UTF-8",
+                "--spring.sql.init.schema-locations=file:sql/1.sql,file:sql/2.sql,file:sql/3.sql,file:sql/4.sql,file:sql/5.sql,file:sql/6.sql,file:sql/7.sql,file:sql/8.sql,file:sql/9.sql,file:sql/10.sql,file:sql/11.sql,file:sql/12.sql",
+                "--app.inventory.journal.dir=target/bench-journal/" + System.nanoTime(),
+                "--server.port=0",
+                "--logging.level.root=WARN",
+                "--logging.level.com.logistics=WARN"));
+        if (virtual) {
+            args.add("--spring.profiles.active=virtual");
+            startPinnedEventRecording();
+        }
+        context = new SpringApplicationBuilder(DemoApplication.class)
+                .initializers(ctx -> ctx.getBeanFactory().registerSingleton("simulatedDbLatency", latency))
+                .run(args.toArray(String[]::new));
+        baseUrl = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+        client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+        
+        seed();
+        latency.millis = dbLatencyMs;
+    }
+    
+    @TearDown(Level.Trial)
+    public void stop() {
+        if (pinnedEvents != null) {
+            pinnedEvents.close();
+            printPinnedFrames();
+        }
+        context.close();
+    }
+    
+    @Benchmark
+    public int products() throws IOException, InterruptedException {
+        int page = ThreadLocalRandom.current().nextInt(products / PAGE_SIZE);
+        return get("/api/products?page=" + page + "&size=" + PAGE_SIZE);
+    }
+    
+    @Benchmark
+    public int locations() throws IOException, InterruptedException {
+        return get("/api/locations");
+    }
+    
+    private int get(String path) throws IOException, InterruptedException {
+        HttpResponse<byte[]> response = client.send(HttpRequest.newBuilder(URI.create(baseUrl + path)).build(),
+                HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException(path + " returned " + response.statusCode());
+        }
+        return response.body().length;
+    }
+    
+    private void seed() {
+        ProductMasterService productService = context.getBean(ProductMasterService.class);
+        LocationMasterService locationService = context.getBean(LocationMasterService.class);
+        List<ProductMaster> batch = new ArrayList<>();
+        for (int i = 0; i < products; i++) {
+            batch.add(MasterServiceBenchmark.product(MasterServiceBenchmark.productId(i), "Product " + i));
+        }
+        productService.upsertProducts(batch);
+        for (int i = 0; i < locations; i++) {
+            locationService.createLocation(LocationMaster.builder()
+                    .locationId(String.format("L%07d", i))
+                    .warehouseCode("W1")
+                    .zone("A")
+                    .rack("R" + i % 50)
+                    .levelNo("1")
+                    .position(String.valueOf(i))
+                    .maxCapacity(100)
+                    .build());
+        }
+    }
+    
+    /**
+     * 仮想スレッドの固定（pinning）イベントを、固定中に実行していたアプリケーション側のフレーム別に集計
+     * Count virtual thread pinning events by the application-side frame that was running while pinned
+     */
+    private void startPinnedEventRecording() {
+        pinnedEvents = new RecordingStream();
+        pinnedEvents.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ofMillis(1)).withStackTrace();
+        pinnedEvents.onEvent("jdk.VirtualThreadPinned", event -> {
+            String frame = event.getStackTrace() == null ? "(no stack trace)" : event.getStackTrace().getFrames().stream()
+                    .map(RecordedFrame::getMethod)
+                    .map(method -> method.getType().getName() + "." + method.getName())
+                    .filter(name -> !name.startsWith("java.") && !name.startsWith("jdk.") && !name.startsWith("sun."))
+                    .findFirst()
+                    .orElse("(JDK only)");
+            pinnedFrames.computeIfAbsent(frame, key -> new LongAdder()).increment();
+        });
+        pinnedEvents.startAsync();
+    }
+    
+    private void printPinnedFrames() {
+        if (pinnedFrames.isEmpty()) {
+            System.out.println("No virtual thread pinning over 1 ms was recorded");
+            return;
+        }
+        System.out.println("Virtual thread pinning over 1 ms by frame:");
+        System.out.println(pinnedFrames.entrySet().stream()
+                .sorted((a, b) -> Long.compare(b.getValue().sum(), a.getValue().sum()))
+                .map(entry -> String.format("  %8d  %s", entry.getValue().sum(), entry.getKey()))
+                .collect(Collectors.joining(System.lineSeparator())));
+    }
+    
+    /**
+     * SQL実行ごとにDB往復を模擬して待機するMyBatisプラグイン
+     * MyBatis plugin that sleeps on every statement to simulate a DB round trip
+     * 
+     * 実行後（接続を保持したまま）待機し、実際のDB待ちと同様に接続を占有する
+     * Sleeps after executing, while the connection is still held, so it occupies the connection like a real DB wait
+     */
+    @Intercepts({
+            @Signature(type = Executor.class, method = "query",
+                    args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class}),
+            @Signature(type = Executor.class, method = "update",
+                    args = {MappedStatement.class, Object.class})
+    })
+    static class SimulatedLatency implements Interceptor {
+        
+        volatile int millis;
+        
+        @Override
+        public Object intercept(Invocation invocation) throws Throwable {
+            Object result = invocation.proceed();
+            if (millis > 0) {
+                Thread.sleep(millis);
+            }
+            return result;
+        }
+    }
+}
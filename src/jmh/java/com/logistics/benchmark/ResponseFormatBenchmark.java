@@ -0,0 +1,119 @@
+package com.logistics.benchmark;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.logistics.controller.dto.ApiResponse;
+import com.logistics.controller.support.ColumnarJsonHttpMessageConverter;
+import com.logistics.entity.ProductMaster;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.AbstractJackson2HttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.mock.http.MockHttpOutputMessage;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * レスポンス形式別の出力サイズとシリアライズ時間
+ * Payload Size and Serialization Time per Response Format
+ * 
+ * 10,000件の商品一覧を、Acceptで選択できる各形式の変換クラスで書き出す。
+ * serialize：シリアライズのみ、serializeGzip：シリアライズ＋gzip圧縮（server.compression有効時の負荷）。
+ * 圧縮前後のバイト数は準備時に標準出力へ表示する。
+ * Writes a 10,000-row product list through the converter behind each Accept-selectable format.
+ * serialize: serialization only; serializeGzip: serialization plus gzip (the cost with server.compression on).
+ * Raw and gzipped byte counts are printed during setup.
+ * 
+ * mvn -Pbenchmark verify -Djmh.args="ResponseFormat -rf json -rff target/jmh-result.json"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ResponseFormatBenchmark {
+    
+    @Param({"json", "columnar", "smile", "cbor"})
+    public String format;
+    
+    @Param({"10000"})
+    public int rows;
+    
+    private AbstractJackson2HttpMessageConverter converter;
+    
+    private MediaType mediaType;
+    
+    private ApiResponse<List<ProductMaster>> response;
+    
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        switch (format) {
+            case "json" -> {
+                converter = new MappingJackson2HttpMessageConverter(Jackson2ObjectMapperBuilder.json().build());
+                mediaType = MediaType.APPLICATION_JSON;
+            }
+            case "columnar" -> {
+                converter = new ColumnarJsonHttpMessageConverter(Jackson2ObjectMapperBuilder.json().build());
+                mediaType = ColumnarJsonHttpMessageConverter.COLUMNAR_JSON;
+            }
+            case "smile" -> {
+                converter = new MappingJackson2SmileHttpMessageConverter(
+                        Jackson2ObjectMapperBuilder.json().factory(new SmileFactory()).build());
+                mediaType = MediaType.parseMediaType("application/x-jackson-smile");
+            }
+            case "cbor" -> {
+                converter = new MappingJackson2CborHttpMessageConverter(
+                        Jackson2ObjectMapperBuilder.json().factory(new CBORFactory()).build());
+                mediaType = MediaType.APPLICATION_CBOR;
+            }
+            default -> throw new IllegalArgumentException("Unknown format: " + format);
+        }
+        
+        List<ProductMaster> content = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            ProductMaster product = MasterServiceBenchmark.product(MasterServiceBenchmark.productId(i), "センサー Motor " + i);
+            product.setSpecification("規格 " + i);
+            content.add(product);
+        }
+        response = ApiResponse.success(content);
+        
+        System.out.printf("%n%s: %,d bytes raw, %,d bytes gzip%n", format, serialize().length, serializeGzip().length);
+    }
+    
+    @Benchmark
+    public byte[] serialize() throws IOException {
+        MockHttpOutputMessage message = new MockHttpOutputMessage();
+        converter.write(response, mediaType, message);
+        return message.getBodyAsBytes();
+    }
+    
+    @Benchmark
+    public byte[] serializeGzip() throws IOException {
+        byte[] body = serialize();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(body);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,67 @@
+package com.logistics.benchmark;
+
+import com.logistics.DemoApplication;
+import com.logistics.service.search.ProductSearchIndex;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * ベンチマーク用Springコンテキスト（H2 Oracle互換モード、Webサーバーなし）
+ * Spring Context for Benchmarks (H2 in Oracle mode, no web server)
+ * 
+ * sql/1.sql〜12.sql（アプリケーションと同じ全スキーマ）でスキーマを作成し、データは各ベンチマークが投入する
+ * Creates the schema from sql/1.sql to 12.sql (the full schema the application runs on); each benchmark loads its own data
+ * 
+ * DBは毎回新しいため、在庫ジャーナルも実行ごとに別ディレクトリにする（前回の残りを再生しないように）
+ * The DB is fresh every run, so the inventory journal gets its own directory too (nothing left over gets replayed)
+ */
+@State(Scope.Benchmark)
+public class SpringState {
+    
+    private ConfigurableApplicationContext context;
+    
+    @Setup(Level.Trial)
+    public void start() {
+        context = new SpringApplicationBuilder(DemoApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:mem:bench;MODE=Oracle;DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.driver-class-name=org.h2.Driver",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.sql.init.mode=always",
+                        "--spring.sql.init.encoding=UTF-8",
+                        "--spring.sql.init.schema-locations=file:sql/1.sql,file:sql/2.sql,file:sql/3.sql,file:sql/4.sql,file:sql/5.sql,file:sql/6.sql,file:sql/7.sql,file:sql/8.sql,file:sql/9.sql,file:sql/10.sql,file:sql/11.sql,file:sql/12.sql",
+                        "--app.inventory.journal.dir=target/bench-journal/" + System.nanoTime(),
+                        "--logging.level.root=WARN",
+                        "--logging.level.com.logistics=WARN");
+    }
+    
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+    
+    public <T> T bean(Class<T> type) {
+        return context.getBean(type);
+    }
+    
+    /**
+     * 検索索引の構築完了を待つ
+     * Wait for the product search index to finish building
+     */
+    public void awaitSearchIndex() throws InterruptedException {
+        ProductSearchIndex index = bean(ProductSearchIndex.class);
+        for (int i = 0; i < 600 && !index.isReady(); i++) {
+            Thread.sleep(100);
+        }
+        if (!index.isReady()) {
+            throw new IllegalStateException("Product search index did not become ready");
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.logistics.benchmark;
+
+import com.logistics.controller.dto.StocktakeCountResult;
+import com.logistics.entity.LocationMaster;
+import com.logistics.entity.ProductMaster;
+import com.logistics.service.InventoryService;
+import com.logistics.service.LocationMasterService;
+import com.logistics.service.ProductMasterService;
+import com.logistics.service.StocktakeService;
+import com.logistics.service.inventory.InventoryLedger;
+import com.logistics.service.inventory.InventoryWriteBehind;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 棚卸カウント取込の処理時間
+ * Stocktake Count Upload Latency
+ * 
+ * 1,000商品×100ロケーション（10万棚番）の在庫に対し、毎回新しい棚卸番号で10万行のCSVを取り込む。
+ * 2割の棚番は実棚数がシステム在庫と異なる。行/秒は各回の終了時に標準出力へ表示する。
+ * Each invocation uploads a 100,000-row CSV under a new stocktake number against 1,000 products x 100 locations
+ * (100,000 bins). A fifth of the bins are counted differently from system stock. Rows per second are printed
+ * after each invocation.
+ * 
+ * mvn -Pbenchmark verify -Djmh.args="Stocktake -rf json -rff target/jmh-result.json"
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StocktakeBenchmark {
+    
+    @Param({"1000"})
+    public int products;
+    
+    @Param({"100"})
+    public int locations;
+    
+    private StocktakeService stocktakeService;
+    
+    private byte[] csv;
+    
+    private int stocktakeCount;
+    
+    private String stocktakeNo;
+    
+    private StocktakeCountResult result;
+    
+    @Setup(Level.Trial)
+    public void seed(SpringState spring) throws InterruptedException {
+        stocktakeService = spring.bean(StocktakeService.class);
+        
+        List<ProductMaster> batch = new ArrayList<>(products);
+        for (int i = 0; i < products; i++) {
+            batch.add(MasterServiceBenchmark.product(MasterServiceBenchmark.productId(i), "Stocktake product " + i));
+        }
+        spring.bean(ProductMasterService.class).upsertProducts(batch);
+        LocationMasterService locationService = spring.bean(LocationMasterService.class);
+        for (int l = 0; l < locations; l++) {
+            locationService.createLocation(LocationMaster.builder()
+                    .locationId(locationId(l))
+                    .warehouseCode("W1")
+                    .maxCapacity(1_000_000)
+                    .build());
+        }
+        
+        InventoryLedger ledger = spring.bean(InventoryLedger.class);
+        for (int i = 0; i < 600 && !ledger.isLoaded(); i++) {
+            Thread.sleep(100);
+        }
+        InventoryService inventoryService = spring.bean(InventoryService.class);
+        Random random = new Random(42);
+        StringBuilder rows = new StringBuilder("productId,locationId,countedQty,reason\n");
+        for (int p = 0; p < products; p++) {
+            for (int l = 0; l < locations; l++) {
+                long quantity = 1 + random.nextInt(100);
+                inventoryService.adjustStock(MasterServiceBenchmark.productId(p), locationId(l), quantity);
+                boolean differs = random.nextInt(5) == 0;
+                rows.append(MasterServiceBenchmark.productId(p)).append(',').append(locationId(l)).append(',')
+                        .append(differs ? quantity - 1 : quantity).append(',').append(differs ? "Miscount" : "").append('\n');
+            }
+        }
+        spring.bean(InventoryWriteBehind.class).flush();
+        csv = rows.toString().getBytes(StandardCharsets.UTF_8);
+    }
+    
+    @Setup(Level.Invocation)
+    public void nextStocktake() {
+        stocktakeNo = String.format("ST%08d", ++stocktakeCount);
+    }
+    
+    @Benchmark
+    public StocktakeCountResult recordCounts() {
+        result = stocktakeService.recordCounts(stocktakeNo, new ByteArrayInputStream(csv));
+        return result;
+    }
+    
+    @TearDown(Level.Invocation)
+    public void report() {
+        System.out.printf("%n%,d rows in %,d ms: %,.0f rows/s (%,d differences, %d partitions, %,d failed)%n",
+                result.getTotal(), result.getElapsedMs(), result.getTotal() * 1000.0 / Math.max(result.getElapsedMs(), 1),
+                result.getDifferences(), result.getPartitions(), result.getFailed());
+    }
+    
+    private static String locationId(int i) {
+        return String.format("SL%03d", i);
+    }
+}
@@ -0,0 +1,176 @@
+package com.logistics.benchmark;
+
+import com.logistics.controller.dto.WaveAllocationResult;
+import com.logistics.entity.CustomerMaster;
+import com.logistics.entity.LocationMaster;
+import com.logistics.entity.ProductMaster;
+import com.logistics.entity.ShipmentRecord;
+import com.logistics.mapper.ShipmentRecordMapper;
+import com.logistics.service.CustomerMasterService;
+import com.logistics.service.InventoryService;
+import com.logistics.service.LocationMasterService;
+import com.logistics.service.ProductMasterService;
+import com.logistics.service.ShipmentService;
+import com.logistics.service.inventory.InventoryLedger;
+import com.logistics.service.support.BatchSqlSession;
+import com.logistics.service.support.IdAllocator;
+import com.logistics.service.support.IdAllocator.Sequence;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ウェーブ引当の処理速度（10万行）
+ * Wave Allocation Throughput (100k lines)
+ * 
+ * 1,000商品×4ロケーションの在庫に対し、毎回10万行のPENDING出荷行を登録してから1ウェーブを実行する。
+ * 在庫は行の合計の約9割になるよう補充するため、一部の行は一部引当・未引当になる。
+ * 出荷行/秒は各回の終了時に標準出力へ表示する。
+ * Each invocation inserts 100,000 PENDING lines against 1,000 products x 4 locations and runs one wave.
+ * Stock is topped up to about 90% of the ordered total, so some lines end up partial or unallocated.
+ * Lines per second are printed after each invocation.
+ * 
+ * mvn -Pbenchmark verify -Djmh.args="WaveAllocation -rf json -rff target/jmh-result.json"
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class WaveAllocationBenchmark {
+    
+    @Param({"100000"})
+    public int lines;
+    
+    @Param({"1000"})
+    public int products;
+    
+    private static final int LOCATIONS = 4;
+    
+    private ShipmentService shipmentService;
+    
+    private InventoryService inventoryService;
+    
+    private BatchSqlSession batchSqlSession;
+    
+    private TransactionTemplate transactionTemplate;
+    
+    private IdAllocator idAllocator;
+    
+    private JdbcTemplate jdbcTemplate;
+    
+    private WaveAllocationResult result;
+    
+    @Setup(Level.Trial)
+    public void seed(SpringState spring) throws InterruptedException {
+        shipmentService = spring.bean(ShipmentService.class);
+        inventoryService = spring.bean(InventoryService.class);
+        batchSqlSession = spring.bean(BatchSqlSession.class);
+        transactionTemplate = spring.bean(TransactionTemplate.class);
+        idAllocator = spring.bean(IdAllocator.class);
+        jdbcTemplate = spring.bean(JdbcTemplate.class);
+        
+        List<ProductMaster> batch = new ArrayList<>(products);
+        for (int i = 0; i < products; i++) {
+            batch.add(MasterServiceBenchmark.product(MasterServiceBenchmark.productId(i), "Wave product " + i));
+        }
+        spring.bean(ProductMasterService.class).upsertProducts(batch);
+        LocationMasterService locationService = spring.bean(LocationMasterService.class);
+        for (int l = 0; l < LOCATIONS; l++) {
+            locationService.createLocation(LocationMaster.builder()
+                    .locationId(locationId(l))
+                    .warehouseCode("W1")
+                    .maxCapacity(1_000_000)
+                    .build());
+        }
+        spring.bean(CustomerMasterService.class).createCustomer(CustomerMaster.builder()
+                .customerId("C0000001")
+                .customerName("Wave customer")
+                .build());
+        
+        InventoryLedger ledger = spring.bean(InventoryLedger.class);
+        for (int i = 0; i < 600 && !ledger.isLoaded(); i++) {
+            Thread.sleep(100);
+        }
+    }
+    
+    /**
+     * 前回の残り行を対象外にし、出荷行を登録して在庫を補充
+     * Retire the previous wave's leftovers, insert fresh lines and top up the stock
+     */
+    @Setup(Level.Invocation)
+    public void prepareWave() {
+        jdbcTemplate.update("UPDATE SHIPMENT_RECORD SET STATUS = 'SHIPPED' WHERE STATUS = 'PENDING'");
+        
+        Random random = new Random(42);
+        long[] ordered = new long[products];
+        LocalDateTime now = LocalDateTime.now();
+        transactionTemplate.executeWithoutResult(status -> {
+            ShipmentRecordMapper batchMapper = batchSqlSession.getMapper(ShipmentRecordMapper.class);
+            for (int i = 0; i < lines; i++) {
+                int product = random.nextInt(products);
+                long qty = 1 + random.nextInt(10);
+                ordered[product] += qty;
+                batchMapper.insert(ShipmentRecord.builder()
+                        .recordId(idAllocator.next(Sequence.SHIPMENT_SEQ))
+                        .orderNo("W" + i)
+                        .customerId("C0000001")
+                        .productId(MasterServiceBenchmark.productId(product))
+                        .orderQty(qty)
+                        .createdAt(now)
+                        .build());
+                if ((i + 1) % 10_000 == 0) {
+                    batchSqlSession.flushStatements();
+                }
+            }
+            batchSqlSession.flushStatements();
+        });
+        
+        for (int p = 0; p < products; p++) {
+            long perLocation = ordered[p] * 9 / 10 / LOCATIONS;
+            for (int l = 0; l < LOCATIONS; l++) {
+                String productId = MasterServiceBenchmark.productId(p);
+                long delta = perLocation - inventoryService.getStock(productId, locationId(l)).getQuantity();
+                if (delta != 0) {
+                    inventoryService.adjustStock(productId, locationId(l), delta);
+                }
+            }
+        }
+    }
+    
+    @Benchmark
+    public WaveAllocationResult allocateWave() {
+        result = shipmentService.allocatePending();
+        return result;
+    }
+    
+    @TearDown(Level.Invocation)
+    public void report() {
+        System.out.printf("%n%,d lines in %,d ms: %,.0f lines/s (allocated %,d, partial %,d, unallocated %,d)%n",
+                result.getLines(), result.getElapsedMs(), result.getLinesPerSecond(),
+                result.getAllocatedLines(), result.getPartialLines(), result.getUnallocatedLines());
+    }
+    
+    private static String locationId(int i) {
+        return String.format("WL%02d", i);
+    }
+}
@@ -0,0 +1,113 @@
+package com.logistics.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBooleanProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnJava;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.system.JavaVersion;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * 非同期実行設定
+ * Async Execution Configuration
+ * 
+ * サービス層で並列実行するクエリ用のスレッドプールを定義し、定期処理を有効化
+ * Defines the thread pool for queries the service layer runs in parallel and enables scheduled tasks
+ * 
+ * spring.threads.virtual.enabled=true（JDK 21以降）の場合は仮想スレッドで実行する。
+ * JDK 21未満で有効にした場合は起動しない（仮想スレッド用に広げた接続プール等だけが適用されるのを防ぐため）。
+ * Runs on virtual threads when spring.threads.virtual.enabled=true (JDK 21 or later). Enabling it on an older JDK
+ * stops startup, rather than silently running platform threads with the pool sizes meant for virtual threads.
+ */
+@Configuration
+@EnableScheduling
+public class AsyncConfig {
+    
+    /**
+     * 並列クエリ用エグゼキュータ
+     * Executor for parallel queries
+     * 
+     * @param poolSize スレッド数
+     * @param queueCapacity キュー容量
+     * @return エグゼキュータ
+     * @return Executor
+     */
+    @Bean
+    @ConditionalOnThreading(Threading.PLATFORM)
+    public ThreadPoolTaskExecutor queryExecutor(
+            @Value("${app.query.executor.pool-size:8}") int poolSize,
+            @Value("${app.query.executor.queue-capacity:200}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("query-");
+        // キュー満杯時は呼び出し元スレッドで実行（直列実行にフォールバック）
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.initialize();
+        return executor;
+    }
+    
+    /**
+     * 並列クエリ用エグゼキュータ（仮想スレッド）
+     * Executor for parallel queries (virtual threads)
+     * 
+     * スレッドは都度生成し、同時実行数のみ制限する（DB接続数を超えて並列化しても待つだけのため）
+     * Creates a thread per task and only limits concurrency (running more in parallel than there are DB connections only waits)
+     * 
+     * @param poolSize 同時実行数
+     * @return エグゼキュータ
+     * @return Executor
+     */
+    @Bean(name = "queryExecutor")
+    @ConditionalOnThreading(Threading.VIRTUAL)
+    public SimpleAsyncTaskExecutor virtualQueryExecutor(@Value("${app.query.executor.pool-size:8}") int poolSize) {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("query-");
+        executor.setVirtualThreads(true);
+        executor.setConcurrencyLimit(poolSize);
+        return executor;
+    }
+    
+    /**
+     * JDK 21未満で仮想スレッドが有効にされた場合に起動を止める
+     * Stops startup when virtual threads are enabled on a JDK older than 21
+     */
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnBooleanProperty("spring.threads.virtual.enabled")
+    @ConditionalOnJava(range = ConditionalOnJava.Range.OLDER_THAN, value = JavaVersion.TWENTY_ONE)
+    static class VirtualThreadsUnsupported {
+        
+        VirtualThreadsUnsupported() {
+            throw new IllegalStateException("spring.threads.virtual.enabled=true (profile 'virtual') requires JDK 21 or later, "
+                    + "but this is JDK " + Runtime.version().feature());
+        }
+    }
+    
+    /**
+     * 棚卸のパーティション処理用エグゼキュータ
+     * Executor for stocktake partition workers
+     * 
+     * ワーカーはカウントの到着を待ち続けるため、並列クエリ用とは別のスレッドで実行する
+     * Workers block waiting for counts for the whole upload, so they run apart from the parallel query threads
+     * 
+     * @param partitions パーティション数（スレッド数）
+     * @return エグゼキュータ
+     * @return Executor
+     */
+    @Bean
+    public ThreadPoolTaskExecutor stocktakeExecutor(@Value("${app.stocktake.partitions:4}") int partitions) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(partitions);
+        executor.setMaxPoolSize(partitions);
+        executor.setThreadNamePrefix("stocktake-");
+        executor.initialize();
+        return executor;
+    }
+}
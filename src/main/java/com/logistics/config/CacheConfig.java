@@ -0,0 +1,94 @@
+package com.logistics.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.logistics.entity.CustomerMaster;
+import com.logistics.entity.LocationMaster;
+import com.logistics.entity.ProductMaster;
+import com.logistics.service.cache.EntityCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * キャッシュ設定
+ * Cache Configuration
+ * 
+ * アプリケーション内で使用するインメモリキャッシュを定義
+ * Defines the in-process caches used by the application
+ */
+@Configuration
+public class CacheConfig {
+    
+    @Value("${app.cache.entity.max-size:10000}")
+    private long entityMaxSize;
+    
+    @Value("${app.cache.entity.ttl-seconds:300}")
+    private long entityTtlSeconds;
+    
+    @Value("${app.cache.entity.negative-ttl-seconds:10}")
+    private long entityNegativeTtlSeconds;
+    
+    /**
+     * 商品件数キャッシュ（キーワード別、短期TTL）
+     * Product count cache (per keyword, short TTL)
+     * 
+     * @param ttlSeconds 有効期間（秒）
+     * @param maxSize 最大エントリ数
+     * @return キャッシュ
+     * @return Cache
+     */
+    @Bean
+    public Cache<String, Long> productCountCache(
+            @Value("${app.cache.product-count.ttl-seconds:30}") long ttlSeconds,
+            @Value("${app.cache.product-count.max-size:1000}") long maxSize) {
+        return Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .maximumSize(maxSize)
+                .recordStats()
+                .build();
+    }
+    
+    /**
+     * 商品エンティティキャッシュ
+     * Product entity cache
+     * 
+     * @return キャッシュ
+     * @return Cache
+     */
+    @Bean
+    public EntityCache<ProductMaster> productCache() {
+        return entityCache("product");
+    }
+    
+    /**
+     * 顧客エンティティキャッシュ
+     * Customer entity cache
+     * 
+     * @return キャッシュ
+     * @return Cache
+     */
+    @Bean
+    public EntityCache<CustomerMaster> customerCache() {
+        return entityCache("customer");
+    }
+    
+    /**
+     * ロケーションエンティティキャッシュ
+     * Location entity cache
+     * 
+     * @return キャッシュ
+     * @return Cache
+     */
+    @Bean
+    public EntityCache<LocationMaster> locationCache() {
+        return entityCache("location");
+    }
+    
+    private <V> EntityCache<V> entityCache(String name) {
+        return new EntityCache<>(name, entityMaxSize,
+                Duration.ofSeconds(entityTtlSeconds), Duration.ofSeconds(entityNegativeTtlSeconds));
+    }
+}
@@ -0,0 +1,64 @@
+package com.logistics.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.logistics.service.audit.AuditTrail;
+import com.logistics.service.cache.EntityCache;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+
+/**
+ * メトリクス設定
+ * Metrics Configuration
+ * 
+ * 接続プール（hikaricp.*）とHTTP（http.server.requests）はActuatorが自動登録するため、
+ * ここではアプリケーション独自のキャッシュを登録する
+ * The connection pool (hikaricp.*) and HTTP (http.server.requests) meters are registered by Actuator;
+ * this binds the application's own caches
+ */
+@Configuration
+public class MetricsConfig {
+    
+    /**
+     * Caffeineキャッシュのメトリクス（cache.gets, cache.evictions等、cacheタグで区別）
+     * Caffeine cache meters (cache.gets, cache.evictions, ... tagged by cache)
+     * 
+     * @param entityCaches エンティティキャッシュ
+     * @param productCountCache 商品件数キャッシュ
+     * @return メーター登録処理
+     * @return Meter binder
+     */
+    @Bean
+    public MeterBinder cacheMetrics(List<EntityCache<?>> entityCaches, Cache<String, Long> productCountCache) {
+        return registry -> {
+            for (EntityCache<?> cache : entityCaches) {
+                CaffeineCacheMetrics.monitor(registry, cache.getNativeCache(), cache.getName());
+            }
+            CaffeineCacheMetrics.monitor(registry, productCountCache, "productCount");
+        };
+    }
+    
+    /**
+     * 監査証跡のメトリクス（audit.buffer.size、audit.entriesはresultタグで記録・書き込み・破棄を区別）
+     * Audit trail meters (audit.buffer.size; audit.entries tagged by result: recorded, written, dropped)
+     * 
+     * @param auditTrail 監査証跡
+     * @return メーター登録処理
+     * @return Meter binder
+     */
+    @Bean
+    public MeterBinder auditMetrics(AuditTrail auditTrail) {
+        return registry -> {
+            Gauge.builder("audit.buffer.size", auditTrail, AuditTrail::getBufferSize).register(registry);
+            FunctionCounter.builder("audit.entries", auditTrail, AuditTrail::getRecorded).tag("result", "recorded").register(registry);
+            FunctionCounter.builder("audit.entries", auditTrail, AuditTrail::getWritten).tag("result", "written").register(registry);
+            FunctionCounter.builder("audit.entries", auditTrail, AuditTrail::getDropped).tag("result", "dropped").register(registry);
+            FunctionCounter.builder("audit.write.failures", auditTrail, AuditTrail::getWriteFailures).register(registry);
+        };
+    }
+}
@@ -0,0 +1,34 @@
+package com.logistics.config;
+
+import org.springframework.boot.autoconfigure.transaction.TransactionManagerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+
+/**
+ * トランザクション設定
+ * Transaction Configuration
+ * 
+ * トランザクション同期を実トランザクションがある場合のみに限定する。
+ * これによりSUPPORTS／NOT_SUPPORTEDのメソッドではSQLごとに接続を取得・返却し、メソッド終了まで接続を保持しない
+ * （並列の件数クエリを待つ間に接続を抱えたままにすると、同時リクエスト数が接続数を超えた時点でプールが枯渇する）。
+ * Limits transaction synchronization to actual transactions, so SUPPORTS / NOT_SUPPORTED methods borrow and return
+ * a connection per statement instead of holding one until the method returns
+ * (holding one while waiting for a parallel count query exhausts the pool once concurrent requests exceed its size).
+ */
+@Configuration
+public class TransactionConfig {
+    
+    /**
+     * トランザクションマネージャーの同期設定
+     * Transaction manager synchronization setting
+     * 
+     * @return カスタマイザー
+     * @return Customizer
+     */
+    @Bean
+    public TransactionManagerCustomizer<AbstractPlatformTransactionManager> synchronizeOnActualTransaction() {
+        return transactionManager -> transactionManager.setTransactionSynchronization(
+                AbstractPlatformTransactionManager.SYNCHRONIZATION_ON_ACTUAL_TRANSACTION);
+    }
+}
@@ -0,0 +1,81 @@
+package com.logistics.config;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.logistics.controller.support.ColumnarJsonHttpMessageConverter;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+/**
+ * Web MVC設定
+ * Web MVC Configuration
+ * 
+ * Acceptヘッダーによるレスポンス形式の切り替え
+ * Response format negotiation by the Accept header
+ * 
+ * - application/json：通常のJSON（既定） / plain JSON (default)
+ * - application/vnd.logistics.columnar+json：一覧を列と行の配列で出力 / lists as column names plus row arrays
+ * - application/x-jackson-smile, application/cbor：バイナリJSON / binary JSON
+ * 
+ * バイナリ形式はSpring MVCが既定で登録するが、日付形式等の設定が通常のJSONと異なるため、
+ * Spring Bootの設定（spring.jackson.*）を適用したObjectMapperで置き換える。
+ * 列指向JSONは既定のJSONより前に追加する（application/*+json を既定のJSONに横取りされないため）。
+ * Spring MVC registers the binary converters by default but without Spring Boot's settings (spring.jackson.*),
+ * so dates and the like would differ from plain JSON; they are replaced with ones built from Boot's builder.
+ * The columnar converter goes ahead of the default JSON one, which would otherwise claim application/*+json.
+ */
+@Configuration
+@RequiredArgsConstructor
+public class WebConfig implements WebMvcConfigurer {
+    
+    private final ObjectProvider<Jackson2ObjectMapperBuilder> objectMapperBuilder;
+    
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.replaceAll(converter -> {
+            if (converter instanceof MappingJackson2SmileHttpMessageConverter) {
+                return new MappingJackson2SmileHttpMessageConverter(
+                        objectMapperBuilder.getObject().factory(new SmileFactory()).build());
+            }
+            if (converter instanceof MappingJackson2CborHttpMessageConverter) {
+                return new MappingJackson2CborHttpMessageConverter(
+                        objectMapperBuilder.getObject().factory(new CBORFactory()).build());
+            }
+            return converter;
+        });
+        int json = 0;
+        while (json < converters.size() && !(converters.get(json) instanceof MappingJackson2HttpMessageConverter)) {
+            json++;
+        }
+        converters.add(json, new ColumnarJsonHttpMessageConverter(objectMapperBuilder.getObject().build()));
+    }
+    
+    /**
+     * 同じURLでも形式が変わるため、キャッシュ（ブラウザ・プロキシ）がAcceptごとに区別するよう通知する
+     * The same URL returns different formats, so tell caches (browser, proxies) to key on Accept
+     */
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new HandlerInterceptor() {
+            @Override
+            public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+                response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+                return true;
+            }
+        }).addPathPatterns("/api/**");
+    }
+}
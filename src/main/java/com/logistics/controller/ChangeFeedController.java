@@ -0,0 +1,85 @@
+package com.logistics.controller;
+
+import com.logistics.controller.dto.ApiResponse;
+import com.logistics.controller.support.MasterDataChangeFeed;
+import com.logistics.service.event.MasterDataChangeEvent.MasterType;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.EnumSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * マスタデータ変更配信コントローラー
+ * Master Data Change Feed Controller
+ * 
+ * 商品・顧客・ロケーションの変更をServer-Sent Eventsで配信し、クライアントが一覧を差分で更新できるようにする
+ * Streams product, customer and location changes over Server-Sent Events so clients can patch their lists
+ */
+@RestController
+@RequestMapping("/api/changes")
+@RequiredArgsConstructor
+@Slf4j
+@CrossOrigin(origins = "*")
+public class ChangeFeedController {
+    
+    private final MasterDataChangeFeed changeFeed;
+    
+    /**
+     * マスタデータ変更を購読
+     * Subscribe to master data changes
+     * 
+     * イベント：ready（初回接続、現在位置）、change（本文はMasterDataChange）、
+     * reset（Last-Event-IDが古すぎて再送できない：一覧を再取得すること）
+     * Events: ready (first connect, current position), change (body is a MasterDataChange),
+     * reset (the Last-Event-ID is too old to resume from: re-fetch the list)
+     * 
+     * @param types 受け取るマスタ種別（カンマ区切り、省略時は全種別）
+     * @param lastEventIdHeader 再接続時にEventSourceが送るLast-Event-ID
+     * @param lastEventId ヘッダーを送れないクライアント用のLast-Event-ID
+     * @return SSEストリーム
+     * @return SSE stream
+     */
+    @GetMapping
+    public ResponseEntity<?> streamChanges(
+            @RequestParam(required = false) String types,
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventIdHeader,
+            @RequestParam(required = false) String lastEventId) {
+        try {
+            SseEmitter emitter = changeFeed.subscribe(parseTypes(types),
+                    lastEventIdHeader != null ? lastEventIdHeader : lastEventId);
+            return ResponseEntity.ok()
+                    .contentType(MediaType.TEXT_EVENT_STREAM)
+                    .body(emitter);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.validationError(e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(ApiResponse.error(HttpStatus.SERVICE_UNAVAILABLE.value(), e.getMessage()));
+        }
+    }
+    
+    private static Set<MasterType> parseTypes(String types) {
+        Set<MasterType> result = EnumSet.noneOf(MasterType.class);
+        if (types == null) {
+            return result;
+        }
+        for (String type : types.split(",")) {
+            if (!type.isBlank()) {
+                try {
+                    result.add(MasterType.valueOf(type.trim().toUpperCase(Locale.ROOT)));
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException("Unknown master type: " + type.trim());
+                }
+            }
+        }
+        return result;
+    }
+}
@@ -1,15 +1,22 @@
 package com.logistics.controller;
 
 import com.logistics.controller.dto.ApiResponse;
+import com.logistics.controller.dto.PageResponse;
+import com.logistics.controller.support.ExportWriter;
 import com.logistics.entity.CustomerMaster;
 import com.logistics.service.CustomerMasterService;
+import com.logistics.service.cache.MasterDataVersions;
+import com.logistics.service.event.MasterDataChangeEvent.MasterType;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
-import java.util.List;
+import java.io.IOException;
 
 /**
  * 顧客マスタコントローラー
@@ -27,19 +34,39 @@ public class CustomerMasterController {
     
     private final CustomerMasterService customerMasterService;
     
+    private final MasterDataVersions masterDataVersions;
+    
+    private final ExportWriter exportWriter;
+    
     /**
-     * 全顧客を取得
-     * Get all customers
+     * 顧客一覧を取得（登録日時の新しい順、キーセット方式のページング）
+     * Get customers (newest first, keyset pagination)
      * 
-     * @return 顧客リスト
-     * @return List of customers
+     * @param size ページサイズ（最大app.page.max-size）
+     * @param after カーソルトークン（前ページのnextCursor、未指定で先頭ページ）
+     * @param webRequest 条件付きリクエスト（If-None-Match）
+     * @return 顧客ページ
+     * @return Page of customers
      */
     @GetMapping
-    public ResponseEntity<ApiResponse<List<CustomerMaster>>> getAllCustomers() {
+    public ResponseEntity<ApiResponse<PageResponse<CustomerMaster>>> getAllCustomers(
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(required = false) String after,
+            WebRequest webRequest) {
+        String etag = masterDataVersions.etag(MasterType.CUSTOMER);
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
         try {
-            log.info("Getting all customers");
-            List<CustomerMaster> customers = customerMasterService.getAllCustomers();
-            return ResponseEntity.ok(ApiResponse.success(customers, "Customers retrieved successfully"));
+            log.info("Getting customers - size: {}, after: {}", size, after);
+            PageResponse<CustomerMaster> customers = customerMasterService.getCustomers(size, after);
+            return ResponseEntity.ok()
+                    .cacheControl(CacheControl.noCache())
+                    .body(ApiResponse.success(customers, "Customers retrieved successfully"));
+        } catch (IllegalArgumentException e) {
+            log.warn("Invalid customer page request", e);
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.validationError(e.getMessage()));
         } catch (Exception e) {
             log.error("Error getting all customers", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -47,16 +74,36 @@ public class CustomerMasterController {
         }
     }
     
+    /**
+     * 全顧客をストリーミングでエクスポート
+     * Stream all customers as an export
+     * 
+     * @param format 形式（ndjson/csv）
+     * @param response HTTPレスポンス
+     */
+    @GetMapping("/export")
+    public void exportCustomers(
+            @RequestParam(defaultValue = "ndjson") String format, 
+            HttpServletResponse response) throws IOException {
+        log.info("Exporting customers as {}", format);
+        exportWriter.export(response, format, "customers", CustomerMaster.class, customerMasterService::exportCustomers);
+    }
+    
     /**
      * 顧客IDで顧客を取得
      * Get customer by customer ID
      * 
      * @param customerId 顧客ID
+     * @param webRequest 条件付きリクエスト（If-None-Match）
      * @return 顧客情報
      * @return Customer information
      */
     @GetMapping("/{customerId}")
-    public ResponseEntity<ApiResponse<CustomerMaster>> getCustomerById(@PathVariable String customerId) {
+    public ResponseEntity<ApiResponse<CustomerMaster>> getCustomerById(@PathVariable String customerId, WebRequest webRequest) {
+        String etag = masterDataVersions.etag(MasterType.CUSTOMER);
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
         try {
             log.info("Getting customer by ID: {}", customerId);
             CustomerMaster customer = customerMasterService.getCustomerById(customerId);
@@ -64,7 +111,9 @@ public class CustomerMasterController {
                 return ResponseEntity.status(HttpStatus.NOT_FOUND)
                         .body(ApiResponse.error(404, "Customer not found"));
             }
-            return ResponseEntity.ok(ApiResponse.success(customer, "Customer retrieved successfully"));
+            return ResponseEntity.ok()
+                    .cacheControl(CacheControl.noCache())
+                    .body(ApiResponse.success(customer, "Customer retrieved successfully"));
         } catch (IllegalArgumentException e) {
             log.warn("Invalid customer ID: {}", customerId, e);
             return ResponseEntity.badRequest()
@@ -81,15 +130,32 @@ public class CustomerMasterController {
      * Search customers by name
      * 
      * @param name 顧客名
-     * @return 顧客リスト
-     * @return List of customers
+     * @param size ページサイズ（最大app.page.max-size）
+     * @param after カーソルトークン（前ページのnextCursor、未指定で先頭ページ）
+     * @param webRequest 条件付きリクエスト（If-None-Match）
+     * @return 顧客ページ
+     * @return Page of customers
      */
     @GetMapping("/search")
-    public ResponseEntity<ApiResponse<List<CustomerMaster>>> searchCustomersByName(@RequestParam String name) {
+    public ResponseEntity<ApiResponse<PageResponse<CustomerMaster>>> searchCustomersByName(
+            @RequestParam String name,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(required = false) String after,
+            WebRequest webRequest) {
+        String etag = masterDataVersions.etag(MasterType.CUSTOMER);
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
         try {
             log.info("Searching customers by name: {}", name);
-            List<CustomerMaster> customers = customerMasterService.searchCustomersByName(name);
-            return ResponseEntity.ok(ApiResponse.success(customers, "Customers searched successfully"));
+            PageResponse<CustomerMaster> customers = customerMasterService.searchCustomersByName(name, size, after);
+            return ResponseEntity.ok()
+                    .cacheControl(CacheControl.noCache())
+                    .body(ApiResponse.success(customers, "Customers searched successfully"));
+        } catch (IllegalArgumentException e) {
+            log.warn("Invalid customer search request: {}", name, e);
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.validationError(e.getMessage()));
         } catch (Exception e) {
             log.error("Error searching customers by name: {}", name, e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
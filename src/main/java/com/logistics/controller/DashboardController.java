@@ -0,0 +1,53 @@
+package com.logistics.controller;
+
+import com.logistics.controller.dto.ApiResponse;
+import com.logistics.controller.dto.DashboardSummary;
+import com.logistics.service.dashboard.DashboardCounters;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * ダッシュボードコントローラー
+ * Dashboard Controller
+ * 
+ * ダッシュボード表示用の集計REST APIエンドポイント
+ * REST API endpoints for the dashboard totals
+ */
+@RestController
+@RequestMapping("/api/dashboard")
+@RequiredArgsConstructor
+@Slf4j
+@CrossOrigin(origins = "*")
+public class DashboardController {
+    
+    private final DashboardCounters dashboardCounters;
+    
+    /**
+     * マスタ別の件数と最近のデータを取得
+     * Get per-master totals and the most recent rows
+     * 
+     * @param recent マスタ別の最近のデータ件数
+     * @return ダッシュボード概要
+     * @return Dashboard summary
+     */
+    @GetMapping("/summary")
+    public ResponseEntity<ApiResponse<DashboardSummary>> getSummary(@RequestParam(defaultValue = "5") int recent) {
+        try {
+            DashboardSummary summary = dashboardCounters.summary(recent);
+            return ResponseEntity.ok(ApiResponse.success(summary, "Dashboard summary retrieved successfully"));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.validationError(e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(ApiResponse.error(HttpStatus.SERVICE_UNAVAILABLE.value(), e.getMessage()));
+        } catch (Exception e) {
+            log.error("Error getting dashboard summary", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(ApiResponse.serverError("Failed to retrieve dashboard summary: " + e.getMessage()));
+        }
+    }
+}
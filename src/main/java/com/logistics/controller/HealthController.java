@@ -1,14 +1,27 @@
 package com.logistics.controller;
 
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
 import com.logistics.controller.dto.ApiResponse;
+import com.logistics.service.cache.EntityCache;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
 import java.time.LocalDateTime;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -20,24 +33,133 @@ import java.util.Map;
  */
 @RestController
 @RequestMapping("/api/health")
+@RequiredArgsConstructor
+@Slf4j
 @CrossOrigin(origins = "*")
 public class HealthController {
     
+    private final List<EntityCache<?>> entityCaches;
+    
+    private final DataSource dataSource;
+    
+    /**
+     * 接続プール使用率の警告しきい値（使用中接続数／最大接続数）
+     * Pool saturation warning threshold (active connections / maximum pool size)
+     */
+    @Value("${app.health.pool-saturation-threshold:0.9}")
+    private double poolSaturationThreshold;
+    
+    @Value("${app.health.db-timeout-seconds:2}")
+    private int dbTimeoutSeconds;
+    
     /**
      * ヘルスチェック
      * Health check
      * 
+     * DBへの往復時間と接続プールの使用状況を確認する。
+     * DBに接続できない場合はDOWN（503）、プールが飽和気味の場合はDEGRADEDを返す。
+     * Measures the DB round trip and connection pool usage.
+     * Returns DOWN (503) if the DB is unreachable and DEGRADED if the pool is close to saturation.
+     * 
      * @return アプリケーション状態
      * @return Application status
      */
     @GetMapping
     public ResponseEntity<ApiResponse<Map<String, Object>>> health() {
         Map<String, Object> status = new HashMap<>();
-        status.put("status", "UP");
         status.put("timestamp", LocalDateTime.now());
         status.put("application", "Logistics System");
         status.put("version", "1.0.0");
         
+        Map<String, Object> database = checkDatabase();
+        Map<String, Object> pool = poolStatus();
+        status.put("database", database);
+        status.put("pool", pool);
+        
+        if (!"UP".equals(database.get("status"))) {
+            status.put("status", "DOWN");
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(ApiResponse.<Map<String, Object>>builder()
+                            .code(HttpStatus.SERVICE_UNAVAILABLE.value())
+                            .message("Database is unavailable")
+                            .data(status)
+                            .build());
+        }
+        if (Boolean.TRUE.equals(pool.get("saturated"))) {
+            status.put("status", "DEGRADED");
+            return ResponseEntity.ok(ApiResponse.success(status, "Connection pool is close to saturation"));
+        }
+        status.put("status", "UP");
         return ResponseEntity.ok(ApiResponse.success(status, "Application is running"));
     }
+    
+    /**
+     * DBの往復時間を計測（接続取得時間と検証クエリ時間を分けて返す）
+     * Measure the DB round trip (connection acquisition and validation reported separately)
+     */
+    private Map<String, Object> checkDatabase() {
+        Map<String, Object> database = new LinkedHashMap<>();
+        long start = System.nanoTime();
+        try (Connection connection = dataSource.getConnection()) {
+            long acquired = System.nanoTime();
+            boolean valid = connection.isValid(dbTimeoutSeconds);
+            long end = System.nanoTime();
+            database.put("status", valid ? "UP" : "DOWN");
+            database.put("acquireMs", (acquired - start) / 1_000_000.0);
+            database.put("roundTripMs", (end - acquired) / 1_000_000.0);
+        } catch (SQLException e) {
+            log.warn("Database health check failed", e);
+            database.put("status", "DOWN");
+            database.put("error", e.getMessage());
+        }
+        return database;
+    }
+    
+    /**
+     * 接続プールの使用状況
+     * Connection pool usage
+     */
+    private Map<String, Object> poolStatus() {
+        Map<String, Object> pool = new LinkedHashMap<>();
+        HikariPoolMXBean mxBean = dataSource instanceof HikariDataSource hikari ? hikari.getHikariPoolMXBean() : null;
+        if (mxBean == null) {
+            return pool;
+        }
+        int maxSize = ((HikariDataSource) dataSource).getMaximumPoolSize();
+        int active = mxBean.getActiveConnections();
+        int waiting = mxBean.getThreadsAwaitingConnection();
+        double saturation = maxSize > 0 ? (double) active / maxSize : 0;
+        pool.put("active", active);
+        pool.put("idle", mxBean.getIdleConnections());
+        pool.put("total", mxBean.getTotalConnections());
+        pool.put("max", maxSize);
+        pool.put("waiting", waiting);
+        pool.put("saturation", saturation);
+        pool.put("saturated", saturation >= poolSaturationThreshold || waiting > 0);
+        return pool;
+    }
+    
+    /**
+     * エンティティキャッシュの統計
+     * Entity cache statistics
+     * 
+     * @return キャッシュ別のヒット／ミス統計
+     * @return Hit/miss statistics per cache
+     */
+    @GetMapping("/caches")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> caches() {
+        Map<String, Object> caches = new LinkedHashMap<>();
+        for (EntityCache<?> cache : entityCaches) {
+            CacheStats stats = cache.stats();
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("size", cache.size());
+            entry.put("hits", stats.hitCount());
+            entry.put("misses", stats.missCount());
+            entry.put("hitRate", stats.hitRate());
+            entry.put("evictions", stats.evictionCount());
+            entry.put("averageLoadPenaltyMs", stats.averageLoadPenalty() / 1_000_000.0);
+            caches.put(cache.getName(), entry);
+        }
+        return ResponseEntity.ok(ApiResponse.success(caches, "Cache statistics retrieved successfully"));
+    }
 }
@@ -0,0 +1,87 @@
+package com.logistics.controller;
+
+import com.logistics.controller.dto.ApiResponse;
+import com.logistics.controller.dto.AsnReceiptRequest;
+import com.logistics.controller.dto.AsnReceiptResult;
+import com.logistics.entity.IncomingRecord;
+import com.logistics.service.IncomingService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * 入荷コントローラー
+ * Incoming Controller
+ * 
+ * 入荷予定（ASN）の照会と入荷実績登録のREST APIエンドポイント
+ * REST API endpoints for ASN lookups and receipts
+ */
+@RestController
+@RequestMapping("/api/incoming")
+@RequiredArgsConstructor
+@Slf4j
+@CrossOrigin(origins = "*")
+public class IncomingController {
+    
+    private final IncomingService incomingService;
+    
+    /**
+     * ASNの全明細を取得
+     * Get every line of an ASN
+     * 
+     * @param asnNo 事前出荷通知番号
+     * @return 入荷記録リスト
+     * @return List of incoming records
+     */
+    @GetMapping("/asn/{asnNo}")
+    public ResponseEntity<ApiResponse<List<IncomingRecord>>> getAsnLines(@PathVariable String asnNo) {
+        try {
+            List<IncomingRecord> lines = incomingService.getAsnLines(asnNo);
+            if (lines.isEmpty()) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body(ApiResponse.error(404, "ASN not found"));
+            }
+            return ResponseEntity.ok(ApiResponse.success(lines, "ASN retrieved successfully"));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.validationError(e.getMessage()));
+        } catch (Exception e) {
+            log.error("Error getting ASN: {}", asnNo, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(ApiResponse.serverError("Failed to retrieve ASN: " + e.getMessage()));
+        }
+    }
+    
+    /**
+     * ASNを入荷（PLANNEDの明細をRECEIVEDにして在庫を加算）
+     * Receive an ASN (PLANNED lines become RECEIVED and their quantities are added to stock)
+     * 
+     * @param asnNo 事前出荷通知番号
+     * @param request 入荷先と予定と異なる明細
+     * @return 入荷結果
+     * @return Receipt result
+     */
+    @PostMapping("/asn/{asnNo}/receive")
+    public ResponseEntity<ApiResponse<AsnReceiptResult>> receiveAsn(@PathVariable String asnNo,
+                                                                    @RequestBody AsnReceiptRequest request) {
+        try {
+            AsnReceiptResult result = incomingService.receiveAsn(asnNo, request);
+            return ResponseEntity.ok(ApiResponse.success(result, "ASN received successfully"));
+        } catch (IllegalArgumentException e) {
+            log.warn("Validation error receiving ASN {}: {}", asnNo, e.getMessage());
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.validationError(e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(ApiResponse.error(HttpStatus.SERVICE_UNAVAILABLE.value(), e.getMessage()));
+        } catch (Exception e) {
+            log.error("Error receiving ASN: {}", asnNo, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(ApiResponse.serverError("Failed to receive ASN: " + e.getMessage()));
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package com.logistics.controller;
+
+import com.logistics.controller.dto.ApiResponse;
+import com.logistics.controller.dto.InventoryAdjustRequest;
+import com.logistics.controller.dto.InventoryStats;
+import com.logistics.controller.dto.LowStockItem;
+import com.logistics.controller.support.LowStockBroadcaster;
+import com.logistics.entity.Inventory;
+import com.logistics.service.InventoryService;
+import com.logistics.service.inventory.LowStockDetector;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+
+/**
+ * 在庫コントローラー
+ * Inventory Controller
+ * 
+ * 在庫照会・増減のREST APIエンドポイント
+ * REST API endpoints for stock queries and adjustments
+ */
+@RestController
+@RequestMapping("/api/inventory")
+@RequiredArgsConstructor
+@Slf4j
+@CrossOrigin(origins = "*")
+public class InventoryController {
+    
+    private final InventoryService inventoryService;
+    
+    private final LowStockDetector lowStockDetector;
+    
+    private final LowStockBroadcaster lowStockBroadcaster;
+    
+    /**
+     * 商品×ロケーションの在庫を取得
+     * Get the stock of a product at a location
+     * 
+     * @param productId 商品ID
+     * @param locationId ロケーションID
+     * @return 在庫
+     * @return Stock
+     */
+    @GetMapping("/{productId}/{locationId}")
+    public ResponseEntity<ApiResponse<Inventory>> getStock(@PathVariable String productId, @PathVariable String locationId) {
+        try {
+            Inventory stock = inventoryService.getStock(productId, locationId);
+            return ResponseEntity.ok(ApiResponse.success(stock, "Stock retrieved successfully"));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.validationError(e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(ApiResponse.error(HttpStatus.SERVICE_UNAVAILABLE.value(), e.getMessage()));
+        } catch (Exception e) {
+            log.error("Error getting stock: {} @ {}", productId, locationId, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(ApiResponse.serverError("Failed to retrieve stock: " + e.getMessage()));
+        }
+    }
+    
+    /**
+     * 商品の全ロケーションの在庫を取得
+     * Get the stock of a product at every location
+     * 
+     * @param productId 商品ID
+     * @return 在庫リスト
+     * @return List of stock rows
+     */
+    @GetMapping("/product/{productId}")
+    public ResponseEntity<ApiResponse<List<Inventory>>> getStockByProduct(@PathVariable String productId) {
+        try {
+            List<Inventory> stock = inventoryService.getStockByProduct(productId);
+            return ResponseEntity.ok(ApiResponse.success(stock, "Stock retrieved successfully"));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.validationError(e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(ApiResponse.error(HttpStatus.SERVICE_UNAVAILABLE.value(), e.getMessage()));
+        } catch (Exception e) {
+            log.error("Error getting stock for product: {}", productId, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(ApiResponse.serverError("Failed to retrieve stock: " + e.getMessage()));
+        }
+    }
+    
+    /**
+     * 在庫を増減
+     * Adjust stock
+     * 
+     * @param request 増減内容
+     * @return 更新後の在庫
+     * @return Stock after the change
+     */
+    @PostMapping("/adjust")
+    public ResponseEntity<ApiResponse<Inventory>> adjustStock(@RequestBody InventoryAdjustRequest request) {
+        try {
+            if (request.getDelta() == null) {
+                return ResponseEntity.badRequest()
+                        .body(ApiResponse.validationError("Quantity change is required"));
+            }
+            Inventory stock = inventoryService.adjustStock(request.getProductId(), request.getLocationId(), request.getDelta());
+            return ResponseEntity.ok(ApiResponse.success(stock, "Stock adjusted successfully"));
+        } catch (IllegalArgumentException e) {
+            log.warn("Validation error adjusting stock: {}", e.getMessage());
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.validationError(e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(ApiResponse.error(HttpStatus.SERVICE_UNAVAILABLE.value(), e.getMessage()));
+        } catch (Exception e) {
+            log.error("Error adjusting stock: {}", request, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(ApiResponse.serverError("Failed to adjust stock: " + e.getMessage()));
+        }
+    }
+    
+    /**
+     * 在庫台帳の統計（競合度・反映遅延）を取得
+     * Get inventory ledger statistics (contention and flush lag)
+     * 
+     * @return 統計
+     * @return Statistics
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<ApiResponse<InventoryStats>> getLedgerStats() {
+        return ResponseEntity.ok(ApiResponse.success(inventoryService.getLedgerStats()));
+    }
+    
+    /**
+     * 安全在庫割れの商品一覧を取得（メモリ上の集合から応答）
+     * Get the products below safety stock (served from the in-memory set)
+     * 
+     * @return 商品リスト（商品ID順）
+     * @return List of products by product ID
+     */
+    @GetMapping("/low-stock")
+    public ResponseEntity<ApiResponse<List<LowStockItem>>> getLowStock() {
+        try {
+            List<LowStockItem> items = lowStockDetector.current();
+            return ResponseEntity.ok(ApiResponse.success(items, "Low stock products retrieved successfully"));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(ApiResponse.error(HttpStatus.SERVICE_UNAVAILABLE.value(), e.getMessage()));
+        }
+    }
+    
+    /**
+     * 安全在庫割れの商品をServer-Sent Eventsで購読
+     * Subscribe to products below safety stock over Server-Sent Events
+     * 
+     * イベント：snapshot（接続時の一覧）、entered（安全在庫を下回った）、left（安全在庫以上に戻った）
+     * Events: snapshot (the list on connect), entered (fell below safety stock), left (back at or above it)
+     * 
+     * @return SSEストリーム
+     * @return SSE stream
+     */
+    @GetMapping("/low-stock/stream")
+    public ResponseEntity<?> streamLowStock() {
+        try {
+            SseEmitter emitter = lowStockBroadcaster.subscribe();
+            return ResponseEntity.ok()
+                    .contentType(MediaType.TEXT_EVENT_STREAM)
+                    .body(emitter);
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(ApiResponse.error(HttpStatus.SERVICE_UNAVAILABLE.value(), e.getMessage()));
+        }
+    }
+}
@@ -1,14 +1,29 @@
 package com.logistics.controller;
 
 import com.logistics.controller.dto.ApiResponse;
+import com.logistics.controller.dto.PageResponse;
+import com.logistics.controller.dto.ImportResult;
+import com.logistics.controller.dto.LocationNode;
+import com.logistics.controller.dto.PutawayCandidate;
+import com.logistics.controller.support.ExportWriter;
 import com.logistics.entity.LocationMaster;
 import com.logistics.service.LocationMasterService;
+import com.logistics.service.cache.MasterDataVersions;
+import com.logistics.service.event.MasterDataChangeEvent.MasterType;
+import com.logistics.service.location.PutawayRecommender;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 
 /**
@@ -27,19 +42,41 @@ public class LocationMasterController {
     
     private final LocationMasterService locationMasterService;
     
+    private final MasterDataVersions masterDataVersions;
+    
+    private final ExportWriter exportWriter;
+    
+    private final PutawayRecommender putawayRecommender;
+    
     /**
-     * 全ロケーションを取得
-     * Get all locations
+     * ロケーション一覧を取得（登録日時の新しい順、キーセット方式のページング）
+     * Get locations (newest first, keyset pagination)
      * 
-     * @return ロケーションリスト
-     * @return List of locations
+     * @param size ページサイズ（最大app.page.max-size）
+     * @param after カーソルトークン（前ページのnextCursor、未指定で先頭ページ）
+     * @param webRequest 条件付きリクエスト（If-None-Match）
+     * @return ロケーションページ
+     * @return Page of locations
      */
     @GetMapping
-    public ResponseEntity<ApiResponse<List<LocationMaster>>> getAllLocations() {
+    public ResponseEntity<ApiResponse<PageResponse<LocationMaster>>> getAllLocations(
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(required = false) String after,
+            WebRequest webRequest) {
+        String etag = masterDataVersions.etag(MasterType.LOCATION);
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
         try {
-            log.info("Getting all locations");
-            List<LocationMaster> locations = locationMasterService.getAllLocations();
-            return ResponseEntity.ok(ApiResponse.success(locations, "Locations retrieved successfully"));
+            log.info("Getting locations - size: {}, after: {}", size, after);
+            PageResponse<LocationMaster> locations = locationMasterService.getLocations(size, after);
+            return ResponseEntity.ok()
+                    .cacheControl(CacheControl.noCache())
+                    .body(ApiResponse.success(locations, "Locations retrieved successfully"));
+        } catch (IllegalArgumentException e) {
+            log.warn("Invalid location page request", e);
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.validationError(e.getMessage()));
         } catch (Exception e) {
             log.error("Error getting all locations", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -47,16 +84,188 @@ public class LocationMasterController {
         }
     }
     
+    /**
+     * ロケーション階層と容量合計を取得（倉庫→ゾーン→ラック→レベル→ポジション、メモリ上の索引から応答）
+     * Get the location hierarchy with capacity totals (warehouse → zone → rack → level → position, served from memory)
+     * 
+     * @param warehouseCode 倉庫コード（未指定の場合は全倉庫）
+     * @param zone ゾーン（未設定のゾーンは空文字）
+     * @param rack ラック（未設定のラックは空文字）
+     * @param webRequest 条件付きリクエスト（If-None-Match）
+     * @return 指定階層のノードと直下ノードの要約
+     * @return Node at the path with summaries of its children
+     */
+    @GetMapping("/tree")
+    public ResponseEntity<ApiResponse<LocationNode>> getLocationTree(
+            @RequestParam(required = false) String warehouseCode,
+            @RequestParam(required = false) String zone,
+            @RequestParam(required = false) String rack,
+            WebRequest webRequest) {
+        String etag = masterDataVersions.etag(MasterType.LOCATION);
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+        try {
+            log.info("Getting location tree - warehouse: {}, zone: {}, rack: {}", warehouseCode, zone, rack);
+            LocationNode node = locationMasterService.getLocationNode(warehouseCode, zone, rack);
+            if (node == null) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body(ApiResponse.error(404, "Location node not found"));
+            }
+            return ResponseEntity.ok()
+                    .cacheControl(CacheControl.noCache())
+                    .body(ApiResponse.success(node, "Location tree retrieved successfully"));
+        } catch (IllegalArgumentException e) {
+            log.warn("Invalid location tree request: {}", e.getMessage());
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.validationError(e.getMessage()));
+        } catch (IllegalStateException e) {
+            log.warn("Location tree requested before it was built");
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(ApiResponse.error(HttpStatus.SERVICE_UNAVAILABLE.value(), e.getMessage()));
+        } catch (Exception e) {
+            log.error("Error getting location tree", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(ApiResponse.serverError("Failed to retrieve location tree: " + e.getMessage()));
+        }
+    }
+    
+    /**
+     * ラック配下のロケーションを取得（レベル→ポジション順、メモリ上の索引から応答）
+     * Get the locations in a rack (by level and position, served from memory)
+     * 
+     * @param warehouseCode 倉庫コード
+     * @param zone ゾーン（未設定のゾーンは空文字）
+     * @param rack ラック（未設定のラックは空文字）
+     * @param webRequest 条件付きリクエスト（If-None-Match）
+     * @return ロケーションリスト
+     * @return List of locations
+     */
+    @GetMapping("/rack")
+    public ResponseEntity<ApiResponse<List<LocationMaster>>> getLocationsInRack(
+            @RequestParam String warehouseCode,
+            @RequestParam String zone,
+            @RequestParam String rack,
+            WebRequest webRequest) {
+        String etag = masterDataVersions.etag(MasterType.LOCATION);
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+        try {
+            log.info("Getting locations in rack - warehouse: {}, zone: {}, rack: {}", warehouseCode, zone, rack);
+            List<LocationMaster> locations = locationMasterService.getLocationsInRack(warehouseCode, zone, rack);
+            return ResponseEntity.ok()
+                    .cacheControl(CacheControl.noCache())
+                    .body(ApiResponse.success(locations, "Locations retrieved successfully"));
+        } catch (IllegalArgumentException e) {
+            log.warn("Invalid rack request: {}", e.getMessage());
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.validationError(e.getMessage()));
+        } catch (IllegalStateException e) {
+            log.warn("Rack locations requested before the location tree was built");
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(ApiResponse.error(HttpStatus.SERVICE_UNAVAILABLE.value(), e.getMessage()));
+        } catch (Exception e) {
+            log.error("Error getting locations in rack", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(ApiResponse.serverError("Failed to retrieve locations: " + e.getMessage()));
+        }
+    }
+    
+    /**
+     * 入庫先ロケーションの候補を取得（残り容量の大きい順、メモリ上の索引から応答）
+     * Recommend putaway locations (most remaining capacity first, served from memory)
+     * 
+     * @param productId 商品ID
+     * @param quantity 入庫数量
+     * @param warehouseCode 倉庫コード（未指定の場合は全倉庫）
+     * @param zone ゾーン（倉庫コードの指定が必要）
+     * @param limit 最大件数
+     * @return 候補リスト（同じ商品を保管中のロケーションが先頭）
+     * @return Candidates, locations already holding the product first
+     */
+    @GetMapping("/putaway")
+    public ResponseEntity<ApiResponse<List<PutawayCandidate>>> recommendPutaway(
+            @RequestParam String productId,
+            @RequestParam long quantity,
+            @RequestParam(required = false) String warehouseCode,
+            @RequestParam(required = false) String zone,
+            @RequestParam(defaultValue = "5") int limit) {
+        try {
+            List<PutawayCandidate> candidates = putawayRecommender.recommend(productId, quantity, warehouseCode, zone, limit);
+            return ResponseEntity.ok(ApiResponse.success(candidates, "Putaway locations retrieved successfully"));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.validationError(e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(ApiResponse.error(HttpStatus.SERVICE_UNAVAILABLE.value(), e.getMessage()));
+        } catch (Exception e) {
+            log.error("Error recommending putaway locations", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(ApiResponse.serverError("Failed to recommend putaway locations: " + e.getMessage()));
+        }
+    }
+    
+    /**
+     * 全ロケーションをストリーミングでエクスポート
+     * Stream all locations as an export
+     * 
+     * @param format 形式（ndjson/csv）
+     * @param response HTTPレスポンス
+     */
+    @GetMapping("/export")
+    public void exportLocations(
+            @RequestParam(defaultValue = "ndjson") String format, 
+            HttpServletResponse response) throws IOException {
+        log.info("Exporting locations as {}", format);
+        exportWriter.export(response, format, "locations", LocationMaster.class, locationMasterService::exportLocations);
+    }
+    
+    /**
+     * CSVファイルからロケーションを一括登録
+     * Bulk import locations from a CSV file
+     * 
+     * @param file CSVファイル（ヘッダー：locationId, warehouseCode, zone, rack, levelNo, position, maxCapacity）
+     * @return 取込結果（行単位のエラーを含む）
+     * @return Import result including per-line errors
+     */
+    @PostMapping(value = "/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<ApiResponse<ImportResult>> importLocations(@RequestParam("file") MultipartFile file) {
+        if (file.isEmpty()) {
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.validationError("CSV file cannot be empty"));
+        }
+        try (InputStream in = file.getInputStream()) {
+            log.info("Importing locations from {} ({} bytes)", file.getOriginalFilename(), file.getSize());
+            ImportResult result = locationMasterService.importLocations(in);
+            return ResponseEntity.ok(ApiResponse.success(result, "Locations imported"));
+        } catch (IllegalArgumentException e) {
+            log.warn("Invalid location import file: {}", e.getMessage());
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.validationError(e.getMessage()));
+        } catch (Exception e) {
+            log.error("Error importing locations", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(ApiResponse.serverError("Failed to import locations: " + e.getMessage()));
+        }
+    }
+    
     /**
      * ロケーションIDでロケーションを取得
      * Get location by location ID
      * 
      * @param locationId ロケーションID
+     * @param webRequest 条件付きリクエスト（If-None-Match）
      * @return ロケーション情報
      * @return Location information
      */
     @GetMapping("/{locationId}")
-    public ResponseEntity<ApiResponse<LocationMaster>> getLocationById(@PathVariable String locationId) {
+    public ResponseEntity<ApiResponse<LocationMaster>> getLocationById(@PathVariable String locationId, WebRequest webRequest) {
+        String etag = masterDataVersions.etag(MasterType.LOCATION);
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
         try {
             log.info("Getting location by ID: {}", locationId);
             LocationMaster location = locationMasterService.getLocationById(locationId);
@@ -64,7 +273,9 @@ public class LocationMasterController {
                 return ResponseEntity.status(HttpStatus.NOT_FOUND)
                         .body(ApiResponse.error(404, "Location not found"));
             }
-            return ResponseEntity.ok(ApiResponse.success(location, "Location retrieved successfully"));
+            return ResponseEntity.ok()
+                    .cacheControl(CacheControl.noCache())
+                    .body(ApiResponse.success(location, "Location retrieved successfully"));
         } catch (IllegalArgumentException e) {
             log.warn("Invalid location ID: {}", locationId, e);
             return ResponseEntity.badRequest()
@@ -81,15 +292,28 @@ public class LocationMasterController {
      * Search locations by warehouse code
      * 
      * @param warehouseCode 倉庫コード
-     * @return ロケーションリスト
-     * @return List of locations
+     * @param size ページサイズ（最大app.page.max-size）
+     * @param after カーソルトークン（前ページのnextCursor、未指定で先頭ページ）
+     * @param webRequest 条件付きリクエスト（If-None-Match）
+     * @return ロケーションページ
+     * @return Page of locations
      */
     @GetMapping("/warehouse/{warehouseCode}")
-    public ResponseEntity<ApiResponse<List<LocationMaster>>> getLocationsByWarehouseCode(@PathVariable String warehouseCode) {
+    public ResponseEntity<ApiResponse<PageResponse<LocationMaster>>> getLocationsByWarehouseCode(
+            @PathVariable String warehouseCode,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(required = false) String after,
+            WebRequest webRequest) {
+        String etag = masterDataVersions.etag(MasterType.LOCATION);
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
         try {
             log.info("Getting locations by warehouse code: {}", warehouseCode);
-            List<LocationMaster> locations = locationMasterService.getLocationsByWarehouseCode(warehouseCode);
-            return ResponseEntity.ok(ApiResponse.success(locations, "Locations retrieved successfully"));
+            PageResponse<LocationMaster> locations = locationMasterService.getLocationsByWarehouseCode(warehouseCode, size, after);
+            return ResponseEntity.ok()
+                    .cacheControl(CacheControl.noCache())
+                    .body(ApiResponse.success(locations, "Locations retrieved successfully"));
         } catch (IllegalArgumentException e) {
             log.warn("Invalid warehouse code: {}", warehouseCode, e);
             return ResponseEntity.badRequest()
@@ -106,15 +330,28 @@ public class LocationMasterController {
      * Search locations by zone
      * 
      * @param zone ゾーン
-     * @return ロケーションリスト
-     * @return List of locations
+     * @param size ページサイズ（最大app.page.max-size）
+     * @param after カーソルトークン（前ページのnextCursor、未指定で先頭ページ）
+     * @param webRequest 条件付きリクエスト（If-None-Match）
+     * @return ロケーションページ
+     * @return Page of locations
      */
     @GetMapping("/zone/{zone}")
-    public ResponseEntity<ApiResponse<List<LocationMaster>>> getLocationsByZone(@PathVariable String zone) {
+    public ResponseEntity<ApiResponse<PageResponse<LocationMaster>>> getLocationsByZone(
+            @PathVariable String zone,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(required = false) String after,
+            WebRequest webRequest) {
+        String etag = masterDataVersions.etag(MasterType.LOCATION);
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
         try {
             log.info("Getting locations by zone: {}", zone);
-            List<LocationMaster> locations = locationMasterService.getLocationsByZone(zone);
-            return ResponseEntity.ok(ApiResponse.success(locations, "Locations retrieved successfully"));
+            PageResponse<LocationMaster> locations = locationMasterService.getLocationsByZone(zone, size, after);
+            return ResponseEntity.ok()
+                    .cacheControl(CacheControl.noCache())
+                    .body(ApiResponse.success(locations, "Locations retrieved successfully"));
         } catch (IllegalArgumentException e) {
             log.warn("Invalid zone: {}", zone, e);
             return ResponseEntity.badRequest()
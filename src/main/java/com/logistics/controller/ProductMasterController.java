@@ -1,16 +1,26 @@
 package com.logistics.controller;
 
 import com.logistics.controller.dto.ApiResponse;
+import com.logistics.controller.dto.BatchUpsertResponse;
+import com.logistics.controller.support.ExportWriter;
+import com.logistics.controller.dto.CountMode;
 import com.logistics.controller.dto.PageRequest;
 import com.logistics.controller.dto.PageResponse;
 import com.logistics.entity.ProductMaster;
 import com.logistics.service.ProductMasterService;
+import com.logistics.service.cache.MasterDataVersions;
+import com.logistics.service.event.MasterDataChangeEvent.MasterType;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.io.IOException;
 import java.util.List;
 
 /**
@@ -29,6 +39,17 @@ public class ProductMasterController {
     
     private final ProductMasterService productMasterService;
     
+    private final MasterDataVersions masterDataVersions;
+    
+    private final ExportWriter exportWriter;
+    
+    /**
+     * 一括登録の最大行数
+     * Maximum rows per bulk request
+     */
+    @Value("${app.batch.max-rows:10000}")
+    private int batchMaxRows;
+    
     /**
      * 全商品を取得（分页支持）
      * Get all products with pagination
@@ -38,6 +59,9 @@ public class ProductMasterController {
      * @param sortBy 排序字段
      * @param sortDir 排序方向
      * @param keyword 搜索关键词
+     * @param after カーソルトークン（指定時はキーセットページング、空文字で先頭ページ）
+     * @param count 総件数の取得方式（exact/approximate/none）
+     * @param webRequest 条件付きリクエスト（If-None-Match）
      * @return 分页商品列表
      * @return Paginated product list
      */
@@ -47,10 +71,16 @@ public class ProductMasterController {
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "createdAt") String sortBy,
             @RequestParam(defaultValue = "DESC") String sortDir,
-            @RequestParam(required = false) String keyword) {
+            @RequestParam(required = false) String keyword,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) String count, WebRequest webRequest) {
+        String etag = masterDataVersions.etag(MasterType.PRODUCT);
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
         try {
-            log.info("Getting products with pagination - page: {}, size: {}, sortBy: {}, sortDir: {}, keyword: {}", 
-                    page, size, sortBy, sortDir, keyword);
+            log.info("Getting products with pagination - page: {}, size: {}, sortBy: {}, sortDir: {}, keyword: {}, after: {}, count: {}", 
+                    page, size, sortBy, sortDir, keyword, after, count);
             
             PageRequest pageRequest = PageRequest.builder()
                     .page(page)
@@ -58,10 +88,18 @@ public class ProductMasterController {
                     .sortBy(sortBy)
                     .sortDir(sortDir)
                     .keyword(keyword)
+                    .after(after)
+                    .count(CountMode.from(count))
                     .build();
             
             PageResponse<ProductMaster> pageResponse = productMasterService.getProductsWithPagination(pageRequest);
-            return ResponseEntity.ok(ApiResponse.success(pageResponse, "Products retrieved successfully"));
+            return ResponseEntity.ok()
+                    .cacheControl(CacheControl.noCache())
+                    .body(ApiResponse.success(pageResponse, "Products retrieved successfully"));
+        } catch (IllegalArgumentException e) {
+            log.warn("Invalid pagination request", e);
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.validationError(e.getMessage()));
         } catch (Exception e) {
             log.error("Error getting products with pagination", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -69,16 +107,36 @@ public class ProductMasterController {
         }
     }
     
+    /**
+     * 全商品をストリーミングでエクスポート
+     * Stream all products as an export
+     * 
+     * @param format 形式（ndjson/csv）
+     * @param response HTTPレスポンス
+     */
+    @GetMapping("/export")
+    public void exportProducts(
+            @RequestParam(defaultValue = "ndjson") String format, 
+            HttpServletResponse response) throws IOException {
+        log.info("Exporting products as {}", format);
+        exportWriter.export(response, format, "products", ProductMaster.class, productMasterService::exportProducts);
+    }
+    
     /**
      * 商品IDで商品を取得
      * Get product by product ID
      * 
      * @param productId 商品ID
+     * @param webRequest 条件付きリクエスト（If-None-Match）
      * @return 商品情報
      * @return Product information
      */
     @GetMapping("/{productId}")
-    public ResponseEntity<ApiResponse<ProductMaster>> getProductById(@PathVariable String productId) {
+    public ResponseEntity<ApiResponse<ProductMaster>> getProductById(@PathVariable String productId, WebRequest webRequest) {
+        String etag = masterDataVersions.etag(MasterType.PRODUCT);
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
         try {
             log.info("Getting product by ID: {}", productId);
             ProductMaster product = productMasterService.getProductById(productId);
@@ -86,7 +144,9 @@ public class ProductMasterController {
                 return ResponseEntity.status(HttpStatus.NOT_FOUND)
                         .body(ApiResponse.error(404, "Product not found"));
             }
-            return ResponseEntity.ok(ApiResponse.success(product, "Product retrieved successfully"));
+            return ResponseEntity.ok()
+                    .cacheControl(CacheControl.noCache())
+                    .body(ApiResponse.success(product, "Product retrieved successfully"));
         } catch (IllegalArgumentException e) {
             log.warn("Invalid product ID: {}", productId, e);
             return ResponseEntity.badRequest()
@@ -103,15 +163,32 @@ public class ProductMasterController {
      * Search products by name
      * 
      * @param name 商品名
-     * @return 商品リスト
-     * @return List of products
+     * @param size ページサイズ（最大app.page.max-size）
+     * @param after カーソルトークン（前ページのnextCursor、未指定で先頭ページ）
+     * @param webRequest 条件付きリクエスト（If-None-Match）
+     * @return 商品ページ
+     * @return Page of products
      */
     @GetMapping("/search")
-    public ResponseEntity<ApiResponse<List<ProductMaster>>> searchProductsByName(@RequestParam String name) {
+    public ResponseEntity<ApiResponse<PageResponse<ProductMaster>>> searchProductsByName(
+            @RequestParam String name,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(required = false) String after,
+            WebRequest webRequest) {
+        String etag = masterDataVersions.etag(MasterType.PRODUCT);
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
         try {
             log.info("Searching products by name: {}", name);
-            List<ProductMaster> products = productMasterService.searchProductsByName(name);
-            return ResponseEntity.ok(ApiResponse.success(products, "Products searched successfully"));
+            PageResponse<ProductMaster> products = productMasterService.searchProductsByName(name, size, after);
+            return ResponseEntity.ok()
+                    .cacheControl(CacheControl.noCache())
+                    .body(ApiResponse.success(products, "Products searched successfully"));
+        } catch (IllegalArgumentException e) {
+            log.warn("Invalid product search request: {}", name, e);
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.validationError(e.getMessage()));
         } catch (Exception e) {
             log.error("Error searching products by name: {}", name, e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -145,6 +222,35 @@ public class ProductMasterController {
         }
     }
     
+    /**
+     * 商品を一括で登録または更新
+     * Create or update products in bulk
+     * 
+     * @param products 商品情報リスト
+     * @return 行単位の処理結果
+     * @return Per-row results
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<ApiResponse<BatchUpsertResponse>> upsertProducts(@RequestBody List<ProductMaster> products) {
+        try {
+            if (products == null || products.isEmpty()) {
+                return ResponseEntity.badRequest()
+                        .body(ApiResponse.validationError("Product list cannot be empty"));
+            }
+            if (products.size() > batchMaxRows) {
+                return ResponseEntity.badRequest()
+                        .body(ApiResponse.validationError("Too many products in one request (max " + batchMaxRows + ")"));
+            }
+            log.info("Bulk upserting {} products", products.size());
+            BatchUpsertResponse result = productMasterService.upsertProducts(products);
+            return ResponseEntity.ok(ApiResponse.success(result, "Products upserted"));
+        } catch (Exception e) {
+            log.error("Error bulk upserting products", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(ApiResponse.serverError("Failed to upsert products: " + e.getMessage()));
+        }
+    }
+    
     /**
      * 商品情報を更新
      * Update product information
@@ -0,0 +1,51 @@
+package com.logistics.controller;
+
+import com.logistics.controller.dto.ApiResponse;
+import com.logistics.controller.dto.WaveAllocationResult;
+import com.logistics.service.ShipmentService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * 出荷コントローラー
+ * Shipment Controller
+ * 
+ * 出荷引当のREST APIエンドポイント
+ * REST API endpoints for shipment allocation
+ */
+@RestController
+@RequestMapping("/api/shipments")
+@RequiredArgsConstructor
+@Slf4j
+@CrossOrigin(origins = "*")
+public class ShipmentController {
+    
+    private final ShipmentService shipmentService;
+    
+    /**
+     * 未引当の出荷行をすべて引き当てる（ウェーブ引当）
+     * Allocate every pending shipment line (wave allocation)
+     * 
+     * @return 引当結果（件数と処理速度）
+     * @return Allocation result (counts and throughput)
+     */
+    @PostMapping("/allocate")
+    public ResponseEntity<ApiResponse<WaveAllocationResult>> allocatePending() {
+        try {
+            log.info("Starting allocation wave");
+            WaveAllocationResult result = shipmentService.allocatePending();
+            return ResponseEntity.ok(ApiResponse.success(result, "Allocation wave completed"));
+        } catch (IllegalStateException e) {
+            log.warn("Allocation wave rejected: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(ApiResponse.error(HttpStatus.SERVICE_UNAVAILABLE.value(), e.getMessage()));
+        } catch (Exception e) {
+            log.error("Error running allocation wave", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(ApiResponse.serverError("Failed to run allocation wave: " + e.getMessage()));
+        }
+    }
+}
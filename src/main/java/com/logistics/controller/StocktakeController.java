@@ -0,0 +1,93 @@
+package com.logistics.controller;
+
+import com.logistics.controller.dto.ApiResponse;
+import com.logistics.controller.dto.StocktakeCompletion;
+import com.logistics.controller.dto.StocktakeCountResult;
+import com.logistics.service.StocktakeService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.InputStream;
+
+/**
+ * 棚卸コントローラー
+ * Stocktake Controller
+ * 
+ * 実棚数の取込と棚卸完了のREST APIエンドポイント
+ * REST API endpoints for count uploads and stocktake completion
+ */
+@RestController
+@RequestMapping("/api/stocktakes")
+@RequiredArgsConstructor
+@Slf4j
+@CrossOrigin(origins = "*")
+public class StocktakeController {
+    
+    private final StocktakeService stocktakeService;
+    
+    /**
+     * CSVファイルから実棚数を取り込み、システム在庫との差異を登録
+     * Upload counted quantities from a CSV file and record their differences from system stock
+     * 
+     * @param stocktakeNo 棚卸番号
+     * @param file CSVファイル（ヘッダー：productId, locationId, countedQty, reason）
+     * @return 取込結果（行単位のエラーを含む）
+     * @return Upload result including per-row errors
+     */
+    @PostMapping(value = "/{stocktakeNo}/counts", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<ApiResponse<StocktakeCountResult>> recordCounts(@PathVariable String stocktakeNo,
+                                                                          @RequestParam("file") MultipartFile file) {
+        if (file.isEmpty()) {
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.validationError("CSV file cannot be empty"));
+        }
+        try (InputStream in = file.getInputStream()) {
+            log.info("Uploading stocktake {} counts from {} ({} bytes)", stocktakeNo, file.getOriginalFilename(), file.getSize());
+            StocktakeCountResult result = stocktakeService.recordCounts(stocktakeNo, in);
+            return ResponseEntity.ok(ApiResponse.success(result, "Stocktake counts recorded"));
+        } catch (IllegalArgumentException e) {
+            log.warn("Invalid stocktake upload for {}: {}", stocktakeNo, e.getMessage());
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.validationError(e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(ApiResponse.error(HttpStatus.SERVICE_UNAVAILABLE.value(), e.getMessage()));
+        } catch (Exception e) {
+            log.error("Error uploading stocktake counts: {}", stocktakeNo, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(ApiResponse.serverError("Failed to record stocktake counts: " + e.getMessage()));
+        }
+    }
+    
+    /**
+     * 棚卸を完了し、差異を在庫に反映
+     * Complete a stocktake and apply its differences to stock
+     * 
+     * @param stocktakeNo 棚卸番号
+     * @return 完了結果
+     * @return Completion result
+     */
+    @PostMapping("/{stocktakeNo}/complete")
+    public ResponseEntity<ApiResponse<StocktakeCompletion>> completeStocktake(@PathVariable String stocktakeNo) {
+        try {
+            StocktakeCompletion result = stocktakeService.completeStocktake(stocktakeNo);
+            return ResponseEntity.ok(ApiResponse.success(result, "Stocktake completed"));
+        } catch (IllegalArgumentException e) {
+            log.warn("Validation error completing stocktake {}: {}", stocktakeNo, e.getMessage());
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.validationError(e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(ApiResponse.error(HttpStatus.SERVICE_UNAVAILABLE.value(), e.getMessage()));
+        } catch (Exception e) {
+            log.error("Error completing stocktake: {}", stocktakeNo, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(ApiResponse.serverError("Failed to complete stocktake: " + e.getMessage()));
+        }
+    }
+}
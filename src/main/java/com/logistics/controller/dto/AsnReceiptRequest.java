@@ -0,0 +1,66 @@
+package com.logistics.controller.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * ASN入荷実績リクエスト
+ * ASN Receipt Request
+ * 
+ * 明細の指定が無い行は予定数量どおりに入荷したものとして扱う
+ * Lines that are not listed are received at their planned quantity
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AsnReceiptRequest {
+    
+    /**
+     * 入荷先ロケーションID（必須、明細で個別に指定可能）
+     * Receiving location ID (required; lines may override it)
+     */
+    private String locationId;
+    
+    /**
+     * 予定と異なる明細
+     * Lines that differ from the plan
+     */
+    private List<Line> lines;
+    
+    /**
+     * 入荷実績明細
+     * Receipt line
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Line {
+        
+        /**
+         * 入荷記録ID
+         * Incoming record ID
+         */
+        private Long recordId;
+        
+        /**
+         * 実績数量
+         * Actual quantity
+         */
+        private Long actualQty;
+        
+        /**
+         * 差異理由（実績数量が予定と異なる場合は必須）
+         * Discrepancy reason (required when the actual quantity differs from the plan)
+         */
+        private String discrepancyReason;
+        
+        /**
+         * 入荷先ロケーションID（省略時はリクエストのロケーション）
+         * Receiving location ID (defaults to the request's location)
+         */
+        private String locationId;
+    }
+}
@@ -0,0 +1,53 @@
+package com.logistics.controller.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * ASN入荷実績の結果
+ * ASN Receipt Result
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AsnReceiptResult {
+    
+    /**
+     * 事前出荷通知番号
+     * Advance shipping notice number
+     */
+    private String asnNo;
+    
+    /**
+     * 入荷した明細数
+     * Number of lines received
+     */
+    private int receivedLines;
+    
+    /**
+     * 予定と差異のあった明細数
+     * Number of lines that differed from the plan
+     */
+    private int discrepancyLines;
+    
+    /**
+     * 入荷数量の合計
+     * Total quantity received
+     */
+    private long receivedQty;
+    
+    /**
+     * 加算した在庫（商品×ロケーション）の数
+     * Number of stock cells (product and location) increased
+     */
+    private int inventoryRows;
+    
+    /**
+     * 処理時間（ミリ秒）
+     * Elapsed time in milliseconds
+     */
+    private long elapsedMs;
+}
@@ -0,0 +1,49 @@
+package com.logistics.controller.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 一括処理の行単位結果
+ * Per-row Result of a Bulk Operation
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BatchRowResult {
+    
+    /**
+     * 行ステータス
+     * Row status
+     */
+    public enum Status {
+        CREATED, UPDATED, FAILED
+    }
+    
+    /**
+     * 行番号（リクエスト配列の添字、CSVの場合は行番号）
+     * Row number (index in the request array, or line number for CSV)
+     */
+    private long index;
+    
+    /**
+     * 対象ID
+     * Target ID
+     */
+    private String id;
+    
+    /**
+     * 処理結果
+     * Result status
+     */
+    private Status status;
+    
+    /**
+     * エラーメッセージ（失敗時のみ）
+     * Error message (failures only)
+     */
+    private String message;
+}
@@ -0,0 +1,55 @@
+package com.logistics.controller.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 一括登録・更新レスポンス
+ * Bulk Upsert Response
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BatchUpsertResponse {
+    
+    /**
+     * 総行数
+     * Total rows
+     */
+    private int total;
+    
+    /**
+     * 新規登録件数
+     * Created rows
+     */
+    private int created;
+    
+    /**
+     * 更新件数
+     * Updated rows
+     */
+    private int updated;
+    
+    /**
+     * 失敗件数
+     * Failed rows
+     */
+    private int failed;
+    
+    /**
+     * 処理時間（ミリ秒）
+     * Elapsed time (milliseconds)
+     */
+    private long elapsedMs;
+    
+    /**
+     * 行単位の結果（リクエスト順）
+     * Per-row results (in request order)
+     */
+    private List<BatchRowResult> results;
+}
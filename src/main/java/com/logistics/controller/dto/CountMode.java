@@ -0,0 +1,49 @@
+package com.logistics.controller.dto;
+
+/**
+ * 総件数の取得方式
+ * Total Count Mode
+ * 
+ * ページング時に総件数をどのように求めるかを指定
+ * Specifies how the total count is obtained when paging
+ */
+public enum CountMode {
+    
+    /**
+     * COUNT(*)を実行（ページ取得と並列実行）
+     * Run COUNT(*) (in parallel with the page query)
+     */
+    EXACT,
+    
+    /**
+     * 短期キャッシュまたはテーブル統計から概算値を返す
+     * Serve an estimate from a short-TTL cache or table statistics
+     */
+    APPROXIMATE,
+    
+    /**
+     * 総件数を取得しない（無限スクロール向け）
+     * Skip the total count (for infinite scrolling)
+     */
+    NONE;
+    
+    /**
+     * 文字列から変換（大文字小文字を区別しない）
+     * Convert from string (case-insensitive)
+     * 
+     * @param value 文字列（exact/approximate/none）
+     * @return 取得方式（未指定の場合null）
+     * @return Count mode, or null if not given
+     */
+    public static CountMode from(String value) {
+        if (value == null || value.trim().isEmpty()) {
+            return null;
+        }
+        for (CountMode mode : values()) {
+            if (mode.name().equalsIgnoreCase(value.trim())) {
+                return mode;
+            }
+        }
+        throw new IllegalArgumentException("Invalid count mode: " + value + " (expected exact, approximate or none)");
+    }
+}
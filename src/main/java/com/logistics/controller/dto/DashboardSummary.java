@@ -0,0 +1,68 @@
+package com.logistics.controller.dto;
+
+import com.logistics.entity.CustomerMaster;
+import com.logistics.entity.LocationMaster;
+import com.logistics.entity.ProductMaster;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * ダッシュボード概要
+ * Dashboard Summary
+ * 
+ * マスタ別の件数と最近登録されたデータ
+ * Per-master totals and the most recently created rows
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DashboardSummary {
+    
+    /**
+     * 商品数
+     * Number of products
+     */
+    private long productCount;
+    
+    /**
+     * 顧客数
+     * Number of customers
+     */
+    private long customerCount;
+    
+    /**
+     * ロケーション数
+     * Number of locations
+     */
+    private long locationCount;
+    
+    /**
+     * 最近の商品（新しい順）
+     * Recent products (newest first)
+     */
+    private List<ProductMaster> recentProducts;
+    
+    /**
+     * 最近の顧客（新しい順）
+     * Recent customers (newest first)
+     */
+    private List<CustomerMaster> recentCustomers;
+    
+    /**
+     * 最近のロケーション（新しい順）
+     * Recent locations (newest first)
+     */
+    private List<LocationMaster> recentLocations;
+    
+    /**
+     * 件数をDBから読み込んだ日時（以降はコミットされた変更で増減）
+     * When the counts were seeded from the DB (adjusted by committed changes since)
+     */
+    private LocalDateTime seededAt;
+}
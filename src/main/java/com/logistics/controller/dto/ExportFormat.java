@@ -0,0 +1,53 @@
+package com.logistics.controller.dto;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * エクスポート形式
+ * Export Format
+ */
+@Getter
+@RequiredArgsConstructor
+public enum ExportFormat {
+    
+    /**
+     * 改行区切りJSON（1行1レコード）
+     * Newline-delimited JSON (one record per line)
+     */
+    NDJSON("application/x-ndjson;charset=UTF-8", "ndjson"),
+    
+    /**
+     * CSV（ヘッダー行付き）
+     * CSV (with header row)
+     */
+    CSV("text/csv;charset=UTF-8", "csv");
+    
+    /**
+     * Content-Type
+     */
+    private final String contentType;
+    
+    /**
+     * ファイル拡張子
+     * File extension
+     */
+    private final String extension;
+    
+    /**
+     * 文字列から変換（大文字小文字を区別しない）
+     * Convert from string (case-insensitive)
+     * 
+     * @param value 文字列（ndjson/csv）
+     * @return エクスポート形式
+     * @return Export format
+     */
+    public static ExportFormat from(String value) {
+        for (ExportFormat format : values()) {
+            if (format.extension.equalsIgnoreCase(value == null ? "" : value.trim())) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("Invalid export format: " + value + " (expected ndjson or csv)");
+    }
+}
@@ -0,0 +1,55 @@
+package com.logistics.controller.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * ファイル取込結果
+ * File Import Result
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ImportResult {
+    
+    /**
+     * 読み込んだデータ行数（ヘッダーを除く）
+     * Data rows read (excluding the header)
+     */
+    private long total;
+    
+    /**
+     * 登録件数
+     * Imported rows
+     */
+    private long imported;
+    
+    /**
+     * 失敗件数
+     * Failed rows
+     */
+    private long failed;
+    
+    /**
+     * 処理時間（ミリ秒）
+     * Elapsed time (milliseconds)
+     */
+    private long elapsedMs;
+    
+    /**
+     * 行単位のエラー（CSVの行番号付き、上限まで）
+     * Per-line errors with CSV line numbers (up to the limit)
+     */
+    private List<BatchRowResult> errors;
+    
+    /**
+     * エラーが上限を超えて省略された場合true
+     * true if errors beyond the limit were omitted
+     */
+    private boolean errorsTruncated;
+}
@@ -0,0 +1,33 @@
+package com.logistics.controller.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 在庫増減リクエスト
+ * Inventory Adjustment Request
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class InventoryAdjustRequest {
+    
+    /**
+     * 商品ID
+     * Product ID
+     */
+    private String productId;
+    
+    /**
+     * ロケーションID
+     * Location ID
+     */
+    private String locationId;
+    
+    /**
+     * 増減数（入庫は正、出庫は負）
+     * Quantity change (positive to receive, negative to issue)
+     */
+    private Long delta;
+}
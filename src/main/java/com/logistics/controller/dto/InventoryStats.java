@@ -0,0 +1,101 @@
+package com.logistics.controller.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 在庫台帳の統計
+ * Inventory Ledger Statistics
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class InventoryStats {
+    
+    /**
+     * 台帳の読み込み完了
+     * Whether the ledger is loaded
+     */
+    private boolean loaded;
+    
+    /**
+     * セル数（商品×ロケーション）
+     * Cells (product and location pairs)
+     */
+    private int cells;
+    
+    /**
+     * DB未反映のセル数
+     * Cells with unflushed deltas
+     */
+    private int dirtyCells;
+    
+    /**
+     * 更新回数の累計
+     * Total applied changes
+     */
+    private long operations;
+    
+    /**
+     * CAS再試行回数の累計
+     * Total CAS retries
+     */
+    private long casRetries;
+    
+    /**
+     * 競合率（再試行回数／更新回数）
+     * Contention rate (retries per change)
+     */
+    private double contentionRate;
+    
+    /**
+     * 反映遅延（最古の未反映変更からの経過ミリ秒）
+     * Flush lag (milliseconds since the oldest unflushed change)
+     */
+    private long flushLagMs;
+    
+    /**
+     * 反映成功回数
+     * Successful flushes
+     */
+    private long flushes;
+    
+    /**
+     * 反映失敗回数
+     * Failed flushes
+     */
+    private long flushFailures;
+    
+    /**
+     * 制約違反で破棄した差分数
+     * Deltas dropped for violating a constraint
+     */
+    private long droppedDeltas;
+    
+    /**
+     * 反映結果が不明または失敗で保留中のバッチ数
+     * Batches held after a failed or uncertain write
+     */
+    private int inDoubtBatches;
+    
+    /**
+     * ジャーナルの追記・同期の失敗回数
+     * Failed journal appends and syncs
+     */
+    private long journalFailures;
+    
+    /**
+     * 直近の反映件数
+     * Rows written by the last flush
+     */
+    private int lastFlushRows;
+    
+    /**
+     * 直近の反映所要時間（ミリ秒）
+     * Duration of the last flush (milliseconds)
+     */
+    private long lastFlushMs;
+}
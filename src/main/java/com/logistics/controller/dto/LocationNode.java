@@ -0,0 +1,60 @@
+package com.logistics.controller.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * ロケーション階層のノード（倉庫→ゾーン→ラック→レベル→ポジション）
+ * Location Hierarchy Node (warehouse → zone → rack → level → position)
+ * 
+ * 配下の全ロケーションの最大容量の合計と件数を保持する
+ * Holds the summed maximum capacity and count of every location below it
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class LocationNode {
+    
+    /**
+     * 階層（ROOT/WAREHOUSE/ZONE/RACK/LEVEL/POSITION）
+     * Hierarchy level (ROOT/WAREHOUSE/ZONE/RACK/LEVEL/POSITION)
+     */
+    private String level;
+    
+    /**
+     * キー（倉庫コード・ゾーン等、未設定の場合は空文字）
+     * Key (warehouse code, zone, ...; empty when the column is not set)
+     */
+    private String key;
+    
+    /**
+     * 配下の最大容量の合計
+     * Summed maximum capacity below this node
+     */
+    private long totalCapacity;
+    
+    /**
+     * 配下のロケーション数
+     * Number of locations below this node
+     */
+    private int locationCount;
+    
+    /**
+     * 直下のノード（キー順、要約時はnull）
+     * Child nodes in key order (null in summaries)
+     */
+    private List<LocationNode> children;
+    
+    /**
+     * このポジションのロケーションID（POSITIONのみ）
+     * Location IDs at this position (POSITION only)
+     */
+    private List<String> locationIds;
+}
@@ -0,0 +1,41 @@
+package com.logistics.controller.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 安全在庫割れの商品
+ * Product Below Safety Stock
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class LowStockItem {
+    
+    /**
+     * 商品ID
+     * Product ID
+     */
+    private String productId;
+    
+    /**
+     * 商品名
+     * Product name
+     */
+    private String productName;
+    
+    /**
+     * 安全在庫数
+     * Safety stock
+     */
+    private int safetyStock;
+    
+    /**
+     * 全ロケーションの在庫合計
+     * Total stock across every location
+     */
+    private long totalStock;
+}
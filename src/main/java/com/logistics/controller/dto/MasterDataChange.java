@@ -0,0 +1,43 @@
+package com.logistics.controller.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * マスタデータ変更通知（/api/changes のイベント本文）
+ * Master Data Change Notification (the body of /api/changes events)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class MasterDataChange {
+    
+    /**
+     * マスタ種別（PRODUCT/CUSTOMER/LOCATION）
+     * Master type (PRODUCT/CUSTOMER/LOCATION)
+     */
+    private String masterType;
+    
+    /**
+     * 変更種別（CREATED/UPDATED/DELETED）
+     * Change type (CREATED/UPDATED/DELETED)
+     */
+    private String changeType;
+    
+    /**
+     * 対象ID
+     * Target ID
+     */
+    private String id;
+    
+    /**
+     * 変更後のエンティティ（削除時はnull）
+     * Entity after the change (null when deleted)
+     */
+    private Object entity;
+}
@@ -0,0 +1,130 @@
+package com.logistics.controller.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * キーセットページング用カーソル
+ * Keyset Pagination Cursor
+ * 
+ * 前ページ最終行のソートキーとIDを保持し、不透明なトークンとしてクライアントに返す
+ * Holds the sort key and ID of the last row of the previous page, exchanged with clients as an opaque token
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PageCursor {
+    
+    private static final int VERSION = 1;
+    
+    /**
+     * ソートフィールド
+     * Sort field
+     */
+    private String sortBy;
+    
+    /**
+     * ソート方向（ASC/DESC）
+     * Sort direction (ASC/DESC)
+     */
+    private String sortDir;
+    
+    /**
+     * 最終行のソートキー値
+     * Sort key value of the last row
+     */
+    private Object value;
+    
+    /**
+     * 最終行のID（同値時のタイブレーカー）
+     * ID of the last row (tie-breaker for equal sort keys)
+     */
+    private String lastId;
+    
+    /**
+     * カーソルをトークンにエンコード
+     * Encode the cursor as an opaque token
+     * 
+     * @return URLセーフなトークン
+     * @return URL-safe token
+     */
+    public String encode() {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeByte(VERSION);
+            out.writeUTF(sortBy);
+            out.writeUTF(sortDir);
+            if (value == null) {
+                out.writeByte('N');
+            } else if (value instanceof LocalDateTime) {
+                out.writeByte('T');
+                out.writeUTF(value.toString());
+            } else if (value instanceof Number) {
+                out.writeByte('L');
+                out.writeLong(((Number) value).longValue());
+            } else {
+                out.writeByte('S');
+                out.writeUTF(value.toString());
+            }
+            out.writeUTF(lastId);
+            out.flush();
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes.toByteArray());
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to encode page cursor", e);
+        }
+    }
+    
+    /**
+     * トークンをデコードし、現在のソート条件と一致するか検証
+     * Decode a token and verify it matches the current sort order
+     * 
+     * @param token トークン（空の場合は先頭ページ）
+     * @param sortBy ソートフィールド
+     * @param sortDir ソート方向
+     * @return カーソル（先頭ページの場合null）
+     * @return Cursor, or null for the first page
+     */
+    public static PageCursor decode(String token, String sortBy, String sortDir) {
+        if (token == null || token.trim().isEmpty()) {
+            return null;
+        }
+        PageCursor cursor = new PageCursor();
+        try {
+            DataInputStream in = new DataInputStream(
+                    new ByteArrayInputStream(Base64.getUrlDecoder().decode(token.trim())));
+            if (in.readByte() != VERSION) {
+                throw new IllegalArgumentException("Unsupported cursor version");
+            }
+            cursor.setSortBy(in.readUTF());
+            cursor.setSortDir(in.readUTF());
+            byte type = in.readByte();
+            switch (type) {
+                case 'N' -> cursor.setValue(null);
+                case 'T' -> cursor.setValue(LocalDateTime.parse(in.readUTF()));
+                case 'L' -> cursor.setValue(in.readLong());
+                case 'S' -> cursor.setValue(in.readUTF());
+                default -> throw new IllegalArgumentException("Invalid cursor");
+            }
+            cursor.setLastId(in.readUTF());
+        } catch (IOException | RuntimeException e) {
+            if (e instanceof IllegalArgumentException) {
+                throw (IllegalArgumentException) e;
+            }
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+        if (!cursor.getSortBy().equals(sortBy) || !cursor.getSortDir().equals(sortDir)) {
+            throw new IllegalArgumentException("Cursor does not match the requested sort order");
+        }
+        return cursor;
+    }
+}
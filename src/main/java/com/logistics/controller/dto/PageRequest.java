@@ -43,6 +43,35 @@ public class PageRequest {
      * Search keyword
      */
     private String keyword;
+    
+    /**
+     * カーソルトークン（指定時はキーセットページング、空文字は先頭ページ）
+     * Cursor token (enables keyset paging when present, empty means first page)
+     */
+    private String after;
+    
+    /**
+     * デコード済みカーソル（サービス層で設定）
+     * Decoded cursor (set by the service layer)
+     */
+    private PageCursor cursor;
+    
+    /**
+     * 総件数の取得方式（未指定時はオフセットモードでEXACT、カーソルモードでNONE）
+     * Total count mode (defaults to EXACT in offset mode and NONE in cursor mode)
+     */
+    private CountMode count;
+    
+    /**
+     * キーセットページングかどうか
+     * Whether keyset paging is requested
+     * 
+     * @return カーソル指定時true
+     * @return true if a cursor token was given
+     */
+    public boolean isCursorMode() {
+        return after != null;
+    }
 }
 
 
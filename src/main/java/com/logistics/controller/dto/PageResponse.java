@@ -5,7 +5,9 @@ import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Function;
 
 /**
  * 分页响应DTO
@@ -35,14 +37,14 @@ public class PageResponse<T> {
     private int size;
     
     /**
-     * 总页数
-     * Total pages
+     * 总页数（カーソルモードでは-1）
+     * Total pages (-1 in cursor mode)
      */
     private int totalPages;
     
     /**
-     * 总记录数
-     * Total elements
+     * 总记录数（カーソルモードでは-1）
+     * Total elements (-1 in cursor mode)
      */
     private long totalElements;
     
@@ -69,6 +71,38 @@ public class PageResponse<T> {
      * Is last page
      */
     private boolean isLast;
+    
+    /**
+     * 次ページのカーソルトークン（カーソルモードのみ、最終ページではnull）
+     * Cursor token for the next page (cursor mode only, null on the last page)
+     */
+    private String nextCursor;
+    
+    /**
+     * キーセット方式のページを作成（総件数は取得しないため-1）
+     * Build a keyset page (totals are not counted and are -1)
+     * 
+     * @param rows 取得結果（次ページの有無を判定するためsize+1件まで）
+     * @param size ページサイズ
+     * @param first 先頭ページかどうか（カーソル未指定）
+     * @param cursorOf ページ最終行から次ページのカーソルを作成
+     * @return ページ
+     * @return Page
+     */
+    public static <T> PageResponse<T> keyset(List<T> rows, int size, boolean first, Function<T, PageCursor> cursorOf) {
+        boolean hasNext = rows.size() > size;
+        List<T> content = hasNext ? new ArrayList<>(rows.subList(0, size)) : rows;
+        return PageResponse.<T>builder()
+                .content(content)
+                .page(0)
+                .size(size)
+                .totalPages(-1)
+                .totalElements(-1)
+                .hasNext(hasNext)
+                .hasPrevious(!first)
+                .isFirst(first)
+                .isLast(!hasNext)
+                .nextCursor(hasNext ? cursorOf.apply(content.get(size - 1)).encode() : null)
+                .build();
+    }
 }
-
-
@@ -0,0 +1,77 @@
+package com.logistics.controller.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 入庫先ロケーションの候補
+ * Putaway Location Candidate
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PutawayCandidate {
+    
+    /**
+     * ロケーションID
+     * Location ID
+     */
+    private String locationId;
+    
+    /**
+     * 倉庫コード
+     * Warehouse code
+     */
+    private String warehouseCode;
+    
+    /**
+     * ゾーン
+     * Zone
+     */
+    private String zone;
+    
+    /**
+     * ラック
+     * Rack
+     */
+    private String rack;
+    
+    /**
+     * レベル
+     * Level
+     */
+    private String levelNo;
+    
+    /**
+     * ポジション
+     * Position
+     */
+    private String position;
+    
+    /**
+     * 最大容量
+     * Maximum capacity
+     */
+    private long maxCapacity;
+    
+    /**
+     * 現在の在庫合計（全商品）
+     * Current total stock of every product
+     */
+    private long currentQuantity;
+    
+    /**
+     * 残り容量（最大容量−現在の在庫合計）
+     * Remaining capacity (maximum capacity minus current total stock)
+     */
+    private long remainingCapacity;
+    
+    /**
+     * 同じ商品を既に保管しているか
+     * Whether the location already holds the product
+     */
+    private boolean holdsProduct;
+}
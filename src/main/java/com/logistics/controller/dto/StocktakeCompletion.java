@@ -0,0 +1,53 @@
+package com.logistics.controller.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 棚卸完了処理の結果
+ * Stocktake Completion Result
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class StocktakeCompletion {
+    
+    /**
+     * 棚卸番号
+     * Stocktake number
+     */
+    private String stocktakeNo;
+    
+    /**
+     * 完了にした明細数
+     * Lines completed
+     */
+    private long completed;
+    
+    /**
+     * 在庫を調整した明細数
+     * Lines whose stock was adjusted
+     */
+    private long adjusted;
+    
+    /**
+     * 調整すると在庫が0未満になるため未完了のまま残した明細数
+     * Lines left pending because the adjustment would take stock below zero
+     */
+    private long skipped;
+    
+    /**
+     * 調整数量の合計（増減の差し引き）
+     * Net quantity adjusted
+     */
+    private long netAdjustment;
+    
+    /**
+     * 処理時間（ミリ秒）
+     * Elapsed time in milliseconds
+     */
+    private long elapsedMs;
+}
@@ -0,0 +1,79 @@
+package com.logistics.controller.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 棚卸カウント取込の結果
+ * Stocktake Count Upload Result
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class StocktakeCountResult {
+    
+    /**
+     * 棚卸番号
+     * Stocktake number
+     */
+    private String stocktakeNo;
+    
+    /**
+     * 読み込んだ行数
+     * Rows read
+     */
+    private long total;
+    
+    /**
+     * 登録した明細数
+     * Lines recorded
+     */
+    private long recorded;
+    
+    /**
+     * 失敗した行数
+     * Rows that failed
+     */
+    private long failed;
+    
+    /**
+     * 差異のある明細数
+     * Lines with a difference
+     */
+    private long differences;
+    
+    /**
+     * スナップショットの在庫行数
+     * Inventory rows in the snapshot
+     */
+    private int snapshotRows;
+    
+    /**
+     * 並列処理したパーティション数（ロケーション範囲）
+     * Partitions (location ranges) processed in parallel
+     */
+    private int partitions;
+    
+    /**
+     * 処理時間（ミリ秒）
+     * Elapsed time in milliseconds
+     */
+    private long elapsedMs;
+    
+    /**
+     * 行単位のエラー（CSVの行番号付き、上限まで）
+     * Per-row errors with CSV line numbers (up to the limit)
+     */
+    private List<BatchRowResult> errors;
+    
+    /**
+     * エラーが上限を超えて省略されたか
+     * Whether errors beyond the limit were omitted
+     */
+    private boolean errorsTruncated;
+}
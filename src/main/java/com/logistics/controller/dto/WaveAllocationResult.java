@@ -0,0 +1,77 @@
+package com.logistics.controller.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * ウェーブ引当結果
+ * Wave Allocation Result
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class WaveAllocationResult {
+    
+    /**
+     * 対象の出荷行数（PENDING）
+     * Shipment lines in the wave (PENDING)
+     */
+    private long lines;
+    
+    /**
+     * 対象の商品数
+     * Products in the wave
+     */
+    private long products;
+    
+    /**
+     * 残数をすべて引き当てた行数（ALLOCATEDに更新）
+     * Lines allocated in full (now ALLOCATED)
+     */
+    private long allocatedLines;
+    
+    /**
+     * 一部のみ引き当てた行数（PENDINGのまま、残数は次のウェーブ）
+     * Lines allocated in part (still PENDING; the rest waits for the next wave)
+     */
+    private long partialLines;
+    
+    /**
+     * 在庫が無く引き当てなかった行数
+     * Lines left unallocated for lack of stock
+     */
+    private long unallocatedLines;
+    
+    /**
+     * 読み込み後に他で変更されていたため反映しなかった行数
+     * Lines skipped because they changed elsewhere after being read
+     */
+    private long staleLines;
+    
+    /**
+     * DBへの反映に失敗した行数（在庫は台帳に戻し済み）
+     * Lines whose allocation failed to be written (stock already returned to the ledger)
+     */
+    private long failedLines;
+    
+    /**
+     * 引当数量の合計
+     * Total quantity allocated
+     */
+    private long allocatedQty;
+    
+    /**
+     * 処理時間（ミリ秒）
+     * Elapsed time (milliseconds)
+     */
+    private long elapsedMs;
+    
+    /**
+     * 処理速度（出荷行/秒）
+     * Throughput (shipment lines per second)
+     */
+    private double linesPerSecond;
+}
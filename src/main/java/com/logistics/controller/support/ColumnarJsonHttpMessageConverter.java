@@ -0,0 +1,197 @@
+package com.logistics.controller.support;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationConfig;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.BeanPropertyWriter;
+import com.fasterxml.jackson.databind.ser.BeanSerializerModifier;
+import com.fasterxml.jackson.databind.ser.PropertyWriter;
+import com.fasterxml.jackson.databind.ser.std.BeanSerializerBase;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.fasterxml.jackson.databind.type.CollectionType;
+import com.logistics.controller.dto.ApiResponse;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.AbstractJackson2HttpMessageConverter;
+
+import java.io.IOException;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * 列指向JSONレスポンス変換
+ * Columnar JSON Message Converter
+ * 
+ * Accept: application/vnd.logistics.columnar+json の場合、オブジェクトの一覧を
+ * {"columns":["productId",...],"rows":[["P001",...],...]} の形で出力し、行ごとに項目名を繰り返さない。
+ * 一覧以外（件数、ページ情報、単一オブジェクト）は通常のJSONと同じ形で出力する。
+ * For Accept: application/vnd.logistics.columnar+json, lists of objects are written as
+ * {"columns":["productId",...],"rows":[["P001",...],...]} so field names are not repeated on every row.
+ * Everything else (counts, page fields, single objects) is written exactly as in plain JSON.
+ * 
+ * 出力専用（リクエストボディの読み込みには使用しない）。
+ * 通常のJSON変換は application/*+json も受け付けるため、この変換はそれより前に登録する。
+ * その上で列指向JSONが明示的に要求された場合のみ出力し、Accept: *&#47;* では選ばれないようにする。
+ * Write-only (never used to read request bodies).
+ * The plain JSON converter also accepts application/*+json, so this one is registered ahead of it;
+ * it then only writes when columnar JSON is explicitly requested, so Accept: *&#47;* never selects it.
+ */
+public class ColumnarJsonHttpMessageConverter extends AbstractJackson2HttpMessageConverter {
+    
+    /**
+     * 列指向JSONのメディアタイプ
+     * Columnar JSON media type
+     */
+    public static final MediaType COLUMNAR_JSON = MediaType.parseMediaType("application/vnd.logistics.columnar+json");
+    
+    /**
+     * @param objectMapper 通常のJSON出力と同じ設定のObjectMapper（複製して使用）
+     * @param objectMapper ObjectMapper configured like plain JSON output (copied, not modified)
+     */
+    public ColumnarJsonHttpMessageConverter(ObjectMapper objectMapper) {
+        super(objectMapper.copy().registerModule(new SimpleModule("columnar").setSerializerModifier(new ColumnarListModifier())),
+                COLUMNAR_JSON);
+    }
+    
+    @Override
+    public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+        return false;
+    }
+    
+    @Override
+    public boolean canRead(Class<?> clazz, MediaType mediaType) {
+        return false;
+    }
+    
+    @Override
+    public boolean canWrite(Class<?> clazz, MediaType mediaType) {
+        return mediaType != null && COLUMNAR_JSON.isCompatibleWith(mediaType) && !mediaType.isWildcardSubtype()
+                && ApiResponse.class.isAssignableFrom(clazz) && super.canWrite(clazz, mediaType);
+    }
+    
+    /**
+     * コレクションのシリアライザーを列指向形式に差し替える
+     * Swaps collection serializers for the columnar layout
+     */
+    private static final class ColumnarListModifier extends BeanSerializerModifier {
+        
+        @Override
+        @SuppressWarnings("unchecked")
+        public JsonSerializer<?> modifyCollectionSerializer(SerializationConfig config, CollectionType valueType,
+                                                            BeanDescription beanDesc, JsonSerializer<?> serializer) {
+            return new ColumnarListSerializer((JsonSerializer<Object>) serializer);
+        }
+    }
+    
+    /**
+     * 全要素が同じBean型の一覧を列指向で出力し、それ以外（空、文字列の一覧、型の混在）は通常の配列として出力する
+     * Writes a list whose elements are all the same bean type in columnar form; anything else
+     * (empty, lists of strings, mixed types) is written as a plain array
+     */
+    private static final class ColumnarListSerializer extends StdSerializer<Collection<?>> {
+        
+        private final JsonSerializer<Object> plain;
+        
+        @SuppressWarnings("unchecked")
+        private ColumnarListSerializer(JsonSerializer<Object> plain) {
+            super((Class<Collection<?>>) (Class<?>) Collection.class);
+            this.plain = plain;
+        }
+        
+        @Override
+        public boolean isEmpty(SerializerProvider provider, Collection<?> value) {
+            return value.isEmpty();
+        }
+        
+        @Override
+        public void serialize(Collection<?> values, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            List<Column> columns = columnsOf(values, provider);
+            if (columns == null) {
+                plain.serialize(values, gen, provider);
+                return;
+            }
+            
+            gen.writeStartObject();
+            gen.writeArrayFieldStart("columns");
+            for (Column column : columns) {
+                gen.writeString(column.writer().getName());
+            }
+            gen.writeEndArray();
+            gen.writeArrayFieldStart("rows");
+            for (Object row : values) {
+                gen.writeStartArray();
+                for (Column column : columns) {
+                    column.write(row, gen, provider);
+                }
+                gen.writeEndArray();
+            }
+            gen.writeEndArray();
+            gen.writeEndObject();
+        }
+        
+        /**
+         * @return 列（列指向で出力できない場合null）
+         * @return Columns, or null if the collection cannot be written in columnar form
+         */
+        private static List<Column> columnsOf(Collection<?> values, SerializerProvider provider) throws IOException {
+            if (values.isEmpty()) {
+                return null;
+            }
+            Object first = values.iterator().next();
+            if (first == null) {
+                return null;
+            }
+            Class<?> type = first.getClass();
+            for (Object value : values) {
+                if (value == null || value.getClass() != type) {
+                    return null;
+                }
+            }
+            if (!(provider.findValueSerializer(type) instanceof BeanSerializerBase bean)) {
+                return null;
+            }
+            List<Column> columns = new ArrayList<>();
+            for (Iterator<PropertyWriter> it = bean.properties(); it.hasNext(); ) {
+                if (!(it.next() instanceof BeanPropertyWriter writer)) {
+                    return null;
+                }
+                // 宣言型がfinal（String, Integer, LocalDateTime等）の場合はシリアライザーを一覧につき1回だけ解決
+                JsonSerializer<Object> serializer = Modifier.isFinal(writer.getType().getRawClass().getModifiers())
+                        ? provider.findValueSerializer(writer.getType(), writer)
+                        : null;
+                columns.add(new Column(writer, serializer));
+            }
+            return columns;
+        }
+    }
+    
+    /**
+     * 列（プロパティと、解決済みであればその値のシリアライザー）
+     * Column (the property and, when resolved up front, the serializer of its values)
+     */
+    private record Column(BeanPropertyWriter writer, JsonSerializer<Object> serializer) {
+        
+        private void write(Object row, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            Object value;
+            try {
+                value = writer.get(row);
+            } catch (Exception e) {
+                throw new IOException("Failed to read " + writer.getName() + " of " + row.getClass().getName(), e);
+            }
+            if (value == null) {
+                provider.defaultSerializeNull(gen);
+            } else if (serializer != null) {
+                serializer.serialize(value, gen, provider);
+            } else {
+                provider.defaultSerializeValue(value, gen);
+            }
+        }
+    }
+}
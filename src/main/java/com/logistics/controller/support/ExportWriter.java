@@ -0,0 +1,155 @@
+package com.logistics.controller.support;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.logistics.controller.dto.ApiResponse;
+import com.logistics.controller.dto.ExportFormat;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+/**
+ * ストリーミングエクスポート出力
+ * Streaming Export Writer
+ * 
+ * 行を1件ずつレスポンスへ直接書き出し、全件をメモリに保持しない
+ * Writes rows one at a time straight to the response without holding the full result in memory
+ */
+@Component
+@Slf4j
+public class ExportWriter {
+    
+    private final ObjectMapper objectMapper;
+    
+    private final CsvMapper csvMapper;
+    
+    public ExportWriter(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        this.csvMapper = CsvMapper.builder()
+                .addModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .disable(MapperFeature.SORT_PROPERTIES_ALPHABETICALLY)
+                .build();
+    }
+    
+    /**
+     * 指定形式でエクスポートを実行
+     * Run an export in the given format
+     * 
+     * @param response HTTPレスポンス
+     * @param format 形式（ndjson/csv）
+     * @param baseName ファイル名（拡張子なし）
+     * @param type 行の型
+     * @param source 行を順に渡すデータソース
+     */
+    public <T> void export(HttpServletResponse response, String format, String baseName, Class<T> type,
+                           Consumer<Consumer<T>> source) throws IOException {
+        ExportFormat exportFormat;
+        try {
+            exportFormat = ExportFormat.from(format);
+        } catch (IllegalArgumentException e) {
+            writeError(response, HttpStatus.BAD_REQUEST, ApiResponse.validationError(e.getMessage()));
+            return;
+        }
+        
+        response.setContentType(exportFormat.getContentType());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=\"" + baseName + "." + exportFormat.getExtension() + "\"");
+        
+        RowCounter counter = new RowCounter();
+        try (RowWriter writer = openWriter(response.getOutputStream(), exportFormat, type)) {
+            source.accept(row -> {
+                try {
+                    writer.write(row);
+                    counter.count++;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            // クライアント切断など。出力途中のためエラー応答は返せない
+            log.warn("Export of {} aborted after {} rows: {}", baseName, counter.count, e.getMessage());
+            return;
+        } catch (RuntimeException e) {
+            log.error("Error exporting {} after {} rows", baseName, counter.count, e);
+            if (!response.isCommitted()) {
+                response.reset();
+                writeError(response, HttpStatus.INTERNAL_SERVER_ERROR,
+                        ApiResponse.serverError("Failed to export " + baseName + ": " + e.getMessage()));
+            }
+            return;
+        }
+        log.info("Exported {} rows of {}", counter.count, baseName);
+    }
+    
+    private RowWriter openWriter(OutputStream out, ExportFormat format, Class<?> type) throws IOException {
+        if (format == ExportFormat.CSV) {
+            CsvSchema schema = csvMapper.schemaFor(type).withHeader();
+            SequenceWriter writer = csvMapper.writer(schema).writeValues(out);
+            return new RowWriter() {
+                @Override
+                public void write(Object row) throws IOException {
+                    writer.write(row);
+                }
+                
+                @Override
+                public void close() throws IOException {
+                    writer.close();
+                }
+            };
+        }
+        JsonGenerator generator = objectMapper.createGenerator(out);
+        generator.setRootValueSeparator(null);
+        return new RowWriter() {
+            @Override
+            public void write(Object row) throws IOException {
+                generator.writeObject(row);
+                generator.writeRaw('\n');
+            }
+            
+            @Override
+            public void close() throws IOException {
+                generator.close();
+            }
+        };
+    }
+    
+    private void writeError(HttpServletResponse response, HttpStatus status, ApiResponse<?> body) throws IOException {
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), body);
+    }
+    
+    /**
+     * 行単位の出力先
+     * Row-by-row output
+     */
+    private interface RowWriter extends AutoCloseable {
+        void write(Object row) throws IOException;
+        
+        @Override
+        void close() throws IOException;
+    }
+    
+    /**
+     * 出力行数カウンタ
+     * Written row counter
+     */
+    private static class RowCounter {
+        private long count;
+    }
+}
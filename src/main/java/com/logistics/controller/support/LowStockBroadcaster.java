@@ -0,0 +1,169 @@
+package com.logistics.controller.support;
+
+import com.logistics.service.event.LowStockChangeEvent;
+import com.logistics.service.inventory.LowStockDetector;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 安全在庫割れのServer-Sent Events配信
+ * Low Stock Server-Sent Events Broadcaster
+ * 
+ * 接続時に現在の一覧を「snapshot」として送り、以降は集合への出入りを「entered」「left」として送る。
+ * 送信はSseSenderで購読者ごとに上限付きの送信待ちを持って発生順に行うため、在庫を変更したスレッドや
+ * 他の購読者が遅いクライアントを待つことは無い。送信待ちが溢れた購読者と、1回の送信がsend-timeout-msを
+ * 超えて止まった購読者は切断する（EventSourceの再接続時のsnapshotで回復する）。
+ * Sends the current list as "snapshot" on connect, then every change to the set as "entered" or "left".
+ * Sending goes through SseSender, which gives each subscriber a bounded queue drained in order, so neither the
+ * threads that change stock nor other subscribers ever wait for a slow client. A subscriber whose queue overflows,
+ * or whose single send stalls for longer than send-timeout-ms, is disconnected (the snapshot sent when EventSource
+ * reconnects recovers it).
+ */
+@Component
+@Slf4j
+public class LowStockBroadcaster {
+    
+    private final LowStockDetector lowStockDetector;
+    
+    private final long timeoutMs;
+    
+    private final int queueSize;
+    
+    private final int maxSubscribers;
+    
+    private final List<SseSender.Subscription> subscriptions = new CopyOnWriteArrayList<>();
+    
+    private final SseSender sender;
+    
+    public LowStockBroadcaster(LowStockDetector lowStockDetector,
+                               @Value("${app.inventory.low-stock.queue-size:1000}") int queueSize,
+                               @Value("${app.inventory.low-stock.max-subscribers:200}") int maxSubscribers,
+                               @Value("${app.inventory.low-stock.sender-threads:2}") int senderThreads,
+                               @Value("${app.inventory.low-stock.send-timeout-ms:10000}") long sendTimeoutMs,
+                               @Value("${app.inventory.low-stock.sse-timeout-ms:1800000}") long timeoutMs) {
+        if (queueSize < 1 || senderThreads < 1) {
+            throw new IllegalArgumentException("app.inventory.low-stock.queue-size and sender-threads must be positive");
+        }
+        this.lowStockDetector = lowStockDetector;
+        this.queueSize = queueSize;
+        this.maxSubscribers = maxSubscribers;
+        this.timeoutMs = timeoutMs;
+        // 購読者ごとに最大1スレッド＋停止して切断した購読者の書き込みが解けるまでの分
+        this.sender = new SseSender("low-stock", senderThreads, maxSubscribers * 2 + senderThreads, sendTimeoutMs);
+    }
+    
+    /**
+     * 配信を購読（現在の一覧を最初に送信）
+     * Subscribe to the stream (the current list is sent first)
+     * 
+     * @return SSEエミッター
+     * @return SSE emitter
+     * @throws IllegalStateException 検知の準備ができていない、または購読者数が上限に達している場合
+     */
+    public SseEmitter subscribe() {
+        if (!lowStockDetector.isReady()) {
+            throw new IllegalStateException("Low stock detector is not ready yet");
+        }
+        if (subscriptions.size() >= maxSubscribers) {
+            throw new IllegalStateException("Low stock stream has too many subscribers, try again later");
+        }
+        SseEmitter emitter = createEmitter();
+        SseSender.Subscription subscription = sender.open(emitter, queueSize, subscriptions::remove);
+        
+        // 一覧の取得と登録を変更の送信と同じロックで行い、その間の出入りを取りこぼさない
+        synchronized (this) {
+            subscription.enqueue(SseEmitter.event().name("snapshot").data(lowStockDetector.current()));
+            if (subscription.goLive()) {
+                subscriptions.add(subscription);
+                // 登録までの間に切断された場合
+                if (subscription.isClosed()) {
+                    subscriptions.remove(subscription);
+                }
+            }
+        }
+        return emitter;
+    }
+    
+    /**
+     * SSEエミッターを生成
+     * Create an SSE emitter
+     */
+    SseEmitter createEmitter() {
+        return new SseEmitter(timeoutMs);
+    }
+    
+    /**
+     * 集合への出入りを全購読者の送信待ちに追加
+     * Queue a change for every subscriber
+     * 
+     * @param event 変更イベント
+     */
+    @EventListener
+    public void onLowStockChange(LowStockChangeEvent event) {
+        if (subscriptions.isEmpty()) {
+            return;
+        }
+        String name = event.getChange().name().toLowerCase(Locale.ROOT);
+        synchronized (this) {
+            // SseEventBuilderは送信時に状態が変わるため購読者ごとに作る
+            subscriptions.forEach(subscription -> subscription.enqueue(SseEmitter.event().name(name).data(event.getItem())));
+        }
+    }
+    
+    /**
+     * 無通信で切断されないよう定期的にコメント行を送信
+     * Periodically send a comment line so idle connections are not cut
+     */
+    @Scheduled(fixedDelayString = "${app.inventory.low-stock.heartbeat-ms:30000}")
+    public void heartbeat() {
+        subscriptions.forEach(SseSender.Subscription::heartbeat);
+    }
+    
+    /**
+     * 1回の送信がsend-timeout-msを超えて止まっている購読者を切断
+     * Disconnect subscribers stuck in a single send for longer than send-timeout-ms
+     */
+    @Scheduled(fixedDelayString = "${app.inventory.low-stock.stall-check-ms:1000}")
+    public void detectStalls() {
+        sender.detectStalls();
+    }
+    
+    /**
+     * 購読者数
+     * Number of subscribers
+     */
+    public int getSubscribers() {
+        return subscriptions.size();
+    }
+    
+    /**
+     * 送信待ちが上限を超えて切断した購読者数
+     * Subscribers disconnected because their send queue overflowed
+     */
+    public long getDisconnectedSlowSubscribers() {
+        return sender.getOverflowed();
+    }
+    
+    /**
+     * 送信が止まって切断した購読者数
+     * Subscribers disconnected because a send stalled
+     */
+    public long getStalledSubscribers() {
+        return sender.getStalled();
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        sender.shutdown();
+        subscriptions.clear();
+    }
+}
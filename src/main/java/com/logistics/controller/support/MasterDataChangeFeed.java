@@ -0,0 +1,284 @@
+package com.logistics.controller.support;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.logistics.controller.dto.MasterDataChange;
+import com.logistics.service.event.MasterDataChangeEvent;
+import com.logistics.service.event.MasterDataChangeEvent.MasterType;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * マスタデータ変更のServer-Sent Events配信
+ * Master Data Change Feed over Server-Sent Events
+ * 
+ * コミットされた商品・顧客・ロケーションの登録／更新／削除を「change」イベントとして送る。
+ * 各イベントのIDは「起動ごとのエポック-連番」で、直近replay-size件はリングバッファに保持する。
+ * 再接続時のLast-Event-IDがバッファ内であれば続きから再送し、古すぎる（または再起動前の）IDには
+ * 「reset」を送ってクライアントに一覧の再取得を促す。
+ * Sends committed product, customer and location creates, updates and deletes as "change" events.
+ * Each event ID is "&lt;per-start epoch&gt;-&lt;sequence&gt;" and the last replay-size events are kept in a ring buffer.
+ * A reconnect whose Last-Event-ID is still in the buffer resumes right after it; an ID that is too old
+ * (or from before a restart) gets "reset" instead, telling the client to re-fetch its list.
+ * 
+ * 送信はSseSenderで購読者ごとに上限付きの送信待ちを持って発生順に行う。送信待ちが溢れた購読者と、
+ * 1回の送信がsend-timeout-msを超えて止まった購読者は切断する（EventSourceは自動で再接続し、リングバッファから続きを受け取る）。
+ * 遅いクライアントが塞ぐのは自分の送信スレッドだけで、変更をコミットしたスレッドや他の購読者を待たせることは無い。
+ * Sending goes through SseSender, which gives each subscriber a bounded queue drained in order. A subscriber whose
+ * queue overflows, or whose single send stalls for longer than send-timeout-ms, is disconnected (EventSource reconnects
+ * by itself and resumes from the ring buffer). A slow client only blocks its own sender thread, never the threads
+ * that commit changes or other subscribers.
+ */
+@Component
+@Slf4j
+public class MasterDataChangeFeed {
+    
+    private final ObjectMapper objectMapper;
+    
+    private final long timeoutMs;
+    
+    private final int queueSize;
+    
+    private final int maxSubscribers;
+    
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    
+    /**
+     * 直近の変更（連番 % 容量の位置に格納、thisで保護）
+     * Recent changes stored at sequence % capacity (guarded by this)
+     */
+    private final Entry[] ring;
+    
+    /**
+     * 最後に割り当てた連番（thisで保護）
+     * Last assigned sequence (guarded by this)
+     */
+    private long lastSequence;
+    
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    
+    private final SseSender sender;
+    
+    public MasterDataChangeFeed(ObjectMapper objectMapper,
+                                @Value("${app.changes.replay-size:10000}") int replaySize,
+                                @Value("${app.changes.queue-size:1000}") int queueSize,
+                                @Value("${app.changes.max-subscribers:200}") int maxSubscribers,
+                                @Value("${app.changes.sender-threads:2}") int senderThreads,
+                                @Value("${app.changes.send-timeout-ms:10000}") long sendTimeoutMs,
+                                @Value("${app.changes.sse-timeout-ms:1800000}") long timeoutMs) {
+        if (replaySize < 1 || queueSize < 1 || senderThreads < 1) {
+            throw new IllegalArgumentException("app.changes.replay-size, queue-size and sender-threads must be positive");
+        }
+        this.objectMapper = objectMapper;
+        this.ring = new Entry[replaySize];
+        this.queueSize = queueSize;
+        this.maxSubscribers = maxSubscribers;
+        this.timeoutMs = timeoutMs;
+        // 購読者ごとに最大1スレッド＋停止して切断した購読者の書き込みが解けるまでの分
+        this.sender = new SseSender("change-feed", senderThreads, maxSubscribers * 2 + senderThreads, sendTimeoutMs);
+    }
+    
+    /**
+     * 配信を購読
+     * Subscribe to the feed
+     * 
+     * @param types 受け取るマスタ種別（空の場合は全種別）
+     * @param lastEventId 最後に受け取ったイベントID（初回接続はnull）
+     * @return SSEエミッター
+     * @return SSE emitter
+     * @throws IllegalStateException 購読者数が上限に達している場合
+     */
+    public SseEmitter subscribe(Set<MasterType> types, String lastEventId) {
+        if (subscribers.size() >= maxSubscribers) {
+            throw new IllegalStateException("Change feed has too many subscribers, try again later");
+        }
+        SseEmitter emitter = createEmitter();
+        Subscriber subscriber = new Subscriber(types.isEmpty() ? EnumSet.allOf(MasterType.class) : EnumSet.copyOf(types),
+                sender.open(emitter, queueSize, closed -> subscribers.removeIf(s -> s.subscription == closed)));
+        
+        // 再送分の取り出しと登録を変更の追加と同じロックで行い、取りこぼしも重複も起こさない
+        synchronized (this) {
+            long resumeFrom = resumePoint(lastEventId);
+            if (resumeFrom < 0) {
+                // データが空のイベントはEventSourceで発火しないため、現在位置をデータとしても送る
+                String position = eventId(lastSequence);
+                subscriber.subscription.enqueue(SseEmitter.event().id(position).name(lastEventId == null ? "ready" : "reset").data(position));
+            } else {
+                for (long sequence = resumeFrom + 1; sequence <= lastSequence; sequence++) {
+                    Entry entry = ring[(int) (sequence % ring.length)];
+                    if (subscriber.types.contains(entry.masterType)) {
+                        subscriber.subscription.enqueue(entry.event());
+                    }
+                }
+            }
+            if (subscriber.subscription.goLive()) {
+                subscribers.add(subscriber);
+                // 登録までの間に切断された場合
+                if (subscriber.subscription.isClosed()) {
+                    subscribers.remove(subscriber);
+                }
+            }
+        }
+        return emitter;
+    }
+    
+    /**
+     * SSEエミッターを生成
+     * Create an SSE emitter
+     */
+    SseEmitter createEmitter() {
+        return new SseEmitter(timeoutMs);
+    }
+    
+    /**
+     * 再送を開始する位置を決める
+     * Decide where to resume from
+     * 
+     * @return この連番の次から再送（-1の場合は再送せず、ready/resetを送る）
+     * @return Resend everything after this sequence (-1: no replay, send ready/reset instead)
+     */
+    private long resumePoint(String lastEventId) {
+        if (lastEventId == null) {
+            return -1;
+        }
+        int dash = lastEventId.lastIndexOf('-');
+        if (dash <= 0 || !lastEventId.substring(0, dash).equals(epoch)) {
+            return -1;
+        }
+        long sequence;
+        try {
+            sequence = Long.parseLong(lastEventId.substring(dash + 1));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+        if (sequence > lastSequence || sequence < lastSequence - ring.length) {
+            return -1;
+        }
+        return sequence;
+    }
+    
+    /**
+     * コミットされたマスタ変更をリングバッファに追加し、購読者へ送信
+     * Append a committed master change to the ring buffer and send it to subscribers
+     * 
+     * @param event 変更イベント
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onMasterDataChange(MasterDataChangeEvent event) {
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(MasterDataChange.builder()
+                    .masterType(event.getMasterType().name())
+                    .changeType(event.getChangeType().name())
+                    .id(event.getId())
+                    .entity(event.getEntity())
+                    .build());
+        } catch (JsonProcessingException e) {
+            log.warn("Failed to serialize change of {} {}", event.getMasterType(), event.getId(), e);
+            return;
+        }
+        synchronized (this) {
+            Entry entry = new Entry(++lastSequence, event.getMasterType(), json);
+            ring[(int) (entry.sequence % ring.length)] = entry;
+            for (Subscriber subscriber : subscribers) {
+                if (subscriber.types.contains(entry.masterType)) {
+                    subscriber.subscription.enqueue(entry.event());
+                }
+            }
+        }
+    }
+    
+    /**
+     * 無通信で切断されないよう定期的にコメント行を送信
+     * Periodically send a comment line so idle connections are not cut
+     */
+    @Scheduled(fixedDelayString = "${app.changes.heartbeat-ms:30000}")
+    public void heartbeat() {
+        subscribers.forEach(subscriber -> subscriber.subscription.heartbeat());
+    }
+    
+    /**
+     * 1回の送信がsend-timeout-msを超えて止まっている購読者を切断
+     * Disconnect subscribers stuck in a single send for longer than send-timeout-ms
+     */
+    @Scheduled(fixedDelayString = "${app.changes.stall-check-ms:1000}")
+    public void detectStalls() {
+        sender.detectStalls();
+    }
+    
+    private String eventId(long sequence) {
+        return epoch + "-" + sequence;
+    }
+    
+    /**
+     * 購読者数
+     * Number of subscribers
+     */
+    public int getSubscribers() {
+        return subscribers.size();
+    }
+    
+    /**
+     * 送信待ちが上限を超えて切断した購読者数
+     * Subscribers disconnected because their send queue overflowed
+     */
+    public long getDisconnectedSlowSubscribers() {
+        return sender.getOverflowed();
+    }
+    
+    /**
+     * 送信が止まって切断した購読者数
+     * Subscribers disconnected because a send stalled
+     */
+    public long getStalledSubscribers() {
+        return sender.getStalled();
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        sender.shutdown();
+        subscribers.clear();
+    }
+    
+    /**
+     * リングバッファの要素（イベント本文は追加時に1回だけJSON化する）
+     * Ring buffer entry (the event body is serialized to JSON once, when it is appended)
+     */
+    private final class Entry {
+        
+        private final long sequence;
+        
+        private final MasterType masterType;
+        
+        private final String json;
+        
+        private Entry(long sequence, MasterType masterType, String json) {
+            this.sequence = sequence;
+            this.masterType = masterType;
+            this.json = json;
+        }
+        
+        private SseEmitter.SseEventBuilder event() {
+            return SseEmitter.event().id(eventId(sequence)).name("change").data(json, MediaType.APPLICATION_JSON);
+        }
+    }
+    
+    /**
+     * 購読者（受け取るマスタ種別と送信待ち）
+     * Subscriber (the master types it receives and its send queue)
+     */
+    private record Subscriber(Set<MasterType> types, SseSender.Subscription subscription) {
+    }
+}
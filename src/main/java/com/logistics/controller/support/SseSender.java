@@ -0,0 +1,299 @@
+package com.logistics.controller.support;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Server-Sent Eventsの送信（購読者ごとの上限付き送信待ちと送信停止の検知）
+ * Server-Sent Events Sender (per-subscriber bounded send queues and stall detection)
+ * 
+ * 購読者ごとに送信待ちを持ち、送信待ちのある購読者1人につき1スレッドで発生順に送る（待機中のスレッドはcore-threadsまで保持）。
+ * 1回の送信がsend-timeoutを超えた購読者は停止とみなして切断し、送信待ちが上限を超えた購読者も切断する。
+ * 遅いクライアントが塞ぐのは自分の送信スレッドだけで、他の購読者やイベントを発行したスレッドを待たせることは無い。
+ * Each subscriber has its own send queue, drained in order by one thread per subscriber with something to send
+ * (up to core-threads idle threads are kept). A subscriber whose single send takes longer than send-timeout is
+ * considered stalled and disconnected, as is one whose queue overflows. A slow client only ever blocks its own
+ * sender thread, never other subscribers or the threads that publish events.
+ */
+@Slf4j
+public class SseSender {
+    
+    private final String name;
+    
+    private final long sendTimeoutNanos;
+    
+    private final ThreadPoolExecutor executor;
+    
+    private final Set<Subscription> open = ConcurrentHashMap.newKeySet();
+    
+    private final AtomicLong overflowed = new AtomicLong();
+    
+    private final AtomicLong stalled = new AtomicLong();
+    
+    /**
+     * 送信スレッドの設定
+     * Sender thread settings
+     * 
+     * @param name スレッド名・ログに使う名前
+     * @param coreThreads 待機中も保持する送信スレッド数
+     * @param maxThreads 送信スレッドの上限（購読者数の上限＋停止した購読者の分）
+     * @param sendTimeoutMs 1回の送信の上限時間
+     */
+    public SseSender(String name, int coreThreads, int maxThreads, long sendTimeoutMs) {
+        if (coreThreads < 1 || maxThreads < coreThreads || sendTimeoutMs < 1) {
+            throw new IllegalArgumentException("SSE sender threads and send timeout must be positive");
+        }
+        this.name = name;
+        this.sendTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(sendTimeoutMs);
+        AtomicInteger threadNo = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(coreThreads, maxThreads, 60, TimeUnit.SECONDS, new SynchronousQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, name + "-sse-" + threadNo.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    /**
+     * 購読を開始（goLiveまでは送信待ちの上限を適用しない）
+     * Open a subscription (the queue limit does not apply until goLive)
+     * 
+     * @param emitter SSEエミッター
+     * @param queueSize 送信待ちの上限
+     * @param onClose 切断時の処理（1回のみ呼ばれる）
+     * @return 購読
+     * @return Subscription
+     */
+    public Subscription open(SseEmitter emitter, int queueSize, Consumer<Subscription> onClose) {
+        Subscription subscription = new Subscription(emitter, queueSize, onClose);
+        open.add(subscription);
+        emitter.onCompletion(subscription::close);
+        emitter.onTimeout(subscription::close);
+        emitter.onError(e -> subscription.close());
+        return subscription;
+    }
+    
+    /**
+     * 送信がsend-timeoutを超えている購読者を切断
+     * Disconnect subscribers whose current send has taken longer than send-timeout
+     */
+    public void detectStalls() {
+        long now = System.nanoTime();
+        for (Subscription subscription : open) {
+            long since = subscription.sendingSince;
+            if (since != 0 && now - since > sendTimeoutNanos) {
+                long count = stalled.incrementAndGet();
+                log.warn("{} subscriber stalled for {} ms in a single send and was disconnected ({} so far)",
+                        name, TimeUnit.NANOSECONDS.toMillis(now - since), count);
+                subscription.disconnect();
+            }
+        }
+    }
+    
+    /**
+     * 送信待ちが上限を超えて切断した購読者数
+     * Subscribers disconnected because their send queue overflowed
+     */
+    public long getOverflowed() {
+        return overflowed.get();
+    }
+    
+    /**
+     * 送信が止まって切断した購読者数
+     * Subscribers disconnected because a send stalled
+     */
+    public long getStalled() {
+        return stalled.get();
+    }
+    
+    /**
+     * 送信中のスレッド数
+     * Number of threads currently sending
+     */
+    public int getActiveThreads() {
+        return executor.getActiveCount();
+    }
+    
+    /**
+     * 送信を止めて全購読者を完了させる
+     * Stop sending and complete every subscription
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+        for (Subscription subscription : open) {
+            subscription.close();
+            subscription.emitter.complete();
+        }
+    }
+    
+    /**
+     * 購読（上限付きの送信待ちと、送信中かどうか）
+     * Subscription (its bounded send queue and whether a sender thread is draining it)
+     */
+    public final class Subscription {
+        
+        private final SseEmitter emitter;
+        
+        private final int queueSize;
+        
+        private final Consumer<Subscription> onClose;
+        
+        private final ArrayDeque<SseEmitter.SseEventBuilder> pending = new ArrayDeque<>();
+        
+        private boolean live;
+        
+        private boolean draining;
+        
+        private boolean closed;
+        
+        /**
+         * 送信中の1件を書き始めた時刻（System.nanoTime、送信中でなければ0）
+         * When the send in progress started (System.nanoTime, 0 when not sending)
+         */
+        private volatile long sendingSince;
+        
+        private Subscription(SseEmitter emitter, int queueSize, Consumer<Subscription> onClose) {
+            this.emitter = emitter;
+            this.queueSize = queueSize;
+            this.onClose = onClose;
+        }
+        
+        /**
+         * 送信待ちに追加（goLive前は上限を超えても追加し、以降に溢れた場合は切断）
+         * Queue an event (may exceed the limit before goLive; a later overflow disconnects)
+         * 
+         * @param event 送信するイベント（購読者ごとに生成したもの）
+         */
+        public void enqueue(SseEmitter.SseEventBuilder event) {
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                if (live && pending.size() >= queueSize) {
+                    long count = overflowed.incrementAndGet();
+                    if (count % 100 == 1) {
+                        log.warn("{} subscriber fell {} events behind and was disconnected ({} so far)", name, queueSize, count);
+                    }
+                    disconnect();
+                    return;
+                }
+                pending.add(event);
+                if (draining) {
+                    return;
+                }
+                draining = true;
+            }
+            try {
+                executor.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                log.warn("{} has no sender thread available, disconnecting a subscriber", name);
+                close();
+                // 送信中ではないため、このスレッドで完了させても待たされない
+                completeQuietly();
+            }
+        }
+        
+        /**
+         * 以降の送信待ちに上限を適用する
+         * Apply the queue limit from now on
+         * 
+         * @return 切断済みの場合false
+         */
+        public synchronized boolean goLive() {
+            live = true;
+            return !closed;
+        }
+        
+        /**
+         * 送信待ちが無い場合のみハートビートのコメント行を送る
+         * Send a heartbeat comment line, only when nothing is waiting to be sent
+         */
+        public void heartbeat() {
+            synchronized (this) {
+                if (closed || !pending.isEmpty()) {
+                    return;
+                }
+            }
+            enqueue(SseEmitter.event().comment("heartbeat"));
+        }
+        
+        /**
+         * 切断済みか
+         * Whether the subscription is closed
+         */
+        public synchronized boolean isClosed() {
+            return closed;
+        }
+        
+        private void drain() {
+            while (true) {
+                List<SseEmitter.SseEventBuilder> batch;
+                synchronized (this) {
+                    if (closed || pending.isEmpty()) {
+                        draining = false;
+                        return;
+                    }
+                    batch = new ArrayList<>(pending);
+                    pending.clear();
+                }
+                try {
+                    for (SseEmitter.SseEventBuilder event : batch) {
+                        sendingSince = System.nanoTime();
+                        emitter.send(event);
+                        sendingSince = 0;
+                    }
+                } catch (IOException | IllegalStateException e) {
+                    // 切断済みのクライアント
+                    sendingSince = 0;
+                    close();
+                }
+            }
+        }
+        
+        /**
+         * 購読を閉じてエミッターを完了させる（送信スレッドが書き込み中で塞がっている場合があるため別スレッドで行う）
+         * Close the subscription and complete its emitter (on another thread, since a sender may be stuck mid-write)
+         */
+        private void disconnect() {
+            close();
+            try {
+                executor.execute(this::completeQuietly);
+            } catch (RejectedExecutionException e) {
+                // 送信スレッドが上限に達している：タイムアウトでの完了に任せる
+            }
+        }
+        
+        private void completeQuietly() {
+            try {
+                emitter.complete();
+            } catch (RuntimeException e) {
+                log.debug("Failed to complete {} subscriber", name, e);
+            }
+        }
+        
+        private void close() {
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                pending.clear();
+            }
+            open.remove(this);
+            onClose.accept(this);
+        }
+    }
+}
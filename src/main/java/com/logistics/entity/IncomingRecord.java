@@ -0,0 +1,83 @@
+package com.logistics.entity;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * 入荷記録エンティティ
+ * Incoming Record Entity
+ * 
+ * 入荷予定（ASN明細、1行1商品）と入荷実績を管理するテーブルに対応
+ * Corresponds to the table that manages planned receipts (ASN lines, one product per line) and their results
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class IncomingRecord {
+    
+    /**
+     * 入荷記録ID（主キー、INCOMING_SEQから採番）
+     * Record ID (Primary Key, allocated from INCOMING_SEQ)
+     */
+    private Long recordId;
+    
+    /**
+     * 事前出荷通知番号
+     * Advance Shipping Notice Number
+     */
+    private String asnNo;
+    
+    /**
+     * 商品ID（必須）
+     * Product ID (Required)
+     */
+    private String productId;
+    
+    /**
+     * 予定数量
+     * Planned Quantity
+     */
+    private Long planQty;
+    
+    /**
+     * 実績数量
+     * Actual Quantity
+     */
+    private Long actualQty;
+    
+    /**
+     * 入荷予定日
+     * Arrival Date
+     */
+    private LocalDate arrivalDate;
+    
+    /**
+     * ステータス（PLANNED/RECEIVED）
+     * Status (PLANNED/RECEIVED)
+     */
+    private String status;
+    
+    /**
+     * 差異理由（予定と実績が異なる場合）
+     * Discrepancy Reason (when the actual quantity differs from the plan)
+     */
+    private String discrepancyReason;
+    
+    /**
+     * 入荷日時
+     * Received At
+     */
+    private LocalDateTime receivedAt;
+    
+    /**
+     * 登録日時
+     * Created At
+     */
+    private LocalDateTime createdAt;
+}
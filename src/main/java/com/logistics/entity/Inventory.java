@@ -0,0 +1,52 @@
+package com.logistics.entity;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+
+import java.time.LocalDateTime;
+
+/**
+ * 在庫エンティティ
+ * Inventory Entity
+ * 
+ * 商品×ロケーション単位の在庫数量を管理するテーブルに対応
+ * Corresponds to the table that manages stock quantity per product and location
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class Inventory {
+    
+    /**
+     * 在庫ID（主キー）
+     * Inventory ID (Primary Key)
+     */
+    private Long inventoryId;
+    
+    /**
+     * 商品ID
+     * Product ID
+     */
+    private String productId;
+    
+    /**
+     * ロケーションID
+     * Location ID
+     */
+    private String locationId;
+    
+    /**
+     * 在庫数量
+     * Quantity
+     */
+    private Long quantity;
+    
+    /**
+     * 最終更新日時
+     * Last Updated
+     */
+    private LocalDateTime lastUpdated;
+}
@@ -0,0 +1,76 @@
+package com.logistics.entity;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+
+import java.time.LocalDateTime;
+
+/**
+ * 操作ログエンティティ
+ * Operation Log Entity
+ * 
+ * マスタ・在庫の変更履歴（変更前後の差分）を記録するテーブルに対応
+ * Corresponds to the table that records the change history (before/after diffs) of masters and inventory
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OperationLog {
+    
+    /**
+     * ログID（主キー、LOG_SEQで採番）
+     * Log ID (Primary Key, allocated from LOG_SEQ)
+     */
+    private Long logId;
+    
+    /**
+     * 操作ユーザーID
+     * Operating user ID
+     */
+    private String userId;
+    
+    /**
+     * 操作種別（CREATED/UPDATED/DELETED/ADJUSTED）
+     * Operation type (CREATED/UPDATED/DELETED/ADJUSTED)
+     */
+    private String operationType;
+    
+    /**
+     * 対象テーブル名
+     * Target table name
+     */
+    private String tableName;
+    
+    /**
+     * 対象レコードID
+     * Target record ID
+     */
+    private String recordId;
+    
+    /**
+     * 変更前の値（JSON、更新時は変更された項目のみ）
+     * Value before the change (JSON; only the changed fields for updates)
+     */
+    private String oldValue;
+    
+    /**
+     * 変更後の値（JSON、更新時は変更された項目のみ）
+     * Value after the change (JSON; only the changed fields for updates)
+     */
+    private String newValue;
+    
+    /**
+     * 操作日時
+     * Operation time
+     */
+    private LocalDateTime operationTime;
+    
+    /**
+     * 操作元IPアドレス
+     * Source IP address
+     */
+    private String ipAddress;
+}
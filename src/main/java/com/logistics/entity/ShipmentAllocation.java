@@ -0,0 +1,46 @@
+package com.logistics.entity;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+
+import java.time.LocalDateTime;
+
+/**
+ * 出荷引当エンティティ
+ * Shipment Allocation Entity
+ * 
+ * 出荷行ごと・ロケーションごとの引当数量を管理するテーブルに対応
+ * Corresponds to the table that manages the allocated quantity per shipment line and location
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ShipmentAllocation {
+    
+    /**
+     * 出荷記録ID
+     * Shipment record ID
+     */
+    private Long recordId;
+    
+    /**
+     * 引当元ロケーションID
+     * Location the stock is allocated from
+     */
+    private String locationId;
+    
+    /**
+     * 引当数量
+     * Allocated quantity
+     */
+    private Long allocatedQty;
+    
+    /**
+     * 引当日時
+     * Allocated at
+     */
+    private LocalDateTime allocatedAt;
+}
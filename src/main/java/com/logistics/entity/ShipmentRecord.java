@@ -0,0 +1,101 @@
+package com.logistics.entity;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * 出荷記録エンティティ
+ * Shipment Record Entity
+ * 
+ * 出荷指示と出荷実績（1行1商品）を管理するテーブルに対応
+ * Corresponds to the table that manages shipment orders and results (one product per line)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ShipmentRecord {
+    
+    /**
+     * 出荷記録ID（主キー、SHIPMENT_SEQから採番）
+     * Record ID (Primary Key, allocated from SHIPMENT_SEQ)
+     */
+    private Long recordId;
+    
+    /**
+     * 受注番号（必須）
+     * Order Number (Required)
+     */
+    private String orderNo;
+    
+    /**
+     * 顧客ID（必須）
+     * Customer ID (Required)
+     */
+    private String customerId;
+    
+    /**
+     * 商品ID（必須）
+     * Product ID (Required)
+     */
+    private String productId;
+    
+    /**
+     * 受注数量（必須）
+     * Order Quantity (Required)
+     */
+    private Long orderQty;
+    
+    /**
+     * 引当済み数量
+     * Allocated Quantity
+     */
+    private Long allocatedQty;
+    
+    /**
+     * 出荷済み数量
+     * Shipped Quantity
+     */
+    private Long shippedQty;
+    
+    /**
+     * 出荷予定日
+     * Shipment Date
+     */
+    private LocalDate shipmentDate;
+    
+    /**
+     * ステータス（PENDING/ALLOCATED/SHIPPED）
+     * Status (PENDING/ALLOCATED/SHIPPED)
+     */
+    private String status;
+    
+    /**
+     * 運送会社
+     * Carrier
+     */
+    private String carrier;
+    
+    /**
+     * 追跡番号
+     * Tracking Number
+     */
+    private String trackingNo;
+    
+    /**
+     * 出荷日時
+     * Shipped At
+     */
+    private LocalDateTime shippedAt;
+    
+    /**
+     * 登録日時
+     * Created At
+     */
+    private LocalDateTime createdAt;
+}
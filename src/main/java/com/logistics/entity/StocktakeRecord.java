@@ -0,0 +1,90 @@
+package com.logistics.entity;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * 棚卸記録エンティティ
+ * Stocktake Record Entity
+ * 
+ * 棚番（商品×ロケーション）ごとのシステム在庫と実棚数の差異を管理するテーブルに対応
+ * Corresponds to the table that manages the difference between system stock and the counted quantity per bin
+ * (product and location)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class StocktakeRecord {
+    
+    /**
+     * 棚卸記録ID（主キー、STOCKTAKE_SEQから採番）
+     * Stocktake ID (Primary Key, allocated from STOCKTAKE_SEQ)
+     */
+    private Long stocktakeId;
+    
+    /**
+     * 棚卸番号
+     * Stocktake Number
+     */
+    private String stocktakeNo;
+    
+    /**
+     * 商品ID（必須）
+     * Product ID (Required)
+     */
+    private String productId;
+    
+    /**
+     * ロケーションID（必須）
+     * Location ID (Required)
+     */
+    private String locationId;
+    
+    /**
+     * システム在庫数（スナップショット時点）
+     * System Quantity (as of the snapshot)
+     */
+    private Long systemQty;
+    
+    /**
+     * 実棚数
+     * Counted Quantity
+     */
+    private Long countedQty;
+    
+    /**
+     * 差異数量（実棚数－システム在庫数）
+     * Difference Quantity (counted minus system)
+     */
+    private Long differenceQty;
+    
+    /**
+     * 差異理由
+     * Reason
+     */
+    private String reason;
+    
+    /**
+     * 棚卸日
+     * Stocktake Date
+     */
+    private LocalDate stocktakeDate;
+    
+    /**
+     * ステータス（PENDING/COMPLETED）
+     * Status (PENDING/COMPLETED)
+     */
+    private String status;
+    
+    /**
+     * 登録日時
+     * Created At
+     */
+    private LocalDateTime createdAt;
+}
@@ -1,7 +1,10 @@
 package com.logistics.mapper;
 
+import com.logistics.controller.dto.PageCursor;
 import com.logistics.entity.CustomerMaster;
 import org.apache.ibatis.annotations.*;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.mapping.ResultSetType;
 
 import java.util.List;
 
@@ -16,14 +19,48 @@ import java.util.List;
 public interface CustomerMasterMapper {
     
     /**
-     * 全顧客を取得
-     * Get all customers
+     * 全顧客をカーソルで逐次取得（エクスポート用）
+     * Stream all customers through a cursor (for export)
      * 
+     * @return 顧客カーソル
+     * @return Cursor over customers
+     */
+    @Select("SELECT * FROM CUSTOMER_MASTER ORDER BY CUSTOMER_ID")
+    @Options(fetchSize = 1000, resultSetType = ResultSetType.FORWARD_ONLY)
+    Cursor<CustomerMaster> streamAll();
+    
+    /**
+     * 全顧客件数を取得
+     * Count all customers
+     * 
+     * @return 件数
+     * @return Count
+     */
+    @Select("SELECT COUNT(*) FROM CUSTOMER_MASTER")
+    long countAll();
+    
+    /**
+     * 登録日時の新しい順に顧客を取得
+     * Get the most recently created customers
+     * 
+     * @param limit 取得件数
      * @return 顧客リスト
      * @return List of customers
      */
-    @Select("SELECT * FROM CUSTOMER_MASTER ORDER BY CREATED_AT DESC")
-    List<CustomerMaster> findAll();
+    @Select("SELECT * FROM CUSTOMER_MASTER ORDER BY CREATED_AT DESC FETCH FIRST #{limit} ROWS ONLY")
+    List<CustomerMaster> findRecent(@Param("limit") int limit);
+    
+    /**
+     * 登録日時の新しい順に1ページ分の顧客を取得（キーセット方式、size+1件を返す）
+     * Get one page of customers, newest first (keyset pagination, returns up to size + 1 rows)
+     * 
+     * @param name 顧客名（部分一致、nullまたは空の場合は絞り込みなし）
+     * @param cursor 前ページ最終行のカーソル（先頭ページの場合null）
+     * @param size ページサイズ
+     * @return 顧客リスト
+     * @return List of customers
+     */
+    List<CustomerMaster> findPage(@Param("name") String name, @Param("cursor") PageCursor cursor, @Param("size") int size);
     
     /**
      * 顧客IDで顧客を取得
@@ -37,15 +74,15 @@ public interface CustomerMasterMapper {
     CustomerMaster findById(@Param("customerId") String customerId);
     
     /**
-     * 顧客名で検索
-     * Search by customer name
+     * 顧客IDで顧客を取得して行ロック（更新・削除の変更前の状態として同じトランザクション内で使う）
+     * Get customer by ID, locking the row (the state before an update or delete, read in the same transaction)
      * 
-     * @param customerName 顧客名（部分一致）
-     * @return 顧客リスト
-     * @return List of customers
+     * @param customerId 顧客ID
+     * @return 顧客情報（存在しない場合null）
+     * @return Customer information, or null if it does not exist
      */
-    @Select("SELECT * FROM CUSTOMER_MASTER WHERE CUSTOMER_NAME LIKE '%' || #{customerName} || '%' ORDER BY CREATED_AT DESC")
-    List<CustomerMaster> findByName(@Param("customerName") String customerName);
+    @Select("SELECT * FROM CUSTOMER_MASTER WHERE CUSTOMER_ID = #{customerId} FOR UPDATE")
+    CustomerMaster findByIdForUpdate(@Param("customerId") String customerId);
     
     /**
      * 顧客を新規登録
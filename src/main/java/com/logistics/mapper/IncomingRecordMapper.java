@@ -0,0 +1,58 @@
+package com.logistics.mapper;
+
+import com.logistics.entity.IncomingRecord;
+import org.apache.ibatis.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 入荷記録Mapperインターフェース
+ * Incoming Record Mapper Interface
+ * 
+ * 入荷予定の登録・照会と入荷実績の反映を定義
+ * Defines planned receipt inserts and lookups and writing receipt results
+ */
+@Mapper
+public interface IncomingRecordMapper {
+    
+    /**
+     * 入荷予定を登録
+     * Insert a planned receipt line
+     * 
+     * @param record 入荷記録（recordIdは採番済み）
+     * @return 登録件数
+     * @return Number of inserted records
+     */
+    @Insert("INSERT INTO INCOMING_RECORD (RECORD_ID, ASN_NO, PRODUCT_ID, PLAN_QTY, ARRIVAL_DATE, STATUS, CREATED_AT) " +
+            "VALUES (#{recordId}, #{asnNo}, #{productId}, #{planQty}, #{arrivalDate}, 'PLANNED', #{createdAt})")
+    int insert(IncomingRecord record);
+    
+    /**
+     * ASNの全明細を取得（記録ID順）
+     * Get every line of an ASN (by record ID)
+     * 
+     * @param asnNo 事前出荷通知番号
+     * @return 入荷記録リスト
+     * @return List of incoming records
+     */
+    @Select("SELECT * FROM INCOMING_RECORD WHERE ASN_NO = #{asnNo} ORDER BY RECORD_ID")
+    List<IncomingRecord> findByAsnNo(String asnNo);
+    
+    /**
+     * 入荷実績を登録してRECEIVEDにする（PLANNEDの行のみ）
+     * Record the actual quantity and mark the line RECEIVED (PLANNED lines only)
+     * 
+     * @param recordId 入荷記録ID
+     * @param actualQty 実績数量
+     * @param discrepancyReason 差異理由
+     * @param receivedAt 入荷日時
+     * @return 更新件数（0の場合は入荷済み）
+     * @return Number of updated records (0 if already received)
+     */
+    @Update("UPDATE INCOMING_RECORD SET ACTUAL_QTY = #{actualQty}, DISCREPANCY_REASON = #{discrepancyReason}, " +
+            "RECEIVED_AT = #{receivedAt}, STATUS = 'RECEIVED' " +
+            "WHERE RECORD_ID = #{recordId} AND STATUS = 'PLANNED'")
+    int receive(@Param("recordId") long recordId, @Param("actualQty") long actualQty,
+                @Param("discrepancyReason") String discrepancyReason, @Param("receivedAt") LocalDateTime receivedAt);
+}
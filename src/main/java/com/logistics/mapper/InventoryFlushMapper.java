@@ -0,0 +1,51 @@
+package com.logistics.mapper;
+
+import org.apache.ibatis.annotations.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * 在庫反映バッチMapperインターフェース
+ * Inventory Flush Batch Mapper Interface
+ * 
+ * 在庫台帳の書き戻しで反映済みのバッチを記録し、同じバッチの二重反映を防ぐ
+ * Records the batches the inventory write-behind has applied, so the same batch is never applied twice
+ */
+@Mapper
+public interface InventoryFlushMapper {
+    
+    /**
+     * 反映済みバッチを登録（差分のMERGEと同じトランザクションで実行すること）
+     * Record an applied batch (must run in the same transaction as the delta MERGEs)
+     * 
+     * @param flushId バッチID
+     * @param deltaCount 差分件数
+     * @param appliedAt 反映日時
+     * @return 処理件数
+     * @return Number of affected records
+     */
+    @Insert("INSERT INTO INVENTORY_FLUSH (FLUSH_ID, DELTA_COUNT, APPLIED_AT) VALUES (#{flushId}, #{deltaCount}, #{appliedAt})")
+    int insert(@Param("flushId") long flushId, @Param("deltaCount") int deltaCount, @Param("appliedAt") LocalDateTime appliedAt);
+    
+    /**
+     * バッチが反映済みか
+     * Whether a batch has been applied
+     * 
+     * @param flushId バッチID
+     * @return 反映済みの場合1、未反映の場合0
+     * @return 1 if applied, 0 otherwise
+     */
+    @Select("SELECT COUNT(*) FROM INVENTORY_FLUSH WHERE FLUSH_ID = #{flushId}")
+    int countById(@Param("flushId") long flushId);
+    
+    /**
+     * 保持期間を過ぎた記録を削除
+     * Delete records past the retention period
+     * 
+     * @param before この日時より前に反映された記録を削除
+     * @return 削除件数
+     * @return Number of deleted records
+     */
+    @Delete("DELETE FROM INVENTORY_FLUSH WHERE APPLIED_AT < #{before}")
+    int deleteAppliedBefore(@Param("before") LocalDateTime before);
+}
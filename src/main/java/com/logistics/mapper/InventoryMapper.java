@@ -0,0 +1,44 @@
+package com.logistics.mapper;
+
+import com.logistics.entity.Inventory;
+import org.apache.ibatis.annotations.*;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.mapping.ResultSetType;
+
+/**
+ * 在庫Mapperインターフェース
+ * Inventory Mapper Interface
+ * 
+ * 在庫データの読み込みと差分反映を定義
+ * Defines loading of stock data and applying quantity deltas
+ */
+@Mapper
+public interface InventoryMapper {
+    
+    /**
+     * 全在庫をカーソルで逐次取得（在庫台帳の初期化用）
+     * Stream all inventory rows through a cursor (for loading the ledger)
+     * 
+     * @return 在庫カーソル
+     * @return Cursor over inventory rows
+     */
+    @Select("SELECT * FROM INVENTORY ORDER BY PRODUCT_ID, LOCATION_ID")
+    @Options(fetchSize = 1000, resultSetType = ResultSetType.FORWARD_ONLY)
+    Cursor<Inventory> streamAll();
+    
+    /**
+     * 数量の差分を加算（行が無ければ差分を初期数量として登録）
+     * Add a quantity delta (inserting the delta as the initial quantity if the row does not exist)
+     * 
+     * @param delta 在庫差分（quantityは差分値、inventoryIdは行が無い場合に登録するID）
+     * @return 処理件数
+     * @return Number of affected records
+     */
+    @Update("MERGE INTO INVENTORY t " +
+            "USING (SELECT CAST(#{productId} AS VARCHAR2(20)) AS PRODUCT_ID, CAST(#{locationId} AS VARCHAR2(20)) AS LOCATION_ID FROM DUAL) s " +
+            "ON (t.PRODUCT_ID = s.PRODUCT_ID AND t.LOCATION_ID = s.LOCATION_ID) " +
+            "WHEN MATCHED THEN UPDATE SET t.QUANTITY = t.QUANTITY + #{quantity}, t.LAST_UPDATED = #{lastUpdated} " +
+            "WHEN NOT MATCHED THEN INSERT (INVENTORY_ID, PRODUCT_ID, LOCATION_ID, QUANTITY, LAST_UPDATED) " +
+            "VALUES (#{inventoryId}, s.PRODUCT_ID, s.LOCATION_ID, #{quantity}, #{lastUpdated})")
+    int mergeDelta(Inventory delta);
+}
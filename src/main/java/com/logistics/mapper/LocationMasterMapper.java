@@ -1,7 +1,10 @@
 package com.logistics.mapper;
 
+import com.logistics.controller.dto.PageCursor;
 import com.logistics.entity.LocationMaster;
 import org.apache.ibatis.annotations.*;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.mapping.ResultSetType;
 
 import java.util.List;
 
@@ -16,14 +19,50 @@ import java.util.List;
 public interface LocationMasterMapper {
     
     /**
-     * 全ロケーションを取得
-     * Get all locations
+     * 全ロケーションをカーソルで逐次取得（エクスポート用）
+     * Stream all locations through a cursor (for export)
      * 
+     * @return ロケーションカーソル
+     * @return Cursor over locations
+     */
+    @Select("SELECT * FROM LOCATION_MASTER ORDER BY LOCATION_ID")
+    @Options(fetchSize = 1000, resultSetType = ResultSetType.FORWARD_ONLY)
+    Cursor<LocationMaster> streamAll();
+    
+    /**
+     * 全ロケーション件数を取得
+     * Count all locations
+     * 
+     * @return 件数
+     * @return Count
+     */
+    @Select("SELECT COUNT(*) FROM LOCATION_MASTER")
+    long countAll();
+    
+    /**
+     * 登録日時の新しい順にロケーションを取得
+     * Get the most recently created locations
+     * 
+     * @param limit 取得件数
      * @return ロケーションリスト
      * @return List of locations
      */
-    @Select("SELECT * FROM LOCATION_MASTER ORDER BY CREATED_AT DESC")
-    List<LocationMaster> findAll();
+    @Select("SELECT * FROM LOCATION_MASTER ORDER BY CREATED_AT DESC FETCH FIRST #{limit} ROWS ONLY")
+    List<LocationMaster> findRecent(@Param("limit") int limit);
+    
+    /**
+     * 登録日時の新しい順に1ページ分のロケーションを取得（キーセット方式、size+1件を返す）
+     * Get one page of locations, newest first (keyset pagination, returns up to size + 1 rows)
+     * 
+     * @param warehouseCode 倉庫コード（nullの場合は絞り込みなし）
+     * @param zone ゾーン（nullの場合は絞り込みなし）
+     * @param cursor 前ページ最終行のカーソル（先頭ページの場合null）
+     * @param size ページサイズ
+     * @return ロケーションリスト
+     * @return List of locations
+     */
+    List<LocationMaster> findPage(@Param("warehouseCode") String warehouseCode, @Param("zone") String zone,
+                                  @Param("cursor") PageCursor cursor, @Param("size") int size);
     
     /**
      * ロケーションIDでロケーションを取得
@@ -37,26 +76,15 @@ public interface LocationMasterMapper {
     LocationMaster findById(@Param("locationId") String locationId);
     
     /**
-     * 倉庫コードで検索
-     * Search by warehouse code
+     * ロケーションIDでロケーションを取得して行ロック（更新・削除の変更前の状態として同じトランザクション内で使う）
+     * Get location by ID, locking the row (the state before an update or delete, read in the same transaction)
      * 
-     * @param warehouseCode 倉庫コード
-     * @return ロケーションリスト
-     * @return List of locations
-     */
-    @Select("SELECT * FROM LOCATION_MASTER WHERE WAREHOUSE_CODE = #{warehouseCode} ORDER BY CREATED_AT DESC")
-    List<LocationMaster> findByWarehouseCode(@Param("warehouseCode") String warehouseCode);
-    
-    /**
-     * ゾーンで検索
-     * Search by zone
-     * 
-     * @param zone ゾーン
-     * @return ロケーションリスト
-     * @return List of locations
+     * @param locationId ロケーションID
+     * @return ロケーション情報（存在しない場合null）
+     * @return Location information, or null if it does not exist
      */
-    @Select("SELECT * FROM LOCATION_MASTER WHERE ZONE = #{zone} ORDER BY CREATED_AT DESC")
-    List<LocationMaster> findByZone(@Param("zone") String zone);
+    @Select("SELECT * FROM LOCATION_MASTER WHERE LOCATION_ID = #{locationId} FOR UPDATE")
+    LocationMaster findByIdForUpdate(@Param("locationId") String locationId);
     
     /**
      * ロケーションを新規登録
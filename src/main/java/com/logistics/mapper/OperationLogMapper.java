@@ -0,0 +1,28 @@
+package com.logistics.mapper;
+
+import com.logistics.entity.OperationLog;
+import org.apache.ibatis.annotations.*;
+
+/**
+ * 操作ログMapperインターフェース
+ * Operation Log Mapper Interface
+ * 
+ * 操作ログの書き込みを定義（監査証跡の非同期書き込み用）
+ * Defines writes to the operation log (used by the asynchronous audit trail writer)
+ */
+@Mapper
+public interface OperationLogMapper {
+    
+    /**
+     * 操作ログを登録（ログIDはIdAllocatorでLOG_SEQから採番済み）
+     * Insert an operation log entry (log ID already allocated from LOG_SEQ by IdAllocator)
+     * 
+     * @param log 操作ログ
+     * @return 登録件数
+     * @return Number of inserted records
+     */
+    @Insert("INSERT INTO OPERATION_LOG (LOG_ID, USER_ID, OPERATION_TYPE, TABLE_NAME, RECORD_ID, OLD_VALUE, NEW_VALUE, OPERATION_TIME, IP_ADDRESS) " +
+            "VALUES (#{logId}, #{userId}, #{operationType}, #{tableName}, #{recordId}, " +
+            "#{oldValue,jdbcType=CLOB}, #{newValue,jdbcType=CLOB}, #{operationTime}, #{ipAddress})")
+    int insert(OperationLog log);
+}
@@ -3,7 +3,10 @@ package com.logistics.mapper;
 import com.logistics.controller.dto.PageRequest;
 import com.logistics.entity.ProductMaster;
 import org.apache.ibatis.annotations.*;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.mapping.ResultSetType;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -17,14 +20,37 @@ import java.util.List;
 public interface ProductMasterMapper {
     
     /**
-     * 全商品を取得
-     * Get all products
+     * 全商品をカーソルで逐次取得（エクスポート用）
+     * Stream all products through a cursor (for export)
      * 
+     * @return 商品カーソル
+     * @return Cursor over products
+     */
+    @Select("SELECT * FROM PRODUCT_MASTER ORDER BY PRODUCT_ID")
+    @ResultMap("ProductMasterResultMap")
+    @Options(fetchSize = 1000, resultSetType = ResultSetType.FORWARD_ONLY)
+    Cursor<ProductMaster> streamAll();
+    
+    /**
+     * 全商品件数を取得
+     * Count all products
+     * 
+     * @return 件数
+     * @return Count
+     */
+    @Select("SELECT COUNT(*) FROM PRODUCT_MASTER")
+    long countAll();
+    
+    /**
+     * 登録日時の新しい順に商品を取得
+     * Get the most recently created products
+     * 
+     * @param limit 取得件数
      * @return 商品リスト
      * @return List of products
      */
-    @Select("SELECT * FROM PRODUCT_MASTER ORDER BY CREATED_AT DESC")
-    List<ProductMaster> findAll();
+    @Select("SELECT * FROM PRODUCT_MASTER ORDER BY CREATED_AT DESC FETCH FIRST #{limit} ROWS ONLY")
+    List<ProductMaster> findRecent(@Param("limit") int limit);
     
     /**
      * 商品IDで商品を取得
@@ -38,15 +64,25 @@ public interface ProductMasterMapper {
     ProductMaster findById(@Param("productId") String productId);
     
     /**
-     * 商品名で検索
-     * Search by product name
+     * 商品IDで商品を取得して行ロック（更新・削除の変更前の状態として同じトランザクション内で使う）
+     * Get product by ID, locking the row (the state before an update or delete, read in the same transaction)
      * 
-     * @param productName 商品名（部分一致）
+     * @param productId 商品ID
+     * @return 商品情報（存在しない場合null）
+     * @return Product information, or null if it does not exist
+     */
+    @Select("SELECT * FROM PRODUCT_MASTER WHERE PRODUCT_ID = #{productId} FOR UPDATE")
+    ProductMaster findByIdForUpdate(@Param("productId") String productId);
+    
+    /**
+     * 商品IDリストで商品を取得（順序不定）
+     * Get products by a list of IDs (unordered)
+     * 
+     * @param ids 商品IDリスト（最大1000件）
      * @return 商品リスト
      * @return List of products
      */
-    @Select("SELECT * FROM PRODUCT_MASTER WHERE PRODUCT_NAME LIKE '%' || #{productName} || '%' ORDER BY CREATED_AT DESC")
-    List<ProductMaster> findByName(@Param("productName") String productName);
+    List<ProductMaster> findByIds(@Param("ids") Collection<String> ids);
     
     /**
      * 商品を新規登録
@@ -88,6 +124,26 @@ public interface ProductMasterMapper {
     @Delete("DELETE FROM PRODUCT_MASTER WHERE PRODUCT_ID = #{productId}")
     int deleteById(@Param("productId") String productId);
     
+    /**
+     * 商品を登録または更新（MERGE）
+     * Insert or update a product (MERGE)
+     * 
+     * @param product 商品情報
+     * @return 処理件数
+     * @return Number of affected records
+     */
+    int merge(ProductMaster product);
+    
+    /**
+     * 指定IDのうち既に存在する商品を取得して行ロック（一括登録の変更前の状態として同じトランザクション内で使う）
+     * Get the products that already exist among the given IDs, locking them (the state before a bulk upsert)
+     * 
+     * @param ids 商品IDリスト（最大1000件）
+     * @return 存在する商品リスト（順序不定）
+     * @return Existing products (unordered)
+     */
+    List<ProductMaster> findByIdsForUpdate(@Param("ids") Collection<String> ids);
+    
     /**
      * 商品の存在確認
      * Check if product exists
@@ -109,6 +165,16 @@ public interface ProductMasterMapper {
      */
     List<ProductMaster> findWithPagination(PageRequest pageRequest);
     
+    /**
+     * キーセット方式で商品一覧を取得（size+1件を返す）
+     * Find products with keyset pagination (returns up to size + 1 rows)
+     * 
+     * @param pageRequest 分页请求（cursor指定時はその次の行から）
+     * @return 商品列表
+     * @return List of products
+     */
+    List<ProductMaster> findWithCursor(PageRequest pageRequest);
+    
     /**
      * 统计商品总数
      * Count total products
@@ -118,4 +184,14 @@ public interface ProductMasterMapper {
      * @return Total count
      */
     long countWithPagination(PageRequest pageRequest);
+    
+    /**
+     * テーブル統計から商品件数の概算値を取得
+     * Get the estimated product count from table statistics
+     * 
+     * @return 概算件数（統計未収集の場合null）
+     * @return Estimated count, or null if statistics are not gathered
+     */
+    @Select("SELECT NUM_ROWS FROM USER_TABLES WHERE TABLE_NAME = 'PRODUCT_MASTER'")
+    Long findEstimatedCount();
 }
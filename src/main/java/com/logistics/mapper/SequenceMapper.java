@@ -0,0 +1,36 @@
+package com.logistics.mapper;
+
+import org.apache.ibatis.annotations.*;
+
+/**
+ * シーケンスMapperインターフェース
+ * Sequence Mapper Interface
+ * 
+ * 採番シーケンスの取得を定義（IDのブロック割り当て用）
+ * Defines sequence reads (used for block ID allocation)
+ */
+@Mapper
+public interface SequenceMapper {
+    
+    /**
+     * シーケンスの次の値を取得
+     * Get the next value of a sequence
+     * 
+     * @param sequence シーケンス名（IdAllocator.Sequenceの名前のみ、SQLに直接埋め込むため）
+     * @return 次の値
+     * @return Next value
+     */
+    @Select("SELECT ${sequence}.NEXTVAL FROM DUAL")
+    long nextVal(@Param("sequence") String sequence);
+    
+    /**
+     * シーケンスの刻み幅を取得（Oracleのデータディクショナリから）
+     * Get the increment of a sequence (from the Oracle data dictionary)
+     * 
+     * @param sequence シーケンス名
+     * @return INCREMENT BY（シーケンスが存在しない場合null）
+     * @return INCREMENT BY, or null if the sequence does not exist
+     */
+    @Select("SELECT INCREMENT_BY FROM USER_SEQUENCES WHERE SEQUENCE_NAME = #{sequence}")
+    Long findIncrementBy(@Param("sequence") String sequence);
+}
@@ -0,0 +1,76 @@
+package com.logistics.mapper;
+
+import com.logistics.entity.ShipmentAllocation;
+import com.logistics.entity.ShipmentRecord;
+import org.apache.ibatis.annotations.*;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.mapping.ResultSetType;
+
+/**
+ * 出荷記録Mapperインターフェース
+ * Shipment Record Mapper Interface
+ * 
+ * 出荷記録の登録、引当対象の読み込み、引当結果の反映を定義
+ * Defines shipment line inserts, loading allocation candidates and writing allocation results
+ */
+@Mapper
+public interface ShipmentRecordMapper {
+    
+    /**
+     * 出荷記録を登録
+     * Insert a shipment record
+     * 
+     * @param record 出荷記録（recordIdは採番済み）
+     * @return 登録件数
+     * @return Number of inserted records
+     */
+    @Insert("INSERT INTO SHIPMENT_RECORD (RECORD_ID, ORDER_NO, CUSTOMER_ID, PRODUCT_ID, ORDER_QTY, ALLOCATED_QTY, SHIPMENT_DATE, STATUS, CREATED_AT) " +
+            "VALUES (#{recordId}, #{orderNo}, #{customerId}, #{productId}, #{orderQty}, 0, #{shipmentDate}, 'PENDING', #{createdAt})")
+    int insert(ShipmentRecord record);
+    
+    /**
+     * 未引当（PENDING）の出荷行をカーソルで逐次取得（商品→登録順）
+     * Stream PENDING shipment lines through a cursor (by product, then in order of creation)
+     * 
+     * @return 出荷行カーソル
+     * @return Cursor over shipment lines
+     */
+    @Select("SELECT RECORD_ID, ORDER_NO, PRODUCT_ID, ORDER_QTY, ALLOCATED_QTY, CREATED_AT FROM SHIPMENT_RECORD " +
+            "WHERE STATUS = 'PENDING' ORDER BY PRODUCT_ID, CREATED_AT, RECORD_ID")
+    @Options(fetchSize = 1000, resultSetType = ResultSetType.FORWARD_ONLY)
+    Cursor<ShipmentRecord> streamPending();
+    
+    /**
+     * 引当数量を加算（受注数量に達した場合はALLOCATED）
+     * 読み込み時から引当数量・ステータスが変わっている行は更新しない（楽観ロック）
+     * Add to the allocated quantity (ALLOCATED once it reaches the order quantity).
+     * Lines whose allocated quantity or status changed since they were read are left alone (optimistic lock).
+     * 
+     * @param recordId 出荷記録ID
+     * @param expectedQty 読み込み時の引当済み数量
+     * @param quantity 今回の引当数量
+     * @return 更新件数（0の場合は他で変更済み）
+     * @return Number of updated records (0 if changed elsewhere)
+     */
+    @Update("UPDATE SHIPMENT_RECORD SET " +
+            "ALLOCATED_QTY = ALLOCATED_QTY + #{quantity}, " +
+            "STATUS = CASE WHEN ALLOCATED_QTY + #{quantity} >= ORDER_QTY THEN 'ALLOCATED' ELSE 'PENDING' END " +
+            "WHERE RECORD_ID = #{recordId} AND STATUS = 'PENDING' AND ALLOCATED_QTY = #{expectedQty}")
+    int allocate(@Param("recordId") long recordId, @Param("expectedQty") long expectedQty, @Param("quantity") long quantity);
+    
+    /**
+     * 引当数量をロケーション別に加算（行が無ければ登録）
+     * Add an allocated quantity for a location (inserting the row if it does not exist)
+     * 
+     * @param allocation 引当（allocatedQtyは今回の引当数量）
+     * @return 処理件数
+     * @return Number of affected records
+     */
+    @Update("MERGE INTO SHIPMENT_ALLOCATION t " +
+            "USING (SELECT CAST(#{recordId} AS NUMBER) AS RECORD_ID, CAST(#{locationId} AS VARCHAR2(20)) AS LOCATION_ID FROM DUAL) s " +
+            "ON (t.RECORD_ID = s.RECORD_ID AND t.LOCATION_ID = s.LOCATION_ID) " +
+            "WHEN MATCHED THEN UPDATE SET t.ALLOCATED_QTY = t.ALLOCATED_QTY + #{allocatedQty}, t.ALLOCATED_AT = #{allocatedAt} " +
+            "WHEN NOT MATCHED THEN INSERT (RECORD_ID, LOCATION_ID, ALLOCATED_QTY, ALLOCATED_AT) " +
+            "VALUES (s.RECORD_ID, s.LOCATION_ID, #{allocatedQty}, #{allocatedAt})")
+    int mergeAllocation(ShipmentAllocation allocation);
+}
@@ -0,0 +1,76 @@
+package com.logistics.mapper;
+
+import com.logistics.entity.StocktakeRecord;
+import org.apache.ibatis.annotations.*;
+
+import java.util.List;
+
+/**
+ * 棚卸記録Mapperインターフェース
+ * Stocktake Record Mapper Interface
+ * 
+ * 棚卸明細の登録と完了処理を定義
+ * Defines stocktake line writes and completion
+ */
+@Mapper
+public interface StocktakeRecordMapper {
+    
+    /**
+     * 棚卸明細を登録（同じ棚番の未完了の明細が有れば上書き）
+     * Insert a stocktake line (overwriting the pending line of the same bin if there is one)
+     * 
+     * @param record 棚卸記録（stocktakeIdは行が無い場合に登録するID）
+     * @return 処理件数（0の場合は完了済みの明細）
+     * @return Number of affected records (0 if the line is already completed)
+     */
+    @Update("MERGE INTO STOCKTAKE_RECORD t " +
+            "USING (SELECT CAST(#{stocktakeNo} AS VARCHAR2(20)) AS STOCKTAKE_NO, CAST(#{productId} AS VARCHAR2(20)) AS PRODUCT_ID, " +
+            "CAST(#{locationId} AS VARCHAR2(20)) AS LOCATION_ID FROM DUAL) s " +
+            "ON (t.STOCKTAKE_NO = s.STOCKTAKE_NO AND t.PRODUCT_ID = s.PRODUCT_ID AND t.LOCATION_ID = s.LOCATION_ID) " +
+            "WHEN MATCHED THEN UPDATE SET t.SYSTEM_QTY = #{systemQty}, t.COUNTED_QTY = #{countedQty}, " +
+            "t.DIFFERENCE_QTY = #{differenceQty}, t.REASON = #{reason}, t.STOCKTAKE_DATE = #{stocktakeDate} " +
+            "WHERE t.STATUS = 'PENDING' " +
+            "WHEN NOT MATCHED THEN INSERT (STOCKTAKE_ID, STOCKTAKE_NO, PRODUCT_ID, LOCATION_ID, SYSTEM_QTY, COUNTED_QTY, " +
+            "DIFFERENCE_QTY, REASON, STOCKTAKE_DATE, STATUS, CREATED_AT) " +
+            "VALUES (#{stocktakeId}, s.STOCKTAKE_NO, s.PRODUCT_ID, s.LOCATION_ID, #{systemQty}, #{countedQty}, " +
+            "#{differenceQty}, #{reason}, #{stocktakeDate}, 'PENDING', #{createdAt})")
+    int merge(StocktakeRecord record);
+    
+    /**
+     * 未完了の明細をID順に取得（キーセット方式）
+     * Get pending lines in ID order (keyset paging)
+     * 
+     * @param stocktakeNo 棚卸番号
+     * @param afterId このIDより後の明細を取得
+     * @param limit 取得件数
+     * @return 棚卸記録リスト
+     * @return List of stocktake records
+     */
+    @Select("SELECT * FROM STOCKTAKE_RECORD WHERE STOCKTAKE_NO = #{stocktakeNo} AND STATUS = 'PENDING' " +
+            "AND STOCKTAKE_ID > #{afterId} ORDER BY STOCKTAKE_ID FETCH FIRST #{limit} ROWS ONLY")
+    List<StocktakeRecord> findPending(@Param("stocktakeNo") String stocktakeNo, @Param("afterId") long afterId,
+                                      @Param("limit") int limit);
+    
+    /**
+     * 指定ステータスの明細数を取得
+     * Count the lines with a status
+     * 
+     * @param stocktakeNo 棚卸番号
+     * @param status ステータス
+     * @return 件数
+     * @return Count
+     */
+    @Select("SELECT COUNT(*) FROM STOCKTAKE_RECORD WHERE STOCKTAKE_NO = #{stocktakeNo} AND STATUS = #{status}")
+    long countByStatus(@Param("stocktakeNo") String stocktakeNo, @Param("status") String status);
+    
+    /**
+     * 明細を完了にする（未完了の明細のみ）
+     * Mark a line completed (pending lines only)
+     * 
+     * @param stocktakeId 棚卸記録ID
+     * @return 更新件数（0の場合は完了済み）
+     * @return Number of updated records (0 if already completed)
+     */
+    @Update("UPDATE STOCKTAKE_RECORD SET STATUS = 'COMPLETED' WHERE STOCKTAKE_ID = #{stocktakeId} AND STATUS = 'PENDING'")
+    int complete(long stocktakeId);
+}
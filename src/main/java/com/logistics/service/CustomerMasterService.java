@@ -1,8 +1,9 @@
 package com.logistics.service;
 
+import com.logistics.controller.dto.PageResponse;
 import com.logistics.entity.CustomerMaster;
 
-import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * 顧客マスタサービスインターフェース
@@ -14,13 +15,16 @@ import java.util.List;
 public interface CustomerMasterService {
     
     /**
-     * 全顧客を取得
-     * Get all customers
+     * 顧客一覧を1ページ分取得（登録日時の新しい順、キーセット方式）
+     * Get one page of customers (newest first, keyset pagination)
      * 
-     * @return 顧客リスト
-     * @return List of customers
+     * @param size ページサイズ（1〜app.page.max-size）
+     * @param after 前ページのnextCursor（先頭ページの場合nullまたは空）
+     * @return 顧客ページ
+     * @return Page of customers
+     * @throws IllegalArgumentException ページサイズが範囲外、またはカーソルが不正な場合
      */
-    List<CustomerMaster> getAllCustomers();
+    PageResponse<CustomerMaster> getCustomers(int size, String after);
     
     /**
      * 顧客IDで顧客を取得
@@ -36,11 +40,14 @@ public interface CustomerMasterService {
      * 顧客名で検索
      * Search by customer name
      * 
-     * @param customerName 顧客名
-     * @return 顧客リスト
-     * @return List of customers
+     * @param customerName 顧客名（部分一致、空の場合は全顧客）
+     * @param size ページサイズ（1〜app.page.max-size）
+     * @param after 前ページのnextCursor（先頭ページの場合nullまたは空）
+     * @return 顧客ページ
+     * @return Page of customers
+     * @throws IllegalArgumentException ページサイズが範囲外、またはカーソルが不正な場合
      */
-    List<CustomerMaster> searchCustomersByName(String customerName);
+    PageResponse<CustomerMaster> searchCustomersByName(String customerName, int size, String after);
     
     /**
      * 顧客を新規登録
@@ -81,4 +88,12 @@ public interface CustomerMasterService {
      * @return true if exists
      */
     boolean existsCustomer(String customerId);
+    
+    /**
+     * 全顧客を1件ずつ処理（全件をメモリに保持しない）
+     * Process all customers one at a time (without holding them all in memory)
+     * 
+     * @param consumer 各顧客を受け取る処理
+     */
+    void exportCustomers(Consumer<CustomerMaster> consumer);
 }
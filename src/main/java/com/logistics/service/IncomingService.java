@@ -0,0 +1,43 @@
+package com.logistics.service;
+
+import com.logistics.controller.dto.AsnReceiptRequest;
+import com.logistics.controller.dto.AsnReceiptResult;
+import com.logistics.entity.IncomingRecord;
+
+import java.util.List;
+
+/**
+ * 入荷サービスインターフェース
+ * Incoming Service Interface
+ * 
+ * 入荷予定（ASN）の照会と入荷実績の登録を定義
+ * Defines ASN lookups and receipt recording
+ */
+public interface IncomingService {
+    
+    /**
+     * ASNの全明細を取得
+     * Get every line of an ASN
+     * 
+     * @param asnNo 事前出荷通知番号
+     * @return 入荷記録リスト
+     * @return List of incoming records
+     */
+    List<IncomingRecord> getAsnLines(String asnNo);
+    
+    /**
+     * ASNのPLANNED明細をまとめて入荷し、在庫を加算する
+     * Receive every PLANNED line of an ASN and add the quantities to stock
+     * 
+     * 明細の更新と在庫の加算は1トランザクションでJDBCバッチとして送信する（一部のみの入荷は無い）。
+     * Line updates and stock increments are sent as JDBC batches in a single transaction (never partially received).
+     * 
+     * @param asnNo 事前出荷通知番号
+     * @param request 入荷先と予定と異なる明細
+     * @return 入荷結果
+     * @return Receipt result
+     * @throws IllegalArgumentException ASNが存在しない、入荷済み、または明細の内容が不正な場合
+     * @throws IllegalStateException 在庫台帳の読み込み中の場合
+     */
+    AsnReceiptResult receiveAsn(String asnNo, AsnReceiptRequest request);
+}
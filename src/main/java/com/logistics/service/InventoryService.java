@@ -0,0 +1,68 @@
+package com.logistics.service;
+
+import com.logistics.controller.dto.InventoryStats;
+import com.logistics.entity.Inventory;
+
+import java.util.List;
+
+/**
+ * 在庫サービスインターフェース
+ * Inventory Service Interface
+ * 
+ * 在庫数量の照会・増減を定義（インメモリ台帳で処理し、DBへは非同期で反映）
+ * Defines stock queries and adjustments (served by the in-memory ledger, written to the DB asynchronously)
+ */
+public interface InventoryService {
+    
+    /**
+     * 商品×ロケーションの在庫を取得
+     * Get the stock of a product at a location
+     * 
+     * @param productId 商品ID
+     * @param locationId ロケーションID
+     * @return 在庫（登録が無い場合は数量0）
+     * @return Stock (quantity 0 if there is none)
+     */
+    Inventory getStock(String productId, String locationId);
+    
+    /**
+     * 商品の全ロケーションの在庫を取得
+     * Get the stock of a product at every location
+     * 
+     * @param productId 商品ID
+     * @return 在庫リスト
+     * @return List of stock rows
+     */
+    List<Inventory> getStockByProduct(String productId);
+    
+    /**
+     * 商品の総在庫数を取得
+     * Get the total stock of a product
+     * 
+     * @param productId 商品ID
+     * @return 総在庫数
+     * @return Total quantity
+     */
+    long getTotalStock(String productId);
+    
+    /**
+     * 在庫を増減
+     * Adjust stock
+     * 
+     * @param productId 商品ID
+     * @param locationId ロケーションID
+     * @param delta 増減数（入庫は正、出庫は負）
+     * @return 更新後の在庫
+     * @return Stock after the change
+     */
+    Inventory adjustStock(String productId, String locationId, long delta);
+    
+    /**
+     * 在庫台帳の統計を取得
+     * Get inventory ledger statistics
+     * 
+     * @return 統計
+     * @return Statistics
+     */
+    InventoryStats getLedgerStats();
+}
@@ -1,8 +1,13 @@
 package com.logistics.service;
 
+import com.logistics.controller.dto.ImportResult;
+import com.logistics.controller.dto.LocationNode;
+import com.logistics.controller.dto.PageResponse;
 import com.logistics.entity.LocationMaster;
 
+import java.io.InputStream;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * ロケーションマスタサービスインターフェース
@@ -14,13 +19,16 @@ import java.util.List;
 public interface LocationMasterService {
     
     /**
-     * 全ロケーションを取得
-     * Get all locations
+     * ロケーション一覧を1ページ分取得（登録日時の新しい順、キーセット方式）
+     * Get one page of locations (newest first, keyset pagination)
      * 
-     * @return ロケーションリスト
-     * @return List of locations
+     * @param size ページサイズ（1〜app.page.max-size）
+     * @param after 前ページのnextCursor（先頭ページの場合nullまたは空）
+     * @return ロケーションページ
+     * @return Page of locations
+     * @throws IllegalArgumentException ページサイズが範囲外、またはカーソルが不正な場合
      */
-    List<LocationMaster> getAllLocations();
+    PageResponse<LocationMaster> getLocations(int size, String after);
     
     /**
      * ロケーションIDでロケーションを取得
@@ -37,20 +45,59 @@ public interface LocationMasterService {
      * Search by warehouse code
      * 
      * @param warehouseCode 倉庫コード
-     * @return ロケーションリスト
-     * @return List of locations
+     * @param size ページサイズ（1〜app.page.max-size）
+     * @param after 前ページのnextCursor（先頭ページの場合nullまたは空）
+     * @return ロケーションページ
+     * @return Page of locations
+     * @throws IllegalArgumentException 倉庫コードが空、ページサイズが範囲外、またはカーソルが不正な場合
      */
-    List<LocationMaster> getLocationsByWarehouseCode(String warehouseCode);
+    PageResponse<LocationMaster> getLocationsByWarehouseCode(String warehouseCode, int size, String after);
     
     /**
      * ゾーンで検索
      * Search by zone
      * 
      * @param zone ゾーン
-     * @return ロケーションリスト
-     * @return List of locations
+     * @param size ページサイズ（1〜app.page.max-size）
+     * @param after 前ページのnextCursor（先頭ページの場合nullまたは空）
+     * @return ロケーションページ
+     * @return Page of locations
+     * @throws IllegalArgumentException ゾーンが空、ページサイズが範囲外、またはカーソルが不正な場合
      */
-    List<LocationMaster> getLocationsByZone(String zone);
+    PageResponse<LocationMaster> getLocationsByZone(String zone, int size, String after);
+    
+    /**
+     * ロケーション階層のノードを取得（配下の容量合計・件数と直下ノードの要約）
+     * Get a node of the location hierarchy (capacity total and count below it, with child summaries)
+     * 
+     * 倉庫コード・ゾーン・ラックを上位から順に指定し、未指定の階層で止まる（全て未指定の場合は全倉庫）。
+     * ゾーン・ラックが未設定のロケーションは空文字のキーにまとめられる。
+     * Warehouse code, zone and rack are given top-down and the path stops at the first one omitted
+     * (all omitted gives every warehouse). Locations without a zone or rack are grouped under an empty key.
+     * 
+     * @param warehouseCode 倉庫コード
+     * @param zone ゾーン
+     * @param rack ラック
+     * @return ノード（存在しない場合null）
+     * @return Node, or null if there is none at the path
+     * @throws IllegalArgumentException 上位の階層を指定せずに下位を指定した場合
+     * @throws IllegalStateException 階層索引が構築中の場合
+     */
+    LocationNode getLocationNode(String warehouseCode, String zone, String rack);
+    
+    /**
+     * ラック配下のロケーションを階層順（レベル→ポジション→ロケーションID）に取得
+     * Get the locations in a rack in hierarchy order (level, position, location ID)
+     * 
+     * @param warehouseCode 倉庫コード
+     * @param zone ゾーン（未設定のゾーンは空文字）
+     * @param rack ラック（未設定のラックは空文字）
+     * @return ロケーションリスト（ラックが存在しない場合は空）
+     * @return List of locations, empty if there is no such rack
+     * @throws IllegalArgumentException 倉庫コード・ゾーン・ラックのいずれかを指定しない場合
+     * @throws IllegalStateException 階層索引が構築中の場合
+     */
+    List<LocationMaster> getLocationsInRack(String warehouseCode, String zone, String rack);
     
     /**
      * ロケーションを新規登録
@@ -91,4 +138,22 @@ public interface LocationMasterService {
      * @return true if exists
      */
     boolean existsLocation(String locationId);
+    
+    /**
+     * 全ロケーションを1件ずつ処理（全件をメモリに保持しない）
+     * Process all locations one at a time (without holding them all in memory)
+     * 
+     * @param consumer 各ロケーションを受け取る処理
+     */
+    void exportLocations(Consumer<LocationMaster> consumer);
+    
+    /**
+     * CSVからロケーションを一括登録（ストリーミング処理、チャンク単位でコミット）
+     * Bulk import locations from CSV (streamed, committed per chunk)
+     * 
+     * @param csv CSV入力（ヘッダー行必須）
+     * @return 取込結果
+     * @return Import result
+     */
+    ImportResult importLocations(InputStream csv);
 }
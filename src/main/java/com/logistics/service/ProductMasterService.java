@@ -1,10 +1,12 @@
 package com.logistics.service;
 
+import com.logistics.controller.dto.BatchUpsertResponse;
 import com.logistics.controller.dto.PageRequest;
 import com.logistics.controller.dto.PageResponse;
 import com.logistics.entity.ProductMaster;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * 商品マスタサービスインターフェース
@@ -16,17 +18,8 @@ import java.util.List;
 public interface ProductMasterService {
     
     /**
-     * 全商品を取得
-     * Get all products
-     * 
-     * @return 商品リスト
-     * @return List of products
-     */
-    List<ProductMaster> getAllProducts();
-    
-    /**
-     * 分页获取商品列表
-     * Get products with pagination
+     * 分页获取商品列表（after指定時はキーセットページング）
+     * Get products with pagination (keyset pagination when after is given)
      * 
      * @param pageRequest 分页请求
      * @return 分页商品列表
@@ -48,11 +41,17 @@ public interface ProductMasterService {
      * 商品名で検索
      * Search by product name
      * 
-     * @param productName 商品名
-     * @return 商品リスト
-     * @return List of products
+     * 一覧のキーワード検索（keyword + after）と同じ条件で、商品名または商品IDに一致する商品を新しい順に返す
+     * Same matching as the list's keyword search (keyword + after): name or ID contains the text, newest first
+     * 
+     * @param productName 商品名（空の場合は全商品）
+     * @param size ページサイズ（1〜app.page.max-size）
+     * @param after 前ページのnextCursor（先頭ページの場合nullまたは空）
+     * @return 商品ページ
+     * @return Page of products
+     * @throws IllegalArgumentException ページサイズが範囲外、またはカーソルが不正な場合
      */
-    List<ProductMaster> searchProductsByName(String productName);
+    PageResponse<ProductMaster> searchProductsByName(String productName, int size, String after);
     
     /**
      * 商品を新規登録
@@ -64,6 +63,16 @@ public interface ProductMasterService {
      */
     ProductMaster createProduct(ProductMaster product);
     
+    /**
+     * 商品を一括で登録または更新
+     * Create or update products in bulk
+     * 
+     * @param products 商品情報リスト
+     * @return 行単位の処理結果
+     * @return Per-row results
+     */
+    BatchUpsertResponse upsertProducts(List<ProductMaster> products);
+    
     /**
      * 商品情報を更新
      * Update product information
@@ -93,4 +102,12 @@ public interface ProductMasterService {
      * @return true if exists
      */
     boolean existsProduct(String productId);
+    
+    /**
+     * 全商品を1件ずつ処理（全件をメモリに保持しない）
+     * Process all products one at a time (without holding them all in memory)
+     * 
+     * @param consumer 各商品を受け取る処理
+     */
+    void exportProducts(Consumer<ProductMaster> consumer);
 }
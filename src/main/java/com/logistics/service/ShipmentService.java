@@ -0,0 +1,28 @@
+package com.logistics.service;
+
+import com.logistics.controller.dto.WaveAllocationResult;
+
+/**
+ * 出荷サービスインターフェース
+ * Shipment Service Interface
+ * 
+ * 出荷行への在庫引当を定義
+ * Defines stock allocation for shipment lines
+ */
+public interface ShipmentService {
+    
+    /**
+     * 未引当（PENDING）の出荷行をすべて1ウェーブとして引き当てる
+     * Allocate every PENDING shipment line as one wave
+     * 
+     * 在庫は商品ごとにロケーションの最終更新日時の古い順（FIFO）に引き当て、結果はまとめてDBに反映する。
+     * 在庫が足りない行は有る分だけ引き当ててPENDINGのまま残す。
+     * Stock is taken per product from locations oldest LAST_UPDATED first (FIFO) and the results are written in batches.
+     * Lines that cannot be covered in full get what is there and stay PENDING.
+     * 
+     * @return 引当結果（件数と処理速度）
+     * @return Allocation result (counts and throughput)
+     * @throws IllegalStateException 在庫台帳の読み込み中、または別のウェーブを実行中の場合
+     */
+    WaveAllocationResult allocatePending();
+}
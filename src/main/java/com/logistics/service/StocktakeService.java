@@ -0,0 +1,53 @@
+package com.logistics.service;
+
+import com.logistics.controller.dto.StocktakeCompletion;
+import com.logistics.controller.dto.StocktakeCountResult;
+
+import java.io.InputStream;
+
+/**
+ * 棚卸サービスインターフェース
+ * Stocktake Service Interface
+ * 
+ * 実棚数の取込（差異計算）と棚卸の完了（在庫調整）を定義
+ * Defines count uploads (difference calculation) and stocktake completion (stock adjustment)
+ */
+public interface StocktakeService {
+    
+    /**
+     * 実棚数をCSVから取り込み、在庫スナップショットとの差異を棚卸明細として登録
+     * Upload counted quantities from CSV and record their differences from an inventory snapshot as stocktake lines
+     * 
+     * 取込開始時の在庫を1回のクエリで読み込み、CSVは1行ずつロケーション範囲ごとのワーカーに振り分けて並列に登録する。
+     * 同じ棚卸で同じ棚番を数え直した場合は明細を上書きする。数えていない棚番の明細は作らない。
+     * Stock is read with a single query when the upload starts; CSV rows are streamed one by one to per location range
+     * workers that record them in parallel. A recount of the same bin in the same stocktake overwrites its line.
+     * Bins that were not counted get no line.
+     * 
+     * @param stocktakeNo 棚卸番号
+     * @param csv CSV入力（ヘッダー：productId, locationId, countedQty, reason）
+     * @return 取込結果（行単位のエラーを含む）
+     * @return Upload result including per-row errors
+     * @throws IllegalArgumentException 棚卸番号・ヘッダーが不正、または完了済みの棚卸の場合
+     * @throws IllegalStateException 在庫台帳の読み込み中、または別の棚卸処理を実行中の場合
+     */
+    StocktakeCountResult recordCounts(String stocktakeNo, InputStream csv);
+    
+    /**
+     * 棚卸を完了し、未完了の明細の差異を在庫に反映する
+     * Complete a stocktake and apply the differences of its pending lines to stock
+     * 
+     * 差異はスナップショット後の入出庫を残すよう現在の在庫への増減として反映し、チャンクごとに明細の完了と同じトランザクションで書き込む。
+     * 在庫が0未満になる明細は未完了のまま残す（再実行で残りのみ処理する）。
+     * Differences are applied as changes to the current stock, so movements since the snapshot are kept, and are written
+     * chunk by chunk in the same transaction that completes the lines. Lines that would take stock below zero stay
+     * pending (running it again only processes what is left).
+     * 
+     * @param stocktakeNo 棚卸番号
+     * @return 完了結果
+     * @return Completion result
+     * @throws IllegalArgumentException 棚卸が存在しない、または完了済みの場合
+     * @throws IllegalStateException 在庫台帳の読み込み中、または別の棚卸処理を実行中の場合
+     */
+    StocktakeCompletion completeStocktake(String stocktakeNo);
+}
@@ -0,0 +1,380 @@
+package com.logistics.service.audit;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.logistics.entity.OperationLog;
+import com.logistics.mapper.OperationLogMapper;
+import com.logistics.service.support.BatchSqlSession;
+import com.logistics.service.support.IdAllocator;
+import com.logistics.service.support.IdAllocator.Sequence;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 監査証跡（OPERATION_LOGへの非同期一括書き込み）
+ * Audit Trail (asynchronous batched writes to OPERATION_LOG)
+ * 
+ * 変更は呼び出し元で固定長のリングバッファに積むだけで、JSON化と登録は専用スレッドがまとめて行う。
+ * バッファが満杯の場合は呼び出し元を最大app.audit.offer-timeout-msだけ待たせ（背圧）、それでも空かなければ破棄して件数を数える。
+ * 終了時は残りを書き込んでから停止する。
+ * Callers only put the change into a fixed-size ring buffer; a dedicated thread serializes and inserts in batches.
+ * When the buffer is full the caller waits at most app.audit.offer-timeout-ms (backpressure); if it is still full
+ * the entry is dropped and counted. On shutdown the remaining entries are written before the writer stops.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class AuditTrail {
+    
+    /**
+     * 更新の差分から除く項目（UPDATE文で変更されず、更新リクエストには通常含まれない）
+     * Fields left out of update diffs (never changed by UPDATE and usually absent from update requests)
+     */
+    private static final Set<String> IGNORED_FIELDS = Set.of("createdAt");
+    
+    private static final TypeReference<Map<String, Object>> MAP_TYPE = new TypeReference<>() {
+    };
+    
+    /**
+     * 一時的な書き込み失敗時の試行回数と間隔
+     * Attempts and delay for transient write failures
+     */
+    private static final int MAX_ATTEMPTS = 3;
+    
+    private static final long RETRY_DELAY_MS = 1000;
+    
+    /**
+     * 書き込みスレッドがバッファの待ちを抜けて停止要求を確認する間隔
+     * How often the writer stops waiting on the buffer to check for shutdown
+     */
+    private static final long POLL_MS = 200;
+    
+    private static final int IP_ADDRESS_LENGTH = 20;
+    
+    private final BatchSqlSession batchSqlSession;
+    
+    private final OperationLogMapper operationLogMapper;
+    
+    private final TransactionTemplate transactionTemplate;
+    
+    private final ObjectMapper objectMapper;
+    
+    private final IdAllocator idAllocator;
+    
+    @Value("${app.audit.enabled:true}")
+    private boolean enabled;
+    
+    /**
+     * リングバッファの容量
+     * Ring buffer capacity
+     */
+    @Value("${app.audit.buffer-size:10000}")
+    private int bufferSize;
+    
+    /**
+     * 1回の書き込みの最大件数
+     * Maximum entries per batch insert
+     */
+    @Value("${app.audit.batch-size:500}")
+    private int batchSize;
+    
+    /**
+     * バッファ満杯時に呼び出し元を待たせる上限
+     * How long a caller may wait when the buffer is full
+     */
+    @Value("${app.audit.offer-timeout-ms:10}")
+    private long offerTimeoutMs;
+    
+    /**
+     * 終了時に残りの書き込みを待つ上限
+     * How long shutdown waits for the remaining entries to be written
+     */
+    @Value("${app.audit.shutdown-timeout-ms:10000}")
+    private long shutdownTimeoutMs;
+    
+    private final AtomicLong recorded = new AtomicLong();
+    
+    private final AtomicLong dropped = new AtomicLong();
+    
+    private final AtomicLong written = new AtomicLong();
+    
+    private final AtomicLong writeFailures = new AtomicLong();
+    
+    private BlockingQueue<Entry> buffer;
+    
+    private Thread writer;
+    
+    private volatile boolean running;
+    
+    /**
+     * バッファ上の変更（JSON化前、時刻と接続元は記録時に取得）
+     * Buffered change (not yet serialized; time and source address taken when recorded)
+     */
+    private record Entry(String tableName, String operationType, String recordId,
+                         Object before, Object after, LocalDateTime time, String ipAddress) {
+    }
+    
+    /**
+     * 書き込みスレッドを開始
+     * Start the writer thread
+     */
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            log.info("Audit trail is disabled");
+            return;
+        }
+        buffer = new ArrayBlockingQueue<>(bufferSize);
+        running = true;
+        writer = new Thread(this::drainLoop, "audit-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+    
+    /**
+     * 変更を記録（バッファに積むのみ、書き込みは非同期）
+     * Record a change (only buffered here; written asynchronously)
+     * 
+     * @param tableName 対象テーブル名
+     * @param operationType 操作種別
+     * @param recordId 対象レコードID
+     * @param before 変更前（エンティティまたはMap、登録時はnull）
+     * @param after 変更後（エンティティまたはMap、削除時はnull）
+     */
+    public void record(String tableName, String operationType, String recordId, Object before, Object after) {
+        if (!enabled) {
+            return;
+        }
+        Entry entry = new Entry(tableName, operationType, recordId, before, after, LocalDateTime.now(), remoteAddress());
+        recorded.incrementAndGet();
+        try {
+            if (!running || !buffer.offer(entry, offerTimeoutMs, TimeUnit.MILLISECONDS)) {
+                drop(entry);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            drop(entry);
+        }
+    }
+    
+    private void drop(Entry entry) {
+        // 件数のみ数え、ログは間引く（満杯時に1件ずつ出力するとログが溢れるため）
+        if (dropped.incrementAndGet() % 1000 == 1) {
+            log.warn("Audit buffer full, dropping entries ({} dropped so far, latest {} {} {})",
+                    dropped.get(), entry.tableName(), entry.operationType(), entry.recordId());
+        }
+    }
+    
+    /**
+     * バッファから取り出してまとめて書き込む（停止要求後はバッファが空になるまで続ける）
+     * Take entries off the buffer and write them in batches (after a stop request, until the buffer is empty)
+     */
+    private void drainLoop() {
+        List<Entry> batch = new ArrayList<>(batchSize);
+        while (running || !buffer.isEmpty()) {
+            try {
+                Entry first = buffer.poll(POLL_MS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                buffer.drainTo(batch, batchSize - 1);
+                write(batch);
+            } catch (InterruptedException e) {
+                running = false;
+            } catch (RuntimeException e) {
+                log.error("Audit writer failed, {} entries lost", batch.size(), e);
+                dropped.addAndGet(batch.size());
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+    
+    private void write(List<Entry> batch) throws InterruptedException {
+        List<OperationLog> logs = new ArrayList<>(batch.size());
+        for (Entry entry : batch) {
+            try {
+                logs.add(toLog(entry));
+            } catch (JsonProcessingException | IllegalArgumentException e) {
+                dropped.incrementAndGet();
+                log.error("Dropping audit entry that cannot be serialized: {} {} {}",
+                        entry.tableName(), entry.operationType(), entry.recordId(), e);
+            }
+        }
+        for (int attempt = 1; !logs.isEmpty(); attempt++) {
+            try {
+                writeBatch(logs);
+                written.addAndGet(logs.size());
+                return;
+            } catch (DataIntegrityViolationException e) {
+                // 制約違反（桁あふれ等）は再試行しても成功しないため、1件ずつ登録して該当分のみ破棄
+                log.warn("Audit batch rejected, retrying {} entries one by one", logs.size(), e);
+                writeOneByOne(logs);
+                return;
+            } catch (RuntimeException e) {
+                writeFailures.incrementAndGet();
+                if (attempt >= MAX_ATTEMPTS || !running) {
+                    dropped.addAndGet(logs.size());
+                    log.error("Failed to write {} audit entries after {} attempts, dropped", logs.size(), attempt, e);
+                    return;
+                }
+                log.warn("Failed to write {} audit entries, retrying", logs.size(), e);
+                Thread.sleep(RETRY_DELAY_MS);
+            }
+        }
+    }
+    
+    private void writeBatch(List<OperationLog> logs) {
+        transactionTemplate.executeWithoutResult(status -> {
+            OperationLogMapper batchMapper = batchSqlSession.getMapper(OperationLogMapper.class);
+            logs.forEach(batchMapper::insert);
+            batchSqlSession.flushStatements();
+        });
+    }
+    
+    private void writeOneByOne(List<OperationLog> logs) {
+        for (OperationLog entry : logs) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> operationLogMapper.insert(entry));
+                written.incrementAndGet();
+            } catch (RuntimeException e) {
+                dropped.incrementAndGet();
+                log.error("Dropping audit entry that cannot be written: {} {} {}",
+                        entry.getTableName(), entry.getOperationType(), entry.getRecordId(), e);
+            }
+        }
+    }
+    
+    /**
+     * 操作ログに変換（更新は変更された項目のみを前後に分けて記録）
+     * Convert to an operation log row (updates keep only the changed fields, split into before and after)
+     */
+    private OperationLog toLog(Entry entry) throws JsonProcessingException {
+        Map<String, Object> before = toMap(entry.before());
+        Map<String, Object> after = toMap(entry.after());
+        if (before != null && after != null) {
+            Map<String, Object> changedBefore = new LinkedHashMap<>();
+            Map<String, Object> changedAfter = new LinkedHashMap<>();
+            Set<String> fields = new LinkedHashSet<>(before.keySet());
+            fields.addAll(after.keySet());
+            for (String field : fields) {
+                if (!IGNORED_FIELDS.contains(field) && !Objects.equals(before.get(field), after.get(field))) {
+                    changedBefore.put(field, before.get(field));
+                    changedAfter.put(field, after.get(field));
+                }
+            }
+            before = changedBefore;
+            after = changedAfter;
+        }
+        return OperationLog.builder()
+                .logId(idAllocator.next(Sequence.LOG_SEQ))
+                .operationType(entry.operationType())
+                .tableName(entry.tableName())
+                .recordId(entry.recordId())
+                .oldValue(before == null ? null : objectMapper.writeValueAsString(before))
+                .newValue(after == null ? null : objectMapper.writeValueAsString(after))
+                .operationTime(entry.time())
+                .ipAddress(entry.ipAddress())
+                .build();
+    }
+    
+    private Map<String, Object> toMap(Object value) {
+        return value == null ? null : objectMapper.convertValue(value, MAP_TYPE);
+    }
+    
+    /**
+     * リクエスト元のIPアドレス（リクエスト外の場合null、列長に合わせて切り詰め）
+     * Client IP address of the current request (null outside a request, truncated to the column length)
+     */
+    private static String remoteAddress() {
+        if (RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes) {
+            String address = attributes.getRequest().getRemoteAddr();
+            return address != null && address.length() > IP_ADDRESS_LENGTH ? address.substring(0, IP_ADDRESS_LENGTH) : address;
+        }
+        return null;
+    }
+    
+    /**
+     * 終了時に残りを書き込んで停止
+     * Write the remaining entries and stop on shutdown
+     */
+    @PreDestroy
+    public void stop() {
+        if (writer == null) {
+            return;
+        }
+        log.info("Flushing audit trail before shutdown ({} pending entries)", buffer.size());
+        running = false;
+        try {
+            writer.join(shutdownTimeoutMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (writer.isAlive()) {
+            log.warn("Audit writer did not finish within {} ms, {} entries not written", shutdownTimeoutMs, buffer.size());
+        }
+    }
+    
+    /**
+     * バッファ上の未書き込み件数
+     * Entries waiting in the buffer
+     */
+    public int getBufferSize() {
+        return buffer == null ? 0 : buffer.size();
+    }
+    
+    /**
+     * 記録要求件数
+     * Entries recorded
+     */
+    public long getRecorded() {
+        return recorded.get();
+    }
+    
+    /**
+     * 破棄件数（バッファ満杯、変換失敗、書き込み失敗）
+     * Entries dropped (buffer full, serialization failure or write failure)
+     */
+    public long getDropped() {
+        return dropped.get();
+    }
+    
+    /**
+     * 書き込み済み件数
+     * Entries written
+     */
+    public long getWritten() {
+        return written.get();
+    }
+    
+    /**
+     * 書き込み失敗回数（再試行を含む）
+     * Failed write attempts (retries included)
+     */
+    public long getWriteFailures() {
+        return writeFailures.get();
+    }
+}
@@ -0,0 +1,33 @@
+package com.logistics.service.audit;
+
+import com.logistics.service.event.MasterDataChangeEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * マスタ変更の監査記録
+ * Master Data Audit Listener
+ * 
+ * コミットされたマスタ変更のみを監査証跡に記録する（ロールバックされた変更は記録しない）
+ * Records only committed master changes in the audit trail (rolled-back changes are never logged)
+ */
+@Component
+@RequiredArgsConstructor
+public class MasterDataAuditListener {
+    
+    private final AuditTrail auditTrail;
+    
+    /**
+     * マスタ変更イベントを記録
+     * Record a master data change event
+     * 
+     * @param event 変更イベント
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onMasterDataChange(MasterDataChangeEvent event) {
+        auditTrail.record(event.getMasterType().name() + "_MASTER", event.getChangeType().name(), event.getId(),
+                event.getPrevious(), event.getEntity());
+    }
+}
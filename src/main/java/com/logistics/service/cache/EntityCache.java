@@ -0,0 +1,178 @@
+package com.logistics.service.cache;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import lombok.Getter;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+/**
+ * エンティティ読み込みキャッシュ
+ * Entity Read-Through Cache
+ * 
+ * IDによる単一行取得の前段に置く上限・有効期限付きのキャッシュ
+ * 存在しないIDも短い有効期限でキャッシュする
+ * Bounded, time-limited cache in front of single-row lookups by ID.
+ * Unknown IDs are cached as well, with a shorter lifetime.
+ * 
+ * 読み込みはロック（synchronized）の外で呼び出し元スレッドが行い、同じIDの同時要求はその完了を待つ。
+ * 仮想スレッドがDB待ちの間キャリアスレッドを占有しないようにするため。
+ * Loads run on the calling thread outside any monitor lock, and concurrent requests for the same ID wait for them,
+ * so a virtual thread waiting on the DB does not pin its carrier thread.
+ * 
+ * @param <V> エンティティ型 / Entity type
+ */
+public class EntityCache<V> {
+    
+    /**
+     * キャッシュ名
+     * Cache name
+     */
+    @Getter
+    private final String name;
+    
+    private final AsyncCache<String, Optional<V>> cache;
+    
+    /**
+     * コンストラクタ
+     * Constructor
+     * 
+     * @param name キャッシュ名
+     * @param maxSize 最大エントリ数
+     * @param ttl 存在するエンティティの有効期間
+     * @param negativeTtl 存在しないIDの有効期間
+     */
+    public EntityCache(String name, long maxSize, Duration ttl, Duration negativeTtl) {
+        this.name = name;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new Expiry<String, Optional<V>>() {
+                    @Override
+                    public long expireAfterCreate(String key, Optional<V> value, long currentTime) {
+                        return (value.isPresent() ? ttl : negativeTtl).toNanos();
+                    }
+                    
+                    @Override
+                    public long expireAfterUpdate(String key, Optional<V> value, long currentTime, long currentDuration) {
+                        return expireAfterCreate(key, value, currentTime);
+                    }
+                    
+                    @Override
+                    public long expireAfterRead(String key, Optional<V> value, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .buildAsync();
+    }
+    
+    /**
+     * キャッシュから取得し、なければローダーで読み込む
+     * Get from the cache, loading through the loader on a miss
+     * 
+     * @param id ID
+     * @param loader ローダー（存在しない場合null）
+     * @return エンティティ（存在しない場合null）
+     * @return Entity, or null if it does not exist
+     */
+    public V get(String id, Function<String, V> loader) {
+        // マッピング関数は未完了のFutureを返すだけにし、読み込み自体はキャッシュのロック外で行う
+        CompletableFuture<Optional<V>> loading = new CompletableFuture<>();
+        CompletableFuture<Optional<V>> value = cache.get(id, (key, executor) -> loading);
+        if (value == loading) {
+            try {
+                loading.complete(Optional.ofNullable(loader.apply(id)));
+            } catch (RuntimeException | Error e) {
+                // 失敗したFutureはキャッシュから自動的に除かれる（待っている他のスレッドにも同じ例外を伝える）
+                loading.completeExceptionally(e);
+                throw e;
+            }
+        }
+        try {
+            return value.join().orElse(null);
+        } catch (CompletionException e) {
+            // 他のスレッドの読み込みの失敗：CompletionExceptionで包まず、ローダーが投げた例外のまま伝える
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+    
+    /**
+     * キャッシュ済みの場合のみ取得
+     * Get only if already cached
+     * 
+     * @param id ID
+     * @return エンティティ（未キャッシュまたは存在しない場合null）
+     * @return Entity, or null if not cached or unknown
+     */
+    public V getIfPresent(String id) {
+        CompletableFuture<Optional<V>> value = cache.getIfPresent(id);
+        if (value == null || !value.isDone() || value.isCompletedExceptionally()) {
+            return null;
+        }
+        return value.join().orElse(null);
+    }
+    
+    /**
+     * エントリを無効化
+     * Invalidate an entry
+     * 
+     * @param id ID
+     */
+    public void invalidate(String id) {
+        cache.synchronous().invalidate(id);
+    }
+    
+    /**
+     * 全エントリを無効化
+     * Invalidate all entries
+     */
+    public void invalidateAll() {
+        cache.synchronous().invalidateAll();
+    }
+    
+    /**
+     * ヒット／ミス等の統計
+     * Hit/miss statistics
+     * 
+     * @return 統計
+     * @return Statistics
+     */
+    public CacheStats stats() {
+        return cache.synchronous().stats();
+    }
+    
+    /**
+     * 現在のエントリ数（概算）
+     * Current number of entries (estimate)
+     * 
+     * @return エントリ数
+     * @return Number of entries
+     */
+    public long size() {
+        return cache.synchronous().estimatedSize();
+    }
+    
+    /**
+     * 基盤となるCaffeineキャッシュ（メトリクス連携用）
+     * Underlying Caffeine cache (for metrics binding)
+     * 
+     * @return キャッシュ
+     * @return Cache
+     */
+    public Cache<String, Optional<V>> getNativeCache() {
+        return cache.synchronous();
+    }
+}
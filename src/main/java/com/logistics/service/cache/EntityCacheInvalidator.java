@@ -0,0 +1,46 @@
+package com.logistics.service.cache;
+
+import com.logistics.entity.CustomerMaster;
+import com.logistics.entity.LocationMaster;
+import com.logistics.entity.ProductMaster;
+import com.logistics.service.event.MasterDataChangeEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * エンティティキャッシュ無効化リスナー
+ * Entity Cache Invalidator
+ * 
+ * マスタ変更のコミット後に該当エントリを無効化する
+ * Invalidates the affected entry once a master data change has committed
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class EntityCacheInvalidator {
+    
+    private final EntityCache<ProductMaster> productCache;
+    
+    private final EntityCache<CustomerMaster> customerCache;
+    
+    private final EntityCache<LocationMaster> locationCache;
+    
+    /**
+     * マスタ変更イベントを処理
+     * Handle a master data change event
+     * 
+     * @param event 変更イベント
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onMasterDataChange(MasterDataChangeEvent event) {
+        log.debug("Invalidating cache entry: {} {}", event.getMasterType(), event.getId());
+        switch (event.getMasterType()) {
+            case PRODUCT -> productCache.invalidate(event.getId());
+            case CUSTOMER -> customerCache.invalidate(event.getId());
+            case LOCATION -> locationCache.invalidate(event.getId());
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.logistics.service.cache;
+
+import com.logistics.service.event.MasterDataChangeEvent;
+import com.logistics.service.event.MasterDataChangeEvent.MasterType;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * マスタ別のデータバージョン
+ * Per-master Data Versions
+ * 
+ * マスタ変更のコミットごとに増える変更カウンタで、一覧・詳細GETの弱いETagに使う。
+ * 起動時刻を含めるため再起動後の古いETagは一致しない。
+ * カウンタはプロセス内のため、単一インスタンス構成（在庫台帳と同じ前提）でのみ正しい。
+ * A change counter bumped on every committed master change, used as the weak ETag of list and detail GETs.
+ * It includes the startup time, so ETags issued before a restart never match.
+ * The counter is per process, so it is only correct for a single instance (the same assumption as the inventory ledger).
+ */
+@Component
+public class MasterDataVersions {
+    
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    
+    private final Map<MasterType, AtomicLong> versions = new EnumMap<>(MasterType.class);
+    
+    public MasterDataVersions() {
+        for (MasterType type : MasterType.values()) {
+            versions.put(type, new AtomicLong());
+        }
+    }
+    
+    /**
+     * 変更のコミット後にバージョンを進める
+     * Advance the version once a change has committed
+     * 
+     * @param event 変更イベント
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onMasterDataChange(MasterDataChangeEvent event) {
+        versions.get(event.getMasterType()).incrementAndGet();
+    }
+    
+    /**
+     * 現在のバージョンの弱いETag（データ取得より前に取得すること）
+     * Weak ETag of the current version (take it before reading the data)
+     * 
+     * @param type マスタ種別
+     * @return ETag
+     */
+    public String etag(MasterType type) {
+        return "W/\"" + type.name().toLowerCase() + "-" + epoch + "-" + versions.get(type).get() + "\"";
+    }
+}
@@ -0,0 +1,287 @@
+package com.logistics.service.dashboard;
+
+import com.logistics.controller.dto.DashboardSummary;
+import com.logistics.entity.CustomerMaster;
+import com.logistics.entity.LocationMaster;
+import com.logistics.entity.ProductMaster;
+import com.logistics.mapper.CustomerMasterMapper;
+import com.logistics.mapper.LocationMasterMapper;
+import com.logistics.mapper.ProductMasterMapper;
+import com.logistics.service.event.MasterDataChangeEvent;
+import com.logistics.service.event.MasterDataChangeEvent.ChangeType;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * ダッシュボード集計
+ * Dashboard Counters
+ * 
+ * マスタ別の件数と最近登録されたデータをメモリに保持し、ダッシュボードを全件読み込みなしで返す。
+ * 起動時に一度だけDBから初期化し、以降は登録・削除のコミット後に増減する。
+ * Keeps per-master totals and the most recently created rows in memory so the dashboard needs no full-table reads.
+ * Seeded from the DB once at startup, then adjusted as creates and deletes commit.
+ * 
+ * 初期化はBeanの初期化時（Webサーバーの起動前）に行うため、初期化の読み取りと並行してコミットされる変更は無く、
+ * 件数を二重に数えることも数え漏らすこともない。アプリケーションを通さずにDBを直接変更した分は再起動まで反映されない。
+ * Seeding runs while the bean is initialised, before the web server starts, so no change can commit alongside the
+ * seeding reads and nothing is counted twice or missed. Rows changed directly in the DB, outside the application,
+ * are not reflected until the next restart.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class DashboardCounters {
+    
+    private final ProductMasterMapper productMasterMapper;
+    
+    private final CustomerMasterMapper customerMasterMapper;
+    
+    private final LocationMasterMapper locationMasterMapper;
+    
+    private final Executor queryExecutor;
+    
+    /**
+     * 最近のデータの補充の最大試行回数
+     * Most attempts to refill the recent rows
+     */
+    private static final int MAX_REFILL_ATTEMPTS = 3;
+    
+    private final Tally<ProductMaster> products = new Tally<>(ProductMaster::getProductId);
+    
+    private final Tally<CustomerMaster> customers = new Tally<>(CustomerMaster::getCustomerId);
+    
+    private final Tally<LocationMaster> locations = new Tally<>(LocationMaster::getLocationId);
+    
+    /**
+     * マスタ別に保持する最近のデータ件数（要求できる最大件数）
+     * Recent rows kept per master (the most a request can ask for)
+     */
+    @Value("${app.dashboard.recent-size:20}")
+    private int recentSize;
+    
+    private volatile LocalDateTime seededAt;
+    
+    /**
+     * 起動時にDBから件数と最近のデータを読み込む（DBに接続できない場合は未初期化のままとし、概要の取得は失敗する）
+     * Seed the counts and recent rows from the DB at startup
+     * (if the DB is unavailable the counters stay unseeded and summaries fail)
+     */
+    @PostConstruct
+    public void seed() {
+        try {
+            products.reset(productMasterMapper.countAll(), productMasterMapper.findRecent(recentSize));
+            customers.reset(customerMasterMapper.countAll(), customerMasterMapper.findRecent(recentSize));
+            locations.reset(locationMasterMapper.countAll(), locationMasterMapper.findRecent(recentSize));
+            seededAt = LocalDateTime.now();
+            log.info("Dashboard counters seeded: {} products, {} customers, {} locations",
+                    products.count(), customers.count(), locations.count());
+        } catch (DataAccessException e) {
+            log.error("Failed to seed dashboard counters, the dashboard summary is unavailable until restart", e);
+        }
+    }
+    
+    /**
+     * マスタ変更イベントを集計に反映
+     * Apply a master data change event to the counters
+     * 
+     * @param event 変更イベント
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onMasterDataChange(MasterDataChangeEvent event) {
+        switch (event.getMasterType()) {
+            case PRODUCT -> apply(products, event, () -> productMasterMapper.findRecent(recentSize));
+            case CUSTOMER -> apply(customers, event, () -> customerMasterMapper.findRecent(recentSize));
+            case LOCATION -> apply(locations, event, () -> locationMasterMapper.findRecent(recentSize));
+        }
+    }
+    
+    @SuppressWarnings("unchecked")
+    private <T> void apply(Tally<T> tally, MasterDataChangeEvent event, Supplier<List<T>> reload) {
+        if (event.getChangeType() == ChangeType.DELETED) {
+            // 最近のデータから外れた分は非同期で補充（読み込み中に他の変更が反映された場合は読み直す）
+            if (tally.deleted(event.getId())) {
+                queryExecutor.execute(() -> {
+                    try {
+                        for (int attempt = 1; attempt <= MAX_REFILL_ATTEMPTS; attempt++) {
+                            long version = tally.version();
+                            if (tally.refill(reload.get(), version)) {
+                                return;
+                            }
+                        }
+                        log.warn("Recent {} rows kept changing, refill skipped", event.getMasterType());
+                    } catch (Exception e) {
+                        log.warn("Failed to refill recent {} rows", event.getMasterType(), e);
+                    }
+                });
+            }
+        } else if (event.getEntity() != null) {
+            if (event.getChangeType() == ChangeType.CREATED) {
+                tally.created((T) event.getEntity(), recentSize);
+            } else {
+                tally.updated((T) event.getEntity());
+            }
+        }
+    }
+    
+    /**
+     * ダッシュボード概要を取得
+     * Get the dashboard summary
+     * 
+     * @param recent マスタ別の最近のデータ件数
+     * @return ダッシュボード概要
+     * @return Dashboard summary
+     * @throws IllegalArgumentException 件数が範囲外の場合
+     * @throws IllegalStateException 初期化が完了していない場合
+     */
+    public DashboardSummary summary(int recent) {
+        if (recent < 0 || recent > recentSize) {
+            throw new IllegalArgumentException("recent must be between 0 and " + recentSize);
+        }
+        if (seededAt == null) {
+            throw new IllegalStateException("Dashboard counters could not be loaded");
+        }
+        return DashboardSummary.builder()
+                .productCount(products.count())
+                .customerCount(customers.count())
+                .locationCount(locations.count())
+                .recentProducts(products.recent(recent))
+                .recentCustomers(customers.recent(recent))
+                .recentLocations(locations.recent(recent))
+                .seededAt(seededAt)
+                .build();
+    }
+    
+    /**
+     * マスタ1種類分の件数と最近のデータ（新しい順）
+     * Count and recent rows (newest first) of one master
+     * 
+     * 更新はロック内で行い、読み取りは不変のスナップショットを参照する
+     * Writers go through the lock; readers use an immutable snapshot
+     */
+    private static final class Tally<T> {
+        
+        private final Function<T, String> idOf;
+        
+        private final ReentrantLock lock = new ReentrantLock();
+        
+        private volatile long count;
+        
+        private volatile List<T> snapshot = List.of();
+        
+        /**
+         * 変更の反映回数（補充の読み込み中に別の変更が反映されたかの判定用）
+         * Number of changes applied (tells a refill whether another change landed while it was reading)
+         */
+        private volatile long version;
+        
+        private Tally(Function<T, String> idOf) {
+            this.idOf = idOf;
+        }
+        
+        private long count() {
+            return count;
+        }
+        
+        private void reset(long total, List<T> rows) {
+            lock.lock();
+            try {
+                count = total;
+                snapshot = List.copyOf(rows);
+            } finally {
+                lock.unlock();
+            }
+        }
+        
+        private long version() {
+            return version;
+        }
+        
+        /**
+         * @param rows 読み込んだ最近のデータ
+         * @param readVersion 読み込み前の変更の反映回数
+         * @return 読み込み中に他の変更が反映されておらず、入れ替えた場合true
+         * @return true if no other change landed during the read and the rows were replaced
+         */
+        private boolean refill(List<T> rows, long readVersion) {
+            lock.lock();
+            try {
+                if (version != readVersion) {
+                    return false;
+                }
+                snapshot = List.copyOf(rows);
+                return true;
+            } finally {
+                lock.unlock();
+            }
+        }
+        
+        private void created(T entity, int capacity) {
+            String id = idOf.apply(entity);
+            lock.lock();
+            try {
+                count++;
+                version++;
+                List<T> next = new ArrayList<>(capacity);
+                next.add(entity);
+                for (T row : snapshot) {
+                    if (next.size() < capacity && !id.equals(idOf.apply(row))) {
+                        next.add(row);
+                    }
+                }
+                snapshot = List.copyOf(next);
+            } finally {
+                lock.unlock();
+            }
+        }
+        
+        private void updated(T entity) {
+            String id = idOf.apply(entity);
+            lock.lock();
+            try {
+                version++;
+                List<T> next = new ArrayList<>(snapshot);
+                next.replaceAll(row -> id.equals(idOf.apply(row)) ? entity : row);
+                snapshot = List.copyOf(next);
+            } finally {
+                lock.unlock();
+            }
+        }
+        
+        /**
+         * @return 最近のデータから外れた場合true
+         * @return true if the row was among the recent rows
+         */
+        private boolean deleted(String id) {
+            lock.lock();
+            try {
+                count--;
+                version++;
+                List<T> next = new ArrayList<>(snapshot);
+                boolean removed = next.removeIf(row -> id.equals(idOf.apply(row)));
+                snapshot = List.copyOf(next);
+                return removed;
+            } finally {
+                lock.unlock();
+            }
+        }
+        
+        private List<T> recent(int limit) {
+            List<T> rows = snapshot;
+            return rows.size() <= limit ? rows : rows.subList(0, limit);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.logistics.service.event;
+
+import com.logistics.controller.dto.LowStockItem;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * 安全在庫割れ商品の増減イベント
+ * Low Stock Change Event
+ * 
+ * 商品が安全在庫割れの集合に入った、または集合から出たときに発行される（同じ商品のイベントは発生順に発行）
+ * Published when a product enters or leaves the set of products below safety stock
+ * (events for the same product are published in the order they happened)
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class LowStockChangeEvent {
+    
+    /**
+     * 変更種別
+     * Change type
+     */
+    public enum Change {
+        
+        /**
+         * 安全在庫を下回った
+         * Fell below safety stock
+         */
+        ENTERED,
+        
+        /**
+         * 安全在庫以上に戻った（または商品が削除された）
+         * Back at or above safety stock (or the product was deleted)
+         */
+        LEFT
+    }
+    
+    /**
+     * 変更種別
+     * Change type
+     */
+    private final Change change;
+    
+    /**
+     * 対象商品（変更時点の在庫合計）
+     * The product (with its total stock at the time of the change)
+     */
+    private final LowStockItem item;
+}
@@ -0,0 +1,72 @@
+package com.logistics.service.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * マスタデータ変更イベント
+ * Master Data Change Event
+ * 
+ * 商品・顧客・ロケーションの登録／更新／削除時にサービス層から発行される
+ * Published by the service layer when a product, customer or location is created, updated or deleted
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class MasterDataChangeEvent {
+    
+    /**
+     * マスタ種別
+     * Master type
+     */
+    public enum MasterType {
+        PRODUCT, CUSTOMER, LOCATION
+    }
+    
+    /**
+     * 変更種別
+     * Change type
+     */
+    public enum ChangeType {
+        CREATED, UPDATED, DELETED
+    }
+    
+    /**
+     * マスタ種別
+     * Master type
+     */
+    private final MasterType masterType;
+    
+    /**
+     * 変更種別
+     * Change type
+     */
+    private final ChangeType changeType;
+    
+    /**
+     * 対象ID
+     * Target ID
+     */
+    private final String id;
+    
+    /**
+     * 変更後のエンティティ（削除時はnull）
+     * Entity after the change (null when deleted)
+     */
+    private final Object entity;
+    
+    /**
+     * 変更前のエンティティ（登録時、または変更前を取得していない場合はnull）
+     * Entity before the change (null when created, or when the previous state was not read)
+     */
+    private final Object previous;
+    
+    /**
+     * 変更前のエンティティを伴わないイベント
+     * Event without the previous entity
+     */
+    public MasterDataChangeEvent(MasterType masterType, ChangeType changeType, String id, Object entity) {
+        this(masterType, changeType, id, entity, null);
+    }
+}
@@ -1,15 +1,29 @@
 package com.logistics.service.impl;
 
+import com.logistics.controller.dto.PageCursor;
+import com.logistics.controller.dto.PageResponse;
 import com.logistics.entity.CustomerMaster;
 import com.logistics.mapper.CustomerMasterMapper;
 import com.logistics.service.CustomerMasterService;
+import com.logistics.service.cache.EntityCache;
+import com.logistics.service.event.MasterDataChangeEvent;
+import com.logistics.service.event.MasterDataChangeEvent.ChangeType;
+import com.logistics.service.event.MasterDataChangeEvent.MasterType;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.cursor.Cursor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * 顧客マスタサービス実装クラス
@@ -26,31 +40,54 @@ public class CustomerMasterServiceImpl implements CustomerMasterService {
     
     private final CustomerMasterMapper customerMasterMapper;
     
+    private final EntityCache<CustomerMaster> customerCache;
+    
+    private final ApplicationEventPublisher eventPublisher;
+    
+    /**
+     * 1ページの最大件数
+     * Maximum rows per page
+     */
+    @Value("${app.page.max-size:200}")
+    private int maxPageSize;
+    
     @Override
     @Transactional(readOnly = true)
-    public List<CustomerMaster> getAllCustomers() {
-        log.info("Getting all customers");
-        return customerMasterMapper.findAll();
+    public PageResponse<CustomerMaster> getCustomers(int size, String after) {
+        log.info("Getting customers - size: {}, after: {}", size, after);
+        return findPage(null, size, after);
     }
     
     @Override
-    @Transactional(readOnly = true)
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS) // キャッシュヒット時は接続を取得しない
     public CustomerMaster getCustomerById(String customerId) {
         log.info("Getting customer by ID: {}", customerId);
         if (customerId == null || customerId.trim().isEmpty()) {
             throw new IllegalArgumentException("Customer ID cannot be null or empty");
         }
-        return customerMasterMapper.findById(customerId);
+        return customerCache.get(customerId, customerMasterMapper::findById);
     }
     
     @Override
     @Transactional(readOnly = true)
-    public List<CustomerMaster> searchCustomersByName(String customerName) {
-        log.info("Searching customers by name: {}", customerName);
-        if (customerName == null || customerName.trim().isEmpty()) {
-            return getAllCustomers();
+    public PageResponse<CustomerMaster> searchCustomersByName(String customerName, int size, String after) {
+        log.info("Searching customers by name: {}, size: {}, after: {}", customerName, size, after);
+        String name = customerName == null || customerName.trim().isEmpty() ? null : customerName;
+        return findPage(name, size, after);
+    }
+    
+    /**
+     * 登録日時＋顧客IDのキーセットで1ページ分取得
+     * Get one page keyed on created-at + customer ID
+     */
+    private PageResponse<CustomerMaster> findPage(String name, int size, String after) {
+        if (size <= 0 || size > maxPageSize) {
+            throw new IllegalArgumentException("Page size must be between 1 and " + maxPageSize);
         }
-        return customerMasterMapper.findByName(customerName);
+        PageCursor cursor = PageCursor.decode(after, "createdAt", "DESC");
+        List<CustomerMaster> rows = customerMasterMapper.findPage(name, cursor, size);
+        return PageResponse.keyset(rows, size, cursor == null,
+                last -> new PageCursor("createdAt", "DESC", last.getCreatedAt(), last.getCustomerId()));
     }
     
     @Override
@@ -60,20 +97,23 @@ public class CustomerMasterServiceImpl implements CustomerMasterService {
         // バリデーション
         validateCustomer(customer);
         
-        // 顧客IDの重複チェック
-        if (customerMasterMapper.existsById(customer.getCustomerId())) {
-            throw new IllegalArgumentException("Customer with ID " + customer.getCustomerId() + " already exists");
-        }
-        
         // 作成日時を設定
         customer.setCreatedAt(LocalDateTime.now());
         customer.setUpdatedAt(LocalDateTime.now());
         
-        int result = customerMasterMapper.insert(customer);
+        // 主キー制約で重複を検出（事前の存在チェックは行わない）
+        int result;
+        try {
+            result = customerMasterMapper.insert(customer);
+        } catch (DuplicateKeyException e) {
+            throw new IllegalArgumentException("Customer with ID " + customer.getCustomerId() + " already exists");
+        }
         if (result == 0) {
             throw new RuntimeException("Failed to create customer");
         }
         
+        // 変更を通知（キャッシュ等はコミット後に反映）
+        eventPublisher.publishEvent(new MasterDataChangeEvent(MasterType.CUSTOMER, ChangeType.CREATED, customer.getCustomerId(), customer));
         log.info("Customer created successfully: {}", customer.getCustomerId());
         return customer;
     }
@@ -85,19 +125,19 @@ public class CustomerMasterServiceImpl implements CustomerMasterService {
         // バリデーション
         validateCustomer(customer);
         
-        // 顧客の存在チェック
-        if (!customerMasterMapper.existsById(customer.getCustomerId())) {
-            throw new IllegalArgumentException("Customer with ID " + customer.getCustomerId() + " does not exist");
-        }
-        
         // 更新日時を設定
         customer.setUpdatedAt(LocalDateTime.now());
         
-        int result = customerMasterMapper.update(customer);
-        if (result == 0) {
-            throw new RuntimeException("Failed to update customer");
+        // 変更前の状態を行ロックして取得（監査の変更前の値。更新まで他のトランザクションから変更されない）
+        CustomerMaster previous = customerMasterMapper.findByIdForUpdate(customer.getCustomerId());
+        if (previous == null) {
+            throw new IllegalArgumentException("Customer with ID " + customer.getCustomerId() + " does not exist");
         }
+        customer.setCreatedAt(previous.getCreatedAt());
+        customerMasterMapper.update(customer);
         
+        // 変更を通知（キャッシュ等はコミット後に反映）
+        eventPublisher.publishEvent(new MasterDataChangeEvent(MasterType.CUSTOMER, ChangeType.UPDATED, customer.getCustomerId(), customer, previous));
         log.info("Customer updated successfully: {}", customer.getCustomerId());
         return customer;
     }
@@ -110,21 +150,17 @@ public class CustomerMasterServiceImpl implements CustomerMasterService {
             throw new IllegalArgumentException("Customer ID cannot be null or empty");
         }
         
-        // 顧客の存在チェック
-        if (!customerMasterMapper.existsById(customerId)) {
+        // 変更前の状態を行ロックして取得（監査の変更前の値。削除まで他のトランザクションから変更されない）
+        CustomerMaster previous = customerMasterMapper.findByIdForUpdate(customerId);
+        if (previous == null) {
             throw new IllegalArgumentException("Customer with ID " + customerId + " does not exist");
         }
+        customerMasterMapper.deleteById(customerId);
         
-        int result = customerMasterMapper.deleteById(customerId);
-        boolean success = result > 0;
-        
-        if (success) {
-            log.info("Customer deleted successfully: {}", customerId);
-        } else {
-            log.warn("Failed to delete customer: {}", customerId);
-        }
-        
-        return success;
+        // 変更を通知（キャッシュ等はコミット後に反映）
+        eventPublisher.publishEvent(new MasterDataChangeEvent(MasterType.CUSTOMER, ChangeType.DELETED, customerId, null, previous));
+        log.info("Customer deleted successfully: {}", customerId);
+        return true;
     }
     
     @Override
@@ -136,6 +172,17 @@ public class CustomerMasterServiceImpl implements CustomerMasterService {
         return customerMasterMapper.existsById(customerId);
     }
     
+    @Override
+    @Transactional(readOnly = true)
+    public void exportCustomers(Consumer<CustomerMaster> consumer) {
+        log.info("Exporting all customers");
+        try (Cursor<CustomerMaster> cursor = customerMasterMapper.streamAll()) {
+            cursor.forEach(consumer);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
     /**
      * 顧客情報のバリデーション
      * Validate customer information
@@ -0,0 +1,244 @@
+package com.logistics.service.impl;
+
+import com.logistics.controller.dto.AsnReceiptRequest;
+import com.logistics.controller.dto.AsnReceiptResult;
+import com.logistics.entity.IncomingRecord;
+import com.logistics.entity.Inventory;
+import com.logistics.mapper.IncomingRecordMapper;
+import com.logistics.mapper.InventoryMapper;
+import com.logistics.service.IncomingService;
+import com.logistics.service.LocationMasterService;
+import com.logistics.service.audit.AuditTrail;
+import com.logistics.service.inventory.InventoryLedger;
+import com.logistics.service.support.BatchSqlSession;
+import com.logistics.service.support.IdAllocator;
+import com.logistics.service.support.IdAllocator.Sequence;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * 入荷サービス実装クラス
+ * Incoming Service Implementation
+ * 
+ * 在庫の加算は台帳の書き戻しを待たずに入荷明細と同じトランザクションでDBに反映し、コミット後に台帳へ反映済みとして加える。
+ * Stock increments are written in the same transaction as the receipt lines rather than through the ledger's write-behind,
+ * and are added to the ledger as already written once the transaction commits.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class IncomingServiceImpl implements IncomingService {
+    
+    /**
+     * 差異理由の上限（DISCREPANCY_REASONはVARCHAR2(200)でバイト長のため、UTF-8のバイト数で判定）
+     * Discrepancy reason limit in UTF-8 bytes (DISCREPANCY_REASON is VARCHAR2(200) with byte length semantics)
+     */
+    private static final int MAX_REASON_BYTES = 200;
+    
+    private final IncomingRecordMapper incomingRecordMapper;
+    
+    private final BatchSqlSession batchSqlSession;
+    
+    private final TransactionTemplate transactionTemplate;
+    
+    private final InventoryLedger inventoryLedger;
+    
+    private final IdAllocator idAllocator;
+    
+    private final LocationMasterService locationMasterService;
+    
+    private final AuditTrail auditTrail;
+    
+    @Override
+    public List<IncomingRecord> getAsnLines(String asnNo) {
+        requireAsnNo(asnNo);
+        return incomingRecordMapper.findByAsnNo(asnNo);
+    }
+    
+    @Override
+    public AsnReceiptResult receiveAsn(String asnNo, AsnReceiptRequest request) {
+        requireAsnNo(asnNo);
+        if (request == null) {
+            throw new IllegalArgumentException("Receipt cannot be null");
+        }
+        if (!inventoryLedger.isLoaded()) {
+            throw new IllegalStateException("Inventory ledger is still loading");
+        }
+        long start = System.nanoTime();
+        
+        List<IncomingRecord> records = incomingRecordMapper.findByAsnNo(asnNo);
+        if (records.isEmpty()) {
+            throw new IllegalArgumentException("ASN " + asnNo + " does not exist");
+        }
+        List<Receipt> receipts = toReceipts(asnNo, records, request);
+        requireLocations(receipts);
+        List<Inventory> increments = toIncrements(receipts);
+        
+        LocalDateTime now = LocalDateTime.now();
+        transactionTemplate.executeWithoutResult(status -> {
+            IncomingRecordMapper batchIncoming = batchSqlSession.getMapper(IncomingRecordMapper.class);
+            for (Receipt receipt : receipts) {
+                batchIncoming.receive(receipt.record().getRecordId(), receipt.actualQty(), receipt.discrepancyReason(), now);
+            }
+            int[] updated = batchSqlSession.flushUpdateCounts();
+            for (int i = 0; i < updated.length; i++) {
+                if (updated[i] == 0) {
+                    throw new IllegalArgumentException("Line " + receipts.get(i).record().getRecordId()
+                            + " of ASN " + asnNo + " has already been received");
+                }
+            }
+            
+            InventoryMapper batchInventory = batchSqlSession.getMapper(InventoryMapper.class);
+            for (Inventory increment : increments) {
+                increment.setLastUpdated(now);
+                batchInventory.mergeDelta(increment);
+            }
+            batchSqlSession.flushStatements();
+        });
+        
+        for (Inventory increment : increments) {
+            inventoryLedger.applyWritten(increment.getProductId(), increment.getLocationId(),
+                    increment.getQuantity(), increment.getInventoryId());
+        }
+        
+        long receivedQty = receipts.stream().mapToLong(Receipt::actualQty).sum();
+        int discrepancies = (int) receipts.stream()
+                .filter(receipt -> !Objects.equals(receipt.record().getPlanQty(), receipt.actualQty()))
+                .count();
+        auditTrail.record("INCOMING_RECORD", "RECEIVED", asnNo,
+                Map.of("status", "PLANNED", "lines", receipts.size()),
+                Map.of("status", "RECEIVED", "lines", receipts.size(), "quantity", receivedQty, "discrepancies", discrepancies));
+        
+        AsnReceiptResult result = AsnReceiptResult.builder()
+                .asnNo(asnNo)
+                .receivedLines(receipts.size())
+                .discrepancyLines(discrepancies)
+                .receivedQty(receivedQty)
+                .inventoryRows(increments.size())
+                .elapsedMs((System.nanoTime() - start) / 1_000_000)
+                .build();
+        log.info("ASN {} received: {} lines, {} units into {} stock cells ({} discrepancies) in {} ms",
+                asnNo, result.getReceivedLines(), receivedQty, increments.size(), discrepancies, result.getElapsedMs());
+        return result;
+    }
+    
+    /**
+     * PLANNED明細ごとに実績数量・差異理由・入荷先を決める
+     * Work out the actual quantity, discrepancy reason and location of every PLANNED line
+     */
+    private List<Receipt> toReceipts(String asnNo, List<IncomingRecord> records, AsnReceiptRequest request) {
+        Map<Long, IncomingRecord> byId = new HashMap<>();
+        records.forEach(record -> byId.put(record.getRecordId(), record));
+        
+        Map<Long, AsnReceiptRequest.Line> overrides = new HashMap<>();
+        if (request.getLines() != null) {
+            for (AsnReceiptRequest.Line line : request.getLines()) {
+                if (line == null || line.getRecordId() == null) {
+                    throw new IllegalArgumentException("Record ID is required for every receipt line");
+                }
+                IncomingRecord record = byId.get(line.getRecordId());
+                if (record == null) {
+                    throw new IllegalArgumentException("Line " + line.getRecordId() + " does not belong to ASN " + asnNo);
+                }
+                if (!"PLANNED".equals(record.getStatus())) {
+                    throw new IllegalArgumentException("Line " + line.getRecordId() + " of ASN " + asnNo + " has already been received");
+                }
+                if (overrides.put(line.getRecordId(), line) != null) {
+                    throw new IllegalArgumentException("Line " + line.getRecordId() + " is listed more than once");
+                }
+            }
+        }
+        
+        List<Receipt> receipts = new ArrayList<>();
+        for (IncomingRecord record : records) {
+            if (!"PLANNED".equals(record.getStatus())) {
+                continue;
+            }
+            AsnReceiptRequest.Line line = overrides.get(record.getRecordId());
+            Long actualQty = line != null && line.getActualQty() != null ? line.getActualQty() : record.getPlanQty();
+            if (actualQty == null || actualQty < 0) {
+                throw new IllegalArgumentException("A non-negative actual quantity is required for line " + record.getRecordId());
+            }
+            String reason = line == null || line.getDiscrepancyReason() == null || line.getDiscrepancyReason().trim().isEmpty()
+                    ? null : line.getDiscrepancyReason().trim();
+            if (reason == null && !actualQty.equals(record.getPlanQty())) {
+                throw new IllegalArgumentException("Discrepancy reason is required for line " + record.getRecordId()
+                        + " (planned " + record.getPlanQty() + ", actual " + actualQty + ")");
+            }
+            if (reason != null && reason.getBytes(StandardCharsets.UTF_8).length > MAX_REASON_BYTES) {
+                throw new IllegalArgumentException("Discrepancy reason of line " + record.getRecordId()
+                        + " cannot exceed " + MAX_REASON_BYTES + " bytes");
+            }
+            String locationId = line != null && line.getLocationId() != null ? line.getLocationId() : request.getLocationId();
+            if (locationId == null || locationId.trim().isEmpty()) {
+                throw new IllegalArgumentException("Location ID is required for line " + record.getRecordId());
+            }
+            receipts.add(new Receipt(record, actualQty, reason, locationId));
+        }
+        if (receipts.isEmpty()) {
+            throw new IllegalArgumentException("ASN " + asnNo + " has already been received");
+        }
+        return receipts;
+    }
+    
+    private void requireLocations(List<Receipt> receipts) {
+        Set<String> checked = new HashSet<>();
+        for (Receipt receipt : receipts) {
+            if (checked.add(receipt.locationId()) && locationMasterService.getLocationById(receipt.locationId()) == null) {
+                throw new IllegalArgumentException("Location with ID " + receipt.locationId() + " does not exist");
+            }
+        }
+    }
+    
+    /**
+     * 商品×ロケーションごとに入荷数量を合計（0のものは除く）し、行が無い場合に登録する在庫IDを割り当てる
+     * Sum the received quantities per product and location (dropping zeros) and assign the inventory ID
+     * to insert with where there is no row yet
+     */
+    private List<Inventory> toIncrements(List<Receipt> receipts) {
+        Map<List<String>, Inventory> byCell = new LinkedHashMap<>();
+        for (Receipt receipt : receipts) {
+            if (receipt.actualQty() == 0) {
+                continue;
+            }
+            String productId = receipt.record().getProductId();
+            Inventory increment = byCell.computeIfAbsent(List.of(productId, receipt.locationId()), key -> Inventory.builder()
+                    .productId(productId)
+                    .locationId(receipt.locationId())
+                    .quantity(0L)
+                    .build());
+            increment.setQuantity(increment.getQuantity() + receipt.actualQty());
+        }
+        for (Inventory increment : byCell.values()) {
+            increment.setInventoryId(inventoryLedger.inventoryIdFor(increment.getProductId(), increment.getLocationId(),
+                    () -> idAllocator.next(Sequence.INVENTORY_SEQ)));
+        }
+        return new ArrayList<>(byCell.values());
+    }
+    
+    private static void requireAsnNo(String asnNo) {
+        if (asnNo == null || asnNo.trim().isEmpty()) {
+            throw new IllegalArgumentException("ASN number cannot be null or empty");
+        }
+    }
+    
+    /**
+     * 入荷する明細（実績数量、差異理由、入荷先）
+     * Line to receive (actual quantity, discrepancy reason and location)
+     */
+    private record Receipt(IncomingRecord record, long actualQty, String discrepancyReason, String locationId) {
+    }
+}
@@ -0,0 +1,132 @@
+package com.logistics.service.impl;
+
+import com.logistics.controller.dto.InventoryStats;
+import com.logistics.entity.Inventory;
+import com.logistics.service.InventoryService;
+import com.logistics.service.LocationMasterService;
+import com.logistics.service.ProductMasterService;
+import com.logistics.service.audit.AuditTrail;
+import com.logistics.service.inventory.InventoryLedger;
+import com.logistics.service.inventory.InventoryWriteBehind;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 在庫サービス実装クラス
+ * Inventory Service Implementation
+ * 
+ * 照会・増減はインメモリ台帳のみで処理し、DBトランザクションは使用しない（反映はInventoryWriteBehind）
+ * Queries and adjustments are served by the in-memory ledger without DB transactions
+ * (InventoryWriteBehind writes them back)
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class InventoryServiceImpl implements InventoryService {
+    
+    private final InventoryLedger inventoryLedger;
+    
+    private final InventoryWriteBehind inventoryWriteBehind;
+    
+    private final ProductMasterService productMasterService;
+    
+    private final LocationMasterService locationMasterService;
+    
+    private final AuditTrail auditTrail;
+    
+    @Override
+    public Inventory getStock(String productId, String locationId) {
+        requireId(productId, "Product ID");
+        requireId(locationId, "Location ID");
+        requireLoaded();
+        Inventory stock = inventoryLedger.get(productId, locationId);
+        if (stock == null) {
+            return Inventory.builder().productId(productId).locationId(locationId).quantity(0L).build();
+        }
+        return stock;
+    }
+    
+    @Override
+    public List<Inventory> getStockByProduct(String productId) {
+        requireId(productId, "Product ID");
+        requireLoaded();
+        return inventoryLedger.getByProduct(productId);
+    }
+    
+    @Override
+    public long getTotalStock(String productId) {
+        long total = 0;
+        for (Inventory stock : getStockByProduct(productId)) {
+            total += stock.getQuantity();
+        }
+        return total;
+    }
+    
+    @Override
+    public Inventory adjustStock(String productId, String locationId, long delta) {
+        requireId(productId, "Product ID");
+        requireId(locationId, "Location ID");
+        if (delta == 0) {
+            throw new IllegalArgumentException("Quantity change cannot be zero");
+        }
+        requireLoaded();
+        
+        // 新しい組み合わせはマスタの存在を確認（外部キー違反で書き戻しが失敗しないように）
+        if (inventoryLedger.get(productId, locationId) == null) {
+            if (productMasterService.getProductById(productId) == null) {
+                throw new IllegalArgumentException("Product with ID " + productId + " does not exist");
+            }
+            if (locationMasterService.getLocationById(locationId) == null) {
+                throw new IllegalArgumentException("Location with ID " + locationId + " does not exist");
+            }
+        }
+        
+        Inventory stock = inventoryLedger.apply(productId, locationId, delta);
+        log.debug("Stock adjusted: {} @ {} {} -> {}", productId, locationId, delta, stock.getQuantity());
+        auditTrail.record("INVENTORY", "ADJUSTED", productId + "/" + locationId,
+                Map.of("quantity", stock.getQuantity() - delta), Map.of("quantity", stock.getQuantity()));
+        return stock;
+    }
+    
+    @Override
+    public InventoryStats getLedgerStats() {
+        long operations = inventoryLedger.operations();
+        long casRetries = inventoryLedger.casRetries();
+        return InventoryStats.builder()
+                .loaded(inventoryLedger.isLoaded())
+                .cells(inventoryLedger.size())
+                .dirtyCells(inventoryLedger.dirtyCount())
+                .operations(operations)
+                .casRetries(casRetries)
+                .contentionRate(operations == 0 ? 0 : (double) casRetries / operations)
+                .flushLagMs(inventoryWriteBehind.getFlushLagMs())
+                .flushes(inventoryWriteBehind.getFlushes())
+                .flushFailures(inventoryWriteBehind.getFlushFailures())
+                .droppedDeltas(inventoryWriteBehind.getDroppedDeltas())
+                .inDoubtBatches(inventoryWriteBehind.getInDoubtBatches())
+                .journalFailures(inventoryWriteBehind.getJournalFailures())
+                .lastFlushRows(inventoryWriteBehind.getLastFlushRows())
+                .lastFlushMs(inventoryWriteBehind.getLastFlushMs())
+                .build();
+    }
+    
+    private void requireId(String id, String name) {
+        if (id == null || id.trim().isEmpty()) {
+            throw new IllegalArgumentException(name + " cannot be null or empty");
+        }
+    }
+    
+    /**
+     * 台帳の読み込み完了を確認（読み込み中はDBに問い合わせず拒否）
+     * Ensure the ledger is loaded (rejected rather than querying the DB while loading)
+     */
+    private void requireLoaded() {
+        if (!inventoryLedger.isLoaded()) {
+            throw new IllegalStateException("Inventory ledger is still loading");
+        }
+    }
+}
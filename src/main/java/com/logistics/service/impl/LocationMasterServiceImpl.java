@@ -1,15 +1,44 @@
 package com.logistics.service.impl;
 
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import com.logistics.controller.dto.BatchRowResult;
+import com.logistics.controller.dto.ImportResult;
+import com.logistics.controller.dto.LocationNode;
+import com.logistics.controller.dto.PageCursor;
+import com.logistics.controller.dto.PageResponse;
 import com.logistics.entity.LocationMaster;
 import com.logistics.mapper.LocationMasterMapper;
 import com.logistics.service.LocationMasterService;
+import com.logistics.service.cache.EntityCache;
+import com.logistics.service.event.MasterDataChangeEvent;
+import com.logistics.service.event.MasterDataChangeEvent.ChangeType;
+import com.logistics.service.event.MasterDataChangeEvent.MasterType;
+import com.logistics.service.location.LocationTree;
+import com.logistics.service.support.BatchSqlSession;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.cursor.Cursor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import java.util.function.Consumer;
 
 /**
  * ロケーションマスタサービス実装クラス
@@ -24,43 +53,126 @@ import java.util.List;
 @Transactional
 public class LocationMasterServiceImpl implements LocationMasterService {
     
+    private static final CsvMapper CSV_MAPPER = new CsvMapper();
+    
     private final LocationMasterMapper locationMasterMapper;
     
+    private final EntityCache<LocationMaster> locationCache;
+    
+    private final ApplicationEventPublisher eventPublisher;
+    
+    private final BatchSqlSession batchSqlSession;
+    
+    private final TransactionTemplate transactionTemplate;
+    
+    private final LocationTree locationTree;
+    
+    /**
+     * CSV取込のチャンクサイズ（1チャンク1トランザクション）
+     * CSV import chunk size (one transaction per chunk)
+     */
+    @Value("${app.import.chunk-size:1000}")
+    private int importChunkSize;
+    
+    /**
+     * 取込結果に含めるエラー行の上限
+     * Maximum error lines included in an import result
+     */
+    @Value("${app.import.max-errors:1000}")
+    private int importMaxErrors;
+    
+    /**
+     * 1ページの最大件数
+     * Maximum rows per page
+     */
+    @Value("${app.page.max-size:200}")
+    private int maxPageSize;
+    
     @Override
     @Transactional(readOnly = true)
-    public List<LocationMaster> getAllLocations() {
-        log.info("Getting all locations");
-        return locationMasterMapper.findAll();
+    public PageResponse<LocationMaster> getLocations(int size, String after) {
+        log.info("Getting locations - size: {}, after: {}", size, after);
+        return findPage(null, null, size, after);
     }
     
     @Override
-    @Transactional(readOnly = true)
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS) // キャッシュヒット時は接続を取得しない
     public LocationMaster getLocationById(String locationId) {
         log.info("Getting location by ID: {}", locationId);
         if (locationId == null || locationId.trim().isEmpty()) {
             throw new IllegalArgumentException("Location ID cannot be null or empty");
         }
-        return locationMasterMapper.findById(locationId);
+        return locationCache.get(locationId, locationMasterMapper::findById);
     }
     
     @Override
     @Transactional(readOnly = true)
-    public List<LocationMaster> getLocationsByWarehouseCode(String warehouseCode) {
-        log.info("Getting locations by warehouse code: {}", warehouseCode);
+    public PageResponse<LocationMaster> getLocationsByWarehouseCode(String warehouseCode, int size, String after) {
+        log.info("Getting locations by warehouse code: {}, size: {}, after: {}", warehouseCode, size, after);
         if (warehouseCode == null || warehouseCode.trim().isEmpty()) {
             throw new IllegalArgumentException("Warehouse code cannot be null or empty");
         }
-        return locationMasterMapper.findByWarehouseCode(warehouseCode);
+        return findPage(warehouseCode, null, size, after);
     }
     
     @Override
     @Transactional(readOnly = true)
-    public List<LocationMaster> getLocationsByZone(String zone) {
-        log.info("Getting locations by zone: {}", zone);
+    public PageResponse<LocationMaster> getLocationsByZone(String zone, int size, String after) {
+        log.info("Getting locations by zone: {}, size: {}, after: {}", zone, size, after);
         if (zone == null || zone.trim().isEmpty()) {
             throw new IllegalArgumentException("Zone cannot be null or empty");
         }
-        return locationMasterMapper.findByZone(zone);
+        return findPage(null, zone, size, after);
+    }
+    
+    /**
+     * 登録日時＋ロケーションIDのキーセットで1ページ分取得
+     * Get one page keyed on created-at + location ID
+     */
+    private PageResponse<LocationMaster> findPage(String warehouseCode, String zone, int size, String after) {
+        if (size <= 0 || size > maxPageSize) {
+            throw new IllegalArgumentException("Page size must be between 1 and " + maxPageSize);
+        }
+        PageCursor cursor = PageCursor.decode(after, "createdAt", "DESC");
+        if (cursor != null && cursor.getValue() != null && !(cursor.getValue() instanceof LocalDateTime)) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        // 階層索引の構築後はメモリ上の新しい順の集合から取得（DBと同じ並び・同じカーソル形式）
+        List<LocationMaster> rows = locationTree.isReady()
+                ? locationTree.newest(warehouseCode, zone, cursor, size + 1)
+                : locationMasterMapper.findPage(warehouseCode, zone, cursor, size);
+        return PageResponse.keyset(rows, size, cursor == null,
+                last -> new PageCursor("createdAt", "DESC", last.getCreatedAt(), last.getLocationId()));
+    }
+    
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED) // 階層索引のみ参照
+    public LocationNode getLocationNode(String warehouseCode, String zone, String rack) {
+        log.info("Getting location node - warehouse: {}, zone: {}, rack: {}", warehouseCode, zone, rack);
+        if ((rack != null && zone == null) || (zone != null && warehouseCode == null)) {
+            throw new IllegalArgumentException("Rack requires zone and zone requires warehouse code");
+        }
+        if (!locationTree.isReady()) {
+            throw new IllegalStateException("Location tree is not ready yet");
+        }
+        List<String> path = Stream.of(warehouseCode, zone, rack)
+                .takeWhile(key -> key != null)
+                .map(String::trim)
+                .toList();
+        return locationTree.node(path).orElse(null);
+    }
+    
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED) // 階層索引のみ参照
+    public List<LocationMaster> getLocationsInRack(String warehouseCode, String zone, String rack) {
+        log.info("Getting locations in rack - warehouse: {}, zone: {}, rack: {}", warehouseCode, zone, rack);
+        if (warehouseCode == null || warehouseCode.trim().isEmpty() || zone == null || rack == null) {
+            throw new IllegalArgumentException("Warehouse code, zone and rack are required");
+        }
+        if (!locationTree.isReady()) {
+            throw new IllegalStateException("Location tree is not ready yet");
+        }
+        return locationTree.rack(warehouseCode.trim(), zone.trim(), rack.trim());
     }
     
     @Override
@@ -70,19 +182,22 @@ public class LocationMasterServiceImpl implements LocationMasterService {
         // バリデーション
         validateLocation(location);
         
-        // ロケーションIDの重複チェック
-        if (locationMasterMapper.existsById(location.getLocationId())) {
-            throw new IllegalArgumentException("Location with ID " + location.getLocationId() + " already exists");
-        }
-        
         // 作成日時を設定
         location.setCreatedAt(LocalDateTime.now());
         
-        int result = locationMasterMapper.insert(location);
+        // 主キー制約で重複を検出（事前の存在チェックは行わない）
+        int result;
+        try {
+            result = locationMasterMapper.insert(location);
+        } catch (DuplicateKeyException e) {
+            throw new IllegalArgumentException("Location with ID " + location.getLocationId() + " already exists");
+        }
         if (result == 0) {
             throw new RuntimeException("Failed to create location");
         }
         
+        // 変更を通知（キャッシュ等はコミット後に反映）
+        eventPublisher.publishEvent(new MasterDataChangeEvent(MasterType.LOCATION, ChangeType.CREATED, location.getLocationId(), location));
         log.info("Location created successfully: {}", location.getLocationId());
         return location;
     }
@@ -94,16 +209,16 @@ public class LocationMasterServiceImpl implements LocationMasterService {
         // バリデーション
         validateLocation(location);
         
-        // ロケーションの存在チェック
-        if (!locationMasterMapper.existsById(location.getLocationId())) {
+        // 変更前の状態を行ロックして取得（監査の変更前の値。更新まで他のトランザクションから変更されない）
+        LocationMaster previous = locationMasterMapper.findByIdForUpdate(location.getLocationId());
+        if (previous == null) {
             throw new IllegalArgumentException("Location with ID " + location.getLocationId() + " does not exist");
         }
+        location.setCreatedAt(previous.getCreatedAt());
+        locationMasterMapper.update(location);
         
-        int result = locationMasterMapper.update(location);
-        if (result == 0) {
-            throw new RuntimeException("Failed to update location");
-        }
-        
+        // 変更を通知（キャッシュ等はコミット後に反映）
+        eventPublisher.publishEvent(new MasterDataChangeEvent(MasterType.LOCATION, ChangeType.UPDATED, location.getLocationId(), location, previous));
         log.info("Location updated successfully: {}", location.getLocationId());
         return location;
     }
@@ -116,21 +231,17 @@ public class LocationMasterServiceImpl implements LocationMasterService {
             throw new IllegalArgumentException("Location ID cannot be null or empty");
         }
         
-        // ロケーションの存在チェック
-        if (!locationMasterMapper.existsById(locationId)) {
+        // 変更前の状態を行ロックして取得（監査の変更前の値。削除まで他のトランザクションから変更されない）
+        LocationMaster previous = locationMasterMapper.findByIdForUpdate(locationId);
+        if (previous == null) {
             throw new IllegalArgumentException("Location with ID " + locationId + " does not exist");
         }
+        locationMasterMapper.deleteById(locationId);
         
-        int result = locationMasterMapper.deleteById(locationId);
-        boolean success = result > 0;
-        
-        if (success) {
-            log.info("Location deleted successfully: {}", locationId);
-        } else {
-            log.warn("Failed to delete location: {}", locationId);
-        }
-        
-        return success;
+        // 変更を通知（キャッシュ等はコミット後に反映）
+        eventPublisher.publishEvent(new MasterDataChangeEvent(MasterType.LOCATION, ChangeType.DELETED, locationId, null, previous));
+        log.info("Location deleted successfully: {}", locationId);
+        return true;
     }
     
     @Override
@@ -142,6 +253,184 @@ public class LocationMasterServiceImpl implements LocationMasterService {
         return locationMasterMapper.existsById(locationId);
     }
     
+    @Override
+    @Transactional(readOnly = true)
+    public void exportLocations(Consumer<LocationMaster> consumer) {
+        log.info("Exporting all locations");
+        try (Cursor<LocationMaster> cursor = locationMasterMapper.streamAll()) {
+            cursor.forEach(consumer);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED) // チャンク単位でトランザクションを分ける
+    public ImportResult importLocations(InputStream csv) {
+        long start = System.nanoTime();
+        ImportProgress progress = new ImportProgress(importMaxErrors);
+        List<LocationMaster> chunk = new ArrayList<>(importChunkSize);
+        List<Long> chunkLines = new ArrayList<>(importChunkSize);
+        
+        // 1行ずつ読み込み、チャンクが溜まったら登録（ファイル全体をメモリに保持しない）
+        try (MappingIterator<Map<String, String>> rows = CSV_MAPPER.readerForMapOf(String.class)
+                .with(CsvSchema.emptySchema().withHeader())
+                .readValues(csv)) {
+            CsvSchema header = (CsvSchema) rows.getParserSchema();
+            if (header.column("locationId") == null || header.column("warehouseCode") == null) {
+                throw new IllegalArgumentException("CSV header must include locationId and warehouseCode");
+            }
+            while (rows.hasNextValue()) {
+                Map<String, String> row = rows.nextValue();
+                progress.total++;
+                long line = progress.total + 1; // ヘッダーが1行目
+                try {
+                    LocationMaster location = toLocation(row);
+                    validateLocation(location);
+                    chunk.add(location);
+                    chunkLines.add(line);
+                } catch (IllegalArgumentException e) {
+                    progress.fail(line, row.get("locationId"), e.getMessage());
+                }
+                if (chunk.size() >= importChunkSize) {
+                    importChunk(chunk, chunkLines, progress);
+                }
+            }
+            if (!chunk.isEmpty()) {
+                importChunk(chunk, chunkLines, progress);
+            }
+        } catch (IOException e) {
+            // CSVの構文エラーは以降の行を読めないため、そこまでの結果で打ち切る
+            log.warn("Location import stopped at row {}: {}", progress.total, e.getMessage());
+            progress.fail(progress.total + 1, null, "Unreadable CSV, import stopped: " + e.getMessage());
+        }
+        
+        // 1行ずつ登録し直したチャンクのエラーは後から追加されるため行番号順に並べる
+        progress.errors.sort(Comparator.comparingLong(BatchRowResult::getIndex));
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+        log.info("Location import finished: {} rows, {} imported, {} failed in {} ms",
+                progress.total, progress.imported, progress.failed, elapsedMs);
+        return ImportResult.builder()
+                .total(progress.total)
+                .imported(progress.imported)
+                .failed(progress.failed)
+                .elapsedMs(elapsedMs)
+                .errors(progress.errors)
+                .errorsTruncated(progress.failed > progress.errors.size())
+                .build();
+    }
+    
+    /**
+     * 1チャンクをJDBCバッチで登録し、失敗時は1行ずつ登録し直して失敗行を特定
+     * Insert one chunk as a JDBC batch; if it fails, retry row by row to pinpoint the bad lines
+     * 
+     * @param chunk 登録対象（処理後にクリア）
+     * @param lines 各行のCSV行番号（処理後にクリア）
+     * @param progress 進捗
+     */
+    private void importChunk(List<LocationMaster> chunk, List<Long> lines, ImportProgress progress) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                LocationMasterMapper batchMapper = batchSqlSession.getMapper(LocationMasterMapper.class);
+                chunk.forEach(batchMapper::insert);
+                batchSqlSession.flushStatements();
+                chunk.forEach(this::publishCreated);
+            });
+            progress.imported += chunk.size();
+        } catch (DataAccessException e) {
+            log.debug("Batch insert failed, retrying chunk row by row", e);
+            for (int i = 0; i < chunk.size(); i++) {
+                LocationMaster location = chunk.get(i);
+                try {
+                    transactionTemplate.executeWithoutResult(status -> {
+                        locationMasterMapper.insert(location);
+                        publishCreated(location);
+                    });
+                    progress.imported++;
+                } catch (DuplicateKeyException ex) {
+                    progress.fail(lines.get(i), location.getLocationId(),
+                            "Location with ID " + location.getLocationId() + " already exists");
+                } catch (DataAccessException ex) {
+                    progress.fail(lines.get(i), location.getLocationId(), ex.getMostSpecificCause().getMessage());
+                }
+            }
+        }
+        log.info("Location import progress: {} rows read, {} imported, {} failed",
+                progress.total, progress.imported, progress.failed);
+        chunk.clear();
+        lines.clear();
+    }
+    
+    private void publishCreated(LocationMaster location) {
+        eventPublisher.publishEvent(new MasterDataChangeEvent(MasterType.LOCATION, ChangeType.CREATED, location.getLocationId(), location));
+    }
+    
+    /**
+     * CSVの1行をロケーションに変換（空欄はnull）
+     * Convert one CSV row to a location (blank cells become null)
+     * 
+     * @param row 列名→値
+     * @return ロケーション情報
+     */
+    private LocationMaster toLocation(Map<String, String> row) {
+        String maxCapacity = blankToNull(row.get("maxCapacity"));
+        Integer capacity = null;
+        if (maxCapacity != null) {
+            try {
+                capacity = Integer.valueOf(maxCapacity);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Maximum capacity must be an integer: " + maxCapacity);
+            }
+        }
+        return LocationMaster.builder()
+                .locationId(blankToNull(row.get("locationId")))
+                .warehouseCode(blankToNull(row.get("warehouseCode")))
+                .zone(blankToNull(row.get("zone")))
+                .rack(blankToNull(row.get("rack")))
+                .levelNo(blankToNull(row.get("levelNo")))
+                .position(blankToNull(row.get("position")))
+                .maxCapacity(capacity)
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+    
+    private static String blankToNull(String value) {
+        return value == null || value.trim().isEmpty() ? null : value.trim();
+    }
+    
+    /**
+     * 取込の集計（エラーは上限件数まで保持）
+     * Import tally (keeps errors up to the limit)
+     */
+    private static final class ImportProgress {
+        
+        private final int maxErrors;
+        
+        private final List<BatchRowResult> errors = new ArrayList<>();
+        
+        private long total;
+        
+        private long imported;
+        
+        private long failed;
+        
+        ImportProgress(int maxErrors) {
+            this.maxErrors = maxErrors;
+        }
+        
+        void fail(long line, String id, String message) {
+            failed++;
+            if (errors.size() < maxErrors) {
+                errors.add(BatchRowResult.builder()
+                        .index(line)
+                        .id(id)
+                        .status(BatchRowResult.Status.FAILED)
+                        .message(message)
+                        .build());
+            }
+        }
+    }
+    
     /**
      * ロケーション情報のバリデーション
      * Validate location information
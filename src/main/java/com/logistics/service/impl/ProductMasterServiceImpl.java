@@ -1,17 +1,46 @@
 package com.logistics.service.impl;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.logistics.controller.dto.BatchRowResult;
+import com.logistics.controller.dto.BatchUpsertResponse;
+import com.logistics.controller.dto.CountMode;
+import com.logistics.controller.dto.PageCursor;
 import com.logistics.controller.dto.PageRequest;
 import com.logistics.controller.dto.PageResponse;
 import com.logistics.entity.ProductMaster;
 import com.logistics.mapper.ProductMasterMapper;
 import com.logistics.service.ProductMasterService;
+import com.logistics.service.cache.EntityCache;
+import com.logistics.service.event.MasterDataChangeEvent;
+import com.logistics.service.event.MasterDataChangeEvent.ChangeType;
+import com.logistics.service.event.MasterDataChangeEvent.MasterType;
+import com.logistics.service.search.ProductSearchIndex;
+import com.logistics.service.support.BatchSqlSession;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.cursor.Cursor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 
 /**
  * 商品マスタサービス実装クラス
@@ -26,28 +55,81 @@ import java.util.List;
 @Transactional
 public class ProductMasterServiceImpl implements ProductMasterService {
     
+    /**
+     * キーセットページングで使用可能なソートフィールド
+     * Sort fields supported by keyset pagination
+     */
+    private static final Set<String> CURSOR_SORT_FIELDS = Set.of("createdAt", "productName", "safetyStock", "productId");
+    
     private final ProductMasterMapper productMasterMapper;
     
-    @Override
-    @Transactional(readOnly = true)
-    public List<ProductMaster> getAllProducts() {
-        log.info("Getting all products");
-        return productMasterMapper.findAll();
-    }
+    private final EntityCache<ProductMaster> productCache;
+    
+    private final ApplicationEventPublisher eventPublisher;
+    
+    private final BatchSqlSession batchSqlSession;
+    
+    private final TransactionTemplate transactionTemplate;
+    
+    private final Cache<String, Long> productCountCache;
+    
+    private final Executor queryExecutor;
+    
+    private final ProductSearchIndex productSearchIndex;
+    
+    /**
+     * 一括登録のチャンクサイズ（1チャンク1トランザクション、IN句上限のため最大1000）
+     * Bulk upsert chunk size (one transaction per chunk, at most 1000 because of the IN-list limit)
+     */
+    @Value("${app.batch.chunk-size:500}")
+    private int batchChunkSize;
+    
+    /**
+     * 1ページの最大件数
+     * Maximum rows per page
+     */
+    @Value("${app.page.max-size:200}")
+    private int maxPageSize;
     
     @Override
-    @Transactional(readOnly = true)
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS) // 並列の件数クエリを待つ間、接続を保持しない
     public PageResponse<ProductMaster> getProductsWithPagination(PageRequest pageRequest) {
         log.info("Getting products with pagination: {}", pageRequest);
+        if (pageRequest.getSize() <= 0 || pageRequest.getSize() > maxPageSize) {
+            throw new IllegalArgumentException("Page size must be between 1 and " + maxPageSize);
+        }
+        
+        // キーワード検索は索引で絞り込み、DBはページ分の取得のみ
+        if (hasKeyword(pageRequest) && productSearchIndex.isReady()) {
+            return getProductsFromIndex(pageRequest);
+        }
+        
+        if (pageRequest.isCursorMode()) {
+            return getProductsWithCursor(pageRequest);
+        }
         
-        // 获取总数
-        long totalElements = productMasterMapper.countWithPagination(pageRequest);
+        CountMode countMode = pageRequest.getCount() != null ? pageRequest.getCount() : CountMode.EXACT;
+        
+        List<ProductMaster> content;
+        long totalElements;
+        if (countMode == CountMode.EXACT) {
+            // 总数与分页数据并行查询
+            CompletableFuture<Long> countFuture = CompletableFuture.supplyAsync(
+                    () -> countExact(pageRequest), queryExecutor);
+            content = productMasterMapper.findWithPagination(pageRequest);
+            totalElements = joinCount(countFuture);
+        } else {
+            content = productMasterMapper.findWithPagination(pageRequest);
+            totalElements = countMode == CountMode.APPROXIMATE ? countApproximate(pageRequest) : -1;
+        }
         
         // 计算总页数
-        int totalPages = (int) Math.ceil((double) totalElements / pageRequest.getSize());
+        int totalPages = totalElements < 0 ? -1 : (int) Math.ceil((double) totalElements / pageRequest.getSize());
         
-        // 获取分页数据
-        List<ProductMaster> content = productMasterMapper.findWithPagination(pageRequest);
+        // 概算・件数なしの場合、次ページ有無はページが満杯かどうかで判定
+        boolean hasNext = countMode == CountMode.EXACT
+                ? pageRequest.getPage() < totalPages - 1
+                : content.size() >= pageRequest.getSize();
         
         // 构建分页响应
         return PageResponse.<ProductMaster>builder()
@@ -56,31 +138,285 @@ public class ProductMasterServiceImpl implements ProductMasterService {
                 .size(pageRequest.getSize())
                 .totalPages(totalPages)
                 .totalElements(totalElements)
-                .hasNext(pageRequest.getPage() < totalPages - 1)
+                .hasNext(hasNext)
                 .hasPrevious(pageRequest.getPage() > 0)
                 .isFirst(pageRequest.getPage() == 0)
-                .isLast(pageRequest.getPage() >= totalPages - 1)
+                .isLast(!hasNext)
+                .build();
+    }
+    
+    /**
+     * 正確な件数を取得し、概算用キャッシュにも反映
+     * Get the exact count and refresh the approximate count cache
+     * 
+     * @param pageRequest 分页请求
+     * @return 件数
+     */
+    private long countExact(PageRequest pageRequest) {
+        long count = productMasterMapper.countWithPagination(pageRequest);
+        productCountCache.put(countCacheKey(pageRequest), count);
+        return count;
+    }
+    
+    /**
+     * 概算件数を取得（キャッシュ→テーブル統計→COUNT(*)の順）
+     * Get the approximate count (cache, then table statistics, then COUNT(*))
+     * 
+     * @param pageRequest 分页请求
+     * @return 概算件数
+     */
+    private long countApproximate(PageRequest pageRequest) {
+        return productCountCache.get(countCacheKey(pageRequest), key -> {
+            if (key.isEmpty()) {
+                try {
+                    Long estimated = productMasterMapper.findEstimatedCount();
+                    if (estimated != null) {
+                        return estimated;
+                    }
+                } catch (Exception e) {
+                    log.debug("Table statistics unavailable, falling back to COUNT(*)", e);
+                }
+            }
+            return productMasterMapper.countWithPagination(pageRequest);
+        });
+    }
+    
+    /**
+     * 件数キャッシュのキー（キーワード単位）
+     * Count cache key (per keyword)
+     */
+    private String countCacheKey(PageRequest pageRequest) {
+        return pageRequest.getKeyword() == null ? "" : pageRequest.getKeyword();
+    }
+    
+    /**
+     * 並列実行した件数クエリの結果を取得
+     * Wait for the parallel count query
+     */
+    private long joinCount(CompletableFuture<Long> countFuture) {
+        try {
+            return countFuture.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+    
+    /**
+     * キーセット方式でページを取得（OFFSETを使わず、深いページでもコスト一定）
+     * Get a page using keyset pagination (no OFFSET, constant cost at any depth)
+     * 
+     * @param pageRequest 分页请求
+     * @return 分页商品列表
+     */
+    private PageResponse<ProductMaster> getProductsWithCursor(PageRequest pageRequest) {
+        String sortBy = CURSOR_SORT_FIELDS.contains(pageRequest.getSortBy()) ? pageRequest.getSortBy() : "createdAt";
+        String sortDir = "ASC".equalsIgnoreCase(pageRequest.getSortDir()) ? "ASC" : "DESC";
+        pageRequest.setSortBy(sortBy);
+        pageRequest.setSortDir(sortDir);
+        pageRequest.setCursor(PageCursor.decode(pageRequest.getAfter(), sortBy, sortDir));
+        
+        // size+1件取得して次ページの有無を判定
+        List<ProductMaster> rows = productMasterMapper.findWithCursor(pageRequest);
+        boolean hasNext = rows.size() > pageRequest.getSize();
+        List<ProductMaster> content = hasNext ? new ArrayList<>(rows.subList(0, pageRequest.getSize())) : rows;
+        
+        String nextCursor = null;
+        if (hasNext) {
+            ProductMaster last = content.get(content.size() - 1);
+            nextCursor = new PageCursor(sortBy, sortDir, sortValue(last, sortBy), last.getProductId()).encode();
+        }
+        
+        // 件数は明示的に指定された場合のみ取得
+        long totalElements = -1;
+        if (pageRequest.getCount() == CountMode.EXACT) {
+            totalElements = countExact(pageRequest);
+        } else if (pageRequest.getCount() == CountMode.APPROXIMATE) {
+            totalElements = countApproximate(pageRequest);
+        }
+        int totalPages = totalElements < 0 ? -1 : (int) Math.ceil((double) totalElements / pageRequest.getSize());
+        
+        boolean first = pageRequest.getCursor() == null;
+        return PageResponse.<ProductMaster>builder()
+                .content(content)
+                .page(0)
+                .size(pageRequest.getSize())
+                .totalPages(totalPages)
+                .totalElements(totalElements)
+                .hasNext(hasNext)
+                .hasPrevious(!first)
+                .isFirst(first)
+                .isLast(!hasNext)
+                .nextCursor(nextCursor)
+                .build();
+    }
+    
+    /**
+     * 検索索引でキーワードに一致する商品を並べ替え、1ページ分だけDBから取得
+     * Match, sort and page keyword results in the search index, fetching only the page from the DB
+     * 
+     * オフセット方式・キーセット方式の両方に対応し、件数は索引から正確に求まる
+     * Supports both offset and keyset paging; the total comes exactly from the index
+     * 
+     * @param pageRequest 分页请求
+     * @return 分页商品列表
+     */
+    private PageResponse<ProductMaster> getProductsFromIndex(PageRequest pageRequest) {
+        String sortBy = CURSOR_SORT_FIELDS.contains(pageRequest.getSortBy()) ? pageRequest.getSortBy() : "createdAt";
+        String sortDir = "ASC".equalsIgnoreCase(pageRequest.getSortDir()) ? "ASC" : "DESC";
+        Comparator<ProductSearchIndex.Entry> order = ProductSearchIndex.comparator(sortBy, "ASC".equals(sortDir));
+        
+        int size = pageRequest.getSize();
+        int offset = 0;
+        boolean cursorMode = pageRequest.isCursorMode();
+        PageCursor cursor = null;
+        ProductSearchIndex.Entry after = null;
+        if (cursorMode) {
+            cursor = PageCursor.decode(pageRequest.getAfter(), sortBy, sortDir);
+            if (cursor != null) {
+                after = ProductSearchIndex.Entry.probe(sortBy, cursor.getValue(), cursor.getLastId());
+            }
+        } else {
+            offset = (int) Math.min((long) pageRequest.getPage() * size, Integer.MAX_VALUE);
+        }
+        // 索引は要求ページまでの上位件数だけを選ぶ（一致全件は並べ替えない）
+        ProductSearchIndex.Matches matches = productSearchIndex.search(pageRequest.getKeyword(), order, after, offset, size);
+        List<ProductSearchIndex.Entry> entries = matches.getPage();
+        List<ProductMaster> content = findByIdsInOrder(entries);
+        boolean hasNext = !matches.isLast();
+        
+        long totalElements = matches.getTotal();
+        CountMode countMode = pageRequest.getCount();
+        if (countMode == CountMode.NONE || (cursorMode && countMode == null)) {
+            totalElements = -1;
+        }
+        int totalPages = totalElements < 0 ? -1 : (int) Math.ceil((double) totalElements / size);
+        
+        String nextCursor = null;
+        if (cursorMode && hasNext) {
+            ProductSearchIndex.Entry last = entries.get(entries.size() - 1);
+            nextCursor = new PageCursor(sortBy, sortDir, indexSortValue(last, sortBy), last.getProductId()).encode();
+        }
+        int page = cursorMode ? 0 : pageRequest.getPage();
+        boolean first = cursorMode ? cursor == null : page == 0;
+        return PageResponse.<ProductMaster>builder()
+                .content(content)
+                .page(page)
+                .size(size)
+                .totalPages(totalPages)
+                .totalElements(totalElements)
+                .hasNext(hasNext)
+                .hasPrevious(!first)
+                .isFirst(first)
+                .isLast(!hasNext)
+                .nextCursor(nextCursor)
                 .build();
     }
     
+    /**
+     * 索引エントリの順序どおりに商品を取得（キャッシュ済みのものはDBに問い合わせない）
+     * Load products in the order of the index entries (cached entries skip the DB)
+     * 
+     * @param entries 索引エントリ
+     * @return 商品リスト（取得時に削除済みのものは除く）
+     */
+    private List<ProductMaster> findByIdsInOrder(List<ProductSearchIndex.Entry> entries) {
+        Map<String, ProductMaster> found = new HashMap<>();
+        List<String> missing = new ArrayList<>();
+        for (ProductSearchIndex.Entry entry : entries) {
+            ProductMaster cached = productCache.getIfPresent(entry.getProductId());
+            if (cached != null) {
+                found.put(cached.getProductId(), cached);
+            } else {
+                missing.add(entry.getProductId());
+            }
+        }
+        // IN句の上限（1000件）ごとに取得
+        for (int from = 0; from < missing.size(); from += 1000) {
+            List<String> chunk = missing.subList(from, Math.min(from + 1000, missing.size()));
+            for (ProductMaster product : productMasterMapper.findByIds(chunk)) {
+                found.put(product.getProductId(), product);
+            }
+        }
+        
+        List<ProductMaster> products = new ArrayList<>(entries.size());
+        for (ProductSearchIndex.Entry entry : entries) {
+            ProductMaster product = found.get(entry.getProductId());
+            if (product != null) {
+                products.add(product);
+            }
+        }
+        return products;
+    }
+    
+    /**
+     * 索引エントリのソートフィールド値を取得
+     * Get the sort field value of an index entry
+     */
+    private Object indexSortValue(ProductSearchIndex.Entry entry, String sortBy) {
+        switch (sortBy) {
+            case "productName":
+                return entry.getProductName();
+            case "safetyStock":
+                return entry.getSafetyStock();
+            case "productId":
+                return entry.getProductId();
+            default:
+                return entry.getCreatedAt();
+        }
+    }
+    
+    private boolean hasKeyword(PageRequest pageRequest) {
+        return pageRequest.getKeyword() != null && !pageRequest.getKeyword().isEmpty();
+    }
+    
+    /**
+     * ソートフィールドに対応する値を取得
+     * Get the value of the sort field
+     * 
+     * @param product 商品情報
+     * @param sortBy ソートフィールド
+     * @return ソートキー値
+     */
+    private Object sortValue(ProductMaster product, String sortBy) {
+        switch (sortBy) {
+            case "productName":
+                return product.getProductName();
+            case "safetyStock":
+                return product.getSafetyStock();
+            case "productId":
+                return product.getProductId();
+            default:
+                return product.getCreatedAt();
+        }
+    }
+    
     @Override
-    @Transactional(readOnly = true)
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS) // キャッシュヒット時は接続を取得しない
     public ProductMaster getProductById(String productId) {
         log.info("Getting product by ID: {}", productId);
         if (productId == null || productId.trim().isEmpty()) {
             throw new IllegalArgumentException("Product ID cannot be null or empty");
         }
-        return productMasterMapper.findById(productId);
+        return productCache.get(productId, productMasterMapper::findById);
     }
     
     @Override
-    @Transactional(readOnly = true)
-    public List<ProductMaster> searchProductsByName(String productName) {
-        log.info("Searching products by name: {}", productName);
-        if (productName == null || productName.trim().isEmpty()) {
-            return getAllProducts();
-        }
-        return productMasterMapper.findByName(productName);
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
+    public PageResponse<ProductMaster> searchProductsByName(String productName, int size, String after) {
+        log.info("Searching products by name: {}, size: {}, after: {}", productName, size, after);
+        // 一覧のキーワード検索（キーセット方式、件数なし）と同じ経路で取得
+        PageRequest pageRequest = PageRequest.builder()
+                .size(size)
+                .sortBy("createdAt")
+                .sortDir("DESC")
+                .keyword(productName == null || productName.trim().isEmpty() ? null : productName)
+                .after(after == null ? "" : after)
+                .count(CountMode.NONE)
+                .build();
+        return getProductsWithPagination(pageRequest);
     }
     
     @Override
@@ -90,24 +426,144 @@ public class ProductMasterServiceImpl implements ProductMasterService {
         // バリデーション
         validateProduct(product);
         
-        // 商品IDの重複チェック
-        if (productMasterMapper.existsById(product.getProductId())) {
-            throw new IllegalArgumentException("Product with ID " + product.getProductId() + " already exists");
-        }
-        
         // 作成日時を設定
         product.setCreatedAt(LocalDateTime.now());
         product.setUpdatedAt(LocalDateTime.now());
         
-        int result = productMasterMapper.insert(product);
+        // 主キー制約で重複を検出（事前の存在チェックは行わない）
+        int result;
+        try {
+            result = productMasterMapper.insert(product);
+        } catch (DuplicateKeyException e) {
+            throw new IllegalArgumentException("Product with ID " + product.getProductId() + " already exists");
+        }
         if (result == 0) {
             throw new RuntimeException("Failed to create product");
         }
         
+        // 変更を通知（キャッシュ等はコミット後に反映）
+        eventPublisher.publishEvent(new MasterDataChangeEvent(MasterType.PRODUCT, ChangeType.CREATED, product.getProductId(), product));
         log.info("Product created successfully: {}", product.getProductId());
         return product;
     }
     
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED) // チャンク単位でトランザクションを分ける
+    public BatchUpsertResponse upsertProducts(List<ProductMaster> products) {
+        log.info("Upserting {} products in bulk", products.size());
+        long start = System.nanoTime();
+        
+        // 全行を先にバリデーション（リクエスト内の重複IDもエラー）
+        BatchRowResult[] results = new BatchRowResult[products.size()];
+        List<Integer> validRows = new ArrayList<>();
+        Set<String> seenIds = new HashSet<>();
+        for (int i = 0; i < products.size(); i++) {
+            ProductMaster product = products.get(i);
+            try {
+                validateProduct(product);
+                if (!seenIds.add(product.getProductId())) {
+                    throw new IllegalArgumentException("Duplicate product ID in request: " + product.getProductId());
+                }
+                validRows.add(i);
+            } catch (IllegalArgumentException e) {
+                results[i] = BatchRowResult.builder()
+                        .index(i)
+                        .id(product != null ? product.getProductId() : null)
+                        .status(BatchRowResult.Status.FAILED)
+                        .message(e.getMessage())
+                        .build();
+            }
+        }
+        
+        // チャンクごとにMERGEをJDBCバッチで実行
+        int chunkSize = Math.max(1, Math.min(batchChunkSize, 1000));
+        for (int from = 0; from < validRows.size(); from += chunkSize) {
+            List<Integer> chunk = validRows.subList(from, Math.min(from + chunkSize, validRows.size()));
+            try {
+                transactionTemplate.executeWithoutResult(status -> upsertChunk(products, chunk, results));
+            } catch (RuntimeException e) {
+                log.warn("Bulk upsert chunk of {} products failed", chunk.size(), e);
+                for (int row : chunk) {
+                    results[row] = BatchRowResult.builder()
+                            .index(row)
+                            .id(products.get(row).getProductId())
+                            .status(BatchRowResult.Status.FAILED)
+                            .message("Chunk rolled back: " + e.getMessage())
+                            .build();
+                }
+            }
+        }
+        
+        int created = 0;
+        int updated = 0;
+        int failed = 0;
+        for (BatchRowResult result : results) {
+            switch (result.getStatus()) {
+                case CREATED -> created++;
+                case UPDATED -> updated++;
+                default -> failed++;
+            }
+        }
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+        log.info("Bulk upsert finished: {} created, {} updated, {} failed in {} ms", created, updated, failed, elapsedMs);
+        
+        return BatchUpsertResponse.builder()
+                .total(products.size())
+                .created(created)
+                .updated(updated)
+                .failed(failed)
+                .elapsedMs(elapsedMs)
+                .results(List.of(results))
+                .build();
+    }
+    
+    /**
+     * 1チャンク分の商品をMERGE（呼び出し元のトランザクション内で実行）
+     * MERGE one chunk of products (runs inside the caller's transaction)
+     * 
+     * @param products 商品情報リスト
+     * @param chunk 対象行の添字
+     * @param results 行単位の結果（このチャンク分を設定）
+     */
+    private void upsertChunk(List<ProductMaster> products, List<Integer> chunk, BatchRowResult[] results) {
+        ProductMasterMapper batchMapper = batchSqlSession.getMapper(ProductMasterMapper.class);
+        
+        List<String> ids = new ArrayList<>(chunk.size());
+        for (int row : chunk) {
+            ids.add(products.get(row).getProductId());
+        }
+        // 既存行は行ロックしているため、MERGEはこれらの行にだけWHEN MATCHED（更新）となる。
+        // ロック後に他で登録された行はWHEN NOT MATCHEDの登録が一意制約違反となり、チャンクごとロールバックされる
+        Map<String, ProductMaster> existing = new HashMap<>();
+        for (ProductMaster previous : batchMapper.findByIdsForUpdate(ids)) {
+            existing.put(previous.getProductId(), previous);
+        }
+        
+        LocalDateTime now = LocalDateTime.now();
+        for (int row : chunk) {
+            ProductMaster product = products.get(row);
+            ProductMaster previous = existing.get(product.getProductId());
+            // 更新時はMERGEが登録日時を変更しないため、通知する内容も既存の登録日時のまま
+            product.setCreatedAt(previous != null ? previous.getCreatedAt() : now);
+            product.setUpdatedAt(now);
+            batchMapper.merge(product);
+        }
+        batchSqlSession.flushStatements();
+        
+        for (int row : chunk) {
+            ProductMaster product = products.get(row);
+            ProductMaster previous = existing.get(product.getProductId());
+            results[row] = BatchRowResult.builder()
+                    .index(row)
+                    .id(product.getProductId())
+                    .status(previous != null ? BatchRowResult.Status.UPDATED : BatchRowResult.Status.CREATED)
+                    .build();
+            eventPublisher.publishEvent(previous != null
+                    ? new MasterDataChangeEvent(MasterType.PRODUCT, ChangeType.UPDATED, product.getProductId(), product, previous)
+                    : new MasterDataChangeEvent(MasterType.PRODUCT, ChangeType.CREATED, product.getProductId(), product));
+        }
+    }
+    
     @Override
     public ProductMaster updateProduct(ProductMaster product) {
         log.info("Updating product: {}", product.getProductId());
@@ -115,19 +571,19 @@ public class ProductMasterServiceImpl implements ProductMasterService {
         // バリデーション
         validateProduct(product);
         
-        // 商品の存在チェック
-        if (!productMasterMapper.existsById(product.getProductId())) {
-            throw new IllegalArgumentException("Product with ID " + product.getProductId() + " does not exist");
-        }
-        
         // 更新日時を設定
         product.setUpdatedAt(LocalDateTime.now());
         
-        int result = productMasterMapper.update(product);
-        if (result == 0) {
-            throw new RuntimeException("Failed to update product");
+        // 変更前の状態を行ロックして取得（監査の変更前の値。更新まで他のトランザクションから変更されない）
+        ProductMaster previous = productMasterMapper.findByIdForUpdate(product.getProductId());
+        if (previous == null) {
+            throw new IllegalArgumentException("Product with ID " + product.getProductId() + " does not exist");
         }
+        product.setCreatedAt(previous.getCreatedAt());
+        productMasterMapper.update(product);
         
+        // 変更を通知（キャッシュ等はコミット後に反映）
+        eventPublisher.publishEvent(new MasterDataChangeEvent(MasterType.PRODUCT, ChangeType.UPDATED, product.getProductId(), product, previous));
         log.info("Product updated successfully: {}", product.getProductId());
         return product;
     }
@@ -140,21 +596,17 @@ public class ProductMasterServiceImpl implements ProductMasterService {
             throw new IllegalArgumentException("Product ID cannot be null or empty");
         }
         
-        // 商品の存在チェック
-        if (!productMasterMapper.existsById(productId)) {
+        // 変更前の状態を行ロックして取得（監査の変更前の値。削除まで他のトランザクションから変更されない）
+        ProductMaster previous = productMasterMapper.findByIdForUpdate(productId);
+        if (previous == null) {
             throw new IllegalArgumentException("Product with ID " + productId + " does not exist");
         }
+        productMasterMapper.deleteById(productId);
         
-        int result = productMasterMapper.deleteById(productId);
-        boolean success = result > 0;
-        
-        if (success) {
-            log.info("Product deleted successfully: {}", productId);
-        } else {
-            log.warn("Failed to delete product: {}", productId);
-        }
-        
-        return success;
+        // 変更を通知（キャッシュ等はコミット後に反映）
+        eventPublisher.publishEvent(new MasterDataChangeEvent(MasterType.PRODUCT, ChangeType.DELETED, productId, null, previous));
+        log.info("Product deleted successfully: {}", productId);
+        return true;
     }
     
     @Override
@@ -166,6 +618,17 @@ public class ProductMasterServiceImpl implements ProductMasterService {
         return productMasterMapper.existsById(productId);
     }
     
+    @Override
+    @Transactional(readOnly = true)
+    public void exportProducts(Consumer<ProductMaster> consumer) {
+        log.info("Exporting all products");
+        try (Cursor<ProductMaster> cursor = productMasterMapper.streamAll()) {
+            cursor.forEach(consumer);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
     /**
      * 商品情報のバリデーション
      * Validate product information
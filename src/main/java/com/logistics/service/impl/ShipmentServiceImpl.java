@@ -0,0 +1,237 @@
+package com.logistics.service.impl;
+
+import com.logistics.controller.dto.WaveAllocationResult;
+import com.logistics.entity.Inventory;
+import com.logistics.entity.ShipmentAllocation;
+import com.logistics.entity.ShipmentRecord;
+import com.logistics.mapper.InventoryMapper;
+import com.logistics.mapper.ShipmentRecordMapper;
+import com.logistics.service.ShipmentService;
+import com.logistics.service.inventory.InventoryLedger;
+import com.logistics.service.shipment.WaveAllocator;
+import com.logistics.service.shipment.WaveAllocator.LineAllocation;
+import com.logistics.service.support.BatchSqlSession;
+import com.logistics.service.support.IdAllocator;
+import com.logistics.service.support.IdAllocator.Sequence;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.cursor.Cursor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 出荷サービス実装クラス
+ * Shipment Service Implementation
+ * 
+ * ウェーブ引当は「PENDING行の読み込み→台帳上で並列に引当→チャンク単位でDBに反映」の順に行う。
+ * 在庫の減算は台帳の書き戻しを待たずに出荷記録・出荷引当と同じトランザクションでDBに反映する（異常終了しても両者は食い違わない）。
+ * A wave runs as: read the PENDING lines, allocate in parallel against the ledger, write back chunk by chunk.
+ * Stock decrements are written in the same transaction as the shipment records and allocations rather than through
+ * the ledger's write-behind, so a crash can never leave the two disagreeing.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ShipmentServiceImpl implements ShipmentService {
+    
+    private final ShipmentRecordMapper shipmentRecordMapper;
+    
+    private final BatchSqlSession batchSqlSession;
+    
+    private final TransactionTemplate transactionTemplate;
+    
+    private final InventoryLedger inventoryLedger;
+    
+    private final WaveAllocator waveAllocator;
+    
+    private final IdAllocator idAllocator;
+    
+    /**
+     * 同時に実行できるウェーブは1つのみ（同じ行を二重に引き当てないため）
+     * Only one wave at a time (so no line is allocated twice)
+     */
+    private final ReentrantLock waveLock = new ReentrantLock();
+    
+    /**
+     * 引当結果の反映チャンクサイズ（1チャンク1トランザクション）
+     * Write-back chunk size for allocation results (one transaction per chunk)
+     */
+    @Value("${app.shipment.allocation.batch-size:1000}")
+    private int batchSize;
+    
+    @Override
+    public WaveAllocationResult allocatePending() {
+        if (!inventoryLedger.isLoaded()) {
+            throw new IllegalStateException("Inventory ledger is still loading");
+        }
+        if (!waveLock.tryLock()) {
+            throw new IllegalStateException("Another allocation wave is already running");
+        }
+        try {
+            return runWave();
+        } finally {
+            waveLock.unlock();
+        }
+    }
+    
+    private WaveAllocationResult runWave() {
+        long start = System.nanoTime();
+        List<List<ShipmentRecord>> linesByProduct = loadPending();
+        long lines = linesByProduct.stream().mapToLong(List::size).sum();
+        long loadedAt = System.nanoTime();
+        
+        List<LineAllocation> allocations = waveAllocator.allocate(linesByProduct);
+        long allocatedAt = System.nanoTime();
+        
+        WaveAllocationResult result = WaveAllocationResult.builder()
+                .lines(lines)
+                .products(linesByProduct.size())
+                .build();
+        List<LineAllocation> chunk = new ArrayList<>(batchSize);
+        for (LineAllocation allocation : allocations) {
+            if (allocation.quantity() == 0) {
+                result.setUnallocatedLines(result.getUnallocatedLines() + 1);
+                continue;
+            }
+            chunk.add(allocation);
+            if (chunk.size() >= batchSize) {
+                writeChunk(chunk, result);
+            }
+        }
+        if (!chunk.isEmpty()) {
+            writeChunk(chunk, result);
+        }
+        
+        long end = System.nanoTime();
+        result.setElapsedMs((end - start) / 1_000_000);
+        result.setLinesPerSecond(end == start ? 0 : lines * 1_000_000_000.0 / (end - start));
+        log.info("Allocation wave: {} lines over {} products in {} ms ({} lines/s; load {} ms, allocate {} ms, write {} ms) - "
+                        + "allocated {}, partial {}, unallocated {}, stale {}, failed {}",
+                lines, result.getProducts(), result.getElapsedMs(), Math.round(result.getLinesPerSecond()),
+                (loadedAt - start) / 1_000_000, (allocatedAt - loadedAt) / 1_000_000, (end - allocatedAt) / 1_000_000,
+                result.getAllocatedLines(), result.getPartialLines(), result.getUnallocatedLines(),
+                result.getStaleLines(), result.getFailedLines());
+        return result;
+    }
+    
+    /**
+     * PENDING行を商品ごとにまとめて読み込む（読み込み順が商品順のため連続する行をまとめる）
+     * Read the PENDING lines grouped by product (rows arrive in product order, so consecutive rows are grouped)
+     */
+    private List<List<ShipmentRecord>> loadPending() {
+        List<List<ShipmentRecord>> linesByProduct = new ArrayList<>();
+        transactionTemplate.executeWithoutResult(status -> {
+            try (Cursor<ShipmentRecord> cursor = shipmentRecordMapper.streamPending()) {
+                List<ShipmentRecord> group = null;
+                for (ShipmentRecord line : cursor) {
+                    if (group == null || !group.get(0).getProductId().equals(line.getProductId())) {
+                        group = new ArrayList<>();
+                        linesByProduct.add(group);
+                    }
+                    group.add(line);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return linesByProduct;
+    }
+    
+    /**
+     * 1チャンクの引当結果と在庫の減算を1トランザクションのJDBCバッチで反映（失敗・他で変更済みの行は在庫を台帳に戻す）
+     * Write one chunk of allocations and its stock decrements as JDBC batches in one transaction
+     * (stock of failed or stale lines goes back to the ledger)
+     * 
+     * @param chunk 引当結果（処理後にクリア）
+     * @param result 集計（このチャンク分を加算）
+     */
+    private void writeChunk(List<LineAllocation> chunk, WaveAllocationResult result) {
+        Map<List<String>, Long> inventoryIds = inventoryIdsOf(chunk);
+        LocalDateTime now = LocalDateTime.now();
+        boolean[] stale = new boolean[chunk.size()];
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                ShipmentRecordMapper batchMapper = batchSqlSession.getMapper(ShipmentRecordMapper.class);
+                for (LineAllocation allocation : chunk) {
+                    ShipmentRecord line = allocation.line();
+                    batchMapper.allocate(line.getRecordId(), line.getAllocatedQty(), allocation.quantity());
+                }
+                int[] updated = batchSqlSession.flushUpdateCounts();
+                Map<List<String>, Inventory> decrements = new LinkedHashMap<>();
+                for (int i = 0; i < chunk.size(); i++) {
+                    if (updated[i] == 0) {
+                        stale[i] = true;
+                        continue;
+                    }
+                    LineAllocation allocation = chunk.get(i);
+                    String productId = allocation.line().getProductId();
+                    for (ShipmentAllocation pick : allocation.picks()) {
+                        batchMapper.mergeAllocation(pick);
+                        List<String> cell = List.of(productId, pick.getLocationId());
+                        Inventory decrement = decrements.computeIfAbsent(cell, key -> Inventory.builder()
+                                .inventoryId(inventoryIds.get(key))
+                                .productId(productId)
+                                .locationId(pick.getLocationId())
+                                .quantity(0L)
+                                .lastUpdated(now)
+                                .build());
+                        decrement.setQuantity(decrement.getQuantity() - pick.getAllocatedQty());
+                    }
+                }
+                InventoryMapper batchInventory = batchSqlSession.getMapper(InventoryMapper.class);
+                decrements.values().forEach(batchInventory::mergeDelta);
+                batchSqlSession.flushStatements();
+            });
+        } catch (DataAccessException e) {
+            log.error("Failed to write allocation chunk of {} lines, returning stock to the ledger", chunk.size(), e);
+            chunk.forEach(waveAllocator::release);
+            result.setFailedLines(result.getFailedLines() + chunk.size());
+            chunk.clear();
+            return;
+        }
+        
+        for (int i = 0; i < chunk.size(); i++) {
+            LineAllocation allocation = chunk.get(i);
+            if (stale[i]) {
+                waveAllocator.release(allocation);
+                result.setStaleLines(result.getStaleLines() + 1);
+                continue;
+            }
+            result.setAllocatedQty(result.getAllocatedQty() + allocation.quantity());
+            if (allocation.isComplete()) {
+                result.setAllocatedLines(result.getAllocatedLines() + 1);
+            } else {
+                result.setPartialLines(result.getPartialLines() + 1);
+            }
+        }
+        chunk.clear();
+    }
+    
+    /**
+     * 引き当てた商品×ロケーションごとの在庫ID（DBに行が無い場合に登録するID、採番はトランザクションの外で行う）
+     * Inventory ID of every product and location allocated from (used to insert a missing row; assigned outside the transaction)
+     */
+    private Map<List<String>, Long> inventoryIdsOf(List<LineAllocation> chunk) {
+        Map<List<String>, Long> inventoryIds = new HashMap<>();
+        for (LineAllocation allocation : chunk) {
+            String productId = allocation.line().getProductId();
+            for (ShipmentAllocation pick : allocation.picks()) {
+                inventoryIds.computeIfAbsent(List.of(productId, pick.getLocationId()), key -> inventoryLedger.inventoryIdFor(
+                        productId, pick.getLocationId(), () -> idAllocator.next(Sequence.INVENTORY_SEQ)));
+            }
+        }
+        return inventoryIds;
+    }
+}
@@ -0,0 +1,578 @@
+package com.logistics.service.impl;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import com.logistics.controller.dto.BatchRowResult;
+import com.logistics.controller.dto.StocktakeCompletion;
+import com.logistics.controller.dto.StocktakeCountResult;
+import com.logistics.entity.Inventory;
+import com.logistics.entity.StocktakeRecord;
+import com.logistics.mapper.InventoryMapper;
+import com.logistics.mapper.StocktakeRecordMapper;
+import com.logistics.service.StocktakeService;
+import com.logistics.service.audit.AuditTrail;
+import com.logistics.service.inventory.InventoryLedger;
+import com.logistics.service.stocktake.InventorySnapshot;
+import com.logistics.service.support.BatchSqlSession;
+import com.logistics.service.support.IdAllocator;
+import com.logistics.service.support.IdAllocator.Sequence;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 棚卸サービス実装クラス
+ * Stocktake Service Implementation
+ * 
+ * 取込中のメモリは在庫スナップショットと、パーティションごとの上限付きキュー・チャンクのみで、CSVの大きさには比例しない。
+ * キューが満杯の場合はCSVの読み込みがワーカーを待つ。
+ * While uploading, memory holds only the inventory snapshot plus a bounded queue and chunk per partition,
+ * independent of the CSV size. Reading the CSV waits for the workers whenever a queue is full.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class StocktakeServiceImpl implements StocktakeService {
+    
+    private static final CsvMapper CSV_MAPPER = new CsvMapper();
+    
+    /**
+     * 理由のバイト数の上限（STOCKTAKE_RECORD.REASONに合わせる）
+     * Byte limit of the reason (matches STOCKTAKE_RECORD.REASON)
+     */
+    private static final int MAX_REASON_BYTES = 200;
+    
+    /**
+     * キューの終端（読み込み完了の通知）
+     * End of queue (signals that reading has finished)
+     */
+    private static final CountRow END = new CountRow(0, null, null, 0, null);
+    
+    private final StocktakeRecordMapper stocktakeRecordMapper;
+    
+    private final BatchSqlSession batchSqlSession;
+    
+    private final TransactionTemplate transactionTemplate;
+    
+    private final InventoryLedger inventoryLedger;
+    
+    private final IdAllocator idAllocator;
+    
+    private final AuditTrail auditTrail;
+    
+    private final AsyncTaskExecutor stocktakeExecutor;
+    
+    /**
+     * 同時に実行できる棚卸処理は1つのみ（取込と完了が重ならないように）
+     * Only one stocktake operation at a time (so uploads and completion never overlap)
+     */
+    private final ReentrantLock stocktakeLock = new ReentrantLock();
+    
+    /**
+     * パーティション数（ロケーション範囲の数、ワーカースレッド数）
+     * Number of partitions (location ranges and worker threads)
+     */
+    @Value("${app.stocktake.partitions:4}")
+    private int partitions;
+    
+    /**
+     * 明細の登録・完了のチャンクサイズ（1チャンク1トランザクション）
+     * Chunk size for recording and completing lines (one transaction per chunk)
+     */
+    @Value("${app.stocktake.chunk-size:1000}")
+    private int chunkSize;
+    
+    /**
+     * パーティションごとのキュー容量
+     * Queue capacity per partition
+     */
+    @Value("${app.stocktake.queue-capacity:1000}")
+    private int queueCapacity;
+    
+    @Value("${app.import.max-errors:1000}")
+    private int maxErrors;
+    
+    @Override
+    public StocktakeCountResult recordCounts(String stocktakeNo, InputStream csv) {
+        requireStocktakeNo(stocktakeNo);
+        requireLoaded();
+        if (!stocktakeLock.tryLock()) {
+            throw new IllegalStateException("Another stocktake operation is already running");
+        }
+        try {
+            return reconcile(stocktakeNo, csv);
+        } finally {
+            stocktakeLock.unlock();
+        }
+    }
+    
+    private StocktakeCountResult reconcile(String stocktakeNo, InputStream csv) {
+        if (stocktakeRecordMapper.countByStatus(stocktakeNo, "COMPLETED") > 0) {
+            throw new IllegalArgumentException("Stocktake " + stocktakeNo + " has already been completed");
+        }
+        long start = System.nanoTime();
+        
+        // 台帳のセルから一時点の値として読み込む（完了処理は差異を台帳の現在数量に加えるため、DBの書き戻し状況に左右されない基準にする）
+        InventorySnapshot snapshot = InventorySnapshot.load(inventoryLedger::snapshot, partitions);
+        
+        CountTally tally = new CountTally(maxErrors);
+        LocalDateTime now = LocalDateTime.now();
+        List<BlockingQueue<CountRow>> queues = new ArrayList<>();
+        List<Future<?>> workers = new ArrayList<>();
+        for (int i = 0; i < snapshot.partitions(); i++) {
+            BlockingQueue<CountRow> queue = new ArrayBlockingQueue<>(queueCapacity);
+            queues.add(queue);
+            workers.add(stocktakeExecutor.submit(() -> {
+                reconcilePartition(stocktakeNo, snapshot, queue, tally, now);
+                return null;
+            }));
+        }
+        
+        try {
+            readCounts(csv, snapshot, queues, workers, tally);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            workers.forEach(worker -> worker.cancel(true));
+            throw new IllegalStateException("Stocktake upload interrupted", e);
+        } catch (RuntimeException e) {
+            workers.forEach(worker -> worker.cancel(true));
+            throw e;
+        }
+        awaitWorkers(workers);
+        
+        tally.errors.sort(Comparator.comparingLong(BatchRowResult::getIndex));
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+        log.info("Stocktake {} counts: {} rows, {} recorded ({} with differences), {} failed against {} inventory rows "
+                        + "in {} partitions in {} ms",
+                stocktakeNo, tally.total, tally.recorded, tally.differences, tally.failed, snapshot.rows(),
+                snapshot.partitions(), elapsedMs);
+        return StocktakeCountResult.builder()
+                .stocktakeNo(stocktakeNo)
+                .total(tally.total)
+                .recorded(tally.recorded)
+                .failed(tally.failed)
+                .differences(tally.differences)
+                .snapshotRows(snapshot.rows())
+                .partitions(snapshot.partitions())
+                .elapsedMs(elapsedMs)
+                .errors(tally.errors)
+                .errorsTruncated(tally.failed > tally.errors.size())
+                .build();
+    }
+    
+    /**
+     * CSVを1行ずつ読み込み、ロケーションの属するパーティションのキューに積む（最後に各キューへ終端を積む）
+     * Read the CSV row by row into the queue of each row's location partition (ending every queue with END)
+     */
+    private void readCounts(InputStream csv, InventorySnapshot snapshot, List<BlockingQueue<CountRow>> queues,
+                            List<Future<?>> workers, CountTally tally) throws InterruptedException {
+        try (MappingIterator<Map<String, String>> rows = CSV_MAPPER.readerForMapOf(String.class)
+                .with(CsvSchema.emptySchema().withHeader())
+                .readValues(csv)) {
+            CsvSchema header = (CsvSchema) rows.getParserSchema();
+            if (header.column("productId") == null || header.column("locationId") == null || header.column("countedQty") == null) {
+                throw new IllegalArgumentException("CSV header must include productId, locationId and countedQty");
+            }
+            while (rows.hasNextValue()) {
+                Map<String, String> row = rows.nextValue();
+                tally.total++;
+                long line = tally.total + 1; // ヘッダーが1行目
+                CountRow count;
+                try {
+                    count = toCount(line, row);
+                } catch (IllegalArgumentException e) {
+                    tally.fail(line, row.get("productId") + "/" + row.get("locationId"), e.getMessage());
+                    continue;
+                }
+                int partition = snapshot.partitionOf(count.locationId());
+                put(queues.get(partition), count, workers.get(partition));
+            }
+        } catch (IOException e) {
+            // CSVの構文エラーは以降の行を読めないため、そこまでの結果で打ち切る
+            log.warn("Stocktake upload stopped at row {}: {}", tally.total, e.getMessage());
+            tally.fail(tally.total + 1, null, "Unreadable CSV, upload stopped: " + e.getMessage());
+        } finally {
+            for (int i = 0; i < queues.size(); i++) {
+                if (!workers.get(i).isDone()) {
+                    put(queues.get(i), END, workers.get(i));
+                }
+            }
+        }
+    }
+    
+    /**
+     * キューに積む（満杯の間は待つが、ワーカーが異常終了していれば中止）
+     * Put a row on a queue (waiting while it is full, but giving up if its worker has died)
+     */
+    private static void put(BlockingQueue<CountRow> queue, CountRow row, Future<?> worker) throws InterruptedException {
+        while (!queue.offer(row, 100, TimeUnit.MILLISECONDS)) {
+            if (worker.isDone()) {
+                throw new IllegalStateException("Stocktake partition worker stopped unexpectedly");
+            }
+        }
+    }
+    
+    private static void awaitWorkers(List<Future<?>> workers) {
+        for (Future<?> worker : workers) {
+            try {
+                worker.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Stocktake upload interrupted", e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException runtime) {
+                    throw runtime;
+                }
+                throw new IllegalStateException("Stocktake partition worker failed", e.getCause());
+            }
+        }
+    }
+    
+    /**
+     * 1パーティションのワーカー：キューの実棚数をスナップショットと比較し、チャンク単位で明細を登録
+     * Partition worker: compares queued counts with the snapshot and records the lines chunk by chunk
+     */
+    private void reconcilePartition(String stocktakeNo, InventorySnapshot snapshot, BlockingQueue<CountRow> queue,
+                                    CountTally tally, LocalDateTime now) throws InterruptedException {
+        List<StocktakeRecord> chunk = new ArrayList<>(chunkSize);
+        List<Long> lines = new ArrayList<>(chunkSize);
+        while (true) {
+            CountRow count = queue.take();
+            if (count == END) {
+                break;
+            }
+            long systemQty = snapshot.quantity(count.productId(), count.locationId());
+            chunk.add(StocktakeRecord.builder()
+                    .stocktakeId(idAllocator.next(Sequence.STOCKTAKE_SEQ))
+                    .stocktakeNo(stocktakeNo)
+                    .productId(count.productId())
+                    .locationId(count.locationId())
+                    .systemQty(systemQty)
+                    .countedQty(count.countedQty())
+                    .differenceQty(count.countedQty() - systemQty)
+                    .reason(count.reason())
+                    .stocktakeDate(now.toLocalDate())
+                    .createdAt(now)
+                    .build());
+            lines.add(count.line());
+            if (chunk.size() >= chunkSize) {
+                writeChunk(chunk, lines, tally);
+            }
+        }
+        if (!chunk.isEmpty()) {
+            writeChunk(chunk, lines, tally);
+        }
+    }
+    
+    /**
+     * 1チャンクをJDBCバッチで登録し、失敗時は1行ずつ登録し直して失敗行を特定
+     * Write one chunk as a JDBC batch; if it fails, retry row by row to pinpoint the bad lines
+     * 
+     * @param chunk 登録対象（処理後にクリア）
+     * @param lines 各行のCSV行番号（処理後にクリア）
+     * @param tally 集計
+     */
+    private void writeChunk(List<StocktakeRecord> chunk, List<Long> lines, CountTally tally) {
+        try {
+            int[] updated = transactionTemplate.execute(status -> {
+                StocktakeRecordMapper batchMapper = batchSqlSession.getMapper(StocktakeRecordMapper.class);
+                chunk.forEach(batchMapper::merge);
+                return batchSqlSession.flushUpdateCounts();
+            });
+            for (int i = 0; i < chunk.size(); i++) {
+                tally.recorded(chunk.get(i), lines.get(i), updated[i] > 0);
+            }
+        } catch (DataAccessException e) {
+            log.debug("Stocktake batch failed, retrying chunk row by row", e);
+            for (int i = 0; i < chunk.size(); i++) {
+                StocktakeRecord record = chunk.get(i);
+                try {
+                    Integer updated = transactionTemplate.execute(status -> stocktakeRecordMapper.merge(record));
+                    tally.recorded(record, lines.get(i), updated != null && updated > 0);
+                } catch (DataIntegrityViolationException ex) {
+                    tally.fail(lines.get(i), record.getProductId() + "/" + record.getLocationId(),
+                            "Product " + record.getProductId() + " or location " + record.getLocationId() + " does not exist");
+                } catch (DataAccessException ex) {
+                    tally.fail(lines.get(i), record.getProductId() + "/" + record.getLocationId(),
+                            ex.getMostSpecificCause().getMessage());
+                }
+            }
+        }
+        chunk.clear();
+        lines.clear();
+    }
+    
+    /**
+     * CSVの1行を実棚数に変換
+     * Convert one CSV row to a count
+     */
+    private static CountRow toCount(long line, Map<String, String> row) {
+        String productId = blankToNull(row.get("productId"));
+        String locationId = blankToNull(row.get("locationId"));
+        String counted = blankToNull(row.get("countedQty"));
+        String reason = blankToNull(row.get("reason"));
+        if (productId == null || locationId == null) {
+            throw new IllegalArgumentException("Product ID and location ID are required");
+        }
+        if (counted == null) {
+            throw new IllegalArgumentException("Counted quantity is required");
+        }
+        long countedQty;
+        try {
+            countedQty = Long.parseLong(counted);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Counted quantity must be an integer: " + counted);
+        }
+        if (countedQty < 0) {
+            throw new IllegalArgumentException("Counted quantity cannot be negative");
+        }
+        if (reason != null && reason.getBytes(StandardCharsets.UTF_8).length > MAX_REASON_BYTES) {
+            throw new IllegalArgumentException("Reason cannot exceed " + MAX_REASON_BYTES + " bytes");
+        }
+        return new CountRow(line, productId, locationId, countedQty, reason);
+    }
+    
+    @Override
+    public StocktakeCompletion completeStocktake(String stocktakeNo) {
+        requireStocktakeNo(stocktakeNo);
+        requireLoaded();
+        if (!stocktakeLock.tryLock()) {
+            throw new IllegalStateException("Another stocktake operation is already running");
+        }
+        try {
+            return complete(stocktakeNo);
+        } finally {
+            stocktakeLock.unlock();
+        }
+    }
+    
+    private StocktakeCompletion complete(String stocktakeNo) {
+        if (stocktakeRecordMapper.countByStatus(stocktakeNo, "PENDING") == 0) {
+            if (stocktakeRecordMapper.countByStatus(stocktakeNo, "COMPLETED") == 0) {
+                throw new IllegalArgumentException("Stocktake " + stocktakeNo + " does not exist");
+            }
+            throw new IllegalArgumentException("Stocktake " + stocktakeNo + " has already been completed");
+        }
+        long start = System.nanoTime();
+        StocktakeCompletion result = StocktakeCompletion.builder().stocktakeNo(stocktakeNo).build();
+        
+        long afterId = 0;
+        while (true) {
+            List<StocktakeRecord> page = stocktakeRecordMapper.findPending(stocktakeNo, afterId, chunkSize);
+            if (page.isEmpty()) {
+                break;
+            }
+            afterId = page.get(page.size() - 1).getStocktakeId();
+            completeChunk(page, result);
+        }
+        
+        result.setElapsedMs((System.nanoTime() - start) / 1_000_000);
+        auditTrail.record("STOCKTAKE_RECORD", "COMPLETED", stocktakeNo,
+                Map.of("status", "PENDING"),
+                Map.of("status", "COMPLETED", "lines", result.getCompleted(), "adjusted", result.getAdjusted(),
+                        "skipped", result.getSkipped(), "netAdjustment", result.getNetAdjustment()));
+        log.info("Stocktake {} completed: {} lines, {} adjusted (net {}), {} skipped in {} ms",
+                stocktakeNo, result.getCompleted(), result.getAdjusted(), result.getNetAdjustment(),
+                result.getSkipped(), result.getElapsedMs());
+        return result;
+    }
+    
+    /**
+     * 1チャンクの明細を完了にし、差異を在庫に加算（同一トランザクション）
+     * Complete one chunk of lines and add their differences to stock (one transaction)
+     * 
+     * 減らす差異は書き込み前に台帳から引き当てておき（同時の出荷引当で0未満にならないよう）、ロールバック時は戻す。
+     * 増やす差異はコミット後に台帳へ反映済みとして加える。
+     * Decreases are reserved from the ledger before writing (so a concurrent pick cannot push the cell below zero)
+     * and put back on rollback; increases are added to the ledger as already written once the transaction commits.
+     */
+    private void completeChunk(List<StocktakeRecord> page, StocktakeCompletion result) {
+        List<StocktakeRecord> lines = new ArrayList<>(page.size());
+        for (StocktakeRecord line : page) {
+            long difference = line.getDifferenceQty();
+            if (difference < 0) {
+                long reserved = inventoryLedger.takeWritten(line.getProductId(), line.getLocationId(), -difference);
+                if (reserved < -difference) {
+                    if (reserved > 0) {
+                        inventoryLedger.putBack(line.getProductId(), line.getLocationId(), reserved);
+                    }
+                    log.warn("Stocktake line {} left pending: {} @ {} has {} now, difference {}", line.getStocktakeId(),
+                            line.getProductId(), line.getLocationId(), reserved, difference);
+                    result.setSkipped(result.getSkipped() + 1);
+                    continue;
+                }
+            }
+            lines.add(line);
+        }
+        if (lines.isEmpty()) {
+            return;
+        }
+        
+        LocalDateTime now = LocalDateTime.now();
+        Inventory[] increments;
+        try {
+            increments = transactionTemplate.execute(status -> {
+                StocktakeRecordMapper batchStocktake = batchSqlSession.getMapper(StocktakeRecordMapper.class);
+                for (StocktakeRecord line : lines) {
+                    batchStocktake.complete(line.getStocktakeId());
+                }
+                int[] updated = batchSqlSession.flushUpdateCounts();
+                
+                Inventory[] applied = new Inventory[lines.size()];
+                InventoryMapper batchInventory = batchSqlSession.getMapper(InventoryMapper.class);
+                for (int i = 0; i < lines.size(); i++) {
+                    StocktakeRecord line = lines.get(i);
+                    if (updated[i] == 0) {
+                        continue;
+                    }
+                    // 差異0の明細も完了として数える（在庫は変えない）
+                    Inventory increment = Inventory.builder()
+                            .productId(line.getProductId())
+                            .locationId(line.getLocationId())
+                            .quantity(line.getDifferenceQty())
+                            .lastUpdated(now)
+                            .build();
+                    if (line.getDifferenceQty() != 0) {
+                        increment.setInventoryId(inventoryLedger.inventoryIdFor(line.getProductId(), line.getLocationId(),
+                                () -> idAllocator.next(Sequence.INVENTORY_SEQ)));
+                        batchInventory.mergeDelta(increment);
+                    }
+                    applied[i] = increment;
+                }
+                batchSqlSession.flushStatements();
+                return applied;
+            });
+        } catch (RuntimeException e) {
+            releaseReservations(lines, new Inventory[lines.size()]);
+            throw e;
+        }
+        
+        // 他で完了済みだった明細の引当は戻す
+        releaseReservations(lines, increments);
+        for (Inventory increment : increments) {
+            if (increment == null) {
+                continue;
+            }
+            result.setCompleted(result.getCompleted() + 1);
+            if (increment.getQuantity() == 0) {
+                continue;
+            }
+            if (increment.getQuantity() > 0) {
+                inventoryLedger.applyWritten(increment.getProductId(), increment.getLocationId(),
+                        increment.getQuantity(), increment.getInventoryId());
+            }
+            result.setAdjusted(result.getAdjusted() + 1);
+            result.setNetAdjustment(result.getNetAdjustment() + increment.getQuantity());
+        }
+    }
+    
+    /**
+     * 反映されなかった明細（incrementsがnull）の減らす差異の引当を台帳に戻す
+     * Put back the reserved decreases of the lines that were not applied (null in increments)
+     * 
+     * @param lines 明細
+     * @param increments 明細ごとの反映結果（未反映はnull）
+     */
+    private void releaseReservations(List<StocktakeRecord> lines, Inventory[] increments) {
+        for (int i = 0; i < lines.size(); i++) {
+            StocktakeRecord line = lines.get(i);
+            if (increments[i] == null && line.getDifferenceQty() < 0) {
+                inventoryLedger.putBack(line.getProductId(), line.getLocationId(), -line.getDifferenceQty());
+            }
+        }
+    }
+    
+    private static String blankToNull(String value) {
+        return value == null || value.trim().isEmpty() ? null : value.trim();
+    }
+    
+    private static void requireStocktakeNo(String stocktakeNo) {
+        if (stocktakeNo == null || stocktakeNo.trim().isEmpty()) {
+            throw new IllegalArgumentException("Stocktake number cannot be null or empty");
+        }
+        if (stocktakeNo.length() > 20) {
+            throw new IllegalArgumentException("Stocktake number cannot exceed 20 characters");
+        }
+    }
+    
+    private void requireLoaded() {
+        if (!inventoryLedger.isLoaded()) {
+            throw new IllegalStateException("Inventory ledger is still loading");
+        }
+    }
+    
+    /**
+     * 実棚数（CSVの1行）
+     * Counted quantity (one CSV row)
+     */
+    private record CountRow(long line, String productId, String locationId, long countedQty, String reason) {
+    }
+    
+    /**
+     * 取込の集計（読み込み件数は読み込みスレッドのみ、それ以外はワーカーから同期して更新）
+     * Upload tally (rows read is touched only by the reader; everything else is updated by workers under a lock)
+     */
+    private static final class CountTally {
+        
+        private final int maxErrors;
+        
+        private final List<BatchRowResult> errors = new ArrayList<>();
+        
+        private long total;
+        
+        private long recorded;
+        
+        private long failed;
+        
+        private long differences;
+        
+        CountTally(int maxErrors) {
+            this.maxErrors = maxErrors;
+        }
+        
+        synchronized void recorded(StocktakeRecord record, long line, boolean applied) {
+            if (!applied) {
+                fail(line, record.getProductId() + "/" + record.getLocationId(), "Stocktake line has already been completed");
+                return;
+            }
+            recorded++;
+            if (record.getDifferenceQty() != 0) {
+                differences++;
+            }
+        }
+        
+        synchronized void fail(long line, String id, String message) {
+            failed++;
+            if (errors.size() < maxErrors) {
+                errors.add(BatchRowResult.builder()
+                        .index(line)
+                        .id(id)
+                        .status(BatchRowResult.Status.FAILED)
+                        .message(message)
+                        .build());
+            }
+        }
+    }
+}
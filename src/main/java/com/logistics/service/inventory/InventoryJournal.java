@@ -0,0 +1,460 @@
+package com.logistics.service.inventory;
+
+import com.logistics.entity.Inventory;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 在庫台帳の差分ジャーナル（ローカルファイル）
+ * Inventory Ledger Delta Journal (local files)
+ * 
+ * 台帳に積まれた差分をセグメントファイルに追記し、差分の取り出しごとに次のセグメントへ切り替える。
+ * セグメントはバッチIDを名前に持ち、そのバッチのDB反映が確定したら削除する。
+ * Appends every delta put into the ledger to a segment file and switches to the next segment on each drain.
+ * A segment is named after its batch ID and deleted once that batch is known to be in the DB.
+ * 
+ * 追記は呼び出し元でレコードを組み立ててセグメントのロックなしキューに積むだけで、書き込みスレッドが
+ * app.inventory.journal.write-interval-msごとにまとめて1回の書き込みでOSのページキャッシュまで書く。
+ * プロセスの異常終了で失われ得るのは直近の間隔分のみで、閉じたセグメントは残りを書いてディスクへ同期してから反映する。
+ * Appending only builds the record on the calling thread and puts it on the segment's lock-free queue; a writer thread
+ * writes the queued records to the OS page cache with one gathering write every app.inventory.journal.write-interval-ms.
+ * A process crash can lose at most the last interval; a closed segment gets its remaining records written and is
+ * synced to disk before its batch is written to the DB.
+ * 
+ * レコード形式：商品IDのバイト長(2) + 商品ID(UTF-8) + ロケーションIDのバイト長(2) + ロケーションID(UTF-8) + 増減数(8)
+ * Record layout: product ID length (2) + product ID (UTF-8) + location ID length (2) + location ID (UTF-8) + delta (8)
+ */
+@Component
+@Slf4j
+public class InventoryJournal implements InventoryLedger.DeltaJournal {
+    
+    private static final String PREFIX = "inventory-";
+    
+    private static final String SUFFIX = ".journal";
+    
+    /**
+     * 1回の書き込みにまとめる最大レコード数（OSのiovec上限以下）
+     * Maximum records per gathering write (within the OS iovec limit)
+     */
+    private static final int MAX_GATHER = 512;
+    
+    private final boolean enabled;
+    
+    private final Path directory;
+    
+    private final long writeIntervalMs;
+    
+    private final AtomicLong appended = new AtomicLong();
+    
+    private final AtomicLong writeFailures = new AtomicLong();
+    
+    /**
+     * 最後に割り当てたバッチID
+     * Last batch ID handed out
+     */
+    private long lastBatchId;
+    
+    private long currentBatchId;
+    
+    private volatile OpenSegment current;
+    
+    /**
+     * 切り替え済みでディスク同期前のセグメント
+     * Segment that has been switched away from but not yet synced to disk
+     */
+    private OpenSegment closing;
+    
+    private Thread writer;
+    
+    private volatile boolean running;
+    
+    public InventoryJournal(@Value("${app.inventory.journal.enabled:true}") boolean enabled,
+                            @Value("${app.inventory.journal.dir:data/inventory-journal}") String directory,
+                            @Value("${app.inventory.journal.write-interval-ms:2}") long writeIntervalMs) {
+        this.enabled = enabled;
+        this.directory = Paths.get(directory);
+        this.writeIntervalMs = writeIntervalMs;
+    }
+    
+    /**
+     * 前回の実行で残ったセグメントを読み込む（反映が確定していないバッチ、バッチID順）
+     * Read the segments left by the previous run (batches not known to be in the DB, in batch ID order)
+     * 
+     * @return セグメントごとの差分（同じ商品×ロケーションは合算済み、在庫IDは未設定）
+     * @return Deltas per segment (summed per product and location; inventory IDs are not set)
+     */
+    public synchronized List<Segment> recover() {
+        List<Segment> segments = new ArrayList<>();
+        if (!enabled) {
+            return segments;
+        }
+        try {
+            Files.createDirectories(directory);
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, PREFIX + "*" + SUFFIX)) {
+                for (Path file : files) {
+                    long batchId = batchIdOf(file);
+                    lastBatchId = Math.max(lastBatchId, batchId);
+                    segments.add(new Segment(batchId, read(file)));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read inventory journal in " + directory, e);
+        }
+        segments.sort(Comparator.comparingLong(Segment::batchId));
+        return segments;
+    }
+    
+    /**
+     * 最初のセグメントを開いて書き込みスレッドを開始（recoverの後、台帳に接続する前に呼ぶ）
+     * Open the first segment and start the writer thread (call after recover and before attaching to the ledger)
+     */
+    public synchronized void open() {
+        currentBatchId = nextBatchId();
+        current = openSegment(currentBatchId);
+        if (current != null && writer == null) {
+            running = true;
+            writer = new Thread(this::writeLoop, "inventory-journal-writer");
+            writer.setDaemon(true);
+            writer.start();
+        }
+    }
+    
+    @Override
+    public void append(String productId, String locationId, long delta) {
+        OpenSegment segment = current;
+        if (segment == null) {
+            return;
+        }
+        byte[] product = productId.getBytes(StandardCharsets.UTF_8);
+        byte[] location = locationId.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer record = ByteBuffer.allocate(2 + product.length + 2 + location.length + 8);
+        record.putShort((short) product.length).put(product)
+                .putShort((short) location.length).put(location)
+                .putLong(delta)
+                .flip();
+        segment.records.add(record);
+    }
+    
+    @Override
+    public synchronized long rotate() {
+        long closed = currentBatchId;
+        long next = nextBatchId();
+        if (current != null) {
+            // 次のセグメントを開けない場合は切り替えず、取り出しも行わない（呼び出し元へ例外を伝える）
+            OpenSegment opened = openSegment(next);
+            if (closing != null) {
+                finish(closing, false);
+            }
+            closing = current;
+            current = opened;
+        }
+        currentBatchId = next;
+        return closed;
+    }
+    
+    /**
+     * 切り替え済みのセグメントの残りを書いてディスクに同期し、閉じる（台帳のロック外で、バッチの反映前に呼ぶ）
+     * Write the rest of the switched-away segment, sync it to disk and close it
+     * (call outside the ledger lock, before writing the batch)
+     */
+    public void sync() {
+        OpenSegment segment;
+        synchronized (this) {
+            segment = closing;
+            closing = null;
+        }
+        if (segment != null) {
+            finish(segment, true);
+        }
+    }
+    
+    /**
+     * 現在のセグメントに積まれたレコードを書き込む（書き込みスレッドが一定間隔で呼ぶ）
+     * Write the records queued on the current segment (called by the writer thread at a fixed interval)
+     */
+    public void writePending() {
+        OpenSegment segment = current;
+        if (segment != null) {
+            segment.lock.lock();
+            try {
+                if (!segment.closed) {
+                    writeQueued(segment);
+                }
+            } finally {
+                segment.lock.unlock();
+            }
+        }
+    }
+    
+    /**
+     * 書き込みスレッドを止め、現在のセグメントの残りを書いてディスクに同期する
+     * Stop the writer thread, then write the rest of the current segment and sync it to disk
+     */
+    @PreDestroy
+    public void close() {
+        Thread thread;
+        synchronized (this) {
+            thread = writer;
+            writer = null;
+            running = false;
+        }
+        if (thread != null) {
+            LockSupport.unpark(thread);
+            try {
+                thread.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        sync();
+        OpenSegment segment;
+        synchronized (this) {
+            segment = current;
+            current = null;
+        }
+        if (segment != null) {
+            finish(segment, true);
+        }
+    }
+    
+    private void writeLoop() {
+        long intervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, writeIntervalMs));
+        while (running) {
+            LockSupport.parkNanos(intervalNanos);
+            try {
+                writePending();
+            } catch (RuntimeException e) {
+                log.error("Inventory journal writer failed", e);
+            }
+        }
+    }
+    
+    /**
+     * セグメントの残りを書き、必要ならディスクに同期して閉じる（以降の書き込みは行わない）
+     * Write the rest of a segment, optionally sync it to disk, and close it (nothing is written to it afterwards)
+     */
+    private void finish(OpenSegment segment, boolean force) {
+        segment.lock.lock();
+        try {
+            if (segment.closed) {
+                return;
+            }
+            writeQueued(segment);
+            if (force) {
+                segment.channel.force(false);
+            }
+        } catch (IOException e) {
+            writeFailures.incrementAndGet();
+            log.error("Failed to sync inventory journal segment {}", segment.batchId, e);
+        } finally {
+            segment.closed = true;
+            closeQuietly(segment.channel);
+            segment.lock.unlock();
+        }
+    }
+    
+    /**
+     * キューのレコードを最大MAX_GATHER件ずつ1回の書き込みで書く（segment.lockを保持して呼ぶ）
+     * Write the queued records, up to MAX_GATHER per gathering write (call while holding segment.lock)
+     */
+    private void writeQueued(OpenSegment segment) {
+        ByteBuffer[] gather = new ByteBuffer[MAX_GATHER];
+        while (true) {
+            int count = 0;
+            ByteBuffer record;
+            while (count < MAX_GATHER && (record = segment.records.poll()) != null) {
+                gather[count++] = record;
+            }
+            if (count == 0) {
+                return;
+            }
+            try {
+                int offset = 0;
+                while (offset < count) {
+                    segment.channel.write(gather, offset, count - offset);
+                    while (offset < count && !gather[offset].hasRemaining()) {
+                        offset++;
+                    }
+                }
+                appended.addAndGet(count);
+            } catch (IOException e) {
+                writeFailures.addAndGet(count);
+                // 同じセグメントでの失敗は最初の1回のみ記録
+                if (!segment.failed) {
+                    segment.failed = true;
+                    log.error("Failed to append to inventory journal segment {}", segment.batchId, e);
+                }
+            }
+        }
+    }
+    
+    /**
+     * DBへの反映が確定したバッチのセグメントを削除
+     * Delete the segment of a batch that is known to be in the DB
+     * 
+     * @param batchId バッチID
+     */
+    public void delete(long batchId) {
+        if (!enabled) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(segmentPath(batchId));
+        } catch (IOException e) {
+            log.warn("Failed to delete inventory journal segment {}", batchId, e);
+        }
+    }
+    
+    /**
+     * 追記件数の累計
+     * Total records appended
+     */
+    public long getAppended() {
+        return appended.get();
+    }
+    
+    /**
+     * 追記・同期の失敗回数
+     * Number of failed appends and syncs
+     */
+    public long getWriteFailures() {
+        return writeFailures.get();
+    }
+    
+    /**
+     * 次のバッチID（時刻ベース：再起動後も前回のIDと重複しない）
+     * Next batch ID (time based, so it never repeats an ID from a previous run)
+     */
+    private long nextBatchId() {
+        lastBatchId = Math.max(lastBatchId + 1, System.currentTimeMillis() * 1000);
+        return lastBatchId;
+    }
+    
+    private OpenSegment openSegment(long batchId) {
+        if (!enabled) {
+            return null;
+        }
+        try {
+            Files.createDirectories(directory);
+            return new OpenSegment(batchId, FileChannel.open(segmentPath(batchId),
+                    StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE, StandardOpenOption.APPEND));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open inventory journal segment " + batchId, e);
+        }
+    }
+    
+    private Path segmentPath(long batchId) {
+        return directory.resolve(PREFIX + batchId + SUFFIX);
+    }
+    
+    private static long batchIdOf(Path file) {
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+    
+    private static List<Inventory> read(Path file) throws IOException {
+        Map<String, Inventory> totals = new LinkedHashMap<>();
+        ByteBuffer data = ByteBuffer.wrap(Files.readAllBytes(file));
+        while (data.hasRemaining()) {
+            int start = data.position();
+            try {
+                String productId = readString(data);
+                String locationId = readString(data);
+                long delta = data.getLong();
+                Inventory total = totals.computeIfAbsent(productId + '\u0000' + locationId, k -> Inventory.builder()
+                        .productId(productId)
+                        .locationId(locationId)
+                        .quantity(0L)
+                        .build());
+                total.setQuantity(total.getQuantity() + delta);
+            } catch (BufferUnderflowException e) {
+                // 異常終了で途中まで書かれた最後のレコードは反映されていないため無視する
+                log.warn("Ignoring truncated record at offset {} of {}", start, file);
+                break;
+            }
+        }
+        List<Inventory> deltas = new ArrayList<>(totals.size());
+        for (Inventory delta : totals.values()) {
+            if (delta.getQuantity() != 0) {
+                deltas.add(delta);
+            }
+        }
+        return deltas;
+    }
+    
+    private static String readString(ByteBuffer data) {
+        byte[] bytes = new byte[data.getShort()];
+        data.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+    
+    private static void closeQuietly(FileChannel channel) {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            log.warn("Failed to close inventory journal segment", e);
+        }
+    }
+    
+    /**
+     * 書き込み中のセグメント：呼び出し元が積むレコードのキューと、書き込みスレッドと同期処理が共有する書き込みロック
+     * Segment being written: the queue callers put records on, and the write lock shared by the writer thread and sync
+     */
+    private static final class OpenSegment {
+        
+        private final long batchId;
+        
+        private final FileChannel channel;
+        
+        private final Queue<ByteBuffer> records = new ConcurrentLinkedQueue<>();
+        
+        private final ReentrantLock lock = new ReentrantLock();
+        
+        private boolean closed;
+        
+        private boolean failed;
+        
+        private OpenSegment(long batchId, FileChannel channel) {
+            this.batchId = batchId;
+            this.channel = channel;
+        }
+    }
+    
+    /**
+     * 前回の実行で残ったセグメント
+     * Segment left by a previous run
+     * 
+     * @param batchId バッチID
+     * @param deltas 差分リスト
+     */
+    public record Segment(long batchId, List<Inventory> deltas) {
+    }
+}
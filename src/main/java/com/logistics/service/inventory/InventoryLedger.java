@@ -0,0 +1,712 @@
+package com.logistics.service.inventory;
+
+import com.logistics.entity.Inventory;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+/**
+ * 在庫台帳（インメモリ）
+ * In-memory Inventory Ledger
+ * 
+ * 商品×ロケーションごとの数量をロックなし（CAS）で更新し、DB未反映の差分を別に積み上げる
+ * Updates per product/location quantities lock-free (CAS) and accumulates the deltas not yet written to the DB
+ * 
+ * 数量と未反映差分は別々のアトミック変数のため、両者の合計の一貫性だけを保証する
+ * Quantity and pending delta are separate atomics; only their totals are guaranteed to agree
+ * 
+ * 数量の変更はセルが属するストライプのロックの共有側のみで行い、差分の取り出しとスナップショットは全ストライプの排他側で
+ * 行うため、後者は一時点の状態を見る（別のストライプの変更同士は同じロックを奪い合わない）
+ * Quantity changes hold only the shared side of their cell's stripe lock while drains and snapshots take the exclusive
+ * side of every stripe, so the latter always see a single point in time (changes in different stripes never contend)
+ * 
+ * ジャーナルを接続した場合、未反映差分は積むと同時にジャーナルへ追記し、取り出しとセグメントの切り替えを
+ * 同時に行うため、取り出したバッチとジャーナルのセグメントは常に同じ変更を含む
+ * With a journal attached, every pending delta is also appended to it, and draining switches the journal
+ * segment at the same moment, so a drained batch and its journal segment always hold the same changes
+ */
+@Component
+@Slf4j
+public class InventoryLedger {
+    
+    private final Map<StockKey, Cell> cells = new ConcurrentHashMap<>();
+    
+    private final Map<String, Set<StockKey>> keysByProduct = new ConcurrentHashMap<>();
+    
+    private final Map<String, Set<StockKey>> keysByLocation = new ConcurrentHashMap<>();
+    
+    /**
+     * 未反映差分を持つセル
+     * Cells with pending deltas
+     */
+    private final Set<StockKey> dirty = ConcurrentHashMap.newKeySet();
+    
+    /**
+     * 最も古い未反映変更の時刻（System.nanoTime、無い場合0）
+     * Time of the oldest unflushed change (System.nanoTime, 0 if none)
+     */
+    private final AtomicLong oldestPendingNanos = new AtomicLong();
+    
+    private final LongAdder operations = new LongAdder();
+    
+    private final LongAdder casRetries = new LongAdder();
+    
+    private final List<StockListener> listeners = new CopyOnWriteArrayList<>();
+    
+    /**
+     * ストライプ数（2のべき乗）
+     * Number of stripes (a power of two)
+     */
+    private static final int STRIPES = 64;
+    
+    /**
+     * セルのストライプごとのロック：数量の変更と差分の積み上げ（共有）と、差分の取り出し・スナップショット（全ストライプの排他）
+     * Per-stripe locks: quantities change and deltas are added under the shared side of the cell's stripe,
+     * while drains and snapshots take the exclusive side of every stripe
+     */
+    private final ReadWriteLock[] stripes = new ReadWriteLock[STRIPES];
+    
+    public InventoryLedger() {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new ReentrantReadWriteLock();
+        }
+    }
+    
+    private volatile DeltaJournal journal;
+    
+    private volatile boolean loaded;
+    
+    /**
+     * DBからの読み込みが完了しているか
+     * Whether the ledger has been loaded from the DB
+     * 
+     * @return 読み込み済みの場合true
+     * @return true if loaded
+     */
+    public boolean isLoaded() {
+        return loaded;
+    }
+    
+    /**
+     * 在庫変更の通知先を登録
+     * Register a stock change listener
+     * 
+     * @param listener 通知先
+     */
+    public void addListener(StockListener listener) {
+        listeners.add(listener);
+    }
+    
+    /**
+     * 未反映差分のジャーナルを接続（更新を受け付ける前に呼ぶこと）
+     * Attach the journal for pending deltas (call before any change is applied)
+     * 
+     * @param journal ジャーナル
+     */
+    public void attachJournal(DeltaJournal journal) {
+        this.journal = journal;
+    }
+    
+    /**
+     * 全在庫を読み込む（読み込み前は更新を受け付けない前提）
+     * Load all stock rows (callers must not apply changes before this completes)
+     * 
+     * @param source 全在庫を順に渡す処理
+     */
+    public void load(Consumer<Consumer<Inventory>> source) {
+        source.accept(row -> {
+            StockKey key = new StockKey(row.getProductId(), row.getLocationId());
+            Cell cell = cellFor(key);
+            cell.quantity.set(row.getQuantity() == null ? 0 : row.getQuantity());
+            cell.lastUpdated = row.getLastUpdated();
+            cell.inventoryId = row.getInventoryId();
+        });
+        loaded = true;
+        log.info("Inventory ledger loaded: {} cells", cells.size());
+        for (StockListener listener : listeners) {
+            try {
+                listener.ledgerLoaded();
+            } catch (RuntimeException e) {
+                log.warn("Stock listener {} failed after the ledger was loaded", listener.getClass().getSimpleName(), e);
+            }
+        }
+    }
+    
+    /**
+     * 数量を加減算（0未満になる場合は拒否）
+     * Add to or subtract from a quantity (rejected if it would go below zero)
+     * 
+     * @param productId 商品ID
+     * @param locationId ロケーションID
+     * @param delta 増減数
+     * @return 更新後の在庫
+     * @return Stock after the change
+     */
+    public Inventory apply(String productId, String locationId, long delta) {
+        StockKey key = new StockKey(productId, locationId);
+        Cell cell = delta < 0 ? cells.get(key) : cellFor(key);
+        if (cell == null) {
+            throw new IllegalArgumentException("Insufficient stock for product " + productId + " at " + locationId);
+        }
+        
+        long next;
+        LocalDateTime now;
+        Lock shared = sharedLock(key);
+        shared.lock();
+        try {
+            while (true) {
+                long current = cell.quantity.get();
+                next = current + delta;
+                if (next < 0) {
+                    throw new IllegalArgumentException("Insufficient stock for product " + productId + " at " + locationId
+                            + " (available " + current + ", requested " + -delta + ")");
+                }
+                if (cell.quantity.compareAndSet(current, next)) {
+                    break;
+                }
+                casRetries.increment();
+            }
+            now = recordChange(key, cell, delta);
+        } finally {
+            shared.unlock();
+        }
+        notifyChanged(key);
+        return toInventory(key, next, now);
+    }
+    
+    /**
+     * 在庫から最大数量まで引き当てる（不足する場合は有る分だけ）
+     * Take up to the given quantity from stock (only what is there if it falls short)
+     * 
+     * @param productId 商品ID
+     * @param locationId ロケーションID
+     * @param max 引当上限
+     * @return 引き当てた数量（在庫が無い場合0）
+     * @return Quantity taken, 0 if there is no stock
+     */
+    public long take(String productId, String locationId, long max) {
+        StockKey key = new StockKey(productId, locationId);
+        Cell cell = cells.get(key);
+        long taken;
+        Lock shared = sharedLock(key);
+        shared.lock();
+        try {
+            taken = takeFrom(cell, max);
+            if (taken > 0) {
+                recordChange(key, cell, -taken);
+            }
+        } finally {
+            shared.unlock();
+        }
+        if (taken > 0) {
+            notifyChanged(key);
+        }
+        return taken;
+    }
+    
+    /**
+     * 在庫から最大数量まで引き当てる（未反映差分には積まない：呼び出し元が自身のトランザクションでDBの在庫を減らす）
+     * Take up to the given quantity from stock without adding to the pending delta
+     * (the caller decrements the DB row in its own transaction)
+     * 
+     * @param productId 商品ID
+     * @param locationId ロケーションID
+     * @param max 引当上限
+     * @return 引き当てた数量（在庫が無い場合0）
+     * @return Quantity taken, 0 if there is no stock
+     */
+    public long takeWritten(String productId, String locationId, long max) {
+        StockKey key = new StockKey(productId, locationId);
+        Cell cell = cells.get(key);
+        long taken;
+        Lock shared = sharedLock(key);
+        shared.lock();
+        try {
+            taken = takeFrom(cell, max);
+        } finally {
+            shared.unlock();
+        }
+        if (taken > 0) {
+            cell.lastUpdated = LocalDateTime.now();
+            operations.increment();
+            notifyChanged(key);
+        }
+        return taken;
+    }
+    
+    /**
+     * takeWrittenで引き当てた在庫を戻す（DBへの反映がロールバックされた場合、未反映差分には積まない）
+     * Put back stock taken with takeWritten whose DB write was rolled back (not added to the pending delta)
+     * 
+     * @param productId 商品ID
+     * @param locationId ロケーションID
+     * @param quantity 戻す数量
+     */
+    public void putBack(String productId, String locationId, long quantity) {
+        StockKey key = new StockKey(productId, locationId);
+        Cell cell = cellFor(key);
+        Lock shared = sharedLock(key);
+        shared.lock();
+        try {
+            cell.quantity.addAndGet(quantity);
+        } finally {
+            shared.unlock();
+        }
+        operations.increment();
+        notifyChanged(key);
+    }
+    
+    /**
+     * DBに反映済みの増減を台帳に加える（未反映差分には積まない）
+     * Apply a change that has already been written to the DB (not added to the pending delta)
+     * 
+     * @param productId 商品ID
+     * @param locationId ロケーションID
+     * @param delta 増減数
+     * @param inventoryId DBの行の在庫ID（セルが未採番の場合に保持）
+     * @return 更新後の在庫
+     * @return Stock after the change
+     */
+    public Inventory applyWritten(String productId, String locationId, long delta, long inventoryId) {
+        StockKey key = new StockKey(productId, locationId);
+        Cell cell = cellFor(key);
+        synchronized (cell) {
+            if (cell.inventoryId == null) {
+                cell.inventoryId = inventoryId;
+            }
+        }
+        long next;
+        Lock shared = sharedLock(key);
+        shared.lock();
+        try {
+            next = cell.quantity.addAndGet(delta);
+        } finally {
+            shared.unlock();
+        }
+        LocalDateTime now = LocalDateTime.now();
+        cell.lastUpdated = now;
+        operations.increment();
+        notifyChanged(key);
+        return toInventory(key, next, now);
+    }
+    
+    /**
+     * 在庫IDを取得（未採番のセルには採番して保持、セルが無い場合は新しいIDを返すのみ）
+     * Get the inventory ID of a cell (assigned and kept if the cell has none; a fresh ID if there is no cell)
+     * 
+     * @param productId 商品ID
+     * @param locationId ロケーションID
+     * @param newInventoryId 在庫IDの採番処理
+     * @return 在庫ID
+     */
+    public long inventoryIdFor(String productId, String locationId, LongSupplier newInventoryId) {
+        Cell cell = cells.get(new StockKey(productId, locationId));
+        return cell == null ? newInventoryId.getAsLong() : inventoryIdOf(cell, newInventoryId);
+    }
+    
+    /**
+     * 数量変更後の共通処理（更新日時、未反映差分、ストライプの共有ロックを保持して呼ぶ）
+     * Bookkeeping after a quantity change (last-updated time and pending delta; call while holding the stripe's shared lock)
+     */
+    private LocalDateTime recordChange(StockKey key, Cell cell, long delta) {
+        LocalDateTime now = LocalDateTime.now();
+        cell.lastUpdated = now;
+        operations.increment();
+        
+        // 差分を積んでから更新対象に登録（反映処理は登録解除→差分取り出しの順）
+        cell.pending.addAndGet(delta);
+        oldestPendingNanos.compareAndSet(0, System.nanoTime());
+        dirty.add(key);
+        DeltaJournal current = journal;
+        if (current != null) {
+            current.append(key.getProductId(), key.getLocationId(), delta);
+        }
+        return now;
+    }
+    
+    /**
+     * 通知先へ変更を通知（数量の変更は確定済みのため、通知先の例外は記録のみで呼び出し元へ伝えない）
+     * Notify listeners (the quantity change is already done, so listener errors are logged, never rethrown)
+     */
+    private void notifyChanged(StockKey key) {
+        for (StockListener listener : listeners) {
+            try {
+                listener.stockChanged(key.getProductId());
+                listener.locationChanged(key.getLocationId());
+            } catch (RuntimeException e) {
+                log.warn("Stock listener {} failed for {}/{}", listener.getClass().getSimpleName(),
+                        key.getProductId(), key.getLocationId(), e);
+            }
+        }
+    }
+    
+    /**
+     * 現在の在庫を取得
+     * Get the current stock
+     * 
+     * @param productId 商品ID
+     * @param locationId ロケーションID
+     * @return 在庫（登録が無い場合null）
+     * @return Stock, or null if there is none
+     */
+    public Inventory get(String productId, String locationId) {
+        StockKey key = new StockKey(productId, locationId);
+        Cell cell = cells.get(key);
+        return cell == null ? null : toInventory(key, cell.quantity.get(), cell.lastUpdated);
+    }
+    
+    /**
+     * 商品の全ロケーションの在庫を取得
+     * Get the stock of a product at every location
+     * 
+     * @param productId 商品ID
+     * @return 在庫リスト
+     * @return List of stock rows
+     */
+    public List<Inventory> getByProduct(String productId) {
+        Set<StockKey> keys = keysByProduct.getOrDefault(productId, Collections.emptySet());
+        List<Inventory> result = new ArrayList<>(keys.size());
+        for (StockKey key : keys) {
+            Cell cell = cells.get(key);
+            if (cell != null) {
+                result.add(toInventory(key, cell.quantity.get(), cell.lastUpdated));
+            }
+        }
+        result.sort((a, b) -> a.getLocationId().compareTo(b.getLocationId()));
+        return result;
+    }
+    
+    /**
+     * 全セルの在庫を一時点の値として順に渡す（全ストライプの排他ロック内では値を写すだけで、受け取る処理はロック解放後に呼ぶ）
+     * Pass the stock of every cell as of a single point in time
+     * (values are only copied under the exclusive side of every stripe; the consumer runs after the locks are released)
+     * 
+     * @param consumer 在庫を受け取る処理
+     */
+    public void snapshot(Consumer<Inventory> consumer) {
+        List<Inventory> rows;
+        lockAll();
+        try {
+            rows = new ArrayList<>(cells.size());
+            cells.forEach((key, cell) -> rows.add(toInventory(key, cell.quantity.get(), cell.lastUpdated)));
+        } finally {
+            unlockAll();
+        }
+        rows.forEach(consumer);
+    }
+    
+    /**
+     * 商品の全ロケーションの在庫合計
+     * Total stock of a product across every location
+     * 
+     * @param productId 商品ID
+     * @return 在庫合計（登録が無い場合0）
+     * @return Total stock, 0 if there is none
+     */
+    public long total(String productId) {
+        long total = 0;
+        for (StockKey key : keysByProduct.getOrDefault(productId, Collections.emptySet())) {
+            total += quantityOf(key);
+        }
+        return total;
+    }
+    
+    /**
+     * ロケーションの全商品の在庫合計
+     * Total stock of every product at a location
+     * 
+     * @param locationId ロケーションID
+     * @return 在庫合計（登録が無い場合0）
+     * @return Total stock, 0 if there is none
+     */
+    public long totalAt(String locationId) {
+        long total = 0;
+        for (StockKey key : keysByLocation.getOrDefault(locationId, Collections.emptySet())) {
+            total += quantityOf(key);
+        }
+        return total;
+    }
+    
+    private long quantityOf(StockKey key) {
+        Cell cell = cells.get(key);
+        return cell == null ? 0 : cell.quantity.get();
+    }
+    
+    /**
+     * 未反映の差分をバッチとして取り出す（取り出した分は未反映から外れ、ジャーナルは次のセグメントに切り替わる）
+     * Take the pending deltas as a batch (they are no longer pending, and the journal moves to its next segment)
+     * 
+     * @param newInventoryId 在庫IDが未採番のセル（DBに行が無いセル）に割り当てるIDの採番処理
+     * @return 差分バッチ（ジャーナル未接続の場合バッチIDは0）
+     * @return Delta batch (its batch ID is 0 when no journal is attached)
+     */
+    public DeltaBatch drainBatch(LongSupplier newInventoryId) {
+        List<Inventory> deltas = new ArrayList<>();
+        long batchId;
+        lockAll();
+        try {
+            DeltaJournal current = journal;
+            batchId = current == null ? 0 : current.rotate();
+            oldestPendingNanos.set(0);
+            for (StockKey key : dirty) {
+                dirty.remove(key);
+                Cell cell = cells.get(key);
+                long delta = cell.pending.getAndSet(0);
+                if (delta != 0) {
+                    deltas.add(toInventory(key, delta, cell.lastUpdated));
+                }
+            }
+        } finally {
+            unlockAll();
+        }
+        // 在庫IDの採番はDBアクセスを伴い得るためロックの外で行う（採番したIDはセルに保持し、以降も同じIDで登録する）
+        for (Inventory row : deltas) {
+            Cell cell = cells.get(new StockKey(row.getProductId(), row.getLocationId()));
+            row.setInventoryId(inventoryIdOf(cell, newInventoryId));
+        }
+        return new DeltaBatch(batchId, deltas);
+    }
+    
+    /**
+     * 最古の未反映変更の時刻（System.nanoTime、無い場合0）
+     * Time of the oldest unflushed change (System.nanoTime, 0 if none)
+     * 
+     * @return 時刻
+     */
+    public long getOldestPendingNanos() {
+        return oldestPendingNanos.get();
+    }
+    
+    /**
+     * セル数
+     * Number of cells
+     */
+    public int size() {
+        return cells.size();
+    }
+    
+    /**
+     * 未反映差分を持つセル数
+     * Number of cells with pending deltas
+     */
+    public int dirtyCount() {
+        return dirty.size();
+    }
+    
+    /**
+     * 更新回数の累計
+     * Total number of applied changes
+     */
+    public long operations() {
+        return operations.sum();
+    }
+    
+    /**
+     * CAS競合による再試行回数の累計（競合度の指標）
+     * Total CAS retries (a measure of contention)
+     */
+    public long casRetries() {
+        return casRetries.sum();
+    }
+    
+    /**
+     * セルを取得（無い場合は作成し、セルが見える状態になってから商品別・ロケーション別の索引に登録）
+     * Get or create a cell (registered in the per-product and per-location indexes only once the cell is visible)
+     */
+    private Cell cellFor(StockKey key) {
+        Cell cell = cells.get(key);
+        if (cell != null) {
+            return cell;
+        }
+        cell = cells.computeIfAbsent(key, k -> new Cell());
+        keysByProduct.computeIfAbsent(key.getProductId(), p -> ConcurrentHashMap.newKeySet()).add(key);
+        keysByLocation.computeIfAbsent(key.getLocationId(), l -> ConcurrentHashMap.newKeySet()).add(key);
+        return cell;
+    }
+    
+    /**
+     * キーのストライプの共有ロック
+     * Shared side of the key's stripe lock
+     */
+    private Lock sharedLock(StockKey key) {
+        int hash = key.hashCode();
+        return stripes[(hash ^ (hash >>> 16)) & (STRIPES - 1)].readLock();
+    }
+    
+    /**
+     * 全ストライプの排他ロックを番号順に取得（共有側は1ストライプしか保持しないため、順序が揃っていればデッドロックしない）
+     * Take the exclusive side of every stripe in index order
+     * (the shared side is only ever held on one stripe, so a fixed order cannot deadlock)
+     */
+    private void lockAll() {
+        for (ReadWriteLock stripe : stripes) {
+            stripe.writeLock().lock();
+        }
+    }
+    
+    private void unlockAll() {
+        for (int i = STRIPES - 1; i >= 0; i--) {
+            stripes[i].writeLock().unlock();
+        }
+    }
+    
+    private long takeFrom(Cell cell, long max) {
+        if (cell == null || max <= 0) {
+            return 0;
+        }
+        while (true) {
+            long current = cell.quantity.get();
+            long taken = Math.min(current, max);
+            if (taken <= 0) {
+                return 0;
+            }
+            if (cell.quantity.compareAndSet(current, current - taken)) {
+                return taken;
+            }
+            casRetries.increment();
+        }
+    }
+    
+    private static long inventoryIdOf(Cell cell, LongSupplier newInventoryId) {
+        synchronized (cell) {
+            if (cell.inventoryId == null) {
+                cell.inventoryId = newInventoryId.getAsLong();
+            }
+            return cell.inventoryId;
+        }
+    }
+    
+    private static Inventory toInventory(StockKey key, long quantity, LocalDateTime lastUpdated) {
+        return Inventory.builder()
+                .productId(key.getProductId())
+                .locationId(key.getLocationId())
+                .quantity(quantity)
+                .lastUpdated(lastUpdated)
+                .build();
+    }
+    
+    /**
+     * 在庫変更の通知先（変更したスレッドで同期的に呼ばれるため、短時間で戻ること）
+     * Stock change listener (called synchronously on the thread that made the change, so it must return quickly)
+     */
+    public interface StockListener {
+        
+        /**
+         * 商品のいずれかのロケーションの数量が変わった
+         * The quantity of a product changed at some location
+         * 
+         * @param productId 商品ID
+         */
+        void stockChanged(String productId);
+        
+        /**
+         * ロケーションのいずれかの商品の数量が変わった
+         * The quantity of some product changed at a location
+         * 
+         * @param locationId ロケーションID
+         */
+        default void locationChanged(String locationId) {
+        }
+        
+        /**
+         * DBからの読み込みが完了した
+         * The ledger finished loading from the DB
+         */
+        default void ledgerLoaded() {
+        }
+    }
+    
+    /**
+     * 未反映差分のジャーナル（追記はストライプの共有区間内で全スレッドから同時に呼ばれるためブロックしないこと、切り替えは全ストライプの排他区間内で呼ばれる）
+     * Journal of pending deltas (appends are called concurrently under a stripe's shared lock and must not block;
+     * rotation is called under the exclusive side of every stripe)
+     */
+    public interface DeltaJournal {
+        
+        /**
+         * 差分を現在のセグメントに追記
+         * Append a delta to the current segment
+         * 
+         * @param productId 商品ID
+         * @param locationId ロケーションID
+         * @param delta 増減数
+         */
+        void append(String productId, String locationId, long delta);
+        
+        /**
+         * 現在のセグメントを閉じて次のセグメントを開く
+         * Close the current segment and open the next one
+         * 
+         * @return 閉じたセグメントのバッチID
+         * @return Batch ID of the closed segment
+         */
+        long rotate();
+    }
+    
+    /**
+     * 取り出した差分のバッチ
+     * Batch of drained deltas
+     */
+    @Value
+    public static class DeltaBatch {
+        
+        /**
+         * バッチID（ジャーナルのセグメントID、反映済みバッチの記録に使う）
+         * Batch ID (the journal segment ID, used to record the batch as applied)
+         */
+        long batchId;
+        
+        /**
+         * 差分リスト（quantityは差分値、inventoryIdは行が無い場合に登録するID）
+         * Deltas (quantity holds the delta; inventoryId is the ID to insert with if the row does not exist)
+         */
+        List<Inventory> deltas;
+    }
+    
+    /**
+     * 台帳のキー（商品ID×ロケーションID）
+     * Ledger key (product ID and location ID)
+     */
+    @Value
+    private static class StockKey {
+        
+        String productId;
+        
+        String locationId;
+    }
+    
+    /**
+     * 台帳のセル：現在数量、DB未反映の差分、在庫ID
+     * Ledger cell: current quantity, the delta not yet written to the DB and the inventory ID
+     */
+    private static final class Cell {
+        
+        private final AtomicLong quantity = new AtomicLong();
+        
+        private final AtomicLong pending = new AtomicLong();
+        
+        private volatile LocalDateTime lastUpdated;
+        
+        /**
+         * 在庫ID（DBから読み込んだ値、または初回の書き戻し時に採番した値）
+         * Inventory ID (loaded from the DB, or allocated on the first write-back)
+         */
+        private volatile Long inventoryId;
+    }
+}
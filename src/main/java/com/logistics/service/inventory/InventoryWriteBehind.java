@@ -0,0 +1,397 @@
+package com.logistics.service.inventory;
+
+import com.logistics.entity.Inventory;
+import com.logistics.mapper.InventoryFlushMapper;
+import com.logistics.mapper.InventoryMapper;
+import com.logistics.service.inventory.InventoryLedger.DeltaBatch;
+import com.logistics.service.support.BatchSqlSession;
+import com.logistics.service.support.IdAllocator;
+import com.logistics.service.support.IdAllocator.Sequence;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.cursor.Cursor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.Deque;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 在庫台帳のDB書き戻し処理
+ * Inventory Ledger Write-behind
+ * 
+ * 起動時に台帳をINVENTORYから読み込み、以降は一定間隔で差分をまとめてMERGEする
+ * Loads the ledger from INVENTORY at startup, then MERGEs the accumulated deltas at a fixed interval
+ * 
+ * 1回の反映は1トランザクションで、差分と同時にバッチIDをINVENTORY_FLUSHに登録する。
+ * 失敗したバッチは台帳に戻さず同じバッチIDのまま保持し、再試行の前にINVENTORY_FLUSHを確認するため、
+ * コミット済みで応答だけ失われたバッチが二重に反映されることはない。
+ * 差分はInventoryJournalにも追記しており、異常終了後は起動時に未反映のセグメントを同じバッチIDで反映してから台帳を読み込む。
+ * Each flush is a single transaction that also records its batch ID in INVENTORY_FLUSH.
+ * A failed batch is kept under the same batch ID instead of going back into the ledger, and INVENTORY_FLUSH is checked
+ * before it is retried, so a batch that committed but whose acknowledgement was lost is never applied twice.
+ * Deltas are also appended to the InventoryJournal; after a crash, startup writes the unapplied segments under their
+ * batch IDs before the ledger is loaded.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class InventoryWriteBehind {
+    
+    /**
+     * 一意制約違反（同じ行の同時登録）時のMERGEの試行回数
+     * MERGE attempts when a duplicate key shows the row was inserted concurrently
+     */
+    private static final int MAX_MERGE_ATTEMPTS = 3;
+    
+    private final InventoryLedger inventoryLedger;
+    
+    private final InventoryMapper inventoryMapper;
+    
+    private final InventoryFlushMapper inventoryFlushMapper;
+    
+    private final InventoryJournal inventoryJournal;
+    
+    private final BatchSqlSession batchSqlSession;
+    
+    private final TransactionTemplate transactionTemplate;
+    
+    private final Executor queryExecutor;
+    
+    private final IdAllocator idAllocator;
+    
+    /**
+     * 反映済みバッチの記録の保持期間（異常終了から再起動までの最大時間より長くすること）
+     * Retention of applied batch records (must exceed the longest time from a crash to the restart)
+     */
+    @Value("${app.inventory.flush-record-retention-hours:168}")
+    private long flushRecordRetentionHours;
+    
+    private final ReentrantLock flushLock = new ReentrantLock();
+    
+    /**
+     * 反映結果が不明または失敗したバッチ（更新はflushLock内でのみ行う）
+     * Batches whose write failed or has an unknown outcome (only modified under flushLock)
+     */
+    private final Deque<PendingBatch> inDoubt = new ConcurrentLinkedDeque<>();
+    
+    private final AtomicLong flushes = new AtomicLong();
+    
+    private final AtomicLong flushFailures = new AtomicLong();
+    
+    private final AtomicLong droppedDeltas = new AtomicLong();
+    
+    private volatile int lastFlushRows;
+    
+    private volatile long lastFlushMs;
+    
+    /**
+     * 最も古い保留バッチの取り出し時点の最古未反映時刻（無い場合0）
+     * Oldest unflushed time of the oldest held batch when it was drained (0 if none)
+     */
+    private volatile long oldestInDoubtNanos;
+    
+    private long lastPurgeNanos;
+    
+    /**
+     * 反映待ちのバッチ（取り出し時点の最古未反映時刻つき）
+     * Batch waiting to be written (with the oldest unflushed time when it was drained)
+     */
+    private record PendingBatch(DeltaBatch batch, long oldestNanos) {
+    }
+    
+    /**
+     * 起動完了後にジャーナルを再生してから台帳を読み込む（読み込み完了までは在庫APIは利用不可）
+     * Replay the journal, then load the ledger once the application is ready (the inventory API is unavailable until then)
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        queryExecutor.execute(() -> {
+            try {
+                replayJournal();
+                inventoryJournal.open();
+                inventoryLedger.attachJournal(inventoryJournal);
+                transactionTemplate.executeWithoutResult(status -> inventoryLedger.load(consumer -> {
+                    try (Cursor<Inventory> cursor = inventoryMapper.streamAll()) {
+                        cursor.forEach(consumer);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }));
+            } catch (Exception e) {
+                log.error("Failed to load inventory ledger", e);
+            }
+        });
+    }
+    
+    /**
+     * 前回の実行で反映が確定しなかったセグメントを反映（反映済みのバッチはセグメントの削除のみ）
+     * Write the segments whose batches were not known to be applied by the previous run (applied ones are just deleted)
+     */
+    private void replayJournal() {
+        for (InventoryJournal.Segment segment : inventoryJournal.recover()) {
+            if (!segment.deltas().isEmpty() && inventoryFlushMapper.countById(segment.batchId()) == 0) {
+                segment.deltas().forEach(delta -> {
+                    delta.setInventoryId(idAllocator.next(Sequence.INVENTORY_SEQ));
+                    delta.setLastUpdated(LocalDateTime.now());
+                });
+                write(new DeltaBatch(segment.batchId(), segment.deltas()));
+                log.warn("Replayed inventory journal segment {} ({} deltas)", segment.batchId(), segment.deltas().size());
+            }
+            inventoryJournal.delete(segment.batchId());
+        }
+    }
+    
+    /**
+     * 未反映の差分をDBに反映（先に保留中のバッチを再試行する）
+     * Write pending deltas to the DB (held batches are retried first)
+     */
+    @Scheduled(fixedDelayString = "${app.inventory.flush-interval-ms:1000}")
+    public void flush() {
+        if (!inventoryLedger.isLoaded() || (inventoryLedger.dirtyCount() == 0 && oldestInDoubtNanos == 0)) {
+            return;
+        }
+        flushLock.lock();
+        try {
+            long start = System.nanoTime();
+            if (!retryInDoubt()) {
+                return;
+            }
+            long oldestPending = inventoryLedger.getOldestPendingNanos();
+            DeltaBatch batch = inventoryLedger.drainBatch(() -> idAllocator.next(Sequence.INVENTORY_SEQ));
+            inventoryJournal.sync();
+            if (batch.getDeltas().isEmpty()) {
+                inventoryJournal.delete(batch.getBatchId());
+                return;
+            }
+            try {
+                write(batch);
+            } catch (RuntimeException e) {
+                hold(new PendingBatch(batch, oldestPending));
+                log.error("Inventory flush failed, batch {} ({} deltas) will be retried",
+                        batch.getBatchId(), batch.getDeltas().size(), e);
+                return;
+            }
+            inventoryJournal.delete(batch.getBatchId());
+            flushes.incrementAndGet();
+            lastFlushRows = batch.getDeltas().size();
+            lastFlushMs = (System.nanoTime() - start) / 1_000_000;
+            log.debug("Flushed {} inventory deltas in {} ms", lastFlushRows, lastFlushMs);
+            purgeFlushRecords();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+    
+    /**
+     * 保留中のバッチを古い順に再試行（反映済みと確認できたものは書き込まずに完了とする）
+     * Retry the held batches oldest first (those confirmed as applied are completed without writing)
+     * 
+     * @return 全て完了した場合true（未完了が残る場合は新しい差分の取り出しを見送る）
+     * @return true if all completed (new deltas are not drained while any remain)
+     */
+    private boolean retryInDoubt() {
+        while (!inDoubt.isEmpty()) {
+            DeltaBatch batch = inDoubt.peekFirst().batch();
+            try {
+                if (inventoryFlushMapper.countById(batch.getBatchId()) == 0) {
+                    write(batch);
+                } else {
+                    log.info("Inventory batch {} was already applied, not writing it again", batch.getBatchId());
+                }
+            } catch (RuntimeException e) {
+                flushFailures.incrementAndGet();
+                log.error("Retry of inventory batch {} failed", batch.getBatchId(), e);
+                return false;
+            }
+            inDoubt.pollFirst();
+            inventoryJournal.delete(batch.getBatchId());
+            PendingBatch next = inDoubt.peekFirst();
+            oldestInDoubtNanos = next == null ? 0 : next.oldestNanos();
+        }
+        return true;
+    }
+    
+    private void hold(PendingBatch pending) {
+        flushFailures.incrementAndGet();
+        inDoubt.addLast(pending);
+        if (oldestInDoubtNanos == 0) {
+            oldestInDoubtNanos = pending.oldestNanos() == 0 ? System.nanoTime() : pending.oldestNanos();
+        }
+    }
+    
+    /**
+     * バッチを1トランザクションで反映（制約違反の差分がある場合は1件ずつ反映して該当分のみ破棄）
+     * Write a batch in one transaction (if a delta violates a constraint, write one by one and drop only that delta)
+     */
+    private void write(DeltaBatch batch) {
+        try {
+            writeBatch(batch);
+        } catch (DataIntegrityViolationException e) {
+            // 一意制約違反は同じ行の同時登録（再実行でMERGEが一致する）、それ以外の制約違反は該当分のみ破棄するため1件ずつ反映
+            log.warn("Inventory flush batch {} rejected, retrying {} deltas one by one",
+                    batch.getBatchId(), batch.getDeltas().size(), e);
+            writeOneByOne(batch);
+        }
+    }
+    
+    private void writeBatch(DeltaBatch batch) {
+        transactionTemplate.executeWithoutResult(status -> {
+            // 同じトランザクションで通常のMapperと混在させないよう、バッチIDの登録もバッチ実行で送る
+            batchSqlSession.getMapper(InventoryFlushMapper.class)
+                    .insert(batch.getBatchId(), batch.getDeltas().size(), LocalDateTime.now());
+            InventoryMapper batchMapper = batchSqlSession.getMapper(InventoryMapper.class);
+            batch.getDeltas().forEach(batchMapper::mergeDelta);
+            batchSqlSession.flushStatements();
+        });
+    }
+    
+    /**
+     * 1件ずつセーブポイントを置いて反映（バッチIDの登録と同じ1トランザクションのため、結果はバッチ単位で確定する）
+     * Write each delta behind its own savepoint (still one transaction with the batch ID, so the batch stays atomic)
+     * 
+     * 外部キー・チェック制約の違反は再試行しても成功しないため該当分のみ破棄する。一意制約違反は他のトランザクション
+     * （入荷・出荷の引当等）が同じ商品×ロケーションの行を先に登録したもので、再実行すればMERGEが既存行に一致するため
+     * 再試行し、それでも解消しない場合はバッチ全体を失敗として保留する（差分は破棄しない）。
+     * Foreign key and check constraint violations never succeed on retry, so only that delta is dropped. A duplicate key
+     * means another transaction (a receipt or an allocation) inserted the same product/location row first; the MERGE
+     * matches it when run again, so it is retried, and if that still fails the whole batch fails and is held (the delta
+     * is never dropped).
+     */
+    private void writeOneByOne(DeltaBatch batch) {
+        transactionTemplate.executeWithoutResult(status -> {
+            inventoryFlushMapper.insert(batch.getBatchId(), batch.getDeltas().size(), LocalDateTime.now());
+            for (Inventory delta : batch.getDeltas()) {
+                for (int attempt = 1; ; attempt++) {
+                    Object savepoint = status.createSavepoint();
+                    try {
+                        inventoryMapper.mergeDelta(delta);
+                        status.releaseSavepoint(savepoint);
+                        break;
+                    } catch (DuplicateKeyException e) {
+                        status.rollbackToSavepoint(savepoint);
+                        if (attempt >= MAX_MERGE_ATTEMPTS) {
+                            throw e;
+                        }
+                        log.info("Inventory row {}/{} was inserted concurrently, merging again",
+                                delta.getProductId(), delta.getLocationId());
+                    } catch (DataIntegrityViolationException e) {
+                        status.rollbackToSavepoint(savepoint);
+                        droppedDeltas.incrementAndGet();
+                        log.error("Dropping inventory delta that violates a constraint: {}", delta, e);
+                        break;
+                    }
+                }
+            }
+        });
+    }
+    
+    /**
+     * 保持期間を過ぎた反映済みバッチの記録を1時間に1回削除
+     * Purge applied batch records past the retention period, at most once an hour
+     */
+    private void purgeFlushRecords() {
+        long now = System.nanoTime();
+        if (lastPurgeNanos != 0 && now - lastPurgeNanos < TimeUnit.HOURS.toNanos(1)) {
+            return;
+        }
+        lastPurgeNanos = now;
+        try {
+            int purged = inventoryFlushMapper.deleteAppliedBefore(LocalDateTime.now().minusHours(flushRecordRetentionHours));
+            log.debug("Purged {} inventory flush records", purged);
+        } catch (RuntimeException e) {
+            log.warn("Failed to purge inventory flush records", e);
+        }
+    }
+    
+    /**
+     * 終了時に残りの差分を反映
+     * Flush the remaining deltas on shutdown
+     */
+    @PreDestroy
+    public void flushOnShutdown() {
+        log.info("Flushing inventory ledger before shutdown ({} pending cells)", inventoryLedger.dirtyCount());
+        flush();
+    }
+    
+    /**
+     * 反映遅延（最古の未反映変更からの経過ミリ秒、無い場合0）
+     * Flush lag (milliseconds since the oldest unflushed change, 0 if none)
+     * 
+     * @return 遅延ミリ秒
+     */
+    public long getFlushLagMs() {
+        long oldest = oldestInDoubtNanos != 0 ? oldestInDoubtNanos : inventoryLedger.getOldestPendingNanos();
+        return oldest == 0 ? 0 : (System.nanoTime() - oldest) / 1_000_000;
+    }
+    
+    /**
+     * 反映成功回数
+     * Number of successful flushes
+     */
+    public long getFlushes() {
+        return flushes.get();
+    }
+    
+    /**
+     * 反映失敗回数
+     * Number of failed flushes
+     */
+    public long getFlushFailures() {
+        return flushFailures.get();
+    }
+    
+    /**
+     * 反映結果が不明または失敗で保留中のバッチ数
+     * Number of batches held after a failed or uncertain write
+     */
+    public int getInDoubtBatches() {
+        return inDoubt.size();
+    }
+    
+    /**
+     * ジャーナルの追記・同期の失敗回数
+     * Number of failed journal appends and syncs
+     */
+    public long getJournalFailures() {
+        return inventoryJournal.getWriteFailures();
+    }
+    
+    /**
+     * 制約違反で破棄した差分数
+     * Deltas dropped for violating a constraint
+     */
+    public long getDroppedDeltas() {
+        return droppedDeltas.get();
+    }
+    
+    /**
+     * 直近の反映件数
+     * Rows written by the last flush
+     */
+    public int getLastFlushRows() {
+        return lastFlushRows;
+    }
+    
+    /**
+     * 直近の反映所要時間（ミリ秒）
+     * Duration of the last flush (milliseconds)
+     */
+    public long getLastFlushMs() {
+        return lastFlushMs;
+    }
+}
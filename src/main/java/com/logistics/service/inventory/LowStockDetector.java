@@ -0,0 +1,263 @@
+package com.logistics.service.inventory;
+
+import com.logistics.controller.dto.LowStockItem;
+import com.logistics.entity.ProductMaster;
+import com.logistics.service.ProductMasterService;
+import com.logistics.service.event.LowStockChangeEvent;
+import com.logistics.service.event.LowStockChangeEvent.Change;
+import com.logistics.service.event.MasterDataChangeEvent;
+import com.logistics.service.event.MasterDataChangeEvent.ChangeType;
+import com.logistics.service.event.MasterDataChangeEvent.MasterType;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+/**
+ * 安全在庫割れ検知
+ * Low Stock Detector
+ * 
+ * 在庫合計が安全在庫を下回る商品の集合をメモリ上で保持する。
+ * 在庫台帳の変更と商品マスタの変更（コミット後）のたびに、その商品だけを再判定する。
+ * 集合に入った・出たときはLowStockChangeEventを発行する。
+ * Keeps the set of products whose total stock is below their safety stock in memory.
+ * Every ledger change and every committed product change re-evaluates just that product,
+ * and a LowStockChangeEvent is published whenever a product enters or leaves the set.
+ * 
+ * 在庫台帳と商品マスタの両方の読み込みが完了するまでは利用できない
+ * Unavailable until both the inventory ledger and the products have been loaded
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class LowStockDetector implements InventoryLedger.StockListener {
+    
+    private static final int LOCK_STRIPES = 64;
+    
+    private final InventoryLedger inventoryLedger;
+    
+    private final ProductMasterService productMasterService;
+    
+    private final ApplicationEventPublisher eventPublisher;
+    
+    private final Executor queryExecutor;
+    
+    /**
+     * 商品ID→安全在庫（安全在庫が0以下の商品は対象外のため保持しない）
+     * Product ID → safety stock (products with a safety stock of 0 or less are never low, so they are not kept)
+     */
+    private final Map<String, Threshold> thresholds = new ConcurrentHashMap<>();
+    
+    private final Map<String, LowStockItem> below = new ConcurrentHashMap<>();
+    
+    /**
+     * 同じ商品の判定と通知を直列化するロック（商品IDのハッシュで分割）
+     * Locks that serialize evaluation and notification per product (striped by product ID hash)
+     */
+    private final Object[] locks = new Object[LOCK_STRIPES];
+    
+    @Value("${app.inventory.low-stock.enabled:true}")
+    private boolean enabled;
+    
+    /**
+     * 読み込んだ安全在庫（利用開始までの間のみ保持、thisで保護）
+     * Loaded safety stocks (kept only until the detector starts, guarded by this)
+     */
+    private Map<String, Threshold> loadedThresholds;
+    
+    /**
+     * 利用開始前に受け付けた商品変更（読み込んだ内容より新しいため開始時に再適用、thisで保護）
+     * Product changes received before starting (newer than the load, so replayed on start, guarded by this)
+     */
+    private List<MasterDataChangeEvent> pendingChanges;
+    
+    private volatile boolean ready;
+    
+    @PostConstruct
+    void register() {
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new Object();
+        }
+        if (enabled) {
+            inventoryLedger.addListener(this);
+        }
+    }
+    
+    /**
+     * 起動完了後に商品の安全在庫を読み込む
+     * Load product safety stocks once the application is ready
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        if (!enabled) {
+            log.info("Low stock detection is disabled");
+            return;
+        }
+        synchronized (this) {
+            pendingChanges = new ArrayList<>();
+        }
+        queryExecutor.execute(() -> {
+            try {
+                Map<String, Threshold> loaded = new HashMap<>();
+                productMasterService.exportProducts(product -> {
+                    Threshold threshold = Threshold.of(product);
+                    if (threshold != null) {
+                        loaded.put(product.getProductId(), threshold);
+                    }
+                });
+                synchronized (this) {
+                    loadedThresholds = loaded;
+                }
+                startIfReady();
+            } catch (Exception e) {
+                log.error("Failed to load safety stocks, low stock detection is unavailable", e);
+                synchronized (this) {
+                    pendingChanges = null;
+                }
+            }
+        });
+    }
+    
+    @Override
+    public void ledgerLoaded() {
+        startIfReady();
+    }
+    
+    /**
+     * 両方の読み込みが完了していれば全商品を判定して利用可能にする（初回の判定ではイベントを発行しない）
+     * Once both loads are done, evaluate every product and become available (no events for this initial pass)
+     */
+    private synchronized void startIfReady() {
+        if (ready || loadedThresholds == null || !inventoryLedger.isLoaded()) {
+            return;
+        }
+        thresholds.putAll(loadedThresholds);
+        loadedThresholds = null;
+        // 読み込み中の削除・安全在庫0への変更も、読み込んだ古い内容で戻さない
+        pendingChanges.forEach(this::apply);
+        pendingChanges = null;
+        ready = true;
+        for (String productId : thresholds.keySet()) {
+            evaluate(productId, false);
+        }
+        log.info("Low stock detector ready: {} of {} products below safety stock", below.size(), thresholds.size());
+    }
+    
+    @Override
+    public void stockChanged(String productId) {
+        if (ready) {
+            evaluate(productId, true);
+        }
+    }
+    
+    /**
+     * 商品の変更（安全在庫・商品名）を反映
+     * Apply a product change (safety stock or name)
+     * 
+     * @param event 変更イベント
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onMasterDataChange(MasterDataChangeEvent event) {
+        if (!enabled || event.getMasterType() != MasterType.PRODUCT) {
+            return;
+        }
+        synchronized (this) {
+            if (!ready) {
+                if (pendingChanges != null) {
+                    pendingChanges.add(event);
+                }
+                return;
+            }
+            apply(event);
+        }
+        evaluate(event.getId(), true);
+    }
+    
+    private void apply(MasterDataChangeEvent event) {
+        Threshold threshold = event.getChangeType() == ChangeType.DELETED || !(event.getEntity() instanceof ProductMaster product)
+                ? null : Threshold.of(product);
+        if (threshold == null) {
+            thresholds.remove(event.getId());
+        } else {
+            thresholds.put(event.getId(), threshold);
+        }
+    }
+    
+    /**
+     * 商品の在庫合計を台帳から読み直して集合への出入りを判定
+     * Re-read a product's total from the ledger and decide whether it enters or leaves the set
+     */
+    private void evaluate(String productId, boolean notify) {
+        synchronized (locks[(productId.hashCode() & 0x7fffffff) % LOCK_STRIPES]) {
+            Threshold threshold = thresholds.get(productId);
+            long total = inventoryLedger.total(productId);
+            LowStockItem item = LowStockItem.builder()
+                    .productId(productId)
+                    .productName(threshold == null ? null : threshold.productName())
+                    .safetyStock(threshold == null ? 0 : threshold.safetyStock())
+                    .totalStock(total)
+                    .build();
+            boolean isBelow = threshold != null && total < threshold.safetyStock();
+            LowStockItem previous = isBelow ? below.put(productId, item) : below.remove(productId);
+            if (!notify) {
+                return;
+            }
+            if (isBelow && previous == null) {
+                eventPublisher.publishEvent(new LowStockChangeEvent(Change.ENTERED, item));
+            } else if (!isBelow && previous != null) {
+                eventPublisher.publishEvent(new LowStockChangeEvent(Change.LEFT, item));
+            }
+        }
+    }
+    
+    /**
+     * 安全在庫割れの商品一覧（商品ID順）
+     * Products below safety stock, by product ID
+     * 
+     * @return 商品リスト
+     * @return List of products
+     * @throws IllegalStateException 読み込みが完了していない場合
+     */
+    public List<LowStockItem> current() {
+        if (!ready) {
+            throw new IllegalStateException("Low stock detector is not ready yet");
+        }
+        List<LowStockItem> items = new ArrayList<>(below.values());
+        items.sort(Comparator.comparing(LowStockItem::getProductId));
+        return items;
+    }
+    
+    /**
+     * 利用可能か
+     * Whether the detector is available
+     */
+    public boolean isReady() {
+        return ready;
+    }
+    
+    /**
+     * 安全在庫の判定条件
+     * Safety stock threshold
+     */
+    private record Threshold(String productName, int safetyStock) {
+        
+        private static Threshold of(ProductMaster product) {
+            Integer safetyStock = product.getSafetyStock();
+            return safetyStock == null || safetyStock <= 0 ? null : new Threshold(product.getProductName(), safetyStock);
+        }
+    }
+}
@@ -0,0 +1,419 @@
+package com.logistics.service.location;
+
+import com.logistics.controller.dto.LocationNode;
+import com.logistics.controller.dto.PageCursor;
+import com.logistics.entity.LocationMaster;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * ロケーション階層索引
+ * Location Hierarchy Index
+ * 
+ * LOCATION_MASTERを倉庫→ゾーン→ラック→レベル→ポジションの木としてメモリに保持し、
+ * 各ノードに配下の最大容量の合計と件数を集計する。
+ * あわせて倉庫別・ゾーン別に登録日時の新しい順の集合を持ち、一覧のキーセットページングをメモリ上で行う。
+ * Keeps LOCATION_MASTER in memory as a warehouse → zone → rack → level → position tree, each node holding
+ * the summed maximum capacity and count of the locations below it.
+ * Newest-first sets per warehouse and per zone let list pages be served by keyset in memory as well.
+ * 
+ * 返すロケーションは索引内部のものを共有するため、呼び出し側で変更しないこと
+ * Returned locations are shared with the index and must not be modified by callers
+ */
+@Component
+@Slf4j
+public class LocationTree {
+    
+    /**
+     * 階層
+     * Hierarchy level
+     */
+    public enum Level {
+        ROOT, WAREHOUSE, ZONE, RACK, LEVEL, POSITION
+    }
+    
+    /**
+     * 登録日時の新しい順（同値はロケーションIDの降順：findPageと同じ。列はNOT NULLだが念のためNULLは末尾）
+     * Newest first, ties by location ID descending, as in findPage (the column is NOT NULL; a stray NULL sorts last)
+     */
+    private static final Comparator<LocationMaster> NEWEST_FIRST = Comparator
+            .comparing(LocationMaster::getCreatedAt, Comparator.nullsLast(Comparator.<LocalDateTime>reverseOrder()))
+            .thenComparing(LocationMaster::getLocationId, Comparator.reverseOrder());
+    
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    
+    /**
+     * 索引本体（再構築時に丸ごと差し替える）
+     * Index state (swapped out as a whole on rebuild)
+     */
+    private State state = new State();
+    
+    /**
+     * 再構築中に受け付けた変更（差し替え後に再適用）
+     * Changes received during a rebuild (replayed after the swap)
+     */
+    private List<Consumer<State>> pendingChanges;
+    
+    private volatile boolean ready;
+    
+    /**
+     * 索引が利用可能か（初回構築完了後true）
+     * Whether the index can serve lookups (true once the first build has finished)
+     * 
+     * @return 利用可能な場合true
+     * @return true if ready
+     */
+    public boolean isReady() {
+        return ready;
+    }
+    
+    /**
+     * 索引を全件から再構築
+     * Rebuild the index from every location
+     * 
+     * @param source 全ロケーションを順に渡す処理
+     */
+    public void rebuild(Consumer<Consumer<LocationMaster>> source) {
+        long start = System.nanoTime();
+        lock.writeLock().lock();
+        try {
+            pendingChanges = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        
+        State built = new State();
+        try {
+            source.accept(built::put);
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                pendingChanges = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+        
+        lock.writeLock().lock();
+        try {
+            pendingChanges.forEach(change -> change.accept(built));
+            pendingChanges = null;
+            state = built;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Location tree built: {} locations in {} warehouses in {} ms",
+                built.byId.size(), built.root.children.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+    
+    /**
+     * ロケーションを登録または更新（階層が変わった場合は移動）
+     * Add or replace a location (moved if its position in the hierarchy changed)
+     * 
+     * @param location ロケーション情報
+     */
+    public void put(LocationMaster location) {
+        apply(s -> s.put(location));
+    }
+    
+    /**
+     * ロケーションを削除
+     * Remove a location
+     * 
+     * @param locationId ロケーションID
+     */
+    public void remove(String locationId) {
+        apply(s -> s.remove(locationId));
+    }
+    
+    private void apply(Consumer<State> change) {
+        lock.writeLock().lock();
+        try {
+            change.accept(state);
+            if (pendingChanges != null) {
+                pendingChanges.add(change);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * 階層のノードを取得（直下のノードは要約のみ）
+     * Get a node of the hierarchy (children are summaries only)
+     * 
+     * @param path 倉庫コード、ゾーン、ラック、レベル、ポジションの順（空の場合はルート、列が未設定のノードは空文字）
+     * @return ノード（存在しない場合は空）
+     * @return Node, or empty if there is none at the path
+     */
+    public Optional<LocationNode> node(List<String> path) {
+        if (path.size() >= Level.values().length) {
+            throw new IllegalArgumentException("Location path has at most " + (Level.values().length - 1) + " levels");
+        }
+        lock.readLock().lock();
+        try {
+            Node node = state.root;
+            for (String key : path) {
+                node = node.children.get(key);
+                if (node == null) {
+                    return Optional.empty();
+                }
+            }
+            return Optional.of(node.toDto(true));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * 登録日時の新しい順に、カーソルの次からロケーションを取得
+     * Get locations newest first, starting after the cursor
+     * 
+     * @param warehouseCode 倉庫コード（nullの場合は絞り込みなし）
+     * @param zone ゾーン（nullの場合は絞り込みなし）
+     * @param cursor 前ページ最終行のカーソル（先頭ページの場合null）
+     * @param limit 最大件数
+     * @return ロケーションリスト
+     * @return List of locations
+     */
+    public List<LocationMaster> newest(String warehouseCode, String zone, PageCursor cursor, int limit) {
+        lock.readLock().lock();
+        try {
+            NavigableSet<LocationMaster> rows;
+            if (warehouseCode != null) {
+                rows = state.newestByWarehouse.get(warehouseCode);
+            } else if (zone != null) {
+                rows = state.newestByZone.get(zone);
+            } else {
+                rows = state.newest;
+            }
+            List<LocationMaster> result = new ArrayList<>(Math.min(limit, 64));
+            if (rows == null) {
+                return result;
+            }
+            if (cursor != null) {
+                rows = rows.tailSet(LocationMaster.builder()
+                        .locationId(cursor.getLastId())
+                        .createdAt((LocalDateTime) cursor.getValue())
+                        .build(), false);
+            }
+            for (LocationMaster row : rows) {
+                if (result.size() >= limit) {
+                    break;
+                }
+                if (zone == null || zone.equals(row.getZone())) {
+                    result.add(row);
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * ラック配下のロケーションを階層順（レベル→ポジション→ロケーションID）に取得
+     * Get the locations in a rack in hierarchy order (level, position, location ID)
+     * 
+     * @param warehouseCode 倉庫コード
+     * @param zone ゾーン（未設定の場合は空文字）
+     * @param rack ラック（未設定の場合は空文字）
+     * @return ロケーションリスト（ラックが存在しない場合は空）
+     * @return List of locations, empty if there is no such rack
+     */
+    public List<LocationMaster> rack(String warehouseCode, String zone, String rack) {
+        lock.readLock().lock();
+        try {
+            List<LocationMaster> result = new ArrayList<>();
+            Node node = state.root.children.get(warehouseCode);
+            node = node == null ? null : node.children.get(zone);
+            node = node == null ? null : node.children.get(rack);
+            if (node != null) {
+                node.collect(state.byId, result);
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * 階層上のキー（未設定の列は空文字）
+     * Key of a location at a level (unset columns become an empty string)
+     */
+    private static String keyAt(LocationMaster location, Level level) {
+        String key = switch (level) {
+            case WAREHOUSE -> location.getWarehouseCode();
+            case ZONE -> location.getZone();
+            case RACK -> location.getRack();
+            case LEVEL -> location.getLevelNo();
+            case POSITION -> location.getPosition();
+            case ROOT -> "";
+        };
+        return key == null ? "" : key;
+    }
+    
+    private static long capacityOf(LocationMaster location) {
+        return location.getMaxCapacity() == null ? 0 : location.getMaxCapacity();
+    }
+    
+    /**
+     * 索引本体：ロケーションID→ロケーション、階層木、新しい順の集合（全体・倉庫別・ゾーン別）
+     * Index state: location ID to location, the hierarchy tree and newest-first sets (all, per warehouse, per zone)
+     */
+    private static final class State {
+        
+        private final Map<String, LocationMaster> byId = new HashMap<>();
+        
+        private final Node root = new Node(Level.ROOT, "");
+        
+        private final NavigableSet<LocationMaster> newest = new TreeSet<>(NEWEST_FIRST);
+        
+        private final Map<String, NavigableSet<LocationMaster>> newestByWarehouse = new HashMap<>();
+        
+        private final Map<String, NavigableSet<LocationMaster>> newestByZone = new HashMap<>();
+        
+        void put(LocationMaster location) {
+            LocationMaster previous = remove(location.getLocationId());
+            // 更新イベントの作成日時はDBの値と異なるため、既存の値を引き継ぐ（DATE列と同じ秒精度に揃える）
+            LocalDateTime createdAt = previous != null ? previous.getCreatedAt() : location.getCreatedAt();
+            LocationMaster copy = LocationMaster.builder()
+                    .locationId(location.getLocationId())
+                    .warehouseCode(location.getWarehouseCode())
+                    .zone(location.getZone())
+                    .rack(location.getRack())
+                    .levelNo(location.getLevelNo())
+                    .position(location.getPosition())
+                    .maxCapacity(location.getMaxCapacity())
+                    .createdAt(createdAt == null ? null : createdAt.truncatedTo(ChronoUnit.SECONDS))
+                    .build();
+            byId.put(copy.getLocationId(), copy);
+            newest.add(copy);
+            newestByWarehouse.computeIfAbsent(keyAt(copy, Level.WAREHOUSE), k -> new TreeSet<>(NEWEST_FIRST)).add(copy);
+            if (copy.getZone() != null) {
+                newestByZone.computeIfAbsent(copy.getZone(), k -> new TreeSet<>(NEWEST_FIRST)).add(copy);
+            }
+            root.add(copy);
+        }
+        
+        LocationMaster remove(String locationId) {
+            LocationMaster previous = byId.remove(locationId);
+            if (previous == null) {
+                return null;
+            }
+            newest.remove(previous);
+            removeFrom(newestByWarehouse, keyAt(previous, Level.WAREHOUSE), previous);
+            if (previous.getZone() != null) {
+                removeFrom(newestByZone, previous.getZone(), previous);
+            }
+            root.remove(previous);
+            return previous;
+        }
+        
+        private static void removeFrom(Map<String, NavigableSet<LocationMaster>> sets, String key, LocationMaster location) {
+            NavigableSet<LocationMaster> set = sets.get(key);
+            if (set != null && set.remove(location) && set.isEmpty()) {
+                sets.remove(key);
+            }
+        }
+    }
+    
+    /**
+     * 階層木のノード（配下の容量合計・件数を追加・削除のたびに更新）
+     * Tree node (capacity total and count are adjusted on every add and remove)
+     */
+    private static final class Node {
+        
+        private final Level level;
+        
+        private final String key;
+        
+        private final TreeMap<String, Node> children = new TreeMap<>();
+        
+        /**
+         * ポジションにあるロケーションID（POSITIONのみ使用）
+         * Location IDs at the position (POSITION only)
+         */
+        private final TreeSet<String> locationIds = new TreeSet<>();
+        
+        private long capacity;
+        
+        private int count;
+        
+        private Node(Level level, String key) {
+            this.level = level;
+            this.key = key;
+        }
+        
+        void add(LocationMaster location) {
+            capacity += capacityOf(location);
+            count++;
+            if (level == Level.POSITION) {
+                locationIds.add(location.getLocationId());
+                return;
+            }
+            Level childLevel = Level.values()[level.ordinal() + 1];
+            children.computeIfAbsent(keyAt(location, childLevel), k -> new Node(childLevel, k)).add(location);
+        }
+        
+        void remove(LocationMaster location) {
+            capacity -= capacityOf(location);
+            count--;
+            if (level == Level.POSITION) {
+                locationIds.remove(location.getLocationId());
+                return;
+            }
+            String childKey = keyAt(location, Level.values()[level.ordinal() + 1]);
+            Node child = children.get(childKey);
+            if (child != null) {
+                child.remove(location);
+                if (child.count == 0) {
+                    children.remove(childKey);
+                }
+            }
+        }
+        
+        void collect(Map<String, LocationMaster> byId, List<LocationMaster> result) {
+            if (level == Level.POSITION) {
+                locationIds.forEach(id -> result.add(byId.get(id)));
+                return;
+            }
+            children.values().forEach(child -> child.collect(byId, result));
+        }
+        
+        LocationNode toDto(boolean withChildren) {
+            LocationNode.LocationNodeBuilder dto = LocationNode.builder()
+                    .level(level.name())
+                    .key(key)
+                    .totalCapacity(capacity)
+                    .locationCount(count);
+            if (withChildren) {
+                if (level == Level.POSITION) {
+                    dto.locationIds(List.copyOf(locationIds));
+                } else {
+                    List<LocationNode> summaries = new ArrayList<>(children.size());
+                    children.values().forEach(child -> summaries.add(child.toDto(false)));
+                    dto.children(summaries);
+                }
+            }
+            return dto.build();
+        }
+    }
+}
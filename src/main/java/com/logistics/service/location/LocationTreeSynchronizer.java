@@ -0,0 +1,83 @@
+package com.logistics.service.location;
+
+import com.logistics.entity.LocationMaster;
+import com.logistics.service.LocationMasterService;
+import com.logistics.service.event.MasterDataChangeEvent;
+import com.logistics.service.event.MasterDataChangeEvent.ChangeType;
+import com.logistics.service.event.MasterDataChangeEvent.MasterType;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.concurrent.Executor;
+
+/**
+ * ロケーション階層索引の同期処理
+ * Location Tree Synchronizer
+ * 
+ * 起動時に索引を非同期で構築し、以降はロケーションの登録・更新・削除（CSV取込を含む）のコミット後に反映する
+ * Builds the tree asynchronously at startup, then applies location creates, updates and deletes
+ * (CSV imports included) once they commit
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class LocationTreeSynchronizer {
+    
+    private final LocationTree locationTree;
+    
+    private final LocationMasterService locationMasterService;
+    
+    private final Executor queryExecutor;
+    
+    @Value("${app.location.tree.enabled:true}")
+    private boolean enabled;
+    
+    /**
+     * 起動完了後に索引を構築（構築完了まで一覧はDBで応答）
+     * Build the tree once the application is ready (lists fall back to the DB until then)
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        if (!enabled) {
+            log.info("Location tree is disabled");
+            return;
+        }
+        queryExecutor.execute(this::rebuild);
+    }
+    
+    /**
+     * 索引を全件から再構築
+     * Rebuild the tree from every location
+     */
+    public void rebuild() {
+        try {
+            locationTree.rebuild(locationMasterService::exportLocations);
+        } catch (Exception e) {
+            log.warn("Failed to build location tree, location lists stay on the database", e);
+        }
+    }
+    
+    /**
+     * ロケーション変更イベントを索引に反映
+     * Apply a location change event to the tree
+     * 
+     * @param event 変更イベント
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onMasterDataChange(MasterDataChangeEvent event) {
+        if (!enabled || event.getMasterType() != MasterType.LOCATION) {
+            return;
+        }
+        if (event.getChangeType() == ChangeType.DELETED) {
+            locationTree.remove(event.getId());
+        } else if (event.getEntity() instanceof LocationMaster location) {
+            locationTree.put(location);
+        }
+    }
+}
@@ -0,0 +1,462 @@
+package com.logistics.service.location;
+
+import com.logistics.controller.dto.PutawayCandidate;
+import com.logistics.entity.Inventory;
+import com.logistics.entity.LocationMaster;
+import com.logistics.service.LocationMasterService;
+import com.logistics.service.event.MasterDataChangeEvent;
+import com.logistics.service.event.MasterDataChangeEvent.ChangeType;
+import com.logistics.service.event.MasterDataChangeEvent.MasterType;
+import com.logistics.service.inventory.InventoryLedger;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+/**
+ * 入庫先ロケーションの推薦
+ * Putaway Location Recommender
+ * 
+ * 倉庫×ゾーンごとに、残り容量（最大容量−全商品の在庫合計）の大きい順に並べたロケーションの集合をメモリ上で保持する。
+ * 在庫台帳でロケーションの数量が変わるたびにそのロケーションだけを並べ直し、ロケーションの登録・更新・削除は
+ * コミット後に反映する。推薦は各ゾーンの先頭から数量が入り切るロケーションを取り出して併合するだけで、DBは参照しない。
+ * Keeps, per warehouse and zone, the locations ordered by remaining capacity (maximum capacity minus the total
+ * stock of every product) in memory. Each ledger change re-ranks just that location, and location creates,
+ * updates and deletes are applied once they commit. A recommendation only takes the locations that fit the
+ * quantity from the head of each zone and merges them; the DB is never queried.
+ * 
+ * 最大容量が未設定のロケーションは推薦しない。在庫台帳とロケーションの両方の読み込みが完了するまでは利用できない。
+ * Locations without a maximum capacity are never recommended. Unavailable until both the inventory ledger
+ * and the locations have been loaded.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class PutawayRecommender implements InventoryLedger.StockListener {
+    
+    /**
+     * 残り容量の大きい順（同値はロケーションID順）
+     * Most remaining capacity first (ties by location ID)
+     */
+    private static final Comparator<Slot> MOST_ROOM_FIRST = Comparator.comparingLong(Slot::remaining).reversed()
+            .thenComparing(Slot::locationId);
+    
+    private final InventoryLedger inventoryLedger;
+    
+    private final LocationMasterService locationMasterService;
+    
+    private final Executor queryExecutor;
+    
+    /**
+     * ロケーションID→ロケーション
+     * Location ID → bin
+     */
+    private final Map<String, Bin> bins = new ConcurrentHashMap<>();
+    
+    /**
+     * 倉庫コード＋ゾーン→ゾーン
+     * Warehouse code + zone → zone
+     */
+    private final Map<String, Zone> zones = new ConcurrentHashMap<>();
+    
+    @Value("${app.putaway.enabled:true}")
+    private boolean enabled;
+    
+    @Value("${app.putaway.max-limit:50}")
+    private int maxLimit;
+    
+    /**
+     * 読み込んだロケーション（利用開始までの間のみ保持、thisで保護）
+     * Loaded locations (kept only until the recommender starts, guarded by this)
+     */
+    private List<LocationMaster> loadedLocations;
+    
+    /**
+     * 利用開始前に受け付けたロケーション変更（開始時に再適用、thisで保護）
+     * Location changes received before starting (replayed on start, guarded by this)
+     */
+    private List<MasterDataChangeEvent> pendingChanges;
+    
+    private volatile boolean ready;
+    
+    @PostConstruct
+    void register() {
+        if (enabled) {
+            inventoryLedger.addListener(this);
+        }
+    }
+    
+    /**
+     * 起動完了後にロケーションを読み込む
+     * Load locations once the application is ready
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        if (!enabled) {
+            log.info("Putaway recommendation is disabled");
+            return;
+        }
+        synchronized (this) {
+            pendingChanges = new ArrayList<>();
+        }
+        queryExecutor.execute(() -> {
+            try {
+                List<LocationMaster> locations = new ArrayList<>();
+                locationMasterService.exportLocations(locations::add);
+                synchronized (this) {
+                    loadedLocations = locations;
+                }
+                startIfReady();
+            } catch (Exception e) {
+                log.error("Failed to load locations, putaway recommendation is unavailable", e);
+                synchronized (this) {
+                    pendingChanges = null;
+                }
+            }
+        });
+    }
+    
+    @Override
+    public void ledgerLoaded() {
+        startIfReady();
+    }
+    
+    /**
+     * 両方の読み込みが完了していれば全ロケーションを並べて利用可能にする
+     * Once both loads are done, rank every location and become available
+     */
+    private synchronized void startIfReady() {
+        if (ready || loadedLocations == null || !inventoryLedger.isLoaded()) {
+            return;
+        }
+        loadedLocations.forEach(this::put);
+        loadedLocations = null;
+        pendingChanges.forEach(this::apply);
+        pendingChanges = null;
+        ready = true;
+        log.info("Putaway recommender ready: {} locations in {} zones", bins.size(), zones.size());
+    }
+    
+    @Override
+    public void stockChanged(String productId) {
+        // ロケーション単位の通知のみ使用
+    }
+    
+    /**
+     * ロケーションの在庫合計を台帳から読み直して並べ直す（在庫を更新したスレッドで呼ばれるため、失敗は記録のみで伝えない）
+     * Re-read a location's total from the ledger and re-rank it (runs on the thread that changed the stock,
+     * so failures are logged and never propagated)
+     */
+    @Override
+    public void locationChanged(String locationId) {
+        try {
+            Bin bin = bins.get(locationId);
+            if (bin != null) {
+                bin.zone.refresh(bin);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Failed to re-rank location {} for putaway", locationId, e);
+        }
+    }
+    
+    /**
+     * ロケーションの登録・更新・削除を反映
+     * Apply a location create, update or delete
+     * 
+     * @param event 変更イベント
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public synchronized void onMasterDataChange(MasterDataChangeEvent event) {
+        if (!enabled || event.getMasterType() != MasterType.LOCATION) {
+            return;
+        }
+        if (ready) {
+            apply(event);
+        } else if (pendingChanges != null) {
+            pendingChanges.add(event);
+        }
+    }
+    
+    private void apply(MasterDataChangeEvent event) {
+        if (event.getChangeType() == ChangeType.DELETED) {
+            remove(event.getId());
+        } else if (event.getEntity() instanceof LocationMaster location) {
+            put(location);
+        }
+    }
+    
+    /**
+     * ロケーションを登録または置き換え（ゾーンや容量が変わった場合は並べ直す、thisのロック内で呼ぶ）
+     * Add or replace a location (re-ranked if its zone or capacity changed; called holding this lock)
+     */
+    private void put(LocationMaster location) {
+        remove(location.getLocationId());
+        if (location.getMaxCapacity() == null) {
+            return;
+        }
+        String warehouseCode = keyOf(location.getWarehouseCode());
+        String zoneKey = keyOf(location.getZone());
+        Zone zone = zones.computeIfAbsent(warehouseCode + '\u0000' + zoneKey, k -> new Zone(warehouseCode, zoneKey));
+        Bin bin = new Bin(location, zone);
+        bins.put(location.getLocationId(), bin);
+        zone.add(bin);
+    }
+    
+    private void remove(String locationId) {
+        Bin previous = bins.remove(locationId);
+        if (previous != null) {
+            previous.zone.remove(previous);
+        }
+    }
+    
+    /**
+     * 入庫先の候補を取得
+     * Recommend putaway locations
+     * 
+     * 数量が入り切るロケーションのうち、同じ商品を既に保管しているものを先に（集約）、
+     * 続いてその他を、それぞれ残り容量の大きい順に返す。
+     * Among the locations the quantity fits into, those already holding the product come first (consolidation),
+     * followed by the rest, each group with the most remaining capacity first.
+     * 
+     * @param productId 商品ID
+     * @param quantity 入庫数量
+     * @param warehouseCode 倉庫コード（未指定の場合は全倉庫）
+     * @param zone ゾーン（未設定のゾーンは空文字、倉庫コードの指定が必要）
+     * @param limit 最大件数（最大app.putaway.max-limit）
+     * @return 候補リスト
+     * @return List of candidates
+     * @throws IllegalArgumentException 入力が不正な場合
+     * @throws IllegalStateException 読み込みが完了していない場合
+     */
+    public List<PutawayCandidate> recommend(String productId, long quantity, String warehouseCode, String zone, int limit) {
+        if (productId == null || productId.isBlank()) {
+            throw new IllegalArgumentException("Product ID is required");
+        }
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Quantity must be positive");
+        }
+        if (limit <= 0 || limit > maxLimit) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + maxLimit);
+        }
+        if (zone != null && warehouseCode == null) {
+            throw new IllegalArgumentException("Zone requires warehouse code");
+        }
+        if (!ready) {
+            throw new IllegalStateException("Putaway recommender is not ready yet");
+        }
+        String warehouseFilter = warehouseCode == null ? null : warehouseCode.trim();
+        String zoneFilter = zone == null ? null : zone.trim();
+        
+        // 同じ商品を保管しているロケーション（商品ごとのロケーション数は少ないため個別に参照）
+        Set<String> holding = new HashSet<>();
+        List<Slot> consolidate = new ArrayList<>();
+        for (Inventory stock : inventoryLedger.getByProduct(productId)) {
+            if (stock.getQuantity() == null || stock.getQuantity() <= 0) {
+                continue;
+            }
+            holding.add(stock.getLocationId());
+            Bin bin = bins.get(stock.getLocationId());
+            if (bin != null && bin.zone.matches(warehouseFilter, zoneFilter)) {
+                Slot slot = bin.zone.slotOf(bin);
+                if (slot != null && slot.remaining() >= quantity) {
+                    consolidate.add(slot);
+                }
+            }
+        }
+        consolidate.sort(MOST_ROOM_FIRST);
+        
+        // 各ゾーンの先頭から最大limit件ずつ取り出して併合
+        List<Slot> others = new ArrayList<>();
+        if (consolidate.size() < limit) {
+            for (Zone candidateZone : zones.values()) {
+                if (candidateZone.matches(warehouseFilter, zoneFilter)) {
+                    candidateZone.collect(quantity, limit, holding, others);
+                }
+            }
+            others.sort(MOST_ROOM_FIRST);
+        }
+        
+        List<PutawayCandidate> result = new ArrayList<>(limit);
+        for (Slot slot : consolidate) {
+            if (result.size() == limit) {
+                return result;
+            }
+            result.add(slot.toCandidate(true));
+        }
+        for (Slot slot : others) {
+            if (result.size() == limit) {
+                break;
+            }
+            result.add(slot.toCandidate(false));
+        }
+        return result;
+    }
+    
+    /**
+     * 利用可能か
+     * Whether the recommender is available
+     */
+    public boolean isReady() {
+        return ready;
+    }
+    
+    /**
+     * 推薦対象のロケーション数
+     * Number of locations that can be recommended
+     */
+    public int size() {
+        return bins.size();
+    }
+    
+    private static String keyOf(String value) {
+        return value == null ? "" : value.trim();
+    }
+    
+    /**
+     * ロケーション（在庫合計は所属ゾーンのロックで保護し、集合から外している間だけ変更する）
+     * Bin (its total is guarded by its zone's lock and only changed while it is out of the ordered set)
+     */
+    private static final class Bin {
+        
+        private final LocationMaster location;
+        
+        private final Zone zone;
+        
+        private long occupied;
+        
+        /**
+         * ゾーンの集合に入っているか
+         * Whether the bin is in its zone's ordered set
+         */
+        private boolean live;
+        
+        private Bin(LocationMaster location, Zone zone) {
+            this.location = location;
+            this.zone = zone;
+        }
+        
+        private long remaining() {
+            return location.getMaxCapacity() - occupied;
+        }
+    }
+    
+    /**
+     * ある時点のロケーションと在庫合計（ゾーンのロック外で並べ替えるための値）
+     * A bin and its total at one point in time (a value to sort outside the zone lock)
+     */
+    private record Slot(Bin bin, long occupied) {
+        
+        private String locationId() {
+            return bin.location.getLocationId();
+        }
+        
+        private long remaining() {
+            return bin.location.getMaxCapacity() - occupied;
+        }
+        
+        private PutawayCandidate toCandidate(boolean holdsProduct) {
+            LocationMaster location = bin.location;
+            return PutawayCandidate.builder()
+                    .locationId(location.getLocationId())
+                    .warehouseCode(location.getWarehouseCode())
+                    .zone(location.getZone())
+                    .rack(location.getRack())
+                    .levelNo(location.getLevelNo())
+                    .position(location.getPosition())
+                    .maxCapacity(location.getMaxCapacity())
+                    .currentQuantity(occupied)
+                    .remainingCapacity(remaining())
+                    .holdsProduct(holdsProduct)
+                    .build();
+        }
+    }
+    
+    /**
+     * ゾーン（残り容量の大きい順のロケーション集合、thisで保護）
+     * Zone (bins ordered by most remaining capacity, guarded by this)
+     */
+    private final class Zone {
+        
+        private final String warehouseCode;
+        
+        private final String zone;
+        
+        private final TreeSet<Bin> ordered = new TreeSet<>(Comparator.comparingLong(Bin::remaining).reversed()
+                .thenComparing(bin -> bin.location.getLocationId()));
+        
+        private Zone(String warehouseCode, String zone) {
+            this.warehouseCode = warehouseCode;
+            this.zone = zone;
+        }
+        
+        private boolean matches(String warehouseFilter, String zoneFilter) {
+            return (warehouseFilter == null || warehouseFilter.equals(warehouseCode))
+                    && (zoneFilter == null || zoneFilter.equals(zone));
+        }
+        
+        private synchronized void add(Bin bin) {
+            bin.occupied = inventoryLedger.totalAt(bin.location.getLocationId());
+            ordered.add(bin);
+            bin.live = true;
+        }
+        
+        private synchronized void remove(Bin bin) {
+            if (bin.live) {
+                ordered.remove(bin);
+                bin.live = false;
+            }
+        }
+        
+        /**
+         * 在庫合計を台帳から読み直し、変わっていれば並べ直す
+         * Re-read the total from the ledger and re-rank the bin if it changed
+         */
+        private synchronized void refresh(Bin bin) {
+            if (!bin.live) {
+                return;
+            }
+            long occupied = inventoryLedger.totalAt(bin.location.getLocationId());
+            if (occupied != bin.occupied) {
+                ordered.remove(bin);
+                bin.occupied = occupied;
+                ordered.add(bin);
+            }
+        }
+        
+        private synchronized Slot slotOf(Bin bin) {
+            return bin.live ? new Slot(bin, bin.occupied) : null;
+        }
+        
+        /**
+         * 数量が入り切るロケーションを先頭から最大limit件取り出す（除外対象はスキップ）
+         * Take up to limit bins the quantity fits into from the head (skipping excluded ones)
+         */
+        private synchronized void collect(long quantity, int limit, Set<String> excluded, List<Slot> into) {
+            int taken = 0;
+            for (Bin bin : ordered) {
+                if (bin.remaining() < quantity || taken == limit) {
+                    return;
+                }
+                if (!excluded.contains(bin.location.getLocationId())) {
+                    into.add(new Slot(bin, bin.occupied));
+                    taken++;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,504 @@
+package com.logistics.service.search;
+
+import com.logistics.entity.ProductMaster;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * 商品キーワード検索用トライグラム索引
+ * Trigram Index for Product Keyword Search
+ * 
+ * 商品名・商品IDの1〜3文字組ごとに文書番号の転置リストを保持し、部分一致検索をメモリ上で行う
+ * Keeps a posting list of document ordinals per one- to three-character gram of the product name and ID,
+ * answering substring searches in memory. Matching is case-sensitive, like LIKE on Oracle.
+ * 
+ * 1・2文字のキーワードもそのグラムの転置リストだけを読み、全件を走査しない（転置リストは3文字のみの場合の約3倍）。
+ * 検索は一致したエントリのうち要求されたページまでを上位k件として選ぶため、一致全件の並べ替えは行わない。
+ * One- and two-character keywords read just that gram's posting list instead of scanning the catalogue (about three
+ * times the postings of a trigram-only index). A search keeps only the top k matches up to the requested page,
+ * so it never sorts every match.
+ */
+@Component
+@Slf4j
+public class ProductSearchIndex {
+    
+    private static final int GRAM = 3;
+    
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    
+    /**
+     * 索引本体（再構築時に丸ごと差し替える）
+     * Index state (swapped out as a whole on rebuild)
+     */
+    private State state = new State();
+    
+    /**
+     * 再構築中に受け付けた変更（差し替え後に再適用）
+     * Changes received during a rebuild (replayed after the swap)
+     */
+    private List<Consumer<State>> pendingChanges;
+    
+    private volatile boolean ready;
+    
+    /**
+     * 索引が利用可能か（初回構築完了後true）
+     * Whether the index can serve searches (true once the first build has finished)
+     * 
+     * @return 利用可能な場合true
+     * @return true if ready
+     */
+    public boolean isReady() {
+        return ready;
+    }
+    
+    /**
+     * 索引を全件から再構築
+     * Rebuild the index from the full catalog
+     * 
+     * @param source 全商品を順に渡す処理
+     */
+    public void rebuild(Consumer<Consumer<ProductMaster>> source) {
+        long start = System.nanoTime();
+        lock.writeLock().lock();
+        try {
+            pendingChanges = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        
+        State built = new State();
+        try {
+            source.accept(built::put);
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                pendingChanges = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+        
+        lock.writeLock().lock();
+        try {
+            pendingChanges.forEach(change -> change.accept(built));
+            pendingChanges = null;
+            state = built;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Product search index built: {} products, {} grams in {} ms",
+                built.ordinals.size(), built.postings.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+    
+    /**
+     * 商品を登録または更新
+     * Add or replace a product
+     * 
+     * @param product 商品情報
+     */
+    public void put(ProductMaster product) {
+        apply(s -> s.put(product));
+    }
+    
+    /**
+     * 商品を削除
+     * Remove a product
+     * 
+     * @param productId 商品ID
+     */
+    public void remove(String productId) {
+        apply(s -> s.remove(productId));
+    }
+    
+    private void apply(Consumer<State> change) {
+        lock.writeLock().lock();
+        try {
+            change.accept(state);
+            if (pendingChanges != null) {
+                pendingChanges.add(change);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * 商品名または商品IDにキーワードを含む商品を検索し、指定の順序で1ページ分を返す
+     * Find products whose name or ID contains the keyword and return one page of them in the given order
+     * 
+     * @param keyword キーワード
+     * @param order 並び順（{@link #comparator}）
+     * @param after この位置より後のエントリのみ対象（キーセット方式、不要ならnull）
+     * @param offset 読み飛ばす件数（オフセット方式、キーセット方式では0）
+     * @param limit ページの件数
+     * @return ページと一致件数
+     * @return The page and the match count
+     */
+    public Matches search(String keyword, Comparator<Entry> order, Entry after, int offset, int limit) {
+        List<Entry> matches;
+        lock.readLock().lock();
+        try {
+            matches = state.search(keyword);
+        } finally {
+            lock.readLock().unlock();
+        }
+        
+        // エントリは不変のため選択はロック外で行い、上位k件だけを保持する（根が保持中で最も後ろのエントリ）
+        int keep = (int) Math.min((long) offset + limit, Integer.MAX_VALUE);
+        PriorityQueue<Entry> top = new PriorityQueue<>(order.reversed());
+        int remaining = 0;
+        for (Entry entry : matches) {
+            if (after != null && order.compare(entry, after) <= 0) {
+                continue;
+            }
+            remaining++;
+            if (top.size() < keep) {
+                top.add(entry);
+            } else if (keep > 0 && order.compare(entry, top.peek()) < 0) {
+                top.poll();
+                top.add(entry);
+            }
+        }
+        List<Entry> sorted = new ArrayList<>(top);
+        sorted.sort(order);
+        List<Entry> page = sorted.subList(Math.min(offset, sorted.size()), sorted.size());
+        return new Matches(List.copyOf(page), matches.size(), remaining <= keep);
+    }
+    
+    /**
+     * 登録件数
+     * Number of indexed products
+     * 
+     * @return 件数
+     * @return Count
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return state.ordinals.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * ソート条件に対応する比較器（同値時は商品IDで並べる）
+     * Comparator for a sort order, ties broken by product ID
+     * 
+     * ソート列はNOT NULL（sql/11.sql）。値を持たないエントリが混ざっても落ちないようNULLは末尾に置く
+     * The sort columns are NOT NULL (sql/11.sql); a NULL that slips in still sorts last instead of failing
+     * 
+     * @param sortBy ソートフィールド
+     * @param ascending 昇順の場合true
+     * @return 比較器
+     * @return Comparator
+     */
+    public static Comparator<Entry> comparator(String sortBy, boolean ascending) {
+        Comparator<Entry> order = switch (sortBy) {
+            case "productName" -> Comparator.comparing(Entry::getProductName, Comparator.nullsLast(direction(ascending)));
+            case "safetyStock" -> Comparator.comparing(Entry::getSafetyStock, Comparator.nullsLast(direction(ascending)));
+            case "productId" -> Comparator.comparing(Entry::getProductId, direction(ascending));
+            default -> Comparator.comparing(Entry::getCreatedAt, Comparator.nullsLast(ProductSearchIndex.<LocalDateTime>direction(ascending)));
+        };
+        return "productId".equals(sortBy) ? order : order.thenComparing(Entry::getProductId, direction(ascending));
+    }
+    
+    private static <T extends Comparable<? super T>> Comparator<T> direction(boolean ascending) {
+        return ascending ? Comparator.naturalOrder() : Comparator.reverseOrder();
+    }
+    
+    /**
+     * 検索結果の1ページ
+     * One page of search results
+     */
+    @Value
+    public static class Matches {
+        
+        /**
+         * ページ内のエントリ（指定の順序）
+         * Entries on the page, in the requested order
+         */
+        List<Entry> page;
+        
+        /**
+         * キーワードに一致した件数（カーソル位置に関係なく全体）
+         * Number of entries matching the keyword (overall, regardless of the cursor)
+         */
+        int total;
+        
+        /**
+         * このページより後に一致がない場合true
+         * true if no match follows this page
+         */
+        boolean last;
+    }
+    
+    /**
+     * 索引エントリ（ソート・ページングに必要な項目のみ保持）
+     * Index entry (holds only the fields needed for sorting and paging)
+     */
+    @Value
+    public static class Entry {
+        
+        String productId;
+        
+        String productName;
+        
+        LocalDateTime createdAt;
+        
+        Integer safetyStock;
+        
+        /**
+         * キーワードを含むか検証
+         * Verify the entry contains the keyword
+         */
+        boolean matches(String keyword) {
+            return (productName != null && productName.contains(keyword)) || productId.contains(keyword);
+        }
+        
+        /**
+         * カーソル位置を表す比較用エントリを作成
+         * Create a probe entry positioned at a page cursor
+         * 
+         * @param sortBy ソートフィールド
+         * @param value カーソルのソートキー値
+         * @param lastId カーソルの商品ID
+         * @return 比較用エントリ
+         * @return Probe entry
+         */
+        public static Entry probe(String sortBy, Object value, String lastId) {
+            return switch (sortBy) {
+                case "productName" -> new Entry(lastId, (String) value, null, null);
+                case "safetyStock" -> new Entry(lastId, null, null, value == null ? null : ((Number) value).intValue());
+                case "productId" -> new Entry(lastId, null, null, null);
+                default -> new Entry(lastId, null, (LocalDateTime) value, null);
+            };
+        }
+    }
+    
+    /**
+     * 索引本体：文書番号→エントリ、商品ID→文書番号、グラム→文書番号リスト
+     * Index state: ordinal to entry, product ID to ordinal, gram to ordinal list
+     * 
+     * 文書番号は追加順に採番するため転置リストは常に昇順（更新は旧番号を削除扱いにして再追加）
+     * Ordinals are assigned in insertion order so posting lists stay sorted;
+     * an update tombstones the old ordinal and appends a new one
+     */
+    private static final class State {
+        
+        private final List<Entry> docs = new ArrayList<>();
+        
+        private final Map<String, Integer> ordinals = new HashMap<>();
+        
+        private final Map<Long, IntList> postings = new HashMap<>();
+        
+        private int removed;
+        
+        void put(ProductMaster product) {
+            Entry previous = removeEntry(product.getProductId());
+            // 更新イベントには作成日時が含まれない場合がある
+            LocalDateTime createdAt = product.getCreatedAt();
+            if (previous != null && previous.getCreatedAt() != null) {
+                createdAt = previous.getCreatedAt();
+            }
+            add(new Entry(product.getProductId(), product.getProductName(), createdAt, product.getSafetyStock()));
+        }
+        
+        void remove(String productId) {
+            removeEntry(productId);
+        }
+        
+        private void add(Entry entry) {
+            int ordinal = docs.size();
+            docs.add(entry);
+            ordinals.put(entry.getProductId(), ordinal);
+            for (int length = 1; length <= GRAM; length++) {
+                for (long gram : grams(entry.getProductName(), entry.getProductId(), length)) {
+                    postings.computeIfAbsent(gram, k -> new IntList()).add(ordinal);
+                }
+            }
+        }
+        
+        private Entry removeEntry(String productId) {
+            Integer ordinal = ordinals.remove(productId);
+            if (ordinal == null) {
+                return null;
+            }
+            Entry previous = docs.set(ordinal, null);
+            removed++;
+            // 削除済みが半数を超えたら詰め直す
+            if (removed > 1024 && removed > docs.size() / 2) {
+                compact();
+            }
+            return previous;
+        }
+        
+        private void compact() {
+            List<Entry> live = new ArrayList<>(ordinals.size());
+            for (Entry entry : docs) {
+                if (entry != null) {
+                    live.add(entry);
+                }
+            }
+            docs.clear();
+            ordinals.clear();
+            postings.clear();
+            removed = 0;
+            live.forEach(this::add);
+        }
+        
+        List<Entry> search(String keyword) {
+            List<Entry> result = new ArrayList<>();
+            if (keyword.length() < GRAM) {
+                // 短いキーワードはそれ自体が1つのグラムで、転置リストがそのまま一致を表す
+                IntList list = postings.get(gram(keyword, 0, keyword.length()));
+                for (int i = 0; list != null && i < list.size; i++) {
+                    Entry entry = docs.get(list.values[i]);
+                    if (entry != null) {
+                        result.add(entry);
+                    }
+                }
+                return result;
+            }
+            
+            long[] grams = grams(keyword, null, GRAM);
+            IntList[] lists = new IntList[grams.length];
+            for (int i = 0; i < grams.length; i++) {
+                lists[i] = postings.get(grams[i]);
+                if (lists[i] == null) {
+                    return result;
+                }
+            }
+            // 短いリストから順に積集合を取る
+            Arrays.sort(lists, Comparator.comparingInt(list -> list.size));
+            int[] candidates = Arrays.copyOf(lists[0].values, lists[0].size);
+            int count = candidates.length;
+            for (int i = 1; i < lists.length && count > 0; i++) {
+                count = intersect(candidates, count, lists[i]);
+            }
+            
+            // グラムの一致だけでは連続とは限らないため本文で検証
+            for (int i = 0; i < count; i++) {
+                Entry entry = docs.get(candidates[i]);
+                if (entry != null && entry.matches(keyword)) {
+                    result.add(entry);
+                }
+            }
+            return result;
+        }
+        
+        /**
+         * 候補配列をリストとの積集合で上書きし、残った件数を返す
+         * Intersect the candidates in place with a posting list, returning the remaining count
+         */
+        private static int intersect(int[] candidates, int count, IntList list) {
+            int kept = 0;
+            int j = 0;
+            for (int i = 0; i < count; i++) {
+                int ordinal = candidates[i];
+                j = list.seek(ordinal, j);
+                if (j == list.size) {
+                    break;
+                }
+                if (list.values[j] == ordinal) {
+                    candidates[kept++] = ordinal;
+                }
+            }
+            return kept;
+        }
+        
+        /**
+         * 文字列群の重複しない指定長のグラムを取得
+         * Distinct grams of the given length in the given strings
+         */
+        private static long[] grams(String first, String second, int length) {
+            long[] grams = new long[gramCount(first, length) + gramCount(second, length)];
+            int count = collect(first, length, grams, 0);
+            count = collect(second, length, grams, count);
+            Arrays.sort(grams, 0, count);
+            int distinct = 0;
+            for (int i = 0; i < count; i++) {
+                if (distinct == 0 || grams[distinct - 1] != grams[i]) {
+                    grams[distinct++] = grams[i];
+                }
+            }
+            return Arrays.copyOf(grams, distinct);
+        }
+        
+        private static int gramCount(String text, int length) {
+            return text == null ? 0 : Math.max(0, text.length() - length + 1);
+        }
+        
+        private static int collect(String text, int length, long[] grams, int offset) {
+            int count = offset;
+            for (int i = 0; i < gramCount(text, length); i++) {
+                grams[count++] = gram(text, i, length);
+            }
+            return count;
+        }
+        
+        /**
+         * 1〜3文字を16bitずつ詰め、長さを上位に付けたキー（長さの違うグラムが衝突しない）
+         * One to three chars packed 16 bits each, tagged with the length in the top bits so lengths never collide
+         */
+        private static long gram(String text, int from, int length) {
+            long key = length;
+            for (int i = from; i < from + length; i++) {
+                key = (key << 16) | text.charAt(i);
+            }
+            return key;
+        }
+    }
+    
+    /**
+     * 昇順の文書番号リスト
+     * Ascending list of ordinals
+     */
+    private static final class IntList {
+        
+        private int[] values = new int[4];
+        
+        private int size;
+        
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+        
+        /**
+         * from以降で最初にtarget以上となる位置（指数探索＋二分探索）
+         * First position at or after from whose value is >= target (galloping then binary search)
+         */
+        int seek(int target, int from) {
+            if (from >= size || values[from] >= target) {
+                return from;
+            }
+            // values[low] < target を保ちながら範囲を倍々に広げる
+            int low = from;
+            int bound = 1;
+            while (from + bound < size && values[from + bound] < target) {
+                low = from + bound;
+                bound <<= 1;
+            }
+            int index = Arrays.binarySearch(values, low + 1, Math.min(from + bound + 1, size), target);
+            return index >= 0 ? index : -index - 1;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.logistics.service.search;
+
+import com.logistics.entity.ProductMaster;
+import com.logistics.service.ProductMasterService;
+import com.logistics.service.event.MasterDataChangeEvent;
+import com.logistics.service.event.MasterDataChangeEvent.ChangeType;
+import com.logistics.service.event.MasterDataChangeEvent.MasterType;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.concurrent.Executor;
+
+/**
+ * 商品検索索引の同期処理
+ * Product Search Index Synchronizer
+ * 
+ * 起動時に索引を非同期で構築し、以降は商品変更のコミット後に反映する
+ * Builds the index asynchronously at startup, then applies product changes once they commit
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ProductSearchIndexSynchronizer {
+    
+    private final ProductSearchIndex productSearchIndex;
+    
+    private final ProductMasterService productMasterService;
+    
+    private final Executor queryExecutor;
+    
+    @Value("${app.search.index.enabled:true}")
+    private boolean enabled;
+    
+    /**
+     * 起動完了後に索引を構築（構築完了まではDB検索で応答）
+     * Build the index once the application is ready (searches fall back to the DB until then)
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        if (!enabled) {
+            log.info("Product search index is disabled");
+            return;
+        }
+        queryExecutor.execute(this::rebuild);
+    }
+    
+    /**
+     * 索引を全件から再構築
+     * Rebuild the index from the full catalog
+     */
+    public void rebuild() {
+        try {
+            productSearchIndex.rebuild(productMasterService::exportProducts);
+        } catch (Exception e) {
+            log.warn("Failed to build product search index, keyword search stays on the database", e);
+        }
+    }
+    
+    /**
+     * 商品変更イベントを索引に反映
+     * Apply a product change event to the index
+     * 
+     * @param event 変更イベント
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onMasterDataChange(MasterDataChangeEvent event) {
+        if (!enabled || event.getMasterType() != MasterType.PRODUCT) {
+            return;
+        }
+        if (event.getChangeType() == ChangeType.DELETED) {
+            productSearchIndex.remove(event.getId());
+        } else if (event.getEntity() instanceof ProductMaster product) {
+            productSearchIndex.put(product);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.logistics.service.shipment;
+
+import com.logistics.entity.Inventory;
+import com.logistics.entity.ShipmentAllocation;
+import com.logistics.entity.ShipmentRecord;
+import com.logistics.service.inventory.InventoryLedger;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * ウェーブ引当処理（在庫台帳上での引当）
+ * Wave Allocator (allocation against the inventory ledger)
+ * 
+ * 出荷行を商品ごとにまとめて各CPUコアに振り分け、商品内は登録順に、ロケーションは最終更新日時の古い順（FIFO）に引き当てる。
+ * 台帳の数量はロックなし（CAS）で減らすため、同時に行われる在庫増減とも整合する。
+ * 引き当てた数量は台帳の書き戻し対象にはせず、呼び出し元が出荷引当と同じトランザクションでDBの在庫を減らす。
+ * Lines are grouped by product and the groups are spread across CPU cores; within a product, lines are served
+ * in order of creation from locations oldest LAST_UPDATED first (FIFO).
+ * Ledger quantities are taken lock-free (CAS), so concurrent stock adjustments stay consistent.
+ * Taken quantities are not left to the ledger's write-behind; the caller decrements the DB stock in the same
+ * transaction as the shipment allocations.
+ */
+@Component
+@RequiredArgsConstructor
+public class WaveAllocator {
+    
+    /**
+     * FIFO：最終更新日時の古い順（未設定は先頭）、同時刻はロケーションID順
+     * FIFO: oldest last-updated first (unset first), ties by location ID
+     */
+    private static final Comparator<Inventory> FIFO = Comparator
+            .comparing(Inventory::getLastUpdated, Comparator.nullsFirst(Comparator.<LocalDateTime>naturalOrder()))
+            .thenComparing(Inventory::getLocationId);
+    
+    private final InventoryLedger inventoryLedger;
+    
+    /**
+     * 出荷行の引当結果（quantityは今回引き当てた合計、0の場合は在庫なし）
+     * Allocation of one shipment line (quantity is the total taken this wave; 0 if there was no stock)
+     */
+    public record LineAllocation(ShipmentRecord line, List<ShipmentAllocation> picks, long quantity) {
+        
+        /**
+         * 残数をすべて引き当てたか
+         * Whether the whole remaining quantity was allocated
+         */
+        public boolean isComplete() {
+            return quantity >= line.getOrderQty() - line.getAllocatedQty();
+        }
+    }
+    
+    /**
+     * 商品ごとの出荷行を並列に引き当てる
+     * Allocate the lines of each product in parallel
+     * 
+     * @param linesByProduct 商品ごとの出荷行（各リストは同一商品、登録順）
+     * @return 出荷行ごとの引当結果（入力と同じ順）
+     * @return Allocation per line (in input order)
+     */
+    public List<LineAllocation> allocate(Collection<List<ShipmentRecord>> linesByProduct) {
+        return linesByProduct.parallelStream()
+                .flatMap(lines -> allocateProduct(lines).stream())
+                .toList();
+    }
+    
+    private List<LineAllocation> allocateProduct(List<ShipmentRecord> lines) {
+        String productId = lines.get(0).getProductId();
+        List<Inventory> stock = new ArrayList<>(inventoryLedger.getByProduct(productId));
+        stock.sort(FIFO);
+        LocalDateTime now = LocalDateTime.now();
+        
+        List<LineAllocation> result = new ArrayList<>(lines.size());
+        int from = 0; // これより前のロケーションは引当済みで在庫なし
+        for (ShipmentRecord line : lines) {
+            long need = line.getOrderQty() - line.getAllocatedQty();
+            List<ShipmentAllocation> picks = new ArrayList<>(1);
+            long total = 0;
+            for (int i = from; i < stock.size() && total < need; i++) {
+                String locationId = stock.get(i).getLocationId();
+                long taken = inventoryLedger.takeWritten(productId, locationId, need - total);
+                if (taken > 0) {
+                    picks.add(ShipmentAllocation.builder()
+                            .recordId(line.getRecordId())
+                            .locationId(locationId)
+                            .allocatedQty(taken)
+                            .allocatedAt(now)
+                            .build());
+                    total += taken;
+                }
+                if (total < need) {
+                    from = i + 1;
+                }
+            }
+            result.add(new LineAllocation(line, picks, total));
+        }
+        return result;
+    }
+    
+    /**
+     * 引き当てた在庫を台帳に戻す（DBへの反映がロールバックされた場合、または他で変更済みの行）
+     * Return allocated stock to the ledger (when the allocation was rolled back or its line changed elsewhere)
+     * 
+     * @param allocation 引当結果
+     */
+    public void release(LineAllocation allocation) {
+        for (ShipmentAllocation pick : allocation.picks()) {
+            inventoryLedger.putBack(allocation.line().getProductId(), pick.getLocationId(), pick.getAllocatedQty());
+        }
+    }
+}
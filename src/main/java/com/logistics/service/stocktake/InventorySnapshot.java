@@ -0,0 +1,109 @@
+package com.logistics.service.stocktake;
+
+import com.logistics.entity.Inventory;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+/**
+ * 棚卸用の在庫スナップショット
+ * Inventory Snapshot for Stocktakes
+ * 
+ * ロケーション→商品→数量で保持し、ロケーションIDの範囲で件数がほぼ均等になるよう分割する。
+ * 読み込み後は変更しないため、複数スレッドから同時に参照できる。
+ * Held as location → product → quantity and split into location ID ranges with roughly equal row counts.
+ * It is never modified after loading, so any number of threads may read it at once.
+ */
+public final class InventorySnapshot {
+    
+    private final Map<String, Map<String, Long>> quantities;
+    
+    /**
+     * 2番目以降の各パーティションの先頭ロケーションID（昇順）
+     * First location ID of every partition after the first (ascending)
+     */
+    private final String[] boundaries;
+    
+    private final int rows;
+    
+    private InventorySnapshot(Map<String, Map<String, Long>> quantities, String[] boundaries, int rows) {
+        this.quantities = quantities;
+        this.boundaries = boundaries;
+        this.rows = rows;
+    }
+    
+    /**
+     * 在庫行を読み込んでスナップショットを作成
+     * Build a snapshot from inventory rows
+     * 
+     * @param source 全在庫を順に渡す処理（順序は問わない）
+     * @param partitions パーティション数
+     * @return スナップショット
+     * @return Snapshot
+     */
+    public static InventorySnapshot load(Consumer<Consumer<Inventory>> source, int partitions) {
+        TreeMap<String, Map<String, Long>> byLocation = new TreeMap<>();
+        int[] rows = new int[1];
+        source.accept(row -> {
+            byLocation.computeIfAbsent(row.getLocationId(), location -> new HashMap<>())
+                    .put(row.getProductId(), row.getQuantity() == null ? 0 : row.getQuantity());
+            rows[0]++;
+        });
+        
+        // 行数の累計がrows×k/partitionsに達したロケーションで区切る（1ロケーションが複数に分かれることは無い）
+        String[] boundaries = new String[Math.max(partitions, 1) - 1];
+        int next = 0;
+        int seen = 0;
+        for (Map.Entry<String, Map<String, Long>> location : byLocation.entrySet()) {
+            if (next < boundaries.length && seen >= (long) rows[0] * (next + 1) / partitions && seen > 0) {
+                boundaries[next++] = location.getKey();
+            }
+            seen += location.getValue().size();
+        }
+        return new InventorySnapshot(byLocation, Arrays.copyOf(boundaries, next), rows[0]);
+    }
+    
+    /**
+     * スナップショット時点の数量（行が無い場合0）
+     * Quantity as of the snapshot (0 if there was no row)
+     * 
+     * @param productId 商品ID
+     * @param locationId ロケーションID
+     * @return 数量
+     */
+    public long quantity(String productId, String locationId) {
+        return quantities.getOrDefault(locationId, Collections.emptyMap()).getOrDefault(productId, 0L);
+    }
+    
+    /**
+     * ロケーションIDが属するパーティション（0始まり）
+     * Partition a location ID belongs to (zero-based)
+     * 
+     * @param locationId ロケーションID
+     * @return パーティション番号
+     */
+    public int partitionOf(String locationId) {
+        int i = Arrays.binarySearch(boundaries, locationId);
+        return i >= 0 ? i + 1 : -i - 1;
+    }
+    
+    /**
+     * パーティション数（在庫行が少ない場合は指定より少ない）
+     * Number of partitions (fewer than requested when there are only a few inventory rows)
+     */
+    public int partitions() {
+        return boundaries.length + 1;
+    }
+    
+    /**
+     * 在庫行数
+     * Number of inventory rows
+     */
+    public int rows() {
+        return rows;
+    }
+}
@@ -0,0 +1,64 @@
+package com.logistics.service.support;
+
+import org.apache.ibatis.executor.BatchResult;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.mybatis.spring.SqlSessionTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * バッチ実行用SQLセッション
+ * Batch SQL Session
+ * 
+ * ExecutorType.BATCHでMapperを取得し、JDBCバッチとしてまとめて送信する
+ * 同一トランザクション内で通常のMapperと混在させないこと
+ * Provides mappers backed by ExecutorType.BATCH so statements are sent as JDBC batches.
+ * Do not mix with the regular mappers inside the same transaction.
+ */
+@Component
+public class BatchSqlSession {
+    
+    private final SqlSessionTemplate sqlSessionTemplate;
+    
+    public BatchSqlSession(SqlSessionFactory sqlSessionFactory) {
+        this.sqlSessionTemplate = new SqlSessionTemplate(sqlSessionFactory, ExecutorType.BATCH);
+    }
+    
+    /**
+     * バッチ実行用Mapperを取得
+     * Get a mapper bound to the batch executor
+     * 
+     * @param type Mapperインターフェース
+     * @return Mapper
+     */
+    public <T> T getMapper(Class<T> type) {
+        return sqlSessionTemplate.getMapper(type);
+    }
+    
+    /**
+     * 蓄積したステートメントを送信
+     * Send the queued statements
+     * 
+     * @return バッチ実行結果
+     * @return Batch results
+     */
+    public List<BatchResult> flushStatements() {
+        return sqlSessionTemplate.flushStatements();
+    }
+    
+    /**
+     * 蓄積したステートメントを送信し、更新件数を送信順に返す
+     * Send the queued statements and return their update counts in submission order
+     * 
+     * @return 更新件数
+     * @return Update counts
+     */
+    public int[] flushUpdateCounts() {
+        return flushStatements().stream()
+                .flatMapToInt(batch -> Arrays.stream(batch.getUpdateCounts()))
+                .toArray();
+    }
+}
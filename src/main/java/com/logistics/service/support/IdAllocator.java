@@ -0,0 +1,264 @@
+package com.logistics.service.support;
+
+import com.logistics.mapper.SequenceMapper;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.BadSqlGrammarException;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * ID採番（シーケンスからのブロック割り当て）
+ * ID Allocator (block allocation over the sequences)
+ * 
+ * シーケンスの刻み幅をブロックサイズにしておき（sql/6.sql）、NEXTVALの1回の取得で
+ * 「NEXTVAL-ブロックサイズ+1〜NEXTVAL」を予約してメモリ上からロックなしで払い出す。
+ * ブロックの半分を払い出した時点で次のブロックを非同期で取得するため、通常はDBを待たない。
+ * 再起動時は未使用分が欠番になる。
+ * Each sequence increments by the block size (sql/6.sql), so one NEXTVAL reserves NEXTVAL - block size + 1
+ * to NEXTVAL, which is handed out from memory without locks. The next block is fetched asynchronously once
+ * half of the current one is used, so callers normally never wait on the DB. Unused IDs are lost on restart.
+ * 
+ * 刻み幅がブロックサイズより小さいと他のインスタンスとIDが重複するため、起動時に確認して起動を止める
+ * （DBに接続できない場合は各シーケンスの初回取得時に確認し、払い出さない）。
+ * An increment smaller than the block size would hand out IDs that other instances also use, so it is checked
+ * at startup and stops the application from starting (if the DB is unreachable then, each sequence is checked
+ * on its first fetch and hands out nothing until it passes).
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class IdAllocator {
+    
+    /**
+     * 採番シーケンス
+     * Sequences
+     */
+    public enum Sequence {
+        INCOMING_SEQ, INVENTORY_SEQ, SHIPMENT_SEQ, STOCKTAKE_SEQ, LOG_SEQ
+    }
+    
+    /**
+     * 払い出し済みで空のブロック（初回の払い出しで取得を始めるため）
+     * An exhausted block (so the first call starts a fetch)
+     */
+    private static final Block EXHAUSTED = new Block(1, 0);
+    
+    private final SequenceMapper sequenceMapper;
+    
+    private final Executor queryExecutor;
+    
+    /**
+     * 1ブロックのID数（シーケンスのINCREMENT BYと一致させる）
+     * IDs per block (must equal the sequence's INCREMENT BY)
+     */
+    @Value("${app.id.block-size:50}")
+    private int blockSize;
+    
+    private final Map<Sequence, Pool> pools = new EnumMap<>(Sequence.class);
+    
+    {
+        for (Sequence sequence : Sequence.values()) {
+            pools.put(sequence, new Pool(sequence));
+        }
+    }
+    
+    /**
+     * 各シーケンスの刻み幅がブロックサイズ以上であることを確認（満たさない場合は起動しない）
+     * Check that every sequence increments by at least the block size (the application does not start otherwise)
+     */
+    @PostConstruct
+    public void verifySequences() {
+        if (blockSize < 1) {
+            throw new IllegalStateException("app.id.block-size must be positive: " + blockSize);
+        }
+        int checked = 0;
+        try {
+            for (Pool pool : pools.values()) {
+                if (pool.checkIncrement()) {
+                    checked++;
+                }
+            }
+        } catch (DataAccessException e) {
+            // DBに接続できない場合は各シーケンスの初回取得時に確認する
+            log.warn("Sequence increments will be checked on first use, database unavailable: {}", e.getMessage());
+            return;
+        }
+        if (checked == 0) {
+            log.warn("Sequence increments cannot be checked on this database (no USER_SEQUENCES)");
+        } else {
+            log.info("Sequence increments checked against block size {}", blockSize);
+        }
+    }
+    
+    /**
+     * 次のIDを払い出す
+     * Hand out the next ID
+     * 
+     * @param sequence シーケンス
+     * @return ID
+     */
+    public long next(Sequence sequence) {
+        return pools.get(sequence).next();
+    }
+    
+    /**
+     * 払い出し中のブロック（nextが終端を超えたら払い出し済み）
+     * Block being handed out (exhausted once next passes the end)
+     */
+    private static final class Block {
+        
+        private final AtomicLong next;
+        
+        private final long end;
+        
+        /**
+         * 次のブロックの取得を始めるID（ブロックの中間）
+         * ID at which the next block is fetched (the middle of the block)
+         */
+        private final long refillAt;
+        
+        private Block(long start, long end) {
+            this.next = new AtomicLong(start);
+            this.end = end;
+            this.refillAt = start + (end - start) / 2;
+        }
+    }
+    
+    /**
+     * シーケンスごとの払い出し状態（取得中のブロックは常に1つまで）
+     * Per-sequence state (at most one block fetch in flight)
+     */
+    private final class Pool {
+        
+        private final Sequence sequence;
+        
+        private final AtomicReference<Block> current = new AtomicReference<>(EXHAUSTED);
+        
+        private final AtomicReference<CompletableFuture<Block>> refill = new AtomicReference<>();
+        
+        /**
+         * 前回取得したNEXTVAL（刻み幅の確認用）
+         * NEXTVAL from the previous fetch (to check the increment)
+         */
+        private long lastValue;
+        
+        /**
+         * 刻み幅を確認済みか（起動時に確認できなかった場合は初回の取得時に確認）
+         * Whether the increment has been checked (on the first fetch if it could not be at startup)
+         */
+        private volatile boolean incrementChecked;
+        
+        private Pool(Sequence sequence) {
+            this.sequence = sequence;
+        }
+        
+        long next() {
+            while (true) {
+                Block block = current.get();
+                long id = block.next.getAndIncrement();
+                if (id <= block.end) {
+                    if (id == block.refillAt) {
+                        startRefill();
+                    }
+                    return id;
+                }
+                // 払い出し済み：取得中のブロックに切り替える（未取得ならここで取得を始めて待つ）
+                CompletableFuture<Block> pending = startRefill();
+                Block fetched = await(pending);
+                // 取得済みの印を先に外してから切り替える（切り替え直後の中間IDで次の取得が始まるように）
+                if (refill.compareAndSet(pending, null)) {
+                    current.compareAndSet(block, fetched);
+                }
+            }
+        }
+        
+        private CompletableFuture<Block> startRefill() {
+            CompletableFuture<Block> pending = refill.get();
+            if (pending != null) {
+                return pending;
+            }
+            CompletableFuture<Block> started = new CompletableFuture<>();
+            if (!refill.compareAndSet(null, started)) {
+                return refill.get();
+            }
+            try {
+                queryExecutor.execute(() -> {
+                    try {
+                        started.complete(fetch());
+                    } catch (RuntimeException e) {
+                        started.completeExceptionally(e);
+                    }
+                });
+            } catch (RuntimeException e) {
+                started.completeExceptionally(e);
+            }
+            return started;
+        }
+        
+        private Block await(CompletableFuture<Block> pending) {
+            try {
+                return pending.join();
+            } catch (CompletionException e) {
+                // 失敗した取得は破棄し、次の呼び出しで取得し直す
+                refill.compareAndSet(pending, null);
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+        }
+        
+        /**
+         * NEXTVALを1回取得してブロックを予約（同時に実行されるのは1つのみ）
+         * Reserve a block with one NEXTVAL (never runs concurrently for the same sequence)
+         */
+        private Block fetch() {
+            if (!incrementChecked) {
+                checkIncrement();
+            }
+            long value = sequenceMapper.nextVal(sequence.name());
+            if (lastValue != 0 && value - lastValue < blockSize) {
+                throw new IllegalStateException(sequence + " advanced by " + (value - lastValue)
+                        + ", less than app.id.block-size " + blockSize + "; check its INCREMENT BY");
+            }
+            lastValue = value;
+            log.debug("Reserved {} block ending at {}", sequence, value);
+            return new Block(Math.max(value - blockSize + 1, 1), value);
+        }
+        
+        /**
+         * USER_SEQUENCESの刻み幅がブロックサイズ以上であることを確認
+         * Check that USER_SEQUENCES reports an increment of at least the block size
+         * 
+         * @return 確認した場合true（USER_SEQUENCESの無いDBでは確認できずfalse）
+         */
+        private boolean checkIncrement() {
+            Long incrementBy;
+            try {
+                incrementBy = sequenceMapper.findIncrementBy(sequence.name());
+            } catch (BadSqlGrammarException e) {
+                // 開発用のH2等にはUSER_SEQUENCESが無い（取得ごとの刻み幅の確認のみ行う）
+                incrementChecked = true;
+                return false;
+            }
+            if (incrementBy == null) {
+                throw new IllegalStateException("Sequence " + sequence + " does not exist");
+            }
+            if (incrementBy < blockSize) {
+                throw new IllegalStateException("Sequence " + sequence + " increments by " + incrementBy
+                        + ", less than app.id.block-size " + blockSize + "; run ALTER SEQUENCE " + sequence
+                        + " INCREMENT BY " + blockSize);
+            }
+            incrementChecked = true;
+            return true;
+        }
+    }
+}
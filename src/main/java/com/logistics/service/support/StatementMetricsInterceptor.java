@@ -0,0 +1,154 @@
+package com.logistics.service.support;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.executor.BatchResult;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SQL文ごとのメトリクス収集
+ * Per-statement Metrics Interceptor
+ * 
+ * Mapperの各ステートメント（例：ProductMasterMapper.findWithPagination）の実行時間と件数を記録する
+ * Records execution time and row counts for each mapped statement (e.g. ProductMasterMapper.findWithPagination)
+ * 
+ * - mybatis.statement：実行時間（statement, type, outcome） / execution time
+ * - mybatis.statement.rows：取得件数・更新件数（statement, type） / rows returned or affected
+ * - mybatis.batch.flush：JDBCバッチ送信時間（BATCH実行時の更新はここで実行される） / JDBC batch send time
+ */
+@Component
+@RequiredArgsConstructor
+@Intercepts({
+        @Signature(type = Executor.class, method = "query",
+                args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class}),
+        @Signature(type = Executor.class, method = "query",
+                args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class, CacheKey.class, BoundSql.class}),
+        @Signature(type = Executor.class, method = "queryCursor",
+                args = {MappedStatement.class, Object.class, RowBounds.class}),
+        @Signature(type = Executor.class, method = "update",
+                args = {MappedStatement.class, Object.class}),
+        @Signature(type = Executor.class, method = "flushStatements", args = {})
+})
+public class StatementMetricsInterceptor implements Interceptor {
+    
+    private final MeterRegistry meterRegistry;
+    
+    private final Map<String, Meters> meters = new ConcurrentHashMap<>();
+    
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        Object[] args = invocation.getArgs();
+        if (args == null || args.length == 0 || !(args[0] instanceof MappedStatement ms)) {
+            return flushStatements(invocation);
+        }
+        
+        Meters statementMeters = meters.computeIfAbsent(ms.getId(), id -> new Meters(id, ms));
+        long start = System.nanoTime();
+        Object result;
+        try {
+            result = invocation.proceed();
+        } catch (Throwable e) {
+            statementMeters.timer("error").record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw e;
+        }
+        statementMeters.success.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        
+        // BATCH実行時の更新件数は負の固定値のため記録しない（送信時にflushで記録）
+        if (result instanceof List<?> rows) {
+            statementMeters.rows.record(rows.size());
+        } else if (result instanceof Integer count && count >= 0) {
+            statementMeters.rows.record(count);
+        }
+        return result;
+    }
+    
+    @SuppressWarnings("unchecked")
+    private Object flushStatements(Invocation invocation) throws Throwable {
+        long start = System.nanoTime();
+        Object result = invocation.proceed();
+        List<BatchResult> batches = (List<BatchResult>) result;
+        if (batches == null || batches.isEmpty()) {
+            return result;
+        }
+        Timer.builder("mybatis.batch.flush")
+                .description("Time to send queued JDBC batches")
+                .register(meterRegistry)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        for (BatchResult batch : batches) {
+            long affected = 0;
+            for (int count : batch.getUpdateCounts()) {
+                if (count > 0) {
+                    affected += count;
+                }
+            }
+            meters.computeIfAbsent(batch.getMappedStatement().getId(), id -> new Meters(id, batch.getMappedStatement()))
+                    .rows.record(affected);
+        }
+        return result;
+    }
+    
+    /**
+     * ステートメント名（パッケージを除いた「Mapper名.メソッド名」）
+     * Statement name ("Mapper.method" without the package)
+     * 
+     * @param id MappedStatement ID
+     * @return ステートメント名
+     */
+    static String statementName(String id) {
+        int method = id.lastIndexOf('.');
+        int type = method > 0 ? id.lastIndexOf('.', method - 1) : -1;
+        return id.substring(type + 1);
+    }
+    
+    /**
+     * ステートメント単位のメーター（登録済みメーターの再検索を避けるため保持）
+     * Meters of one statement (kept to avoid looking registered meters up on every call)
+     */
+    private final class Meters {
+        
+        private final String statement;
+        
+        private final String type;
+        
+        private final Timer success;
+        
+        private final DistributionSummary rows;
+        
+        private Meters(String id, MappedStatement ms) {
+            this.statement = statementName(id);
+            this.type = ms.getSqlCommandType().name().toLowerCase();
+            this.success = timer("success");
+            this.rows = DistributionSummary.builder("mybatis.statement.rows")
+                    .description("Rows returned or affected per mapped statement")
+                    .tag("statement", statement)
+                    .tag("type", type)
+                    .register(meterRegistry);
+        }
+        
+        private Timer timer(String outcome) {
+            return Timer.builder("mybatis.statement")
+                    .description("Execution time per mapped statement")
+                    .tag("statement", statement)
+                    .tag("type", type)
+                    .tag("outcome", outcome)
+                    .register(meterRegistry);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.logistics.controller;
+
+import com.logistics.controller.dto.ApiResponse;
+import com.logistics.controller.support.ExportWriter;
+import com.logistics.entity.ProductMaster;
+import com.logistics.service.ProductMasterService;
+import com.logistics.service.cache.MasterDataVersions;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 主キー制約で検出した重複登録が500ではなく400として返ることを確認する
+ * Checks that a duplicate create detected by the primary key constraint is answered with 400 rather than 500
+ */
+class ProductMasterControllerTest {
+    
+    private final ProductMasterService productMasterService = mock(ProductMasterService.class);
+    
+    private final ProductMasterController controller = new ProductMasterController(productMasterService,
+            mock(MasterDataVersions.class), mock(ExportWriter.class));
+    
+    @Test
+    void duplicateCreateIsABadRequest() {
+        when(productMasterService.createProduct(any()))
+                .thenThrow(new IllegalArgumentException("Product with ID P1 already exists"));
+        
+        ResponseEntity<ApiResponse<ProductMaster>> response = controller.createProduct(
+                ProductMaster.builder().productId("P1").productName("Bolt").unit("pcs").build());
+        
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(response.getBody().getMessage()).contains("Product with ID P1 already exists");
+    }
+}
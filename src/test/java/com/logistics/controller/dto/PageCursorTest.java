@@ -0,0 +1,69 @@
+package com.logistics.controller.dto;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * カーソルのエンコード・デコードが往復で一致し、改ざん・破損したトークンは400となる例外で拒否されることを確認する
+ * Checks that cursors survive an encode/decode round trip and that tampered or broken tokens are rejected
+ * with the exception that maps to 400
+ */
+class PageCursorTest {
+    
+    @Test
+    void roundTripKeepsEveryValueType() {
+        LocalDateTime createdAt = LocalDateTime.of(2024, 5, 1, 12, 30, 15);
+        
+        assertThat(PageCursor.decode(new PageCursor("createdAt", "DESC", createdAt, "P001").encode(), "createdAt", "DESC"))
+                .isEqualTo(new PageCursor("createdAt", "DESC", createdAt, "P001"));
+        assertThat(PageCursor.decode(new PageCursor("safetyStock", "ASC", 25, "P002").encode(), "safetyStock", "ASC"))
+                .isEqualTo(new PageCursor("safetyStock", "ASC", 25L, "P002"));
+        assertThat(PageCursor.decode(new PageCursor("productName", "ASC", "ボルト M6", "P003").encode(), "productName", "ASC"))
+                .isEqualTo(new PageCursor("productName", "ASC", "ボルト M6", "P003"));
+    }
+    
+    @Test
+    void blankTokenMeansTheFirstPage() {
+        assertThat(PageCursor.decode(null, "createdAt", "DESC")).isNull();
+        assertThat(PageCursor.decode("  ", "createdAt", "DESC")).isNull();
+    }
+    
+    @Test
+    void cursorFromAnotherSortOrderIsRejected() {
+        String token = new PageCursor("createdAt", "DESC", LocalDateTime.now(), "P001").encode();
+        
+        assertThatThrownBy(() -> PageCursor.decode(token, "createdAt", "ASC")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> PageCursor.decode(token, "productName", "DESC")).isInstanceOf(IllegalArgumentException.class);
+    }
+    
+    @Test
+    void tamperedOrBrokenTokensAreRejected() {
+        byte[] valid = Base64.getUrlDecoder().decode(new PageCursor("createdAt", "DESC", LocalDateTime.now(), "P001").encode());
+        byte[] otherVersion = valid.clone();
+        otherVersion[0] = 2;
+        byte[] badTimestamp = new String(valid, StandardCharsets.ISO_8859_1).replace("T", "X")
+                .getBytes(StandardCharsets.ISO_8859_1);
+        
+        for (String token : new String[] {
+                "not a cursor!",
+                encode(Arrays.copyOf(valid, valid.length - 3)),
+                encode(otherVersion),
+                encode(badTimestamp),
+        }) {
+            assertThatThrownBy(() -> PageCursor.decode(token, "createdAt", "DESC"))
+                    .as(token)
+                    .isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+    
+    private static String encode(byte[] bytes) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+}
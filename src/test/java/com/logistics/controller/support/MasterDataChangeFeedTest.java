@@ -0,0 +1,214 @@
+package com.logistics.controller.support;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.logistics.service.event.MasterDataChangeEvent;
+import com.logistics.service.event.MasterDataChangeEvent.ChangeType;
+import com.logistics.service.event.MasterDataChangeEvent.MasterType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 変更配信の再送・続きからの再開の境界と、遅い購読者の切り離しを確認する
+ * Checks the change feed's replay and resume boundaries and that slow subscribers are cut loose
+ */
+class MasterDataChangeFeedTest {
+    
+    private MasterDataChangeFeed feed;
+    
+    private RecordingEmitter next;
+    
+    @AfterEach
+    void shutdown() {
+        feed.shutdown();
+    }
+    
+    @Test
+    void firstConnectGetsReadyThenLiveChanges() {
+        start(10, 10);
+        RecordingEmitter client = subscribe(Set.of(), null);
+        
+        publish(MasterType.PRODUCT, "P1");
+        
+        await(() -> client.events.size() == 2);
+        assertThat(client.events.get(0)).contains("event:ready").contains("data:" + epoch(client) + "-0");
+        assertThat(client.events.get(1)).contains("id:" + epoch(client) + "-1").contains("\"id\":\"P1\"");
+    }
+    
+    @Test
+    void resumeReplaysExactlyWhatTheRingBufferStillHolds() {
+        start(3, 10);
+        String epoch = epoch(subscribe(Set.of(), null));
+        for (int i = 1; i <= 5; i++) {
+            publish(i % 2 == 0 ? MasterType.CUSTOMER : MasterType.PRODUCT, "X" + i);
+        }
+        
+        // 最も古い再送可能位置：バッファに残る3件（3〜5）を続きから送る
+        RecordingEmitter oldest = subscribe(Set.of(), epoch + "-2");
+        await(() -> oldest.events.size() == 3);
+        assertThat(oldest.ids()).containsExactly(epoch + "-3", epoch + "-4", epoch + "-5");
+        
+        // 1つ手前はバッファから外れているためreset
+        assertThat(subscribe(Set.of(), epoch + "-1").firstEvent()).contains("event:reset").contains("data:" + epoch + "-5");
+        // 最新位置からの再接続は何も再送しない
+        RecordingEmitter latest = subscribe(Set.of(), epoch + "-5");
+        publish(MasterType.PRODUCT, "X6");
+        await(() -> latest.events.size() == 1);
+        assertThat(latest.ids()).containsExactly(epoch + "-6");
+        // 未来のID・再起動前のID・形式不正はreset
+        assertThat(subscribe(Set.of(), epoch + "-99").firstEvent()).contains("event:reset");
+        assertThat(subscribe(Set.of(), "0-3").firstEvent()).contains("event:reset");
+        assertThat(subscribe(Set.of(), "garbage").firstEvent()).contains("event:reset");
+    }
+    
+    @Test
+    void replayAndLiveChangesAreFilteredByType() {
+        start(10, 10);
+        String epoch = epoch(subscribe(Set.of(), null));
+        publish(MasterType.PRODUCT, "P1");
+        publish(MasterType.CUSTOMER, "C1");
+        
+        RecordingEmitter customers = subscribe(EnumSet.of(MasterType.CUSTOMER), epoch + "-0");
+        publish(MasterType.LOCATION, "L1");
+        publish(MasterType.CUSTOMER, "C2");
+        
+        await(() -> customers.events.size() == 2);
+        assertThat(customers.ids()).containsExactly(epoch + "-2", epoch + "-4");
+    }
+    
+    @Test
+    void stalledSubscriberNeitherDelaysOthersNorStaysConnected() throws InterruptedException {
+        start(10, 10);
+        RecordingEmitter stuck = new RecordingEmitter(new CountDownLatch(1));
+        next = stuck;
+        feed.subscribe(Set.of(), null);
+        RecordingEmitter healthy = subscribe(Set.of(), null);
+        await(() -> stuck.blocked.getCount() == 0);
+        
+        publish(MasterType.PRODUCT, "P1");
+        await(() -> healthy.events.size() == 2);
+        
+        Thread.sleep(100);
+        feed.detectStalls();
+        assertThat(feed.getStalledSubscribers()).isEqualTo(1);
+        assertThat(feed.getSubscribers()).isEqualTo(1);
+        stuck.release.countDown();
+    }
+    
+    @Test
+    void subscriberThatFallsBehindIsDisconnected() {
+        start(10, 2);
+        RecordingEmitter stuck = new RecordingEmitter(new CountDownLatch(1));
+        next = stuck;
+        feed.subscribe(Set.of(), null);
+        await(() -> stuck.blocked.getCount() == 0);
+        
+        for (int i = 1; i <= 3; i++) {
+            publish(MasterType.PRODUCT, "P" + i);
+        }
+        
+        assertThat(feed.getDisconnectedSlowSubscribers()).isEqualTo(1);
+        assertThat(feed.getSubscribers()).isZero();
+        await(() -> stuck.completed);
+        stuck.release.countDown();
+    }
+    
+    private void start(int replaySize, int queueSize) {
+        feed = new MasterDataChangeFeed(new ObjectMapper(), replaySize, queueSize, 10, 1, 50, 60_000) {
+            @Override
+            SseEmitter createEmitter() {
+                RecordingEmitter emitter = next != null ? next : new RecordingEmitter(null);
+                next = null;
+                return emitter;
+            }
+        };
+    }
+    
+    private RecordingEmitter subscribe(Set<MasterType> types, String lastEventId) {
+        RecordingEmitter emitter = new RecordingEmitter(null);
+        next = emitter;
+        feed.subscribe(types, lastEventId);
+        return emitter;
+    }
+    
+    private void publish(MasterType masterType, String id) {
+        feed.onMasterDataChange(new MasterDataChangeEvent(masterType, ChangeType.DELETED, id, null));
+    }
+    
+    private static String epoch(RecordingEmitter client) {
+        client.firstEvent();
+        String id = client.ids().get(0);
+        return id.substring(0, id.lastIndexOf('-'));
+    }
+    
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError("Condition not met within 5 seconds");
+            }
+            Thread.onSpinWait();
+        }
+    }
+    
+    /**
+     * 送信内容を記録するエミッター（指定した場合は最初の送信で止まる）
+     * Emitter that records what is sent (and, if given a latch, gets stuck in its first send)
+     */
+    private static final class RecordingEmitter extends SseEmitter {
+        
+        private final List<String> events = new CopyOnWriteArrayList<>();
+        
+        private final CountDownLatch release;
+        
+        private final CountDownLatch blocked = new CountDownLatch(1);
+        
+        private volatile boolean completed;
+        
+        private RecordingEmitter(CountDownLatch release) {
+            this.release = release;
+        }
+        
+        @Override
+        public void send(SseEventBuilder builder) {
+            StringBuilder text = new StringBuilder();
+            builder.build().forEach(part -> text.append(part.getData()));
+            events.add(text.toString());
+            if (release != null && blocked.getCount() > 0) {
+                blocked.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+        
+        @Override
+        public void complete() {
+            completed = true;
+        }
+        
+        private String firstEvent() {
+            await(() -> !events.isEmpty());
+            return events.get(0);
+        }
+        
+        private List<String> ids() {
+            return events.stream()
+                    .flatMap(event -> event.lines().filter(line -> line.startsWith("id:")))
+                    .map(line -> line.substring(3))
+                    .toList();
+        }
+    }
+}
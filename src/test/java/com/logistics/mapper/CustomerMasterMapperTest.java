@@ -0,0 +1,90 @@
+package com.logistics.mapper;
+
+import com.logistics.controller.dto.PageCursor;
+import com.logistics.entity.CustomerMaster;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mybatis.spring.boot.test.autoconfigure.MybatisTest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.sql.DataSource;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 顧客Mapperの新しい順のキーセットページングを、sql/*.sqlで作成したH2（Oracle互換モード）の表で確認する
+ * Checks newest-first customer keyset paging against tables created from sql/*.sql on H2 in Oracle mode
+ */
+@MybatisTest
+@ActiveProfiles("h2")
+class CustomerMasterMapperTest {
+    
+    private static final LocalDateTime T0 = LocalDateTime.of(2026, 3, 1, 9, 30, 15);
+    
+    @Autowired
+    private CustomerMasterMapper customerMasterMapper;
+    
+    @Autowired
+    private DataSource dataSource;
+    
+    private final List<CustomerMaster> customers = new ArrayList<>();
+    
+    @BeforeEach
+    void setUp() {
+        new JdbcTemplate(dataSource).update("DELETE FROM CUSTOMER_MASTER");
+        // 登録日時が同じ行を多く含め、ページ境界が同値の中に来るようにする
+        for (int i = 0; i < 17; i++) {
+            CustomerMaster customer = CustomerMaster.builder()
+                    .customerId(String.format("C%03d", (i * 5) % 17))
+                    .customerName(i % 2 == 0 ? "Tokyo Trading " + i : "Osaka Supply " + i)
+                    .createdAt(T0.plusSeconds(i % 4))
+                    .updatedAt(T0)
+                    .build();
+            customerMasterMapper.insert(customer);
+            customers.add(customer);
+        }
+    }
+    
+    @Test
+    void pagesVisitEveryCustomerOnceNewestFirst() {
+        assertThat(pageThrough(null, 3)).containsExactlyElementsOf(expected(null));
+    }
+    
+    @Test
+    void pagesApplyTheNameFilter() {
+        assertThat(pageThrough("Osaka", 2)).containsExactlyElementsOf(expected("Osaka"));
+    }
+    
+    private List<String> pageThrough(String name, int size) {
+        List<String> ids = new ArrayList<>();
+        PageCursor cursor = null;
+        while (true) {
+            List<CustomerMaster> rows = customerMasterMapper.findPage(name, cursor, size);
+            boolean hasNext = rows.size() > size;
+            List<CustomerMaster> page = hasNext ? rows.subList(0, size) : rows;
+            page.forEach(row -> ids.add(row.getCustomerId()));
+            if (!hasNext) {
+                return ids;
+            }
+            CustomerMaster last = page.get(page.size() - 1);
+            String token = new PageCursor("createdAt", "DESC", last.getCreatedAt(), last.getCustomerId()).encode();
+            cursor = PageCursor.decode(token, "createdAt", "DESC");
+        }
+    }
+    
+    private List<String> expected(String name) {
+        return customers.stream()
+                .filter(customer -> name == null || customer.getCustomerName().contains(name))
+                .sorted(Comparator.comparing(CustomerMaster::getCreatedAt)
+                        .thenComparing(CustomerMaster::getCustomerId)
+                        .reversed())
+                .map(CustomerMaster::getCustomerId)
+                .toList();
+    }
+}
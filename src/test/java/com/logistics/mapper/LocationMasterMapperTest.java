@@ -0,0 +1,92 @@
+package com.logistics.mapper;
+
+import com.logistics.controller.dto.PageCursor;
+import com.logistics.entity.LocationMaster;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mybatis.spring.boot.test.autoconfigure.MybatisTest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.sql.DataSource;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * ロケーションMapperの新しい順のキーセットページングを、sql/*.sqlで作成したH2（Oracle互換モード）の表で確認する
+ * Checks newest-first location keyset paging against tables created from sql/*.sql on H2 in Oracle mode
+ */
+@MybatisTest
+@ActiveProfiles("h2")
+class LocationMasterMapperTest {
+    
+    private static final LocalDateTime T0 = LocalDateTime.of(2026, 3, 1, 9, 30, 15);
+    
+    @Autowired
+    private LocationMasterMapper locationMasterMapper;
+    
+    @Autowired
+    private DataSource dataSource;
+    
+    private final List<LocationMaster> locations = new ArrayList<>();
+    
+    @BeforeEach
+    void setUp() {
+        new JdbcTemplate(dataSource).update("DELETE FROM LOCATION_MASTER");
+        // 登録日時が同じ行を多く含め、ページ境界が同値の中に来るようにする
+        for (int i = 0; i < 19; i++) {
+            LocationMaster location = LocationMaster.builder()
+                    .locationId(String.format("L%03d", (i * 7) % 19))
+                    .warehouseCode(i % 3 == 0 ? "W2" : "W1")
+                    .zone(i % 2 == 0 ? "A" : "B")
+                    .maxCapacity(100)
+                    .createdAt(T0.plusSeconds(i % 4))
+                    .build();
+            locationMasterMapper.insert(location);
+            locations.add(location);
+        }
+    }
+    
+    @Test
+    void pagesVisitEveryLocationOnceNewestFirst() {
+        assertThat(pageThrough(null, null, 4)).containsExactlyElementsOf(expected(null, null));
+    }
+    
+    @Test
+    void pagesApplyTheWarehouseAndZoneFilters() {
+        assertThat(pageThrough("W1", "A", 2)).containsExactlyElementsOf(expected("W1", "A"));
+    }
+    
+    private List<String> pageThrough(String warehouseCode, String zone, int size) {
+        List<String> ids = new ArrayList<>();
+        PageCursor cursor = null;
+        while (true) {
+            List<LocationMaster> rows = locationMasterMapper.findPage(warehouseCode, zone, cursor, size);
+            boolean hasNext = rows.size() > size;
+            List<LocationMaster> page = hasNext ? rows.subList(0, size) : rows;
+            page.forEach(row -> ids.add(row.getLocationId()));
+            if (!hasNext) {
+                return ids;
+            }
+            LocationMaster last = page.get(page.size() - 1);
+            String token = new PageCursor("createdAt", "DESC", last.getCreatedAt(), last.getLocationId()).encode();
+            cursor = PageCursor.decode(token, "createdAt", "DESC");
+        }
+    }
+    
+    private List<String> expected(String warehouseCode, String zone) {
+        return locations.stream()
+                .filter(location -> warehouseCode == null || location.getWarehouseCode().equals(warehouseCode))
+                .filter(location -> zone == null || location.getZone().equals(zone))
+                .sorted(Comparator.comparing(LocationMaster::getCreatedAt)
+                        .thenComparing(LocationMaster::getLocationId)
+                        .reversed())
+                .map(LocationMaster::getLocationId)
+                .toList();
+    }
+}
@@ -0,0 +1,147 @@
+package com.logistics.mapper;
+
+import com.logistics.controller.dto.PageCursor;
+import com.logistics.controller.dto.PageRequest;
+import com.logistics.entity.ProductMaster;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mybatis.spring.boot.test.autoconfigure.MybatisTest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.sql.DataSource;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 商品Mapperのキーセットページングと一括登録のMERGEを、sql/*.sqlで作成したH2（Oracle互換モード）の表で確認する
+ * Checks product keyset paging and the bulk-upsert MERGE against tables created from sql/*.sql on H2 in Oracle mode
+ */
+@MybatisTest
+@ActiveProfiles("h2")
+class ProductMasterMapperTest {
+    
+    private static final LocalDateTime T0 = LocalDateTime.of(2026, 3, 1, 9, 30, 15);
+    
+    @Autowired
+    private ProductMasterMapper productMasterMapper;
+    
+    @Autowired
+    private DataSource dataSource;
+    
+    private final List<ProductMaster> products = new ArrayList<>();
+    
+    @BeforeEach
+    void setUp() {
+        new JdbcTemplate(dataSource).update("DELETE FROM PRODUCT_MASTER");
+        // ソートキーが重複する行を多く含め、ページ境界が同値の中に来るようにする
+        for (int i = 0; i < 23; i++) {
+            ProductMaster product = product(String.format("P%03d", (i * 7) % 23), "Item " + (char) ('A' + i % 4),
+                    i % 3 * 10, T0.plusMinutes(i % 5));
+            productMasterMapper.insert(product);
+            products.add(product);
+        }
+    }
+    
+    @Test
+    void cursorPagesVisitEveryRowOnceInSortOrder() {
+        assertPages("createdAt", ProductMaster::getCreatedAt);
+        assertPages("productName", ProductMaster::getProductName);
+        assertPages("safetyStock", ProductMaster::getSafetyStock);
+        assertPages("productId", ProductMaster::getProductId);
+    }
+    
+    @Test
+    void cursorPagesApplyTheKeyword() {
+        PageRequest request = request("createdAt", "DESC", 2);
+        request.setKeyword("Item B");
+        
+        List<String> ids = pageThrough(request, ProductMaster::getCreatedAt);
+        
+        assertThat(ids).containsExactlyElementsOf(expected("DESC", ProductMaster::getCreatedAt).stream()
+                .filter(id -> products.stream().anyMatch(p -> p.getProductId().equals(id) && p.getProductName().equals("Item B")))
+                .toList());
+    }
+    
+    @Test
+    void mergeInsertsNewRowsAndUpdatesExistingOnesKeepingCreatedAt() {
+        ProductMaster existing = products.get(0);
+        ProductMaster changed = product(existing.getProductId(), "Renamed", 99, T0.plusDays(1));
+        ProductMaster added = product("P900", "New", 5, T0.plusDays(1));
+        
+        assertThat(productMasterMapper.merge(changed)).isEqualTo(1);
+        assertThat(productMasterMapper.merge(added)).isEqualTo(1);
+        
+        ProductMaster stored = productMasterMapper.findById(existing.getProductId());
+        assertThat(stored.getProductName()).isEqualTo("Renamed");
+        assertThat(stored.getSafetyStock()).isEqualTo(99);
+        assertThat(stored.getCreatedAt()).isEqualTo(existing.getCreatedAt());
+        assertThat(productMasterMapper.findById("P900").getCreatedAt()).isEqualTo(T0.plusDays(1));
+        assertThat(productMasterMapper.findByIdsForUpdate(List.of(existing.getProductId(), "P900", "P999")))
+                .extracting(ProductMaster::getProductId)
+                .containsExactlyInAnyOrder(existing.getProductId(), "P900");
+    }
+    
+    private void assertPages(String sortBy, Function<ProductMaster, Comparable<?>> key) {
+        for (String sortDir : List.of("ASC", "DESC")) {
+            assertThat(pageThrough(request(sortBy, sortDir, 4), key))
+                    .as("%s %s", sortBy, sortDir)
+                    .containsExactlyElementsOf(expected(sortDir, key));
+        }
+    }
+    
+    /**
+     * サービスと同じく、前ページ最終行からカーソルトークンを作り直して次ページを取得する
+     * Fetches page after page, rebuilding the cursor token from the last row the way the service does
+     */
+    private List<String> pageThrough(PageRequest request, Function<ProductMaster, ?> key) {
+        List<String> ids = new ArrayList<>();
+        while (true) {
+            List<ProductMaster> rows = productMasterMapper.findWithCursor(request);
+            boolean hasNext = rows.size() > request.getSize();
+            List<ProductMaster> page = hasNext ? rows.subList(0, request.getSize()) : rows;
+            page.forEach(row -> ids.add(row.getProductId()));
+            if (!hasNext) {
+                return ids;
+            }
+            ProductMaster last = page.get(page.size() - 1);
+            String token = new PageCursor(request.getSortBy(), request.getSortDir(), key.apply(last), last.getProductId()).encode();
+            request.setCursor(PageCursor.decode(token, request.getSortBy(), request.getSortDir()));
+        }
+    }
+    
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private List<String> expected(String sortDir, Function<ProductMaster, Comparable<?>> key) {
+        Comparator<ProductMaster> order = Comparator.comparing((Function) key);
+        order = order.thenComparing(ProductMaster::getProductId);
+        return products.stream()
+                .sorted("ASC".equals(sortDir) ? order : order.reversed())
+                .map(ProductMaster::getProductId)
+                .toList();
+    }
+    
+    private static PageRequest request(String sortBy, String sortDir, int size) {
+        PageRequest request = new PageRequest();
+        request.setSortBy(sortBy);
+        request.setSortDir(sortDir);
+        request.setSize(size);
+        return request;
+    }
+    
+    private static ProductMaster product(String id, String name, int safetyStock, LocalDateTime createdAt) {
+        return ProductMaster.builder()
+                .productId(id)
+                .productName(name)
+                .unit("pcs")
+                .safetyStock(safetyStock)
+                .createdAt(createdAt)
+                .updatedAt(createdAt)
+                .build();
+    }
+}
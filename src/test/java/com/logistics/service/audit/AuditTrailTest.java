@@ -0,0 +1,233 @@
+package com.logistics.service.audit;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.logistics.entity.ProductMaster;
+import com.logistics.mapper.OperationLogMapper;
+import com.logistics.service.ProductMasterService;
+import com.logistics.service.support.BatchSqlSession;
+import com.logistics.service.support.IdAllocator;
+import com.zaxxer.hikari.HikariDataSource;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mybatis.spring.SqlSessionFactoryBean;
+import org.mybatis.spring.SqlSessionTemplate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * 監査証跡がOPERATION_LOGに書き込む内容を、sql/*.sqlで作成したH2（Oracle互換モード）で確認する。
+ * 書き込みスレッドは接続1本のプールを使い、テストがその接続を保持している間は書き込みが止まる。
+ * Checks what the audit trail writes to OPERATION_LOG on H2 in Oracle mode (schema from sql/*.sql).
+ * The writer uses a one-connection pool; while the test holds that connection the writer is stalled.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ActiveProfiles("h2")
+class AuditTrailTest {
+    
+    @Autowired
+    private DataSource dataSource;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Autowired
+    private IdAllocator idAllocator;
+    
+    @Autowired
+    private ProductMasterService productMasterService;
+    
+    private JdbcTemplate jdbcTemplate;
+    
+    private HikariDataSource writerPool;
+    
+    private AuditTrail auditTrail;
+    
+    /**
+     * テストごとの記録IDの接頭辞（同じDBを共有する他のテストと区別する）
+     * Per-test record ID prefix (tells this test's rows apart from other tests sharing the DB)
+     */
+    private final String prefix = UUID.randomUUID().toString().substring(0, 8) + "-";
+    
+    @BeforeEach
+    void setUp() throws Exception {
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        writerPool = new HikariDataSource();
+        writerPool.setJdbcUrl(((HikariDataSource) dataSource).getJdbcUrl());
+        writerPool.setUsername("sa");
+        writerPool.setMaximumPoolSize(1);
+        
+        SqlSessionFactoryBean factoryBean = new SqlSessionFactoryBean();
+        factoryBean.setDataSource(writerPool);
+        Configuration configuration = new Configuration();
+        configuration.addMapper(OperationLogMapper.class);
+        factoryBean.setConfiguration(configuration);
+        SqlSessionFactory sqlSessionFactory = factoryBean.getObject();
+        
+        auditTrail = new AuditTrail(new BatchSqlSession(sqlSessionFactory),
+                new SqlSessionTemplate(sqlSessionFactory).getMapper(OperationLogMapper.class),
+                new TransactionTemplate(new DataSourceTransactionManager(writerPool)), objectMapper, idAllocator);
+        ReflectionTestUtils.setField(auditTrail, "enabled", true);
+        ReflectionTestUtils.setField(auditTrail, "bufferSize", 10);
+        ReflectionTestUtils.setField(auditTrail, "batchSize", 100);
+        ReflectionTestUtils.setField(auditTrail, "offerTimeoutMs", 50L);
+        ReflectionTestUtils.setField(auditTrail, "shutdownTimeoutMs", 10_000L);
+    }
+    
+    @AfterEach
+    void tearDown() {
+        auditTrail.stop();
+        writerPool.close();
+    }
+    
+    @Test
+    void updateAndDeleteLogTheStoredRowEvenWhenItWasNeverCached() throws Exception {
+        // キャッシュを通さずに登録し、変更前の状態がDBからしか取れないようにする
+        String productId = prefix + "P";
+        LocalDateTime createdAt = LocalDateTime.of(2026, 1, 5, 8, 0);
+        jdbcTemplate.update("INSERT INTO PRODUCT_MASTER (PRODUCT_ID, PRODUCT_NAME, UNIT, SAFETY_STOCK, CREATED_AT, UPDATED_AT) "
+                + "VALUES (?, 'Old name', 'pcs', 5, ?, ?)", productId, createdAt, createdAt);
+        
+        ProductMaster updated = productMasterService.updateProduct(ProductMaster.builder()
+                .productId(productId)
+                .productName("New name")
+                .unit("pcs")
+                .safetyStock(5)
+                .createdAt(LocalDateTime.of(2030, 1, 1, 0, 0))
+                .build());
+        assertThat(updated.getCreatedAt()).isEqualTo(createdAt);
+        productMasterService.deleteProduct(productId);
+        
+        await().atMost(Duration.ofSeconds(10)).untilAsserted(() ->
+                assertThat(logs(productId)).extracting(row -> row.get("OPERATION_TYPE")).containsExactly("UPDATED", "DELETED"));
+        // 更新は変更された項目のみ、削除は削除前の行全体を記録する
+        List<Map<String, Object>> logs = logs(productId);
+        assertThat(json(logs.get(0).get("OLD_VALUE")))
+                .containsEntry("productName", "Old name")
+                .containsEntry("updatedAt", "2026-01-05T08:00:00")
+                .doesNotContainKeys("unit", "safetyStock", "createdAt");
+        assertThat(json(logs.get(0).get("NEW_VALUE"))).containsEntry("productName", "New name");
+        assertThat(json(logs.get(1).get("OLD_VALUE")))
+                .containsEntry("productName", "New name")
+                .containsEntry("createdAt", "2026-01-05T08:00:00");
+        assertThat(logs.get(1).get("NEW_VALUE")).isNull();
+    }
+    
+    @Test
+    void fullBufferMakesTheCallerWaitThenDropsAndCounts() throws Exception {
+        ReflectionTestUtils.setField(auditTrail, "bufferSize", 2);
+        try (Connection held = writerPool.getConnection()) {
+            stallWriter();
+            record("A");
+            record("B");
+            
+            long start = System.nanoTime();
+            record("C");
+            assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isGreaterThanOrEqualTo(50);
+            assertThat(auditTrail.getDropped()).isEqualTo(1);
+            
+            // 待機中に空きができれば破棄されない
+            ReflectionTestUtils.setField(auditTrail, "offerTimeoutMs", 10_000L);
+            CompletableFuture<Void> waiting = CompletableFuture.runAsync(() -> record("D"));
+            Thread.sleep(100);
+            assertThat(waiting).isNotDone();
+            held.close();
+            waiting.get(5, TimeUnit.SECONDS);
+        }
+        auditTrail.stop();
+        
+        assertThat(auditTrail.getDropped()).isEqualTo(1);
+        assertThat(auditTrail.getWritten()).isEqualTo(4);
+        assertThat(recordIds()).containsExactlyInAnyOrder("HOLD", "A", "B", "D");
+    }
+    
+    @Test
+    void rejectedBatchIsRetriedOneByOneDroppingOnlyTheBadRow() throws Exception {
+        String tooLong = "X".repeat(60);
+        try (Connection held = writerPool.getConnection()) {
+            stallWriter();
+            record("A");
+            record(tooLong);
+            record("B");
+        }
+        auditTrail.stop();
+        
+        // RECORD_IDはVARCHAR2(50)のため、60文字の行だけが拒否される
+        assertThat(recordIds()).containsExactlyInAnyOrder("HOLD", "A", "B");
+        assertThat(auditTrail.getWritten()).isEqualTo(3);
+        assertThat(auditTrail.getDropped()).isEqualTo(1);
+    }
+    
+    @Test
+    void stopWritesEverythingBufferedAndRejectsLaterRecords() throws Exception {
+        ReflectionTestUtils.setField(auditTrail, "batchSize", 2);
+        try (Connection held = writerPool.getConnection()) {
+            stallWriter();
+            for (int i = 0; i < 5; i++) {
+                record("R" + i);
+            }
+            assertThat(auditTrail.getBufferSize()).isEqualTo(5);
+        }
+        auditTrail.stop();
+        
+        assertThat(auditTrail.getBufferSize()).isZero();
+        assertThat(recordIds()).containsExactlyInAnyOrder("HOLD", "R0", "R1", "R2", "R3", "R4");
+        
+        record("LATE");
+        assertThat(auditTrail.getDropped()).isEqualTo(1);
+        assertThat(recordIds()).doesNotContain("LATE");
+    }
+    
+    /**
+     * 書き込みスレッドを開始し、最初の1件を取り出して接続待ちになるまで待つ
+     * Start the writer and wait until it has taken a first entry and is waiting for a connection
+     */
+    private void stallWriter() {
+        auditTrail.start();
+        record("HOLD");
+        await().atMost(Duration.ofSeconds(5)).until(() -> auditTrail.getBufferSize() == 0);
+    }
+    
+    private void record(String recordId) {
+        String id = recordId.length() > 50 ? recordId : prefix + recordId;
+        auditTrail.record("PRODUCT_MASTER", "CREATED", id, null, Map.of("productId", id));
+    }
+    
+    private List<String> recordIds() {
+        return jdbcTemplate.queryForList("SELECT RECORD_ID FROM OPERATION_LOG WHERE RECORD_ID LIKE ?", String.class, prefix + "%")
+                .stream()
+                .map(id -> id.substring(prefix.length()))
+                .toList();
+    }
+    
+    private Map<String, Object> json(Object value) throws Exception {
+        return objectMapper.readValue((String) value, new TypeReference<Map<String, Object>>() {
+        });
+    }
+    
+    private List<Map<String, Object>> logs(String recordId) {
+        return jdbcTemplate.queryForList("SELECT OPERATION_TYPE, OLD_VALUE, NEW_VALUE FROM OPERATION_LOG "
+                + "WHERE RECORD_ID = ? ORDER BY LOG_ID", recordId);
+    }
+}
@@ -0,0 +1,68 @@
+package com.logistics.service.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 同じIDの同時読み込みが1回にまとまり、読み込みの失敗が待っていた呼び出し元にも元の例外型で伝わることを確認する
+ * Checks that concurrent loads of one ID collapse into a single load, and that a failed load reaches the callers
+ * waiting on it with its original exception type
+ */
+class EntityCacheTest {
+    
+    private final EntityCache<String> cache = new EntityCache<>("test", 100, Duration.ofMinutes(5), Duration.ofSeconds(10));
+    
+    @Test
+    void unknownIdsAreCachedAsMisses() {
+        AtomicInteger loads = new AtomicInteger();
+        
+        assertThat(cache.get("X", id -> { loads.incrementAndGet(); return null; })).isNull();
+        assertThat(cache.get("X", id -> { loads.incrementAndGet(); return "late"; })).isNull();
+        
+        assertThat(loads).hasValue(1);
+    }
+    
+    @Test
+    void waiterGetsTheLoadersExceptionUnwrapped() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch fail = new CountDownLatch(1);
+        CompletableFuture<String> first = CompletableFuture.supplyAsync(() -> cache.get("P1", id -> {
+            loading.countDown();
+            await(fail);
+            throw new IllegalArgumentException("bad ID " + id);
+        }));
+        assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+        
+        CompletableFuture<RuntimeException> waiter = CompletableFuture.supplyAsync(() -> {
+            try {
+                cache.get("P1", id -> "never loaded");
+                return null;
+            } catch (RuntimeException e) {
+                return e;
+            }
+        });
+        Thread.sleep(50);
+        fail.countDown();
+        
+        assertThat(waiter.get(5, TimeUnit.SECONDS)).isInstanceOf(IllegalArgumentException.class).hasMessage("bad ID P1");
+        assertThatThrownBy(first::join).cause().isInstanceOf(IllegalArgumentException.class);
+        // 失敗した読み込みはキャッシュに残らない
+        assertThat(cache.get("P1", id -> "reloaded")).isEqualTo("reloaded");
+    }
+    
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.logistics.service.dashboard;
+
+import com.logistics.controller.dto.DashboardSummary;
+import com.logistics.entity.LocationMaster;
+import com.logistics.entity.ProductMaster;
+import com.logistics.mapper.CustomerMasterMapper;
+import com.logistics.mapper.LocationMasterMapper;
+import com.logistics.mapper.ProductMasterMapper;
+import com.logistics.service.LocationMasterService;
+import com.logistics.service.ProductMasterService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * ダッシュボード集計の初期化と、並行してコミットされた登録・削除の反映を、sql/*.sqlで作成したH2（Oracle互換モード）の
+ * 行数と照らし合わせて確認する
+ * Checks the dashboard counters' seeding, and how creates and deletes committed concurrently are applied, against the
+ * row counts of H2 in Oracle mode (schema from sql/*.sql)
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ActiveProfiles("h2")
+class DashboardCountersTest {
+    
+    private static final int RECENT = 20;
+    
+    @Autowired
+    private DashboardCounters dashboardCounters;
+    
+    @Autowired
+    private ProductMasterService productMasterService;
+    
+    @Autowired
+    private LocationMasterService locationMasterService;
+    
+    @Autowired
+    private ProductMasterMapper productMasterMapper;
+    
+    @Autowired
+    private CustomerMasterMapper customerMasterMapper;
+    
+    @Autowired
+    private LocationMasterMapper locationMasterMapper;
+    
+    @Autowired
+    private DataSource dataSource;
+    
+    /**
+     * テストごとのID接頭辞（同じDBを共有する他のテストと区別する）
+     * Per-test ID prefix (tells this test's rows apart from other tests sharing the DB)
+     */
+    private final String prefix = UUID.randomUUID().toString().substring(0, 8) + "-";
+    
+    @Test
+    void seedReadsTheCountAndTheNewestRows() {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        LocalDateTime future = LocalDateTime.of(2099, 1, 1, 0, 0);
+        try {
+            for (int i = 0; i < 3; i++) {
+                jdbcTemplate.update("INSERT INTO PRODUCT_MASTER (PRODUCT_ID, PRODUCT_NAME, UNIT, CREATED_AT) VALUES (?, 'Item', 'pcs', ?)",
+                        prefix + i, future.plusDays(i));
+            }
+            DashboardCounters seeded = new DashboardCounters(productMasterMapper, customerMasterMapper, locationMasterMapper, Runnable::run);
+            ReflectionTestUtils.setField(seeded, "recentSize", RECENT);
+            
+            seeded.seed();
+            
+            DashboardSummary summary = seeded.summary(3);
+            assertThat(summary.getProductCount()).isEqualTo(count("PRODUCT_MASTER"));
+            assertThat(summary.getCustomerCount()).isEqualTo(count("CUSTOMER_MASTER"));
+            assertThat(summary.getLocationCount()).isEqualTo(count("LOCATION_MASTER"));
+            assertThat(summary.getRecentProducts()).extracting(ProductMaster::getProductId)
+                    .containsExactly(prefix + 2, prefix + 1, prefix + 0);
+            assertThat(summary.getSeededAt()).isNotNull();
+        } finally {
+            jdbcTemplate.update("DELETE FROM PRODUCT_MASTER WHERE PRODUCT_ID LIKE ?", prefix + "%");
+        }
+    }
+    
+    @Test
+    void summaryIsUnavailableUntilSeeded() {
+        DashboardCounters unseeded = new DashboardCounters(productMasterMapper, customerMasterMapper, locationMasterMapper, Runnable::run);
+        ReflectionTestUtils.setField(unseeded, "recentSize", RECENT);
+        
+        assertThatThrownBy(() -> unseeded.summary(3)).isInstanceOf(IllegalStateException.class);
+    }
+    
+    @Test
+    void concurrentCreatesAndDeletesAreCountedExactlyOnce() throws Exception {
+        DashboardSummary before = dashboardCounters.summary(0);
+        long productsBefore = count("PRODUCT_MASTER");
+        long locationsBefore = count("LOCATION_MASTER");
+        
+        int threads = 8;
+        int rounds = 25;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            String worker = prefix + t + "-";
+            workers.add(pool.submit(() -> {
+                start.await();
+                // 各スレッドが登録し、1件おきに直前の登録を削除する（最近のデータから外れる削除も含む）
+                for (int i = 0; i < rounds; i++) {
+                    productMasterService.createProduct(ProductMaster.builder()
+                            .productId(worker + i)
+                            .productName("Item " + i)
+                            .unit("pcs")
+                            .build());
+                    locationMasterService.createLocation(LocationMaster.builder()
+                            .locationId(worker + i)
+                            .warehouseCode("W1")
+                            .build());
+                    if (i % 2 == 1) {
+                        productMasterService.deleteProduct(worker + (i - 1));
+                        locationMasterService.deleteLocation(worker + (i - 1));
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> worker : workers) {
+            worker.get();
+        }
+        pool.shutdown();
+        
+        long created = (long) threads * (rounds - rounds / 2);
+        assertThat(count("PRODUCT_MASTER") - productsBefore).isEqualTo(created);
+        assertThat(count("LOCATION_MASTER") - locationsBefore).isEqualTo(created);
+        DashboardSummary after = dashboardCounters.summary(RECENT);
+        assertThat(after.getProductCount() - before.getProductCount()).isEqualTo(created);
+        assertThat(after.getLocationCount() - before.getLocationCount()).isEqualTo(created);
+        
+        // 削除で欠けた最近のデータは非同期に補充され、削除済みの行は残らない
+        await().atMost(Duration.ofSeconds(10)).untilAsserted(() -> {
+            DashboardSummary settled = dashboardCounters.summary(RECENT);
+            assertThat(settled.getRecentProducts()).hasSize(RECENT).extracting(ProductMaster::getProductId)
+                    .allMatch(id -> productMasterMapper.findById(id) != null);
+            assertThat(settled.getRecentLocations()).hasSize(RECENT).extracting(LocationMaster::getLocationId)
+                    .allMatch(id -> locationMasterMapper.findById(id) != null);
+        });
+    }
+    
+    private long count(String table) {
+        return new JdbcTemplate(dataSource).queryForObject("SELECT COUNT(*) FROM " + table, Long.class);
+    }
+}
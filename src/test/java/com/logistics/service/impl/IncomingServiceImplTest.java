@@ -0,0 +1,236 @@
+package com.logistics.service.impl;
+
+import com.logistics.controller.dto.AsnReceiptRequest;
+import com.logistics.controller.dto.AsnReceiptResult;
+import com.logistics.entity.Inventory;
+import com.logistics.mapper.IncomingRecordMapper;
+import com.logistics.service.LocationMasterService;
+import com.logistics.service.audit.AuditTrail;
+import com.logistics.service.inventory.InventoryLedger;
+import com.logistics.service.support.BatchSqlSession;
+import com.logistics.service.support.IdAllocator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 入荷明細と在庫の加算が同じトランザクションで反映され、コミット後にだけ台帳へ加わること、
+ * 入荷済みの明細・差異理由の不足・バイト長超過で入荷全体が拒否されることを、
+ * sql/*.sqlで作成したH2（Oracle互換モード）のINCOMING_RECORDとINVENTORYの行で確認する
+ * Checks on the INCOMING_RECORD and INVENTORY rows of H2 in Oracle mode (schema from sql/*.sql) that receipt lines
+ * and stock increments are written in one transaction and reach the ledger only after it commits, and that an already
+ * received line, a missing discrepancy reason or an over-long reason rejects the whole receipt
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ActiveProfiles("h2")
+class IncomingServiceImplTest {
+    
+    @Autowired
+    private IncomingRecordMapper incomingRecordMapper;
+    
+    @Autowired
+    private BatchSqlSession batchSqlSession;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Autowired
+    private IdAllocator idAllocator;
+    
+    @Autowired
+    private LocationMasterService locationMasterService;
+    
+    @Autowired
+    private AuditTrail auditTrail;
+    
+    @Autowired
+    private DataSource dataSource;
+    
+    private JdbcTemplate jdbcTemplate;
+    
+    /**
+     * テストごとのID接頭辞（同じDBを共有する他のテストと区別する）
+     * Per-test ID prefix (tells this test's rows apart from other tests sharing the DB)
+     */
+    private final String prefix = UUID.randomUUID().toString().substring(0, 8) + "-";
+    
+    private final InventoryLedger ledger = new InventoryLedger();
+    
+    /**
+     * トランザクション内で見えた台帳の合計（コミット前に台帳へ反映していないことの確認用）
+     * Ledger total seen inside the transaction (to check nothing reaches the ledger before commit)
+     */
+    private long ledgerTotalInTransaction = -1;
+    
+    /**
+     * 明細の読み取り後、書き込みのトランザクションの開始前に割り込む処理（他のリクエストによる入荷など）
+     * Work that interleaves after the lines are read and before the write transaction begins
+     * (such as another request receiving them)
+     */
+    private Runnable afterRead = () -> {
+    };
+    
+    private long line1;
+    
+    private long line2;
+    
+    private IncomingServiceImpl service;
+    
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        for (String productId : List.of("P1", "P2")) {
+            jdbcTemplate.update("INSERT INTO PRODUCT_MASTER (PRODUCT_ID, PRODUCT_NAME, UNIT) VALUES (?, 'Item', 'pcs')", prefix + productId);
+        }
+        jdbcTemplate.update("INSERT INTO LOCATION_MASTER (LOCATION_ID, WAREHOUSE_CODE) VALUES (?, 'W1')", prefix + "L1");
+        // DBと台帳の在庫を揃えて始める
+        Inventory stock = Inventory.builder()
+                .inventoryId(idAllocator.next(IdAllocator.Sequence.INVENTORY_SEQ))
+                .productId(prefix + "P1")
+                .locationId(prefix + "L1")
+                .quantity(10L)
+                .build();
+        jdbcTemplate.update("INSERT INTO INVENTORY (INVENTORY_ID, PRODUCT_ID, LOCATION_ID, QUANTITY) VALUES (?, ?, ?, ?)",
+                stock.getInventoryId(), stock.getProductId(), stock.getLocationId(), stock.getQuantity());
+        ledger.load(consumer -> consumer.accept(stock));
+        line1 = plannedLine("P1", 5);
+        line2 = plannedLine("P2", 3);
+        
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager) {
+            @Override
+            public <T> T execute(TransactionCallback<T> action) {
+                afterRead.run();
+                return super.execute(status -> {
+                    try {
+                        return action.doInTransaction(status);
+                    } finally {
+                        ledgerTotalInTransaction = ledger.total(prefix + "P1") + ledger.total(prefix + "P2");
+                    }
+                });
+            }
+        };
+        service = new IncomingServiceImpl(incomingRecordMapper, batchSqlSession, transactionTemplate, ledger,
+                idAllocator, locationMasterService, auditTrail);
+    }
+    
+    @Test
+    void linesAndStockCommitTogetherAndReachTheLedgerAfterCommit() {
+        AsnReceiptResult result = service.receiveAsn(asnNo(), new AsnReceiptRequest(prefix + "L1", List.of(
+                new AsnReceiptRequest.Line(line2, 2L, "Short shipped", null))));
+        
+        assertThat(result.getReceivedLines()).isEqualTo(2);
+        assertThat(result.getReceivedQty()).isEqualTo(7);
+        assertThat(result.getDiscrepancyLines()).isEqualTo(1);
+        assertThat(statuses()).containsEntry(line1, "RECEIVED").containsEntry(line2, "RECEIVED");
+        assertThat(jdbcTemplate.queryForObject("SELECT DISCREPANCY_REASON FROM INCOMING_RECORD WHERE RECORD_ID = ?",
+                String.class, line2)).isEqualTo("Short shipped");
+        assertThat(inventory()).containsOnly(Map.entry("P1", 15L), Map.entry("P2", 2L));
+        assertThat(ledgerTotalInTransaction).isEqualTo(10);
+        assertThat(ledger.total(prefix + "P1")).isEqualTo(15);
+        assertThat(ledger.total(prefix + "P2")).isEqualTo(2);
+        // 新しい在庫行には登録したIDが付き、加算は書き込み済みのため書き戻しで二重に足さない
+        Long insertedId = jdbcTemplate.queryForObject("SELECT INVENTORY_ID FROM INVENTORY WHERE PRODUCT_ID = ?",
+                Long.class, prefix + "P2");
+        assertThat(ledger.inventoryIdFor(prefix + "P2", prefix + "L1", () -> -1L)).isEqualTo(insertedId);
+        assertThat(ledger.dirtyCount()).isZero();
+    }
+    
+    @Test
+    void lineReceivedByAnotherRequestRollsBackTheWholeReceipt() {
+        // 読み取り時はPLANNEDだったが、UPDATEまでに他のリクエストが入荷済みにした
+        afterRead = () -> jdbcTemplate.update("UPDATE INCOMING_RECORD SET STATUS = 'RECEIVED' WHERE RECORD_ID = ?", line2);
+        
+        assertThatThrownBy(() -> service.receiveAsn(asnNo(), new AsnReceiptRequest(prefix + "L1", null)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("already been received");
+        
+        assertThat(statuses()).containsEntry(line1, "PLANNED");
+        assertThat(inventory()).containsOnly(Map.entry("P1", 10L));
+        assertThat(ledger.total(prefix + "P1")).isEqualTo(10);
+        assertThat(ledger.get(prefix + "P2", prefix + "L1")).isNull();
+    }
+    
+    @Test
+    void mismatchedQuantityRequiresAReason() {
+        assertThatThrownBy(() -> service.receiveAsn(asnNo(), new AsnReceiptRequest(prefix + "L1", List.of(
+                new AsnReceiptRequest.Line(line1, 4L, "  ", null)))))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Discrepancy reason is required for line " + line1);
+        
+        assertThat(statuses()).containsEntry(line1, "PLANNED").containsEntry(line2, "PLANNED");
+        assertThat(ledger.total(prefix + "P1")).isEqualTo(10);
+    }
+    
+    @Test
+    void reasonLimitIsCountedInUtf8Bytes() {
+        // 全角66文字は198バイトで収まり、67文字は201バイトで超過する
+        String fits = "欠".repeat(66);
+        String tooLong = "欠".repeat(67);
+        
+        assertThatThrownBy(() -> service.receiveAsn(asnNo(), new AsnReceiptRequest(prefix + "L1", List.of(
+                new AsnReceiptRequest.Line(line1, 4L, tooLong, null)))))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("cannot exceed 200 bytes");
+        
+        AsnReceiptResult result = service.receiveAsn(asnNo(), new AsnReceiptRequest(prefix + "L1", List.of(
+                new AsnReceiptRequest.Line(line1, 4L, fits, null))));
+        assertThat(result.getDiscrepancyLines()).isEqualTo(1);
+        assertThat(jdbcTemplate.queryForObject("SELECT DISCREPANCY_REASON FROM INCOMING_RECORD WHERE RECORD_ID = ?",
+                String.class, line1)).isEqualTo(fits);
+        assertThat(ledger.total(prefix + "P1")).isEqualTo(14);
+    }
+    
+    private String asnNo() {
+        return prefix + "ASN1";
+    }
+    
+    /**
+     * PLANNEDの入荷明細を登録
+     * Insert a PLANNED receipt line
+     *
+     * @return 入荷記録ID
+     */
+    private long plannedLine(String productId, long planQty) {
+        long recordId = idAllocator.next(IdAllocator.Sequence.INCOMING_SEQ);
+        jdbcTemplate.update("INSERT INTO INCOMING_RECORD (RECORD_ID, ASN_NO, PRODUCT_ID, PLAN_QTY) VALUES (?, ?, ?, ?)",
+                recordId, asnNo(), prefix + productId, planQty);
+        return recordId;
+    }
+    
+    /**
+     * このテストの入荷明細の状態（明細ID→状態）
+     * Status of this test's receipt lines (record ID to status)
+     */
+    private Map<Long, String> statuses() {
+        return jdbcTemplate.queryForList("SELECT RECORD_ID, STATUS FROM INCOMING_RECORD WHERE ASN_NO = ?", asnNo())
+                .stream().collect(Collectors.toMap(
+                        row -> ((Number) row.get("RECORD_ID")).longValue(),
+                        row -> (String) row.get("STATUS")));
+    }
+    
+    /**
+     * このテストの在庫（商品ID→数量、商品IDは接頭辞なし）
+     * This test's stock (product ID to quantity, product ID without the prefix)
+     */
+    private Map<String, Long> inventory() {
+        return jdbcTemplate.queryForList("SELECT PRODUCT_ID, QUANTITY FROM INVENTORY WHERE LOCATION_ID = ?", prefix + "L1")
+                .stream().collect(Collectors.toMap(
+                        row -> ((String) row.get("PRODUCT_ID")).substring(prefix.length()),
+                        row -> ((Number) row.get("QUANTITY")).longValue()));
+    }
+}
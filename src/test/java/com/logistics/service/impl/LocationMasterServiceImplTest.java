@@ -0,0 +1,192 @@
+package com.logistics.service.impl;
+
+import com.logistics.controller.dto.BatchRowResult;
+import com.logistics.controller.dto.ImportResult;
+import com.logistics.entity.LocationMaster;
+import com.logistics.mapper.LocationMasterMapper;
+import com.logistics.service.cache.EntityCache;
+import com.logistics.service.event.MasterDataChangeEvent;
+import com.logistics.service.location.LocationTree;
+import com.logistics.service.support.BatchSqlSession;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * ロケーションのCSV取込がチャンクごとに一括登録され、不正な行・重複行を行番号付きで報告し、残りを登録することを、
+ * sql/*.sqlで作成したH2（Oracle互換モード）のLOCATION_MASTERの行で確認する
+ * Checks on the LOCATION_MASTER rows of H2 in Oracle mode (schema from sql/*.sql) that the location CSV import
+ * inserts chunk by chunk, reports invalid and duplicate rows by line number and imports the rest
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ActiveProfiles("h2")
+class LocationMasterServiceImplTest {
+    
+    private static final String HEADER = "locationId,warehouseCode,zone,rack,levelNo,position,maxCapacity\n";
+    
+    @Autowired
+    private LocationMasterMapper locationMasterMapper;
+    
+    @Autowired
+    private BatchSqlSession batchSqlSession;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Autowired
+    private DataSource dataSource;
+    
+    /**
+     * テストごとのID接頭辞（同じDBを共有する他のテストと区別する）
+     * Per-test ID prefix (tells this test's rows apart from other tests sharing the DB)
+     */
+    private final String prefix = UUID.randomUUID().toString().substring(0, 8) + "-";
+    
+    /**
+     * コミットされたトランザクションで通知されたロケーションID（AFTER_COMMITのリスナーと同じ）
+     * Location IDs notified by transactions that committed (as an AFTER_COMMIT listener sees them)
+     */
+    private final List<String> published = new CopyOnWriteArrayList<>();
+    
+    /**
+     * 開始したトランザクションの数
+     * Number of transactions started
+     */
+    private int transactions;
+    
+    private LocationMasterServiceImpl service;
+    
+    @BeforeEach
+    void setUp() {
+        new JdbcTemplate(dataSource).update("INSERT INTO LOCATION_MASTER (LOCATION_ID, WAREHOUSE_CODE) VALUES (?, 'W1')", id("L2"));
+        
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager) {
+            @Override
+            public <T> T execute(TransactionCallback<T> action) throws TransactionException {
+                transactions++;
+                return super.execute(action);
+            }
+        };
+        service = new LocationMasterServiceImpl(locationMasterMapper,
+                new EntityCache<>("locations", 100, Duration.ofMinutes(5), Duration.ofSeconds(10)),
+                event -> onCommit(((MasterDataChangeEvent) event).getId()), batchSqlSession, transactionTemplate, new LocationTree());
+        ReflectionTestUtils.setField(service, "importChunkSize", 2);
+        ReflectionTestUtils.setField(service, "importMaxErrors", 10);
+    }
+    
+    @Test
+    void importsInChunksAndReportsInvalidRowsByLine() {
+        ImportResult result = importCsv(HEADER
+                + id("L1") + ",W1,A,R1,1,01,100\n"
+                + id("L3") + ",,A,R1,1,02,100\n"
+                + id("L4") + ",W1,A,R1,1,03,many\n"
+                + id("L5") + ",W1, ,,,,\n"
+                + id("L6") + ",W1,B,R2,2,01,-1\n"
+                + id("L7") + ",W1,B,R2,2,02,50\n");
+        
+        assertThat(result.getTotal()).isEqualTo(6);
+        assertThat(result.getImported()).isEqualTo(3);
+        assertThat(result.getFailed()).isEqualTo(3);
+        assertThat(result.getErrors()).extracting(BatchRowResult::getIndex).containsExactly(3L, 4L, 6L);
+        assertThat(result.getErrors()).extracting(BatchRowResult::getMessage).containsExactly(
+                "Warehouse code is required", "Maximum capacity must be an integer: many", "Maximum capacity cannot be negative");
+        // 有効な行だけを2件ずつ、チャンクごとに1トランザクションで一括登録する
+        assertThat(transactions).isEqualTo(2);
+        assertThat(stored()).containsExactly(id("L1"), id("L2"), id("L5"), id("L7"));
+        LocationMaster l5 = locationMasterMapper.findById(id("L5"));
+        assertThat(l5.getZone()).isNull();
+        assertThat(l5.getCreatedAt()).isNotNull();
+        assertThat(published).containsExactly(id("L1"), id("L5"), id("L7"));
+    }
+    
+    @Test
+    void rejectedBatchIsRetriedRowByRowReportingTheDuplicate() {
+        ImportResult result = importCsv(HEADER
+                + id("L1") + ",W1,A,R1,1,01,100\n"
+                + id("L2") + ",W1,A,R1,1,02,100\n"
+                + id("L3") + ",W1,A,R1,1,03,100\n");
+        
+        assertThat(result.getImported()).isEqualTo(2);
+        assertThat(result.getErrors()).singleElement().satisfies(error -> {
+            assertThat(error.getIndex()).isEqualTo(3);
+            assertThat(error.getId()).isEqualTo(id("L2"));
+            assertThat(error.getMessage()).isEqualTo("Location with ID " + id("L2") + " already exists");
+        });
+        assertThat(stored()).containsExactly(id("L1"), id("L2"), id("L3"));
+        assertThat(locationMasterMapper.findById(id("L2")).getZone()).isNull();
+        assertThat(published).containsExactly(id("L1"), id("L3"));
+    }
+    
+    @Test
+    void errorListIsCappedButEveryFailureIsCounted() {
+        ReflectionTestUtils.setField(service, "importMaxErrors", 1);
+        
+        ImportResult result = importCsv(HEADER + ",W1\n,W1\n" + id("L1") + ",W1\n");
+        
+        assertThat(result.getFailed()).isEqualTo(2);
+        assertThat(result.getErrors()).hasSize(1);
+        assertThat(result.isErrorsTruncated()).isTrue();
+        assertThat(result.getImported()).isEqualTo(1);
+        assertThat(stored()).containsExactly(id("L1"), id("L2"));
+    }
+    
+    @Test
+    void headerWithoutTheRequiredColumnsIsRejected() {
+        assertThatThrownBy(() -> importCsv("locationId,zone\n" + id("L1") + ",A\n"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("locationId and warehouseCode");
+        assertThat(transactions).isZero();
+        assertThat(stored()).containsExactly(id("L2"));
+    }
+    
+    private ImportResult importCsv(String csv) {
+        return service.importLocations(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+    }
+    
+    /**
+     * 通知をトランザクションのコミット後に記録する
+     * Record a notification once its transaction commits
+     */
+    private void onCommit(String locationId) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                published.add(locationId);
+            }
+        });
+    }
+    
+    /**
+     * このテストで保存されているロケーションID
+     * Location IDs stored by this test
+     */
+    private List<String> stored() {
+        return new JdbcTemplate(dataSource).queryForList(
+                "SELECT LOCATION_ID FROM LOCATION_MASTER WHERE LOCATION_ID LIKE ? ORDER BY LOCATION_ID", String.class, prefix + "%");
+    }
+    
+    private String id(String locationId) {
+        return prefix + locationId;
+    }
+}
@@ -0,0 +1,202 @@
+package com.logistics.service.impl;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.logistics.controller.dto.BatchRowResult;
+import com.logistics.controller.dto.BatchUpsertResponse;
+import com.logistics.entity.ProductMaster;
+import com.logistics.mapper.ProductMasterMapper;
+import com.logistics.service.cache.EntityCache;
+import com.logistics.service.event.MasterDataChangeEvent;
+import com.logistics.service.event.MasterDataChangeEvent.ChangeType;
+import com.logistics.service.search.ProductSearchIndex;
+import com.logistics.service.support.BatchSqlSession;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 一括登録がチャンクごとに1トランザクションで実行され、既存行は登録し直さず更新されること、
+ * 失敗したチャンクの行だけが失敗になること、重複登録・存在しないIDの更新削除が入力エラーになることを、
+ * sql/*.sqlで作成したH2（Oracle互換モード）のPRODUCT_MASTERの行で確認する
+ * Checks on the PRODUCT_MASTER rows of H2 in Oracle mode (schema from sql/*.sql) that bulk upsert runs one
+ * transaction per chunk, updates existing rows in place instead of inserting them again, and fails only the rows of a
+ * chunk that rolls back, and that a duplicate create or an update or delete of a missing ID is a validation error
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ActiveProfiles("h2")
+class ProductMasterServiceImplTest {
+    
+    private static final LocalDateTime T0 = LocalDateTime.of(2026, 1, 1, 9, 0);
+    
+    @Autowired
+    private ProductMasterMapper productMasterMapper;
+    
+    @Autowired
+    private BatchSqlSession batchSqlSession;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Autowired
+    private DataSource dataSource;
+    
+    /**
+     * テストごとのID接頭辞（同じDBを共有する他のテストと区別する）
+     * Per-test ID prefix (tells this test's rows apart from other tests sharing the DB)
+     */
+    private final String prefix = UUID.randomUUID().toString().substring(0, 8) + "-";
+    
+    private final List<MasterDataChangeEvent> events = new CopyOnWriteArrayList<>();
+    
+    /**
+     * 開始したトランザクションの数（チャンクの数の確認用）
+     * Number of transactions started (to count the chunks)
+     */
+    private int transactions;
+    
+    private ProductMasterServiceImpl service;
+    
+    @BeforeEach
+    void setUp() {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.update("INSERT INTO PRODUCT_MASTER (PRODUCT_ID, PRODUCT_NAME, UNIT, CREATED_AT) VALUES (?, 'Old bolt', 'pcs', ?)", id("P2"), T0);
+        jdbcTemplate.update("INSERT INTO PRODUCT_MASTER (PRODUCT_ID, PRODUCT_NAME, UNIT, CREATED_AT) VALUES (?, 'Old nut', 'pcs', ?)", id("P4"), T0);
+        
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager) {
+            @Override
+            public <T> T execute(TransactionCallback<T> action) throws TransactionException {
+                transactions++;
+                return super.execute(action);
+            }
+        };
+        service = new ProductMasterServiceImpl(productMasterMapper,
+                new EntityCache<>("products", 100, Duration.ofMinutes(5), Duration.ofSeconds(10)),
+                event -> events.add((MasterDataChangeEvent) event), batchSqlSession, transactionTemplate, Caffeine.newBuilder().build(),
+                Runnable::run, new ProductSearchIndex());
+        ReflectionTestUtils.setField(service, "batchChunkSize", 2);
+    }
+    
+    @Test
+    void upsertRunsOneTransactionPerChunkAndUpdatesExistingRowsInPlace() {
+        ProductMaster invalid = product("P9", "No unit");
+        invalid.setUnit(null);
+        
+        BatchUpsertResponse response = service.upsertProducts(List.of(
+                product("P1", "Bolt"), product("P2", "Bolt M6"), invalid,
+                product("P3", "Nut"), product("P4", "Nut M6"), product("P5", "Washer")));
+        
+        // 不正な行はチャンクに含めず、残りを2件ずつに分ける
+        assertThat(transactions).isEqualTo(3);
+        assertThat(response.getCreated()).isEqualTo(3);
+        assertThat(response.getUpdated()).isEqualTo(2);
+        assertThat(response.getFailed()).isEqualTo(1);
+        assertThat(response.getResults()).extracting(BatchRowResult::getStatus).containsExactly(
+                BatchRowResult.Status.CREATED, BatchRowResult.Status.UPDATED, BatchRowResult.Status.FAILED,
+                BatchRowResult.Status.CREATED, BatchRowResult.Status.UPDATED, BatchRowResult.Status.CREATED);
+        assertThat(response.getResults().get(2).getMessage()).isEqualTo("Product unit is required");
+        
+        assertThat(stored()).containsExactly(id("P1"), id("P2"), id("P3"), id("P4"), id("P5"));
+        ProductMaster p2 = productMasterMapper.findById(id("P2"));
+        assertThat(p2.getProductName()).isEqualTo("Bolt M6");
+        assertThat(p2.getCreatedAt()).isEqualTo(T0);
+        
+        // 更新の通知は変更前の状態と、保存されている登録日時を持つ
+        MasterDataChangeEvent updated = event("P2");
+        assertThat(updated.getChangeType()).isEqualTo(ChangeType.UPDATED);
+        assertThat(((ProductMaster) updated.getPrevious()).getProductName()).isEqualTo("Old bolt");
+        assertThat(((ProductMaster) updated.getEntity()).getCreatedAt()).isEqualTo(T0);
+        assertThat(event("P1").getChangeType()).isEqualTo(ChangeType.CREATED);
+        assertThat(events).hasSize(5);
+    }
+    
+    @Test
+    void chunkThatRollsBackFailsOnlyItsOwnRows() {
+        // 列の長さを超える商品名はバッチの送信時にDBで失敗し、同じチャンクのP4の更新も取り消される
+        BatchUpsertResponse response = service.upsertProducts(List.of(
+                product("P1", "Bolt"), product("P2", "Bolt M6"),
+                product("P3", "N".repeat(101)), product("P4", "Nut M6"), product("P5", "Washer")));
+        
+        assertThat(response.getResults()).extracting(BatchRowResult::getStatus).containsExactly(
+                BatchRowResult.Status.CREATED, BatchRowResult.Status.UPDATED,
+                BatchRowResult.Status.FAILED, BatchRowResult.Status.FAILED, BatchRowResult.Status.CREATED);
+        assertThat(response.getResults().get(2).getMessage()).startsWith("Chunk rolled back");
+        assertThat(stored()).containsExactly(id("P1"), id("P2"), id("P4"), id("P5"));
+        assertThat(productMasterMapper.findById(id("P4")).getProductName()).isEqualTo("Old nut");
+        assertThat(events).extracting(MasterDataChangeEvent::getId).containsExactly(id("P1"), id("P2"), id("P5"));
+    }
+    
+    @Test
+    void repeatedIdInOneRequestIsRejectedWithoutTouchingTheFirst() {
+        BatchUpsertResponse response = service.upsertProducts(List.of(
+                product("P1", "Bolt"), product("P1", "Bolt again")));
+        
+        assertThat(response.getCreated()).isEqualTo(1);
+        assertThat(response.getResults().get(1).getMessage()).isEqualTo("Duplicate product ID in request: " + id("P1"));
+        assertThat(productMasterMapper.findById(id("P1")).getProductName()).isEqualTo("Bolt");
+    }
+    
+    @Test
+    void createOfAnExistingIdIsAValidationErrorWithoutAnEvent() {
+        assertThatThrownBy(() -> service.createProduct(product("P2", "Bolt")))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Product with ID " + id("P2") + " already exists");
+        assertThat(productMasterMapper.findById(id("P2")).getProductName()).isEqualTo("Old bolt");
+        assertThat(events).isEmpty();
+    }
+    
+    @Test
+    void updateOrDeleteOfAMissingIdIsAValidationErrorWithoutAnEvent() {
+        assertThatThrownBy(() -> service.updateProduct(product("P9", "Bolt")))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Product with ID " + id("P9") + " does not exist");
+        assertThatThrownBy(() -> service.deleteProduct(id("P9")))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Product with ID " + id("P9") + " does not exist");
+        assertThat(productMasterMapper.findById(id("P9"))).isNull();
+        assertThat(events).isEmpty();
+    }
+    
+    private MasterDataChangeEvent event(String productId) {
+        return events.stream().filter(event -> id(productId).equals(event.getId())).findFirst().orElseThrow();
+    }
+    
+    /**
+     * このテストで保存されている商品ID
+     * Product IDs stored by this test
+     */
+    private List<String> stored() {
+        return new JdbcTemplate(dataSource).queryForList(
+                "SELECT PRODUCT_ID FROM PRODUCT_MASTER WHERE PRODUCT_ID LIKE ? ORDER BY PRODUCT_ID", String.class, prefix + "%");
+    }
+    
+    private String id(String productId) {
+        return prefix + productId;
+    }
+    
+    private ProductMaster product(String productId, String productName) {
+        return ProductMaster.builder()
+                .productId(id(productId))
+                .productName(productName)
+                .unit("pcs")
+                .safetyStock(0)
+                .build();
+    }
+}
@@ -0,0 +1,222 @@
+package com.logistics.service.impl;
+
+import com.logistics.controller.dto.WaveAllocationResult;
+import com.logistics.entity.Inventory;
+import com.logistics.mapper.ShipmentRecordMapper;
+import com.logistics.service.inventory.InventoryLedger;
+import com.logistics.service.shipment.WaveAllocator;
+import com.logistics.service.support.BatchSqlSession;
+import com.logistics.service.support.IdAllocator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * ウェーブ引当で出荷引当と在庫の減算が同じトランザクションで反映され、失敗時は台帳に戻ることを、
+ * sql/*.sqlで作成したH2（Oracle互換モード）のSHIPMENT_RECORD・SHIPMENT_ALLOCATION・INVENTORYの行で確認する
+ * Checks on the SHIPMENT_RECORD, SHIPMENT_ALLOCATION and INVENTORY rows of H2 in Oracle mode (schema from sql/*.sql)
+ * that a wave writes its allocations and stock decrements in one transaction and returns stock to the ledger when
+ * that transaction fails
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ActiveProfiles("h2")
+class ShipmentServiceImplTest {
+    
+    @Autowired
+    private ShipmentRecordMapper shipmentRecordMapper;
+    
+    @Autowired
+    private BatchSqlSession batchSqlSession;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Autowired
+    private IdAllocator idAllocator;
+    
+    @Autowired
+    private DataSource dataSource;
+    
+    private JdbcTemplate jdbcTemplate;
+    
+    /**
+     * テストごとのID接頭辞（同じDBを共有する他のテストと区別する）
+     * Per-test ID prefix (tells this test's rows apart from other tests sharing the DB)
+     */
+    private final String prefix = UUID.randomUUID().toString().substring(0, 8) + "-";
+    
+    private final InventoryLedger ledger = new InventoryLedger();
+    
+    /**
+     * 引当結果を書き込むトランザクションの開始前に割り込ませる処理
+     * Work that runs before a transaction that writes allocation results begins
+     */
+    private Runnable beforeWrite = () -> {
+    };
+    
+    /**
+     * 引当結果を書き込むトランザクションをコミット前に失敗させるか
+     * Whether transactions that write allocation results fail before they commit
+     */
+    private boolean failBeforeCommit;
+    
+    private long line1;
+    
+    private long line2;
+    
+    private ShipmentServiceImpl service;
+    
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.update("INSERT INTO PRODUCT_MASTER (PRODUCT_ID, PRODUCT_NAME, UNIT) VALUES (?, 'Item', 'pcs')", prefix + "P1");
+        jdbcTemplate.update("INSERT INTO CUSTOMER_MASTER (CUSTOMER_ID, CUSTOMER_NAME) VALUES (?, 'Customer')", prefix + "C1");
+        for (String locationId : List.of("L1", "L2")) {
+            jdbcTemplate.update("INSERT INTO LOCATION_MASTER (LOCATION_ID, WAREHOUSE_CODE) VALUES (?, 'W1')", prefix + locationId);
+        }
+        // DBと台帳の在庫を揃えて始める
+        List<Inventory> stock = List.of(stock("L1", 10), stock("L2", 5));
+        for (Inventory row : stock) {
+            jdbcTemplate.update("INSERT INTO INVENTORY (INVENTORY_ID, PRODUCT_ID, LOCATION_ID, QUANTITY) VALUES (?, ?, ?, ?)",
+                    row.getInventoryId(), row.getProductId(), row.getLocationId(), row.getQuantity());
+        }
+        ledger.load(stock::forEach);
+        line1 = pendingLine(8);
+        line2 = pendingLine(5);
+        
+        // 最初のトランザクションはPENDING行の読み込み、以降が引当結果の書き込み
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager) {
+            
+            private int started;
+            
+            @Override
+            public <T> T execute(TransactionCallback<T> action) {
+                if (started++ == 0) {
+                    return super.execute(action);
+                }
+                beforeWrite.run();
+                return super.execute(status -> {
+                    T result = action.doInTransaction(status);
+                    if (failBeforeCommit) {
+                        throw new DataAccessResourceFailureException("connection reset");
+                    }
+                    return result;
+                });
+            }
+        };
+        service = new ShipmentServiceImpl(shipmentRecordMapper, batchSqlSession, transactionTemplate, ledger,
+                new WaveAllocator(ledger), idAllocator);
+        ReflectionTestUtils.setField(service, "batchSize", 1000);
+    }
+    
+    @Test
+    void allocationsAndStockDecrementsCommitTogether() {
+        WaveAllocationResult result = service.allocatePending();
+        
+        assertThat(result.getAllocatedLines()).isEqualTo(2);
+        assertThat(result.getAllocatedQty()).isEqualTo(13);
+        assertThat(allocations()).containsOnly(
+                Map.entry(line1 + "/L1", 8L), Map.entry(line2 + "/L1", 2L), Map.entry(line2 + "/L2", 3L));
+        assertThat(inventory()).containsOnly(Map.entry("L1", 0L), Map.entry("L2", 2L));
+        assertThat(status(line1)).isEqualTo("ALLOCATED");
+        assertThat(status(line2)).isEqualTo("ALLOCATED");
+        assertThat(ledger.total(prefix + "P1")).isEqualTo(2);
+        // 減算は書き込み済みのため、書き戻しで二重に減らさない
+        assertThat(ledger.dirtyCount()).isZero();
+    }
+    
+    @Test
+    void failedChunkWritesNothingAndReturnsStockToTheLedger() {
+        failBeforeCommit = true;
+        
+        WaveAllocationResult result = service.allocatePending();
+        
+        assertThat(result.getFailedLines()).isEqualTo(2);
+        assertThat(allocations()).isEmpty();
+        assertThat(inventory()).containsOnly(Map.entry("L1", 10L), Map.entry("L2", 5L));
+        assertThat(status(line1)).isEqualTo("PENDING");
+        assertThat(ledger.get(prefix + "P1", prefix + "L1").getQuantity()).isEqualTo(10);
+        assertThat(ledger.get(prefix + "P1", prefix + "L2").getQuantity()).isEqualTo(5);
+        assertThat(ledger.dirtyCount()).isZero();
+    }
+    
+    @Test
+    void staleLineIsNeitherAllocatedNorDeducted() {
+        // 読み込み後に他で一部引き当てられた行
+        beforeWrite = () -> jdbcTemplate.update("UPDATE SHIPMENT_RECORD SET ALLOCATED_QTY = 1 WHERE RECORD_ID = ?", line2);
+        
+        WaveAllocationResult result = service.allocatePending();
+        
+        assertThat(result.getAllocatedLines()).isEqualTo(1);
+        assertThat(result.getStaleLines()).isEqualTo(1);
+        assertThat(allocations()).containsOnlyKeys(line1 + "/L1");
+        assertThat(inventory()).containsOnly(Map.entry("L1", 2L), Map.entry("L2", 5L));
+        assertThat(status(line2)).isEqualTo("PENDING");
+        assertThat(ledger.total(prefix + "P1")).isEqualTo(7);
+        assertThat(ledger.dirtyCount()).isZero();
+    }
+    
+    private Inventory stock(String locationId, long quantity) {
+        return Inventory.builder()
+                .inventoryId(idAllocator.next(IdAllocator.Sequence.INVENTORY_SEQ))
+                .productId(prefix + "P1")
+                .locationId(prefix + locationId)
+                .quantity(quantity)
+                .build();
+    }
+    
+    /**
+     * PENDINGの出荷記録を登録
+     * Insert a PENDING shipment line
+     *
+     * @return 出荷記録ID
+     */
+    private long pendingLine(long orderQty) {
+        long recordId = idAllocator.next(IdAllocator.Sequence.SHIPMENT_SEQ);
+        jdbcTemplate.update("INSERT INTO SHIPMENT_RECORD (RECORD_ID, ORDER_NO, CUSTOMER_ID, PRODUCT_ID, ORDER_QTY) VALUES (?, ?, ?, ?, ?)",
+                recordId, prefix + recordId, prefix + "C1", prefix + "P1", orderQty);
+        return recordId;
+    }
+    
+    /**
+     * このテストの出荷引当（出荷記録ID/ロケーションID→数量、ロケーションIDは接頭辞なし）
+     * This test's allocations (record ID/location ID to quantity, location ID without the prefix)
+     */
+    private Map<String, Long> allocations() {
+        return jdbcTemplate.queryForList("SELECT RECORD_ID, LOCATION_ID, ALLOCATED_QTY FROM SHIPMENT_ALLOCATION WHERE LOCATION_ID LIKE ?",
+                prefix + "%").stream().collect(Collectors.toMap(
+                row -> row.get("RECORD_ID") + "/" + ((String) row.get("LOCATION_ID")).substring(prefix.length()),
+                row -> ((Number) row.get("ALLOCATED_QTY")).longValue()));
+    }
+    
+    /**
+     * このテストの在庫（ロケーションID→数量、ロケーションIDは接頭辞なし）
+     * This test's stock (location ID to quantity, location ID without the prefix)
+     */
+    private Map<String, Long> inventory() {
+        return jdbcTemplate.queryForList("SELECT LOCATION_ID, QUANTITY FROM INVENTORY WHERE PRODUCT_ID = ?", prefix + "P1")
+                .stream().collect(Collectors.toMap(
+                        row -> ((String) row.get("LOCATION_ID")).substring(prefix.length()),
+                        row -> ((Number) row.get("QUANTITY")).longValue()));
+    }
+    
+    private String status(long recordId) {
+        return jdbcTemplate.queryForObject("SELECT STATUS FROM SHIPMENT_RECORD WHERE RECORD_ID = ?", String.class, recordId);
+    }
+}
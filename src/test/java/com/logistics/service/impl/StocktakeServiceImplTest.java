@@ -0,0 +1,267 @@
+package com.logistics.service.impl;
+
+import com.logistics.controller.dto.StocktakeCompletion;
+import com.logistics.controller.dto.StocktakeCountResult;
+import com.logistics.entity.Inventory;
+import com.logistics.mapper.StocktakeRecordMapper;
+import com.logistics.service.audit.AuditTrail;
+import com.logistics.service.inventory.InventoryLedger;
+import com.logistics.service.support.BatchSqlSession;
+import com.logistics.service.support.IdAllocator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 棚卸の差異が台帳の数量を基準に計算され、完了時に二重に加算されないことを、sql/*.sqlで作成したH2（Oracle互換モード）の
+ * STOCKTAKE_RECORDとINVENTORYの行で確認する
+ * Checks on the STOCKTAKE_RECORD and INVENTORY rows of H2 in Oracle mode (schema from sql/*.sql) that stocktake
+ * differences are taken against the ledger and never added twice on completion
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ActiveProfiles("h2")
+class StocktakeServiceImplTest {
+    
+    @Autowired
+    private StocktakeRecordMapper stocktakeRecordMapper;
+    
+    @Autowired
+    private BatchSqlSession batchSqlSession;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Autowired
+    private IdAllocator idAllocator;
+    
+    @Autowired
+    private AuditTrail auditTrail;
+    
+    @Autowired
+    private DataSource dataSource;
+    
+    private JdbcTemplate jdbcTemplate;
+    
+    private final InventoryLedger ledger = new InventoryLedger();
+    
+    /**
+     * テストごとのID接頭辞（同じDBを共有する他のテストと区別する）
+     * Per-test ID prefix (tells this test's rows apart from other tests sharing the DB)
+     */
+    private final String prefix = UUID.randomUUID().toString().substring(0, 8) + "-";
+    
+    /**
+     * 完了のトランザクション内で、明細の更新前に割り込ませる処理
+     * Work that runs inside the completion transaction, before its lines are written
+     */
+    private Runnable concurrently = () -> {
+    };
+    
+    private ThreadPoolTaskExecutor executor;
+    
+    private StocktakeServiceImpl service;
+    
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        for (String productId : List.of("P1", "P2", "P3")) {
+            jdbcTemplate.update("INSERT INTO PRODUCT_MASTER (PRODUCT_ID, PRODUCT_NAME, UNIT) VALUES (?, 'Item', 'pcs')",
+                    prefix + productId);
+        }
+        for (String locationId : List.of("L1", "L2", "L9")) {
+            jdbcTemplate.update("INSERT INTO LOCATION_MASTER (LOCATION_ID, WAREHOUSE_CODE) VALUES (?, 'W1')", prefix + locationId);
+        }
+        // DBと台帳の在庫を揃えて始める
+        List<Inventory> stock = List.of(stock("P1", "L1", 10), stock("P2", "L2", 5));
+        for (Inventory row : stock) {
+            jdbcTemplate.update("INSERT INTO INVENTORY (INVENTORY_ID, PRODUCT_ID, LOCATION_ID, QUANTITY) VALUES (?, ?, ?, ?)",
+                    row.getInventoryId(), row.getProductId(), row.getLocationId(), row.getQuantity());
+        }
+        ledger.load(stock::forEach);
+        
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager) {
+            @Override
+            public <T> T execute(TransactionCallback<T> action) {
+                return super.execute(status -> {
+                    concurrently.run();
+                    return action.doInTransaction(status);
+                });
+            }
+        };
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(2);
+        executor.initialize();
+        
+        service = new StocktakeServiceImpl(stocktakeRecordMapper, batchSqlSession, transactionTemplate, ledger,
+                idAllocator, auditTrail, executor);
+        ReflectionTestUtils.setField(service, "partitions", 2);
+        ReflectionTestUtils.setField(service, "chunkSize", 2);
+        ReflectionTestUtils.setField(service, "queueCapacity", 4);
+        ReflectionTestUtils.setField(service, "maxErrors", 100);
+    }
+    
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+    
+    @Test
+    void differencesAreTakenAgainstTheLedgerIncludingUnflushedMovements() {
+        // DBへ未反映の入出庫
+        ledger.apply(prefix + "P1", prefix + "L1", 5);
+        ledger.apply(prefix + "P2", prefix + "L2", -2);
+        
+        StocktakeCountResult counts = service.recordCounts(stocktakeNo(), csv("P1,L1,15", "P2,L2,2", "P3,L9,4"));
+        
+        assertThat(counts.getRecorded()).isEqualTo(3);
+        assertThat(counts.getDifferences()).isEqualTo(2);
+        assertThat(line("P1")).containsEntry("SYSTEM_QTY", 15L).containsEntry("DIFFERENCE_QTY", 0L);
+        assertThat(line("P2")).containsEntry("DIFFERENCE_QTY", -1L);
+        assertThat(line("P3")).containsEntry("DIFFERENCE_QTY", 4L).containsEntry("STATUS", "PENDING");
+    }
+    
+    @Test
+    void countingAgainIsRecordedOverTheSameLine() {
+        service.recordCounts(stocktakeNo(), csv("P1,L1,8"));
+        service.recordCounts(stocktakeNo(), csv("P1,L1,9"));
+        
+        assertThat(line("P1")).containsEntry("COUNTED_QTY", 9L).containsEntry("DIFFERENCE_QTY", -1L);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM STOCKTAKE_RECORD WHERE STOCKTAKE_NO = ?",
+                Integer.class, stocktakeNo())).isEqualTo(1);
+    }
+    
+    @Test
+    void completionKeepsMovementsMadeAfterTheCount() {
+        ledger.apply(prefix + "P1", prefix + "L1", 5);
+        service.recordCounts(stocktakeNo(), csv("P1,L1,12", "P2,L2,5", "P3,L9,4"));
+        ledger.apply(prefix + "P1", prefix + "L1", 1);
+        
+        StocktakeCompletion completion = service.completeStocktake(stocktakeNo());
+        
+        assertThat(completion.getCompleted()).isEqualTo(3);
+        assertThat(completion.getAdjusted()).isEqualTo(2);
+        assertThat(ledger.get(prefix + "P1", prefix + "L1").getQuantity()).isEqualTo(13);
+        assertThat(ledger.get(prefix + "P2", prefix + "L2").getQuantity()).isEqualTo(5);
+        assertThat(ledger.get(prefix + "P3", prefix + "L9").getQuantity()).isEqualTo(4);
+        // DBには差異のみを加える（台帳の未反映の入出庫は書き戻しが反映する）
+        assertThat(stored()).containsEntry("P1/L1", 7L).containsEntry("P2/L2", 5L).containsEntry("P3/L9", 4L);
+        assertThat(statuses()).containsOnly("COMPLETED");
+        
+        assertThatThrownBy(() -> service.completeStocktake(stocktakeNo())).isInstanceOf(IllegalArgumentException.class);
+        assertThat(stored()).containsEntry("P1/L1", 7L);
+    }
+    
+    @Test
+    void pickDuringCompletionCannotTakeTheReservedDecrease() {
+        service.recordCounts(stocktakeNo(), csv("P1,L1,4"));
+        // 完了のトランザクション中に出荷引当が残りをすべて引き当てる
+        concurrently = () -> ledger.takeWritten(prefix + "P1", prefix + "L1", 10);
+        
+        StocktakeCompletion completion = service.completeStocktake(stocktakeNo());
+        
+        assertThat(completion.getAdjusted()).isEqualTo(1);
+        assertThat(completion.getNetAdjustment()).isEqualTo(-6);
+        assertThat(ledger.get(prefix + "P1", prefix + "L1").getQuantity()).isZero();
+        assertThat(stored()).containsEntry("P1/L1", 4L);
+    }
+    
+    @Test
+    void decreaseLargerThanTheCurrentStockIsLeftPending() {
+        service.recordCounts(stocktakeNo(), csv("P1,L1,4", "P2,L2,6"));
+        ledger.take(prefix + "P1", prefix + "L1", 5);
+        
+        StocktakeCompletion completion = service.completeStocktake(stocktakeNo());
+        
+        assertThat(completion.getCompleted()).isEqualTo(1);
+        assertThat(completion.getSkipped()).isEqualTo(1);
+        assertThat(ledger.get(prefix + "P1", prefix + "L1").getQuantity()).isEqualTo(5);
+        assertThat(ledger.get(prefix + "P2", prefix + "L2").getQuantity()).isEqualTo(6);
+        assertThat(line("P1")).containsEntry("STATUS", "PENDING");
+        assertThat(stored()).containsEntry("P1/L1", 10L).containsEntry("P2/L2", 6L);
+    }
+    
+    @Test
+    void reservedDecreaseIsPutBackWhenTheTransactionFails() {
+        service.recordCounts(stocktakeNo(), csv("P1,L1,4"));
+        concurrently = () -> {
+            throw new CannotCreateTransactionException("connection refused");
+        };
+        
+        assertThatThrownBy(() -> service.completeStocktake(stocktakeNo())).isInstanceOf(CannotCreateTransactionException.class);
+        assertThat(ledger.get(prefix + "P1", prefix + "L1").getQuantity()).isEqualTo(10);
+        assertThat(line("P1")).containsEntry("STATUS", "PENDING");
+        assertThat(stored()).containsEntry("P1/L1", 10L);
+    }
+    
+    private String stocktakeNo() {
+        return prefix + "ST1";
+    }
+    
+    private Inventory stock(String productId, String locationId, long quantity) {
+        return Inventory.builder()
+                .inventoryId(idAllocator.next(IdAllocator.Sequence.INVENTORY_SEQ))
+                .productId(prefix + productId)
+                .locationId(prefix + locationId)
+                .quantity(quantity)
+                .build();
+    }
+    
+    private Map<String, Object> line(String productId) {
+        Map<String, Object> line = jdbcTemplate.queryForMap("SELECT SYSTEM_QTY, COUNTED_QTY, DIFFERENCE_QTY, STATUS "
+                + "FROM STOCKTAKE_RECORD WHERE STOCKTAKE_NO = ? AND PRODUCT_ID = ?", stocktakeNo(), prefix + productId);
+        return line.entrySet().stream().collect(Collectors.toMap(Map.Entry::getKey,
+                entry -> entry.getValue() instanceof Number number ? (Object) number.longValue() : entry.getValue()));
+    }
+    
+    private List<String> statuses() {
+        return jdbcTemplate.queryForList("SELECT STATUS FROM STOCKTAKE_RECORD WHERE STOCKTAKE_NO = ?", String.class, stocktakeNo());
+    }
+    
+    /**
+     * このテストのINVENTORYの行（接頭辞を除いた商品ID/ロケーションID→数量）
+     * This test's INVENTORY rows (product ID/location ID without the prefix, to quantity)
+     */
+    private Map<String, Long> stored() {
+        return jdbcTemplate.queryForList("SELECT PRODUCT_ID, LOCATION_ID, QUANTITY FROM INVENTORY WHERE PRODUCT_ID LIKE ?",
+                        prefix + "%")
+                .stream()
+                .collect(Collectors.toMap(
+                        row -> ((String) row.get("PRODUCT_ID")).substring(prefix.length()) + "/"
+                                + ((String) row.get("LOCATION_ID")).substring(prefix.length()),
+                        row -> ((Number) row.get("QUANTITY")).longValue()));
+    }
+    
+    /**
+     * 商品ID・ロケーションIDに接頭辞を付けた棚卸CSV
+     * Stocktake CSV with the prefix added to the product and location IDs
+     */
+    private ByteArrayInputStream csv(String... rows) {
+        StringBuilder body = new StringBuilder("productId,locationId,countedQty\n");
+        for (String row : rows) {
+            String[] fields = row.split(",");
+            body.append(prefix).append(fields[0]).append(',').append(prefix).append(fields[1]).append(',').append(fields[2]).append('\n');
+        }
+        return new ByteArrayInputStream(body.toString().getBytes(StandardCharsets.UTF_8));
+    }
+}
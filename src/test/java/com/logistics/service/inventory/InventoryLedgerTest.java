@@ -0,0 +1,210 @@
+package com.logistics.service.inventory;
+
+import com.logistics.entity.Inventory;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class InventoryLedgerTest {
+    
+    private final InventoryLedger ledger = new InventoryLedger();
+    
+    @Test
+    void applyRejectsGoingBelowZero() {
+        ledger.apply("P1", "L1", 5);
+        
+        assertThatThrownBy(() -> ledger.apply("P1", "L1", -6)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> ledger.apply("P1", "L2", -1)).isInstanceOf(IllegalArgumentException.class);
+        assertThat(ledger.get("P1", "L1").getQuantity()).isEqualTo(5);
+    }
+    
+    @Test
+    void takeNeverTakesMoreThanAvailable() {
+        ledger.apply("P1", "L1", 3);
+        
+        assertThat(ledger.take("P1", "L1", 5)).isEqualTo(3);
+        assertThat(ledger.take("P1", "L1", 5)).isZero();
+        assertThat(ledger.total("P1")).isZero();
+    }
+    
+    @Test
+    void totalsByProductAndLocation() {
+        ledger.apply("P1", "L1", 3);
+        ledger.apply("P1", "L2", 4);
+        ledger.apply("P2", "L1", 5);
+        
+        assertThat(ledger.total("P1")).isEqualTo(7);
+        assertThat(ledger.totalAt("L1")).isEqualTo(8);
+        assertThat(ledger.getByProduct("P1")).extracting(Inventory::getLocationId).containsExactly("L1", "L2");
+    }
+    
+    @Test
+    void drainedDeltasAddUpAndKeepTheirInventoryId() {
+        ledger.apply("P1", "L1", 10);
+        ledger.apply("P1", "L1", -4);
+        AtomicLong ids = new AtomicLong();
+        
+        List<Inventory> deltas = ledger.drainBatch(ids::incrementAndGet).getDeltas();
+        assertThat(deltas).singleElement().satisfies(delta -> assertThat(delta.getQuantity()).isEqualTo(6));
+        assertThat(ledger.dirtyCount()).isZero();
+        
+        ledger.apply("P1", "L1", 1);
+        List<Inventory> next = ledger.drainBatch(ids::incrementAndGet).getDeltas();
+        assertThat(next).singleElement().satisfies(delta -> {
+            assertThat(delta.getQuantity()).isEqualTo(1);
+            // 2回目以降も同じ在庫IDで登録する
+            assertThat(delta.getInventoryId()).isEqualTo(deltas.get(0).getInventoryId());
+        });
+        assertThat(ledger.get("P1", "L1").getQuantity()).isEqualTo(7);
+    }
+    
+    @Test
+    void everyDrainedBatchMatchesItsJournalSegment() throws InterruptedException {
+        Map<Long, Long> journaled = new ConcurrentHashMap<>();
+        AtomicLong segment = new AtomicLong(1);
+        ledger.attachJournal(new InventoryLedger.DeltaJournal() {
+            @Override
+            public void append(String productId, String locationId, long delta) {
+                journaled.merge(segment.get(), delta, Long::sum);
+            }
+            
+            @Override
+            public long rotate() {
+                return segment.getAndIncrement();
+            }
+        });
+        AtomicBoolean done = new AtomicBoolean();
+        List<Thread> writers = new ArrayList<>();
+        for (int w = 0; w < 4; w++) {
+            String locationId = "L" + w;
+            writers.add(new Thread(() -> {
+                while (!done.get()) {
+                    ledger.apply("P1", locationId, 2);
+                    ledger.apply("P1", locationId, -1);
+                }
+            }));
+        }
+        writers.forEach(Thread::start);
+        Map<Long, Long> drained = new HashMap<>();
+        for (int i = 0; i < 200; i++) {
+            InventoryLedger.DeltaBatch batch = ledger.drainBatch(() -> 1L);
+            drained.put(batch.getBatchId(), batch.getDeltas().stream().mapToLong(Inventory::getQuantity).sum());
+        }
+        done.set(true);
+        for (Thread writer : writers) {
+            writer.join();
+        }
+        InventoryLedger.DeltaBatch last = ledger.drainBatch(() -> 1L);
+        drained.put(last.getBatchId(), last.getDeltas().stream().mapToLong(Inventory::getQuantity).sum());
+        
+        for (Map.Entry<Long, Long> batch : drained.entrySet()) {
+            assertThat(journaled.getOrDefault(batch.getKey(), 0L)).as("segment %d", batch.getKey()).isEqualTo(batch.getValue());
+        }
+        assertThat(drained.values().stream().mapToLong(Long::longValue).sum()).isEqualTo(ledger.total("P1"));
+    }
+    
+    @Test
+    void listenerFailureDoesNotFailTheWriter() {
+        List<String> seen = new ArrayList<>();
+        ledger.addListener(productId -> {
+            throw new IllegalStateException("listener failure");
+        });
+        ledger.addListener(seen::add);
+        
+        assertThat(ledger.apply("P1", "L1", 1).getQuantity()).isEqualTo(1);
+        assertThat(seen).containsExactly("P1");
+    }
+    
+    @Test
+    void readersNeverSeeIndexedKeysWithoutCells() throws InterruptedException {
+        int writers = 4;
+        int cellsPerWriter = 5_000;
+        AtomicBoolean done = new AtomicBoolean();
+        ConcurrentLinkedQueue<Throwable> failures = new ConcurrentLinkedQueue<>();
+        CountDownLatch start = new CountDownLatch(1);
+        
+        List<Thread> threads = new ArrayList<>();
+        for (int w = 0; w < writers; w++) {
+            int writer = w;
+            threads.add(new Thread(() -> {
+                await(start);
+                for (int i = 0; i < cellsPerWriter; i++) {
+                    ledger.apply("P1", "L" + writer + "-" + i, 1);
+                    ledger.apply("P" + writer + "-" + i, "L1", 1);
+                }
+            }));
+        }
+        Thread reader = new Thread(() -> {
+            await(start);
+            try {
+                while (!done.get()) {
+                    ledger.total("P1");
+                    ledger.totalAt("L1");
+                    ledger.getByProduct("P1");
+                }
+            } catch (Throwable e) {
+                failures.add(e);
+            }
+        });
+        threads.forEach(Thread::start);
+        reader.start();
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        done.set(true);
+        reader.join();
+        
+        assertThat(failures).isEmpty();
+        assertThat(ledger.total("P1")).isEqualTo((long) writers * cellsPerWriter);
+        assertThat(ledger.totalAt("L1")).isEqualTo((long) writers * cellsPerWriter);
+    }
+    
+    @Test
+    void changesDoNotWaitForTheSnapshotConsumer() throws InterruptedException {
+        ledger.apply("P1", "L1", 5);
+        ledger.apply("P2", "L1", 5);
+        Thread picker = new Thread(() -> {
+            ledger.take("P1", "L1", 5);
+            ledger.takeWritten("P2", "L1", 5);
+        });
+        Map<String, Long> seen = new HashMap<>();
+        
+        ledger.snapshot(row -> {
+            if (seen.isEmpty()) {
+                // 受け取り処理の途中で引当を行う：ロックは解放済みのため待たされず、スナップショットの値も変わらない
+                picker.start();
+                try {
+                    picker.join(5_000);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                assertThat(picker.isAlive()).isFalse();
+            }
+            seen.put(row.getProductId(), row.getQuantity());
+        });
+        
+        assertThat(seen).containsEntry("P1", 5L).containsEntry("P2", 5L);
+        assertThat(ledger.total("P1")).isZero();
+        assertThat(ledger.total("P2")).isZero();
+    }
+    
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
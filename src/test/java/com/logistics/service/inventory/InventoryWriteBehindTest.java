@@ -0,0 +1,342 @@
+package com.logistics.service.inventory;
+
+import com.logistics.entity.Inventory;
+import com.logistics.mapper.InventoryFlushMapper;
+import com.logistics.mapper.InventoryMapper;
+import com.logistics.service.support.BatchSqlSession;
+import com.logistics.service.support.IdAllocator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionSystemException;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 書き戻しの再試行と異常終了後の再生で差分が二重に反映されないことを、sql/*.sqlで作成したH2（Oracle互換モード）の
+ * INVENTORYとINVENTORY_FLUSHの行で確認する。コミットの失敗と応答の喪失は実際のトランザクションの前後で起こす。
+ * Checks on the INVENTORY and INVENTORY_FLUSH rows of H2 in Oracle mode (schema from sql/*.sql) that retries and
+ * crash replays never apply a delta twice. Commit failures and lost acknowledgements wrap real transactions.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ActiveProfiles("h2")
+class InventoryWriteBehindTest {
+    
+    @TempDir
+    Path journalDir;
+    
+    @Autowired
+    private InventoryMapper inventoryMapper;
+    
+    @Autowired
+    private InventoryFlushMapper flushMapper;
+    
+    @Autowired
+    private BatchSqlSession batchSqlSession;
+    
+    @Autowired
+    private IdAllocator idAllocator;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Autowired
+    private DataSource dataSource;
+    
+    private JdbcTemplate jdbcTemplate;
+    
+    private FaultyTransactionTemplate transactionTemplate;
+    
+    private final List<InventoryJournal> journals = new ArrayList<>();
+    
+    /**
+     * テストごとのID接頭辞（同じDBを共有する他のテストと区別する）
+     * Per-test ID prefix (tells this test's rows apart from other tests sharing the DB)
+     */
+    private final String prefix = UUID.randomUUID().toString().substring(0, 8) + "-";
+    
+    private String p1;
+    
+    private String p2;
+    
+    private String l1;
+    
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        transactionTemplate = new FaultyTransactionTemplate(transactionManager);
+        p1 = prefix + "P1";
+        p2 = prefix + "P2";
+        l1 = prefix + "L1";
+        for (String productId : List.of(p1, p2)) {
+            jdbcTemplate.update("INSERT INTO PRODUCT_MASTER (PRODUCT_ID, PRODUCT_NAME, UNIT) VALUES (?, 'Item', 'pcs')", productId);
+        }
+        jdbcTemplate.update("INSERT INTO LOCATION_MASTER (LOCATION_ID, WAREHOUSE_CODE) VALUES (?, 'W1')", l1);
+    }
+    
+    @AfterEach
+    void closeJournals() {
+        journals.forEach(InventoryJournal::close);
+    }
+    
+    @Test
+    void batchWhoseAcknowledgementWasLostIsNotAppliedAgain() throws Exception {
+        InventoryLedger ledger = new InventoryLedger();
+        InventoryWriteBehind writeBehind = start(ledger);
+        ledger.apply(p1, l1, 10);
+        long batchId = currentBatchId();
+        
+        transactionTemplate.loseAcknowledgement = true;
+        writeBehind.flush();
+        assertThat(writeBehind.getInDoubtBatches()).isEqualTo(1);
+        assertThat(quantity(p1)).isEqualTo(10);
+        
+        ledger.apply(p1, l1, 5);
+        writeBehind.flush();
+        
+        assertThat(quantity(p1)).isEqualTo(15);
+        assertThat(flushRecords(batchId)).isEqualTo(1);
+        assertThat(writeBehind.getInDoubtBatches()).isZero();
+        assertThat(writeBehind.getFlushLagMs()).isZero();
+        assertThat(journalSegments()).hasSize(1);
+    }
+    
+    @Test
+    void batchThatDidNotCommitIsRetriedUnderTheSameBatchId() throws Exception {
+        InventoryLedger ledger = new InventoryLedger();
+        InventoryWriteBehind writeBehind = start(ledger);
+        ledger.apply(p1, l1, 10);
+        long batchId = currentBatchId();
+        
+        transactionTemplate.failBeforeCommit = true;
+        writeBehind.flush();
+        assertThat(quantity(p1)).isNull();
+        assertThat(flushRecords(batchId)).isZero();
+        assertThat(ledger.dirtyCount()).isZero();
+        
+        ledger.apply(p1, l1, -3);
+        writeBehind.flush();
+        
+        assertThat(quantity(p1)).isEqualTo(7);
+        assertThat(flushRecords(batchId)).isEqualTo(1);
+        assertThat(writeBehind.getInDoubtBatches()).isZero();
+    }
+    
+    @Test
+    void rowInsertedByAnotherTransactionIsMergedIntoNotDuplicated() throws Exception {
+        InventoryLedger ledger = new InventoryLedger();
+        InventoryWriteBehind writeBehind = start(ledger);
+        ledger.apply(p1, l1, 10);
+        // 入荷（receiveAsn）が同じ商品×ロケーションの行を先に登録してコミット
+        jdbcTemplate.update("INSERT INTO INVENTORY (INVENTORY_ID, PRODUCT_ID, LOCATION_ID, QUANTITY) VALUES (?, ?, ?, 5)",
+                idAllocator.next(IdAllocator.Sequence.INVENTORY_SEQ), p1, l1);
+        
+        writeBehind.flush();
+        
+        assertThat(quantity(p1)).isEqualTo(15);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM INVENTORY WHERE PRODUCT_ID = ?", Integer.class, p1))
+                .isEqualTo(1);
+        assertThat(writeBehind.getDroppedDeltas()).isZero();
+    }
+    
+    @Test
+    void persistentDuplicateKeyHoldsTheBatchInsteadOfDroppingTheDelta() throws Exception {
+        InventoryLedger ledger = new InventoryLedger();
+        InventoryWriteBehind writeBehind = start(ledger);
+        // セルの在庫IDを別の行が使っている：MERGEの挿入側が主キーに違反し続ける
+        long takenId = idAllocator.next(IdAllocator.Sequence.INVENTORY_SEQ);
+        jdbcTemplate.update("INSERT INTO INVENTORY (INVENTORY_ID, PRODUCT_ID, LOCATION_ID, QUANTITY) VALUES (?, ?, ?, 1)",
+                takenId, p2, l1);
+        ledger.load(source -> source.accept(Inventory.builder()
+                .productId(p1)
+                .locationId(l1)
+                .quantity(0L)
+                .inventoryId(takenId)
+                .build()));
+        ledger.apply(p1, l1, 10);
+        long batchId = currentBatchId();
+        
+        writeBehind.flush();
+        assertThat(writeBehind.getInDoubtBatches()).isEqualTo(1);
+        assertThat(writeBehind.getDroppedDeltas()).isZero();
+        assertThat(flushRecords(batchId)).isZero();
+        
+        jdbcTemplate.update("DELETE FROM INVENTORY WHERE INVENTORY_ID = ?", takenId);
+        writeBehind.flush();
+        
+        assertThat(quantity(p1)).isEqualTo(10);
+        assertThat(flushRecords(batchId)).isEqualTo(1);
+        assertThat(writeBehind.getInDoubtBatches()).isZero();
+    }
+    
+    @Test
+    void deltaViolatingAForeignKeyIsDroppedAndTheRestWritten() throws Exception {
+        InventoryLedger ledger = new InventoryLedger();
+        InventoryWriteBehind writeBehind = start(ledger);
+        ledger.apply(p1, l1, 10);
+        ledger.apply(prefix + "GONE", l1, 4);
+        
+        writeBehind.flush();
+        
+        assertThat(quantity(p1)).isEqualTo(10);
+        assertThat(quantity(prefix + "GONE")).isNull();
+        assertThat(writeBehind.getDroppedDeltas()).isEqualTo(1);
+        assertThat(writeBehind.getInDoubtBatches()).isZero();
+    }
+    
+    @Test
+    void crashIsReplayedFromTheJournalExactlyOnce() throws Exception {
+        InventoryLedger ledger = new InventoryLedger();
+        InventoryWriteBehind writeBehind = start(ledger);
+        ledger.apply(p1, l1, 10);
+        transactionTemplate.loseAcknowledgement = true;
+        writeBehind.flush();
+        ledger.apply(p1, l1, 4);
+        ledger.apply(p2, l1, 6);
+        ledger.apply(p2, l1, -6);
+        journals.get(0).writePending();
+        // ここで異常終了：保留中のバッチ（コミット済み）と未反映の差分がジャーナルに残る
+        assertThat(journalSegments()).hasSize(2);
+        
+        InventoryLedger restarted = new InventoryLedger();
+        start(restarted);
+        
+        assertThat(quantity(p1)).isEqualTo(14);
+        assertThat(quantity(p2)).isNull();
+        assertThat(restarted.get(p1, l1).getQuantity()).isEqualTo(14);
+        assertThat(journalSegments()).hasSize(1);
+    }
+    
+    @Test
+    void truncatedLastRecordIsIgnored() throws Exception {
+        InventoryJournal journal = new InventoryJournal(true, journalDir.toString(), 1);
+        journals.add(journal);
+        journal.recover();
+        journal.open();
+        journal.append("P1", "L1", 3);
+        journal.append("P1", "L1", 4);
+        journal.writePending();
+        Path segment = journalSegments().get(0);
+        byte[] bytes = Files.readAllBytes(segment);
+        Files.write(segment, Arrays.copyOf(bytes, bytes.length - 5));
+        
+        List<InventoryJournal.Segment> segments = new InventoryJournal(true, journalDir.toString(), 1).recover();
+        
+        assertThat(segments).singleElement().satisfies(recovered ->
+                assertThat(recovered.deltas()).singleElement().satisfies(delta -> assertThat(delta.getQuantity()).isEqualTo(3)));
+    }
+    
+    @Test
+    void concurrentAppendsAreAllWrittenBySync() throws Exception {
+        InventoryJournal journal = new InventoryJournal(true, journalDir.toString(), 1);
+        journal.recover();
+        journal.open();
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            String productId = "P" + t;
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 1000; i++) {
+                    journal.append(productId, "L1", 1);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        journal.rotate();
+        journal.sync();
+        journal.close();
+        
+        List<InventoryJournal.Segment> segments = new InventoryJournal(true, journalDir.toString(), 1).recover();
+        
+        assertThat(segments.get(0).deltas()).hasSize(threads.length)
+                .allSatisfy(delta -> assertThat(delta.getQuantity()).isEqualTo(1000));
+        assertThat(journal.getAppended()).isEqualTo(8000);
+        assertThat(journal.getWriteFailures()).isZero();
+    }
+    
+    private InventoryWriteBehind start(InventoryLedger ledger) {
+        InventoryJournal journal = new InventoryJournal(true, journalDir.toString(), 1);
+        journals.add(journal);
+        InventoryWriteBehind writeBehind = new InventoryWriteBehind(ledger, inventoryMapper, flushMapper, journal,
+                batchSqlSession, transactionTemplate, Runnable::run, idAllocator);
+        ReflectionTestUtils.setField(writeBehind, "flushRecordRetentionHours", 168L);
+        writeBehind.loadOnStartup();
+        return writeBehind;
+    }
+    
+    private Long quantity(String productId) {
+        List<Long> rows = jdbcTemplate.queryForList("SELECT QUANTITY FROM INVENTORY WHERE PRODUCT_ID = ? AND LOCATION_ID = ?",
+                Long.class, productId, l1);
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+    
+    private int flushRecords(long batchId) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM INVENTORY_FLUSH WHERE FLUSH_ID = ?", Integer.class, batchId);
+    }
+    
+    /**
+     * 書き込み中のセグメントのバッチID（次に取り出されるバッチのID）
+     * Batch ID of the segment being written (the ID of the next drained batch)
+     */
+    private long currentBatchId() throws Exception {
+        String name = journalSegments().get(0).getFileName().toString();
+        return Long.parseLong(name.substring("inventory-".length(), name.length() - ".journal".length()));
+    }
+    
+    private List<Path> journalSegments() throws Exception {
+        try (var files = Files.list(journalDir)) {
+            return files.sorted().toList();
+        }
+    }
+    
+    /**
+     * コミット前の失敗（ロールバック）と、コミット後の応答の喪失を1回ずつ起こせるトランザクションテンプレート
+     * Transaction template that can fail once before the commit (rolling back) or lose the acknowledgement once after it
+     */
+    private static final class FaultyTransactionTemplate extends TransactionTemplate {
+        
+        private boolean failBeforeCommit;
+        
+        private boolean loseAcknowledgement;
+        
+        private FaultyTransactionTemplate(PlatformTransactionManager transactionManager) {
+            super(transactionManager);
+        }
+        
+        @Override
+        public <T> T execute(TransactionCallback<T> action) {
+            if (failBeforeCommit) {
+                failBeforeCommit = false;
+                return super.execute(status -> {
+                    action.doInTransaction(status);
+                    throw new TransactionSystemException("connection lost before commit");
+                });
+            }
+            T result = super.execute(action);
+            if (loseAcknowledgement) {
+                loseAcknowledgement = false;
+                throw new TransactionSystemException("connection reset after commit");
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.logistics.service.inventory;
+
+import com.logistics.controller.dto.LowStockItem;
+import com.logistics.entity.Inventory;
+import com.logistics.entity.ProductMaster;
+import com.logistics.service.ProductMasterService;
+import com.logistics.service.event.LowStockChangeEvent;
+import com.logistics.service.event.LowStockChangeEvent.Change;
+import com.logistics.service.event.MasterDataChangeEvent;
+import com.logistics.service.event.MasterDataChangeEvent.ChangeType;
+import com.logistics.service.event.MasterDataChangeEvent.MasterType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+/**
+ * 安全在庫割れの集合の出入りと、読み込み中に届いた商品変更が読み込んだ内容で戻らないことを確認する
+ * Checks products entering and leaving the low stock set, and that product changes received during the load
+ * are not undone by the (older) loaded data
+ */
+class LowStockDetectorTest {
+    
+    private final InventoryLedger ledger = new InventoryLedger();
+    
+    private final List<LowStockChangeEvent> published = new ArrayList<>();
+    
+    /**
+     * 商品の読み込みの途中で実行する処理（読み込み中にコミットされた変更の代わり）
+     * Runs in the middle of the product export (stands in for changes committed during the load)
+     */
+    private Runnable duringExport = () -> { };
+    
+    private LowStockDetector detector;
+    
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        ProductMasterService productMasterService = mock(ProductMasterService.class);
+        doAnswer(call -> {
+            Consumer<ProductMaster> consumer = call.getArgument(0);
+            consumer.accept(product("P1", 10));
+            duringExport.run();
+            consumer.accept(product("P2", 10));
+            consumer.accept(product("P3", 10));
+            return null;
+        }).when(productMasterService).exportProducts(any(Consumer.class));
+        
+        ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+        doAnswer(call -> published.add(call.getArgument(0))).when(eventPublisher).publishEvent(any(Object.class));
+        
+        detector = new LowStockDetector(ledger, productMasterService, eventPublisher, Runnable::run);
+        ReflectionTestUtils.setField(detector, "enabled", true);
+        detector.register();
+        ledger.load(consumer -> {
+            consumer.accept(stock(1L, "P1", 5));
+            consumer.accept(stock(2L, "P2", 5));
+            consumer.accept(stock(3L, "P3", 50));
+        });
+    }
+    
+    @Test
+    void productsBelowSafetyStockAfterLoad() {
+        detector.loadOnStartup();
+        
+        assertThat(detector.isReady()).isTrue();
+        assertThat(productIds(detector.current())).containsExactly("P1", "P2");
+        assertThat(published).isEmpty();
+    }
+    
+    @Test
+    void stockChangesPublishEnteredAndLeft() {
+        detector.loadOnStartup();
+        
+        ledger.apply("P1", "L1", 5);
+        ledger.take("P3", "L1", 45);
+        
+        assertThat(productIds(detector.current())).containsExactly("P2", "P3");
+        assertThat(published).extracting(LowStockChangeEvent::getChange).containsExactly(Change.LEFT, Change.ENTERED);
+        assertThat(published).extracting(event -> event.getItem().getProductId()).containsExactly("P1", "P3");
+    }
+    
+    @Test
+    void changesDuringTheLoadWinOverTheLoadedData() {
+        duringExport = () -> {
+            // 読み込み済みのP1の削除と、これから読み込まれるP2の安全在庫0への変更
+            detector.onMasterDataChange(new MasterDataChangeEvent(MasterType.PRODUCT, ChangeType.DELETED, "P1", null));
+            detector.onMasterDataChange(new MasterDataChangeEvent(MasterType.PRODUCT, ChangeType.UPDATED, "P2", product("P2", 0)));
+            detector.onMasterDataChange(new MasterDataChangeEvent(MasterType.PRODUCT, ChangeType.UPDATED, "P3", product("P3", 100)));
+        };
+        
+        detector.loadOnStartup();
+        
+        assertThat(productIds(detector.current())).containsExactly("P3");
+    }
+    
+    @Test
+    void productChangesAfterStartReEvaluate() {
+        detector.loadOnStartup();
+        
+        detector.onMasterDataChange(new MasterDataChangeEvent(MasterType.PRODUCT, ChangeType.UPDATED, "P1", product("P1", 0)));
+        detector.onMasterDataChange(new MasterDataChangeEvent(MasterType.PRODUCT, ChangeType.CREATED, "P4", product("P4", 1)));
+        
+        assertThat(productIds(detector.current())).containsExactly("P2", "P4");
+        assertThat(published).extracting(LowStockChangeEvent::getChange).containsExactly(Change.LEFT, Change.ENTERED);
+    }
+    
+    private static ProductMaster product(String productId, int safetyStock) {
+        return ProductMaster.builder()
+                .productId(productId)
+                .productName("商品" + productId)
+                .safetyStock(safetyStock)
+                .build();
+    }
+    
+    private static Inventory stock(long inventoryId, String productId, long quantity) {
+        return Inventory.builder()
+                .inventoryId(inventoryId)
+                .productId(productId)
+                .locationId("L1")
+                .quantity(quantity)
+                .build();
+    }
+    
+    private static List<String> productIds(List<LowStockItem> items) {
+        return items.stream().map(LowStockItem::getProductId).toList();
+    }
+}
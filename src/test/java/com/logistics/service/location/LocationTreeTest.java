@@ -0,0 +1,122 @@
+package com.logistics.service.location;
+
+import com.logistics.controller.dto.LocationNode;
+import com.logistics.controller.dto.PageCursor;
+import com.logistics.entity.LocationMaster;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * ロケーション階層の容量集計・ラック単位の取得・新しい順のページングと、再構築中の変更の再適用を確認する
+ * Checks the location hierarchy's capacity rollups, rack lookups and newest-first paging, and that changes made
+ * during a rebuild are replayed
+ */
+class LocationTreeTest {
+    
+    private static final LocalDateTime T0 = LocalDateTime.of(2026, 1, 1, 9, 0);
+    
+    private final LocationTree tree = new LocationTree();
+    
+    @BeforeEach
+    void setUp() {
+        tree.rebuild(consumer -> {
+            consumer.accept(location("L1", "W1", "Z1", "R1", "2", "01", 100, T0));
+            consumer.accept(location("L2", "W1", "Z1", "R1", "1", "02", 50, T0.plusMinutes(1)));
+            consumer.accept(location("L3", "W1", "Z1", "R1", "1", "01", null, T0.plusMinutes(2)));
+            consumer.accept(location("L4", "W1", "Z2", "R9", "1", "01", 30, null));
+            consumer.accept(location("L5", "W2", null, null, null, null, 70, T0.plusMinutes(3)));
+        });
+    }
+    
+    @Test
+    void nodesRollUpCapacityAndCount() {
+        assertThat(tree.isReady()).isTrue();
+        
+        LocationNode root = tree.node(List.of()).orElseThrow();
+        assertThat(root.getTotalCapacity()).isEqualTo(250);
+        assertThat(root.getLocationCount()).isEqualTo(5);
+        
+        LocationNode warehouse = tree.node(List.of("W1")).orElseThrow();
+        assertThat(warehouse.getTotalCapacity()).isEqualTo(180);
+        assertThat(warehouse.getChildren()).extracting(LocationNode::getKey).containsExactly("Z1", "Z2");
+        assertThat(warehouse.getChildren()).extracting(LocationNode::getTotalCapacity).containsExactly(150L, 30L);
+        
+        // ゾーン・ラック未設定のロケーションは空文字のキーにまとめる
+        assertThat(tree.node(List.of("W2", "", "")).orElseThrow().getLocationCount()).isEqualTo(1);
+        assertThat(tree.node(List.of("W9"))).isEmpty();
+    }
+    
+    @Test
+    void rackListsLocationsByLevelThenPosition() {
+        assertThat(locationIds(tree.rack("W1", "Z1", "R1"))).containsExactly("L3", "L2", "L1");
+        assertThat(locationIds(tree.rack("W2", "", ""))).containsExactly("L5");
+        assertThat(tree.rack("W1", "Z1", "R2")).isEmpty();
+    }
+    
+    @Test
+    void updateMovesTheLocationAndRemoveDropsEmptyNodes() {
+        tree.put(location("L1", "W1", "Z2", "R9", "1", "02", 100, null));
+        
+        assertThat(tree.node(List.of("W1", "Z1")).orElseThrow().getTotalCapacity()).isEqualTo(50);
+        assertThat(locationIds(tree.rack("W1", "Z2", "R9"))).containsExactly("L4", "L1");
+        // 更新イベントの登録日時ではなく既存の値を引き継ぐ
+        assertThat(tree.rack("W1", "Z2", "R9").get(1).getCreatedAt()).isEqualTo(T0);
+        
+        tree.remove("L4");
+        tree.remove("L1");
+        
+        assertThat(tree.node(List.of("W1", "Z2"))).isEmpty();
+        assertThat(tree.node(List.of("W1")).orElseThrow().getTotalCapacity()).isEqualTo(50);
+    }
+    
+    @Test
+    void newestPagesByCursorWithNullsLast() {
+        List<LocationMaster> first = tree.newest(null, null, null, 3);
+        assertThat(locationIds(first)).containsExactly("L5", "L3", "L2");
+        
+        LocationMaster last = first.get(2);
+        List<LocationMaster> rest = tree.newest(null, null,
+                new PageCursor("createdAt", "DESC", last.getCreatedAt(), last.getLocationId()), 3);
+        assertThat(locationIds(rest)).containsExactly("L1", "L4");
+        
+        assertThat(locationIds(tree.newest("W1", null, null, 10))).containsExactly("L3", "L2", "L1", "L4");
+        assertThat(locationIds(tree.newest(null, "Z1", null, 10))).containsExactly("L3", "L2", "L1");
+    }
+    
+    @Test
+    void changesDuringARebuildAreReplayedOntoTheNewIndex() {
+        tree.rebuild(consumer -> {
+            consumer.accept(location("L1", "W1", "Z1", "R1", "1", "01", 100, T0));
+            // 読み込み中のコミット（読み込み済みの行の削除と、新規登録）
+            tree.remove("L1");
+            tree.put(location("L6", "W3", "Z1", "R1", "1", "01", 10, T0.plusMinutes(5)));
+            consumer.accept(location("L2", "W1", "Z1", "R1", "1", "02", 50, T0.plusMinutes(1)));
+        });
+        
+        assertThat(tree.node(List.of()).orElseThrow().getLocationCount()).isEqualTo(2);
+        assertThat(locationIds(tree.newest(null, null, null, 10))).containsExactly("L6", "L2");
+    }
+    
+    private static LocationMaster location(String locationId, String warehouseCode, String zone, String rack,
+                                           String levelNo, String position, Integer maxCapacity, LocalDateTime createdAt) {
+        return LocationMaster.builder()
+                .locationId(locationId)
+                .warehouseCode(warehouseCode)
+                .zone(zone)
+                .rack(rack)
+                .levelNo(levelNo)
+                .position(position)
+                .maxCapacity(maxCapacity)
+                .createdAt(createdAt)
+                .build();
+    }
+    
+    private static List<String> locationIds(List<LocationMaster> locations) {
+        return locations.stream().map(LocationMaster::getLocationId).toList();
+    }
+}
@@ -0,0 +1,107 @@
+package com.logistics.service.location;
+
+import com.logistics.controller.dto.PutawayCandidate;
+import com.logistics.entity.Inventory;
+import com.logistics.entity.LocationMaster;
+import com.logistics.service.LocationMasterService;
+import com.logistics.service.inventory.InventoryLedger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+
+/**
+ * 在庫の増減に合わせて入庫先の推薦順位が並べ直されることを確認する
+ * Checks that putaway recommendations are re-ranked as stock moves
+ */
+class PutawayRecommenderTest {
+    
+    private final InventoryLedger ledger = spy(new InventoryLedger());
+    
+    private PutawayRecommender recommender;
+    
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        LocationMasterService locationMasterService = mock(LocationMasterService.class);
+        doAnswer(call -> {
+            Consumer<LocationMaster> consumer = call.getArgument(0);
+            consumer.accept(location("A", "Z1", 100));
+            consumer.accept(location("B", "Z1", 80));
+            consumer.accept(location("C", "Z2", 60));
+            consumer.accept(location("D", "Z2", null));
+            return null;
+        }).when(locationMasterService).exportLocations(any(Consumer.class));
+        
+        recommender = new PutawayRecommender(ledger, locationMasterService, Runnable::run);
+        ReflectionTestUtils.setField(recommender, "enabled", true);
+        ReflectionTestUtils.setField(recommender, "maxLimit", 50);
+        recommender.register();
+        ledger.load(consumer -> consumer.accept(Inventory.builder()
+                .inventoryId(1L).productId("P1").locationId("A").quantity(30L).build()));
+        recommender.loadOnStartup();
+    }
+    
+    @Test
+    void mostRemainingCapacityFirstAndLocationsWithoutCapacitySkipped() {
+        assertThat(recommender.isReady()).isTrue();
+        assertThat(recommender.size()).isEqualTo(3);
+        
+        assertThat(locationIds(recommender.recommend("P2", 10, null, null, 5))).containsExactly("B", "A", "C");
+        assertThat(locationIds(recommender.recommend("P2", 65, null, null, 5))).containsExactly("B", "A");
+        assertThat(locationIds(recommender.recommend("P2", 10, "W1", "Z2", 5))).containsExactly("C");
+    }
+    
+    @Test
+    void stockChangesReRankLocations() {
+        ledger.apply("P2", "B", 50);
+        
+        assertThat(locationIds(recommender.recommend("P3", 10, null, null, 5))).containsExactly("A", "C", "B");
+        
+        ledger.apply("P1", "A", -30);
+        ledger.take("P2", "B", 50);
+        
+        List<PutawayCandidate> candidates = recommender.recommend("P3", 10, null, null, 5);
+        assertThat(locationIds(candidates)).containsExactly("A", "B", "C");
+        assertThat(candidates.get(0).getRemainingCapacity()).isEqualTo(100);
+    }
+    
+    @Test
+    void locationsHoldingTheProductComeFirst() {
+        List<PutawayCandidate> candidates = recommender.recommend("P1", 10, null, null, 5);
+        
+        assertThat(locationIds(candidates)).containsExactly("A", "B", "C");
+        assertThat(candidates.get(0).isHoldsProduct()).isTrue();
+    }
+    
+    @Test
+    void reRankingFailureDoesNotReachTheStockWriter() {
+        doThrow(new IllegalStateException("ledger failure")).when(ledger).totalAt("B");
+        
+        assertThatCode(() -> recommender.locationChanged("B")).doesNotThrowAnyException();
+        assertThat(ledger.apply("P2", "B", 5).getQuantity()).isEqualTo(5);
+    }
+    
+    private static LocationMaster location(String locationId, String zone, Integer maxCapacity) {
+        return LocationMaster.builder()
+                .locationId(locationId)
+                .warehouseCode("W1")
+                .zone(zone)
+                .maxCapacity(maxCapacity)
+                .build();
+    }
+    
+    private static List<String> locationIds(List<PutawayCandidate> candidates) {
+        return candidates.stream().map(PutawayCandidate::getLocationId).toList();
+    }
+}
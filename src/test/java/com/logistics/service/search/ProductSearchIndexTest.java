@@ -0,0 +1,173 @@
+package com.logistics.service.search;
+
+import com.logistics.entity.ProductMaster;
+import com.logistics.service.search.ProductSearchIndex.Entry;
+import com.logistics.service.search.ProductSearchIndex.Matches;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 部分一致検索（1・2文字のキーワードを含む）、更新・削除の削除済み扱いと詰め直し、上位k件によるページングを確認する
+ * Checks substring search (including one- and two-character keywords), tombstoning and compaction on update and
+ * delete, and top-k paging
+ */
+class ProductSearchIndexTest {
+    
+    private static final LocalDateTime T0 = LocalDateTime.of(2026, 1, 1, 9, 0);
+    
+    private static final Comparator<Entry> NEWEST_FIRST = ProductSearchIndex.comparator("createdAt", false);
+    
+    private final ProductSearchIndex index = new ProductSearchIndex();
+    
+    @BeforeEach
+    void setUp() {
+        index.rebuild(consumer -> {
+            consumer.accept(product("P001", "Bolt M6", 1));
+            consumer.accept(product("P002", "Bolt M8", 2));
+            consumer.accept(product("P003", "Nut M6", 3));
+            consumer.accept(product("P004", "abcXbcd", 4));
+            consumer.accept(product("Q005", "ボルト", 5));
+        });
+    }
+    
+    @Test
+    void keywordMatchesNameOrIdAsACaseSensitiveSubstring() {
+        assertThat(ids("Bolt")).containsExactly("P002", "P001");
+        assertThat(ids("M6")).containsExactly("P003", "P001");
+        assertThat(ids("P00")).containsExactly("P004", "P003", "P002", "P001");
+        assertThat(ids("bolt")).isEmpty();
+        // 全グラムが揃っていても連続していなければ一致しない
+        assertThat(ids("abcd")).isEmpty();
+        assertThat(ids("Xbcd")).containsExactly("P004");
+    }
+    
+    @Test
+    void shortKeywordsAreAnsweredFromTheirOwnGrams() {
+        assertThat(ids("6")).containsExactly("P003", "P001");
+        assertThat(ids("ルト")).containsExactly("Q005");
+        assertThat(ids("Q")).containsExactly("Q005");
+        assertThat(ids("Z")).isEmpty();
+        
+        index.remove("P003");
+        index.put(product("P001", "Washer", 1));
+        
+        assertThat(ids("6")).isEmpty();
+        assertThat(ids("W")).containsExactly("P001");
+    }
+    
+    @Test
+    void updateTombstonesTheOldEntryAndKeepsTheCreationTime() {
+        index.put(ProductMaster.builder().productId("P001").productName("Screw M6").safetyStock(0).build());
+        
+        assertThat(ids("Bolt")).containsExactly("P002");
+        assertThat(ids("Screw")).containsExactly("P001");
+        assertThat(search("M6", NEWEST_FIRST, null, 0, 10).getPage().get(1).getCreatedAt()).isEqualTo(T0.plusMinutes(1));
+        assertThat(index.size()).isEqualTo(5);
+        
+        index.remove("P001");
+        index.remove("P999");
+        
+        assertThat(ids("M6")).containsExactly("P003");
+        assertThat(index.size()).isEqualTo(4);
+    }
+    
+    @Test
+    void compactionKeepsEveryLiveEntrySearchable() {
+        index.rebuild(consumer -> {
+            for (int i = 0; i < 3000; i++) {
+                consumer.accept(product(String.format("X%04d", i), "Item " + i, i));
+            }
+        });
+        // 半数超の削除で詰め直しが起きた後も、残りと新規分が検索できる
+        for (int i = 0; i < 2000; i++) {
+            index.remove(String.format("X%04d", i));
+        }
+        index.put(product("X2999", "Renamed", 2999));
+        index.put(product("X3000", "Item 3000", 3000));
+        
+        assertThat(index.size()).isEqualTo(1001);
+        assertThat(search("Item", NEWEST_FIRST, null, 0, 5000).getTotal()).isEqualTo(1000);
+        assertThat(ids("Item 19")).isEmpty();
+        assertThat(ids("Item 2998")).containsExactly("X2998");
+        assertThat(ids("Renamed")).containsExactly("X2999");
+        List<String> containingNine = new ArrayList<>();
+        for (int i = 3000; i >= 2000; i--) {
+            String productId = String.format("X%04d", i);
+            if (productId.contains("9") || (i != 2999 && ("Item " + i).contains("9"))) {
+                containingNine.add(productId);
+            }
+        }
+        assertThat(ids("9")).isEqualTo(containingNine);
+    }
+    
+    @Test
+    void pagesByOffsetAndCursorKeepingOnlyTheTopMatches() {
+        index.rebuild(consumer -> {
+            for (int i = 0; i < 25; i++) {
+                consumer.accept(product(String.format("P%03d", i), "Bolt", i % 5));
+            }
+        });
+        Comparator<Entry> order = ProductSearchIndex.comparator("createdAt", true);
+        List<String> expected = new ArrayList<>();
+        for (int minute = 0; minute < 5; minute++) {
+            for (int i = minute; i < 25; i += 5) {
+                expected.add(String.format("P%03d", i));
+            }
+        }
+        
+        Matches second = search("Bolt", order, null, 10, 10);
+        assertThat(second.getTotal()).isEqualTo(25);
+        assertThat(second.isLast()).isFalse();
+        assertThat(productIds(second.getPage())).isEqualTo(expected.subList(10, 20));
+        
+        List<String> walked = new ArrayList<>();
+        Entry after = null;
+        Matches page;
+        do {
+            page = search("Bolt", order, after, 0, 7);
+            walked.addAll(productIds(page.getPage()));
+            Entry last = page.getPage().get(page.getPage().size() - 1);
+            after = Entry.probe("createdAt", last.getCreatedAt(), last.getProductId());
+        } while (!page.isLast());
+        assertThat(walked).isEqualTo(expected);
+        
+        Matches beyond = search("Bolt", order, null, 30, 10);
+        assertThat(beyond.getPage()).isEmpty();
+        assertThat(beyond.isLast()).isTrue();
+    }
+    
+    @Test
+    void changesDuringARebuildAreReplayedOntoTheNewIndex() {
+        index.rebuild(consumer -> {
+            consumer.accept(product("P001", "Bolt M6", 1));
+            index.put(product("P009", "Bolt M10", 9));
+            index.remove("P001");
+        });
+        
+        assertThat(ids("Bolt")).containsExactly("P009");
+    }
+    
+    private Matches search(String keyword, Comparator<Entry> order, Entry after, int offset, int limit) {
+        return index.search(keyword, order, after, offset, limit);
+    }
+    
+    private List<String> ids(String keyword) {
+        return productIds(search(keyword, NEWEST_FIRST, null, 0, 10_000).getPage());
+    }
+    
+    private static List<String> productIds(List<Entry> entries) {
+        return entries.stream().map(Entry::getProductId).toList();
+    }
+    
+    private static ProductMaster product(String productId, String productName, int minutes) {
+        return ProductMaster.builder().productId(productId).productName(productName).safetyStock(0)
+                .createdAt(T0.plusMinutes(minutes)).build();
+    }
+}
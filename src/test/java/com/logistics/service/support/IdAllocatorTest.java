@@ -0,0 +1,108 @@
+package com.logistics.service.support;
+
+import com.logistics.mapper.SequenceMapper;
+import com.logistics.service.support.IdAllocator.Sequence;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.BadSqlGrammarException;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * シーケンスの刻み幅の起動時確認と、ブロック単位での払い出しを確認する
+ * Checks the startup check of sequence increments and that IDs are handed out block by block
+ */
+class IdAllocatorTest {
+    
+    private final SequenceMapper sequenceMapper = mock(SequenceMapper.class);
+    
+    private IdAllocator allocator;
+    
+    @BeforeEach
+    void setUp() {
+        allocator = new IdAllocator(sequenceMapper, Runnable::run);
+        ReflectionTestUtils.setField(allocator, "blockSize", 50);
+        when(sequenceMapper.findIncrementBy(anyString())).thenReturn(50L);
+    }
+    
+    @Test
+    void startsWhenEverySequenceIncrementsByTheBlockSize() {
+        assertThatCode(allocator::verifySequences).doesNotThrowAnyException();
+    }
+    
+    @Test
+    void refusesToStartWhenASequenceIncrementsByLessThanTheBlockSize() {
+        when(sequenceMapper.findIncrementBy("SHIPMENT_SEQ")).thenReturn(1L);
+        
+        assertThatThrownBy(allocator::verifySequences)
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("SHIPMENT_SEQ increments by 1");
+    }
+    
+    @Test
+    void refusesToStartWhenASequenceIsMissing() {
+        when(sequenceMapper.findIncrementBy("LOG_SEQ")).thenReturn(null);
+        
+        assertThatThrownBy(allocator::verifySequences)
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("LOG_SEQ does not exist");
+    }
+    
+    @Test
+    void skipsTheCheckWhereTheDictionaryViewDoesNotExist() {
+        when(sequenceMapper.findIncrementBy(anyString()))
+                .thenThrow(new BadSqlGrammarException("findIncrementBy", "SELECT", new SQLException("not found")));
+        
+        assertThatCode(allocator::verifySequences).doesNotThrowAnyException();
+    }
+    
+    @Test
+    void databaseUnavailableAtStartupIsCheckedOnFirstFetch() {
+        when(sequenceMapper.findIncrementBy(anyString()))
+                .thenThrow(new CannotGetJdbcConnectionException("Failed to obtain JDBC Connection"));
+        assertThatCode(allocator::verifySequences).doesNotThrowAnyException();
+        
+        doReturn(1L).when(sequenceMapper).findIncrementBy(anyString());
+        
+        assertThatThrownBy(() -> allocator.next(Sequence.STOCKTAKE_SEQ))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("STOCKTAKE_SEQ increments by 1");
+        verify(sequenceMapper, never()).nextVal(anyString());
+    }
+    
+    @Test
+    void handsOutEachReservedBlockInOrder() {
+        AtomicLong sequence = new AtomicLong();
+        when(sequenceMapper.nextVal("INCOMING_SEQ")).thenAnswer(call -> sequence.addAndGet(50));
+        
+        long[] ids = LongStream.range(0, 120).map(i -> allocator.next(Sequence.INCOMING_SEQ)).toArray();
+        
+        assertThat(ids).containsExactly(LongStream.rangeClosed(1, 120).toArray());
+    }
+    
+    @Test
+    void sequenceThatAdvancesByLessThanTheBlockSizeIsRejected() {
+        AtomicLong sequence = new AtomicLong();
+        when(sequenceMapper.nextVal("LOG_SEQ")).thenAnswer(call -> sequence.addAndGet(1));
+        
+        assertThatThrownBy(() -> {
+            for (int i = 0; i < 100; i++) {
+                allocator.next(Sequence.LOG_SEQ);
+            }
+        }).isInstanceOf(IllegalStateException.class).hasMessageContaining("LOG_SEQ advanced by 1");
+    }
+}